@@ -5,7 +5,11 @@ import static io.grpc.internal.GrpcUtil.DEFAULT_MAX_MESSAGE_SIZE;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
 import org.apache.commons.lang3.StringUtils;
@@ -30,25 +34,50 @@ import com.sequenceiq.cloudbreak.auth.altus.config.UmsConfig;
 import com.sequenceiq.cloudbreak.auth.altus.exception.UmsOperationException;
 import com.sequenceiq.cloudbreak.auth.altus.model.AltusCredential;
 import com.sequenceiq.cloudbreak.auth.security.InternalCrnBuilder;
+import com.sequenceiq.cloudbreak.grpc.ManagedChannelPool;
 import com.sequenceiq.cloudbreak.grpc.ManagedChannelWrapper;
+import com.sequenceiq.cloudbreak.grpc.interceptor.CallLatencyInterceptor;
+import com.sequenceiq.cloudbreak.grpc.interceptor.DefaultDeadlineInterceptor;
 import com.sequenceiq.cloudbreak.logger.MDCUtils;
 
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.grpc.MethodDescriptor;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 
 @Component
 public class GrpcUmsClient {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GrpcUmsClient.class);
 
+    private static final String CALL_LATENCY_METRIC = "ums.client.call.latency";
+
     @Inject
     private UmsConfig umsConfig;
 
     @Inject
     private UmsClientConfig umsClientConfig;
 
+    private ManagedChannelPool channelPool;
+
+    @PostConstruct
+    public void init() {
+        if (umsClientConfig.isSharedChannelEnabled()) {
+            LOGGER.info("Using {} shared channels for the UMS calls", umsClientConfig.getChannelPoolSize());
+            channelPool = new ManagedChannelPool(this::buildSharedChannel, umsClientConfig.getChannelPoolSize());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (channelPool != null) {
+            channelPool.close();
+        }
+    }
+
     /**
      * Retrieves list of all groups from UMS.
      *
@@ -162,6 +191,22 @@ public class GrpcUmsClient {
         }
     }
 
+    /**
+     * Retrieves users from UMS page by page.
+     *
+     * @param accountId    the account Id
+     * @param requestId    an optional request Id
+     * @param userCrns     the users to list. if null or empty then all users will be listed
+     * @param pageConsumer receives the users of each page, the pages are not retained
+     */
+    public void listUsers(String actorCrn, String accountId, List<String> userCrns, Optional<String> requestId, Consumer<List<User>> pageConsumer) {
+        try (ManagedChannelWrapper channelWrapper = makeWrapper()) {
+            UmsClient client = makeClient(channelWrapper.getChannel(), actorCrn);
+            LOGGER.debug("Listing user information page by page for account {} using request ID {}", accountId, requestId);
+            client.listUsers(requestId.orElse(UUID.randomUUID().toString()), accountId, userCrns, pageConsumer);
+        }
+    }
+
     /**
      * Retrieves machine user details from UMS.
      *
@@ -210,6 +255,23 @@ public class GrpcUmsClient {
         }
     }
 
+    /**
+     * Retrieves machine users from UMS page by page.
+     *
+     * @param accountId       the account Id
+     * @param requestId       an optional request Id
+     * @param machineUserCrns machine users to list. if null or empty then all machine users will be listed
+     * @param pageConsumer    receives the machine users of each page, the pages are not retained
+     */
+    public void listMachineUsers(String actorCrn, String accountId, List<String> machineUserCrns, Optional<String> requestId,
+            Consumer<List<MachineUser>> pageConsumer) {
+        try (ManagedChannelWrapper channelWrapper = makeWrapper()) {
+            UmsClient client = makeClient(channelWrapper.getChannel(), actorCrn);
+            LOGGER.debug("Listing machine user information page by page for account {} using request ID {}", accountId, requestId);
+            client.listMachineUsers(requestId.orElse(UUID.randomUUID().toString()), accountId, machineUserCrns, pageConsumer);
+        }
+    }
+
     /**
      * Creates new machine user, it queries against the machine user if it has already exist
      *
@@ -454,11 +516,34 @@ public class GrpcUmsClient {
     }
 
     private ManagedChannelWrapper makeWrapper() {
-        return new ManagedChannelWrapper(
-                ManagedChannelBuilder.forAddress(umsConfig.getEndpoint(), umsConfig.getPort())
-                        .usePlaintext()
-                        .maxInboundMessageSize(DEFAULT_MAX_MESSAGE_SIZE)
-                        .build());
+        if (channelPool != null) {
+            return channelPool.getWrapper();
+        }
+        return new ManagedChannelWrapper(newChannelBuilder().build());
+    }
+
+    private ManagedChannel buildSharedChannel() {
+        return newChannelBuilder()
+                .keepAliveTime(umsClientConfig.getKeepAliveSeconds(), TimeUnit.SECONDS)
+                .idleTimeout(umsClientConfig.getIdleTimeoutMinutes(), TimeUnit.MINUTES)
+                .intercept(new DefaultDeadlineInterceptor(umsClientConfig.getDeadlineSeconds(), TimeUnit.SECONDS),
+                        new CallLatencyInterceptor(this::recordCallLatency))
+                .build();
+    }
+
+    private ManagedChannelBuilder<?> newChannelBuilder() {
+        return ManagedChannelBuilder.forAddress(umsConfig.getEndpoint(), umsConfig.getPort())
+                .usePlaintext()
+                .maxInboundMessageSize(DEFAULT_MAX_MESSAGE_SIZE);
+    }
+
+    private void recordCallLatency(MethodDescriptor<?, ?> method, Status status, long durationNanos) {
+        Timer.builder(CALL_LATENCY_METRIC)
+                .tag("method", method.getFullMethodName())
+                .tag("status", status.getCode().name())
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
     }
 
     private UmsClient makeClient(ManagedChannel channel, String accountId) {
@@ -5,6 +5,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -180,11 +181,23 @@ public class UmsClient {
      * @return the list of users
      */
     public List<User> listUsers(String requestId, String accountId, List<String> userIdOrCrnList) {
+        List<User> users = new ArrayList<>();
+        listUsers(requestId, accountId, userIdOrCrnList, users::addAll);
+        return users;
+    }
+
+    /**
+     * Wraps calls to ListUsers with an Account ID and hands the users over page by page, so the caller does not have to keep every page.
+     *
+     * @param requestId       the request ID for the request
+     * @param accountId       the account ID
+     * @param userIdOrCrnList a list of users to list. If null or empty then all users will be listed
+     * @param pageConsumer    receives the users of each page
+     */
+    public void listUsers(String requestId, String accountId, List<String> userIdOrCrnList, Consumer<List<User>> pageConsumer) {
         checkNotNull(requestId);
         checkNotNull(accountId);
 
-        List<User> users = new ArrayList<>();
-
         ListUsersRequest.Builder requestBuilder = ListUsersRequest.newBuilder()
                 .setAccountId(accountId)
                 .setPageSize(umsClientConfig.getListUsersPageSize());
@@ -196,10 +209,9 @@ public class UmsClient {
         ListUsersResponse response;
         do {
             response = newStub(requestId).listUsers(requestBuilder.build());
-            users.addAll(response.getUserList());
+            pageConsumer.accept(response.getUserList());
             requestBuilder.setPageToken(response.getNextPageToken());
         } while (response.hasNextPageToken());
-        return users;
     }
 
     public MachineUser getMachineUser(String requestId, String userCrn) {
@@ -229,11 +241,23 @@ public class UmsClient {
      * @return the list of machine users
      */
     public List<MachineUser> listMachineUsers(String requestId, String accountId, List<String> machineUserNameOrCrnList) {
+        List<MachineUser> machineUsers = new ArrayList<>();
+        listMachineUsers(requestId, accountId, machineUserNameOrCrnList, machineUsers::addAll);
+        return machineUsers;
+    }
+
+    /**
+     * Wraps calls to ListMachineUsers with an Account ID and hands the machine users over page by page.
+     *
+     * @param requestId                the request ID for the request
+     * @param accountId                the account ID
+     * @param machineUserNameOrCrnList a list of users to list. If null or empty then all users will be listed
+     * @param pageConsumer             receives the machine users of each page
+     */
+    public void listMachineUsers(String requestId, String accountId, List<String> machineUserNameOrCrnList, Consumer<List<MachineUser>> pageConsumer) {
         checkNotNull(requestId);
         checkNotNull(accountId);
 
-        List<MachineUser> machineUsers = new ArrayList<>();
-
         ListMachineUsersRequest.Builder requestBuilder = ListMachineUsersRequest.newBuilder()
                 .setAccountId(accountId)
                 .setPageSize(umsClientConfig.getListMachineUsersPageSize());
@@ -245,10 +269,9 @@ public class UmsClient {
         ListMachineUsersResponse response;
         do {
             response = newStub(requestId).listMachineUsers(requestBuilder.build());
-            machineUsers.addAll(response.getMachineUserList());
+            pageConsumer.accept(response.getMachineUserList());
             requestBuilder.setPageToken(response.getNextPageToken());
         } while (response.hasNextPageToken());
-        return machineUsers;
     }
 
     /**
@@ -14,6 +14,21 @@ public class UmsClientConfig {
     @Value("${altus.ums.client.list_machine_users_page_size:100}")
     private int listMachineUsersPageSize;
 
+    @Value("${altus.ums.client.channel.shared.enabled:false}")
+    private boolean sharedChannelEnabled;
+
+    @Value("${altus.ums.client.channel.pool.size:2}")
+    private int channelPoolSize;
+
+    @Value("${altus.ums.client.channel.keepalive.seconds:300}")
+    private long keepAliveSeconds;
+
+    @Value("${altus.ums.client.channel.idle.timeout.minutes:30}")
+    private long idleTimeoutMinutes;
+
+    @Value("${altus.ums.client.deadline.seconds:120}")
+    private long deadlineSeconds;
+
     public int getListGroupsPageSize() {
         return listGroupsPageSize;
     }
@@ -25,4 +40,24 @@ public class UmsClientConfig {
     public int getListMachineUsersPageSize() {
         return listMachineUsersPageSize;
     }
+
+    public boolean isSharedChannelEnabled() {
+        return sharedChannelEnabled;
+    }
+
+    public int getChannelPoolSize() {
+        return channelPoolSize;
+    }
+
+    public long getKeepAliveSeconds() {
+        return keepAliveSeconds;
+    }
+
+    public long getIdleTimeoutMinutes() {
+        return idleTimeoutMinutes;
+    }
+
+    public long getDeadlineSeconds() {
+        return deadlineSeconds;
+    }
 }
@@ -19,7 +19,12 @@ public enum MetricType implements Metric {
     THREADPOOL_QUEUE_SIZE("threadpool.queue.size"),
     THREADPOOL_ACTIVE_THREADS("threadpool.threads.active"),
     THREADPOOL_THREADS_TOTAL("threadpool.threads.coresize"),
-    THREADPOOL_TASKS_COMPLETED("threadpool.tasks.completed");
+    THREADPOOL_TASKS_COMPLETED("threadpool.tasks.completed"),
+
+    PROMETHEUS_EVALUATION_LATENCY("evaluator.prometheus.latency"),
+
+    MONITOR_TICK("monitor.tick"),
+    MONITOR_BACKLOG("monitor.backlog");
 
     private final String metricName;
 
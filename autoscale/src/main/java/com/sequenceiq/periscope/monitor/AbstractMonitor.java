@@ -1,5 +1,6 @@
 package com.sequenceiq.periscope.monitor;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.RejectedExecutionException;
 
@@ -13,6 +14,7 @@ import com.sequenceiq.cloudbreak.logger.MDCBuilder;
 import com.sequenceiq.periscope.monitor.context.EvaluatorContext;
 import com.sequenceiq.periscope.monitor.evaluator.EvaluatorExecutor;
 import com.sequenceiq.periscope.monitor.executor.ExecutorServiceWithRegistry;
+import com.sequenceiq.periscope.service.PeriscopeMetricService;
 import com.sequenceiq.periscope.service.RejectedThreadService;
 
 public abstract class AbstractMonitor<M extends Monitored> implements Monitor<M> {
@@ -25,12 +27,16 @@ public abstract class AbstractMonitor<M extends Monitored> implements Monitor<M>
 
     private RejectedThreadService rejectedThreadService;
 
+    private PeriscopeMetricService metricService;
+
     @Override
     public void execute(JobExecutionContext context) {
         MDCBuilder.buildMdcContext();
         evalContext(context);
+        long start = System.currentTimeMillis();
         List<M> monitoredData = getMonitored();
         LOGGER.debug("Job started: {}, monitored: {}", context.getJobDetail().getKey(), monitoredData.size());
+        List<M> evaluated = new ArrayList<>(monitoredData.size());
         for (M monitored : monitoredData) {
             try {
                 EvaluatorExecutor evaluatorExecutor = getEvaluatorExecutorBean(monitored);
@@ -39,12 +45,16 @@ public abstract class AbstractMonitor<M extends Monitored> implements Monitor<M>
                 executorServiceWithRegistry.submitIfAbsent(evaluatorExecutor, evaluatorContext.getItemId());
                 LOGGER.debug("Successfully submitted {} for cluster {}.", evaluatorExecutor.getName(), evaluatorContext.getData());
                 rejectedThreadService.remove(evaluatorContext.getData());
-                monitored.setLastEvaluated(System.currentTimeMillis());
-                save(monitored);
+                evaluated.add(monitored);
             } catch (RejectedExecutionException ignore) {
 
             }
         }
+        saveLastEvaluated(evaluated, System.currentTimeMillis());
+        long duration = System.currentTimeMillis() - start;
+        int backlog = executorServiceWithRegistry.activeCount();
+        metricService.recordMonitorTick(getIdentifier(), duration, backlog);
+        LOGGER.debug("Job finished: {}, submitted: {}, backlog: {}, took {} ms", context.getJobDetail().getKey(), evaluated.size(), backlog, duration);
     }
 
     void evalContext(JobExecutionContext context) {
@@ -52,6 +62,7 @@ public abstract class AbstractMonitor<M extends Monitored> implements Monitor<M>
         applicationContext = (ApplicationContext) monitorContext.get(MonitorContext.APPLICATION_CONTEXT.name());
         executorServiceWithRegistry = applicationContext.getBean(ExecutorServiceWithRegistry.class);
         rejectedThreadService = applicationContext.getBean(RejectedThreadService.class);
+        metricService = applicationContext.getBean(PeriscopeMetricService.class);
     }
 
     protected ApplicationContext getApplicationContext() {
@@ -66,6 +77,16 @@ public abstract class AbstractMonitor<M extends Monitored> implements Monitor<M>
 
     protected abstract M save(M monitored);
 
+    /**
+     * Stores the evaluation time of the monitored items submitted in a tick, the items are saved one by one by default.
+     */
+    protected void saveLastEvaluated(List<M> evaluated, long lastEvaluated) {
+        for (M monitored : evaluated) {
+            monitored.setLastEvaluated(lastEvaluated);
+            save(monitored);
+        }
+    }
+
     protected RejectedThreadService getRejectedThreadService() {
         return rejectedThreadService;
     }
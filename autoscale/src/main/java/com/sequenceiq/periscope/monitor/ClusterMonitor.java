@@ -1,6 +1,7 @@
 package com.sequenceiq.periscope.monitor;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.quartz.JobExecutionContext;
 
@@ -35,6 +36,15 @@ public abstract class ClusterMonitor extends AbstractMonitor<Cluster> {
         return clusterService.save(monitored);
     }
 
+    /**
+     * Updates only the evaluation time of the clusters in batches instead of saving every cluster of the tick.
+     */
+    @Override
+    protected void saveLastEvaluated(List<Cluster> evaluated, long lastEvaluated) {
+        evaluated.forEach(cluster -> cluster.setLastEvaluated(lastEvaluated));
+        clusterService.updateLastEvaluated(evaluated.stream().map(Cluster::getId).collect(Collectors.toList()), lastEvaluated);
+    }
+
     PeriscopeNodeConfig getPeriscopeNodeConfig() {
         return periscopeNodeConfig;
     }
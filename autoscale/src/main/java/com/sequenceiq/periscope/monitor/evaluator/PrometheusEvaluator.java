@@ -2,11 +2,14 @@ package com.sequenceiq.periscope.monitor.evaluator;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
-import javax.ws.rs.client.Client;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Response;
 
@@ -17,11 +20,11 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 
-import com.sequenceiq.cloudbreak.client.RestClientUtil;
 import com.sequenceiq.cloudbreak.logger.MDCBuilder;
 import com.sequenceiq.cloudbreak.util.JaxRSUtil;
 import com.sequenceiq.periscope.domain.BaseAlert;
 import com.sequenceiq.periscope.domain.Cluster;
+import com.sequenceiq.periscope.domain.MetricType;
 import com.sequenceiq.periscope.domain.PrometheusAlert;
 import com.sequenceiq.periscope.model.PrometheusResponse;
 import com.sequenceiq.periscope.model.PrometheusResponse.Result;
@@ -32,6 +35,9 @@ import com.sequenceiq.periscope.monitor.event.ScalingEvent;
 import com.sequenceiq.periscope.monitor.event.UpdateFailedEvent;
 import com.sequenceiq.periscope.repository.PrometheusAlertRepository;
 import com.sequenceiq.periscope.service.ClusterService;
+import com.sequenceiq.periscope.service.PeriscopeMetricService;
+import com.sequenceiq.periscope.service.security.TlsRestClientCache;
+import com.sequenceiq.periscope.service.security.TlsRestClientCache.LeasedClient;
 import com.sequenceiq.periscope.service.security.TlsSecurityService;
 
 @Component("PrometheusEvaluator")
@@ -42,6 +48,8 @@ public class PrometheusEvaluator extends EvaluatorExecutor {
 
     private static final String EVALUATOR_NAME = PrometheusEvaluator.class.getName();
 
+    private static final String REGEX_META_CHARACTERS = ".^$|?*+()[]{}";
+
     @Autowired
     private ClusterService clusterService;
 
@@ -54,6 +62,12 @@ public class PrometheusEvaluator extends EvaluatorExecutor {
     @Inject
     private EventPublisher eventPublisher;
 
+    @Inject
+    private TlsRestClientCache tlsRestClientCache;
+
+    @Inject
+    private PeriscopeMetricService metricService;
+
     private long clusterId;
 
     @Override
@@ -80,60 +94,97 @@ public class PrometheusEvaluator extends EvaluatorExecutor {
             MDCBuilder.buildMdcContext(cluster);
 
             TlsConfiguration tlsConfig = tlsSecurityService.getTls(clusterId);
-            Client client = RestClientUtil.createClient(tlsConfig.getServerCert(),
-                    tlsConfig.getClientCert(), tlsConfig.getClientKey(), true);
-            String prometheusAddress = String.format("https://%s:%s/prometheus", cluster.getClusterManager().getHost(), cluster.getPort());
-            WebTarget target = client.target(prometheusAddress);
-
-            for (PrometheusAlert alert : alertRepository.findAllByCluster(clusterId)) {
-                String alertName = alert.getName();
-                LOGGER.debug("Checking Prometheus based alert: '{}'", alertName);
-                String query = URLEncoder.encode(String.format("ALERTS{alertname=\"%s\"}[%dm]", alert.getName(), alert.getPeriod()), StandardCharsets.UTF_8);
-                Response response = target
-                        .path("/api/v1/query")
-                        .queryParam("query", query)
-                        .request()
-                        .header("Accept", MediaType.APPLICATION_JSON_VALUE)
-                        .get();
-
-                PrometheusResponse prometheusResponse = JaxRSUtil.response(response, PrometheusResponse.class);
-
-                boolean triggerScale = false;
-                switch (alert.getAlertState()) {
-                    case OK:
-                        triggerScale = prometheusResponse.getData().getResult().isEmpty();
-                        break;
-
-                    case CRITICAL:
-                        for (Result alertResult : prometheusResponse.getData().getResult()) {
-                            if ("firing".equals(alertResult.getMetric().getAlertstate())) {
-                                List<Object> lastSample = alertResult.getValues().get(alertResult.getValues().size() - 1);
-                                Object alertValue = lastSample.get(1);
-                                if (alertValue instanceof String) {
-                                    if ("0".equals(alertValue)) {
-                                        break;
-                                    }
-                                    triggerScale = true;
-                                }
-                            }
+            try (LeasedClient leasedClient = tlsRestClientCache.lease(tlsConfig)) {
+                String prometheusAddress = String.format("https://%s:%s/prometheus", cluster.getClusterManager().getHost(), cluster.getPort());
+                WebTarget target = leasedClient.getClient().target(prometheusAddress);
+
+                Map<Integer, List<PrometheusAlert>> alertsByPeriod = alertRepository.findAllByCluster(clusterId).stream()
+                        .collect(Collectors.groupingBy(PrometheusAlert::getPeriod));
+                for (Entry<Integer, List<PrometheusAlert>> periodAlerts : alertsByPeriod.entrySet()) {
+                    Map<String, List<Result>> resultsByAlertName = queryAlerts(target, periodAlerts.getValue(), periodAlerts.getKey());
+                    for (PrometheusAlert alert : periodAlerts.getValue()) {
+                        LOGGER.debug("Checking Prometheus based alert: '{}'", alert.getName());
+                        if (isTriggered(alert, resultsByAlertName.getOrDefault(alert.getName(), List.of())) && isPolicyAttached(alert)) {
+                            eventPublisher.publishEvent(new ScalingEvent(alert));
                         }
-                        break;
-
-                    default:
-                        triggerScale = false;
-                        break;
-                }
-
-                if (triggerScale && isPolicyAttached(alert)) {
-                    eventPublisher.publishEvent(new ScalingEvent(alert));
+                    }
                 }
             }
         } catch (Exception e) {
             LOGGER.info("Failed to retrieve alerts from Prometheus", e);
             eventPublisher.publishEvent(new UpdateFailedEvent(clusterId));
         } finally {
-            LOGGER.debug("Finished prometheusEvaluator for cluster {} in {} ms", clusterId, System.currentTimeMillis() - start);
+            long duration = System.currentTimeMillis() - start;
+            metricService.recordTimerMetric(MetricType.PROMETHEUS_EVALUATION_LATENCY, Duration.ofMillis(duration), "cluster", String.valueOf(clusterId));
+            LOGGER.debug("Finished prometheusEvaluator for cluster {} in {} ms", clusterId, duration);
+        }
+    }
+
+    /**
+     * Fetches the alerts with the same period in a single query, the results are grouped by the name of the alerts.
+     */
+    private Map<String, List<Result>> queryAlerts(WebTarget target, List<PrometheusAlert> alerts, int period) throws Exception {
+        String alertNames = alerts.stream().map(alert -> escapeRegex(alert.getName())).distinct().collect(Collectors.joining("|"));
+        String query = URLEncoder.encode(String.format("ALERTS{alertname=~\"%s\"}[%dm]", alertNames, period), StandardCharsets.UTF_8);
+        Response response = target
+                .path("/api/v1/query")
+                .queryParam("query", query)
+                .request()
+                .header("Accept", MediaType.APPLICATION_JSON_VALUE)
+                .get();
+
+        PrometheusResponse prometheusResponse = JaxRSUtil.response(response, PrometheusResponse.class);
+        return prometheusResponse.getData().getResult().stream()
+                .filter(result -> result.getMetric() != null && result.getMetric().getAlertname() != null)
+                .collect(Collectors.groupingBy(result -> result.getMetric().getAlertname()));
+    }
+
+    private boolean isTriggered(PrometheusAlert alert, List<Result> alertResults) {
+        boolean triggerScale = false;
+        switch (alert.getAlertState()) {
+            case OK:
+                triggerScale = alertResults.isEmpty();
+                break;
+
+            case CRITICAL:
+                for (Result alertResult : alertResults) {
+                    if ("firing".equals(alertResult.getMetric().getAlertstate())) {
+                        List<Object> lastSample = alertResult.getValues().get(alertResult.getValues().size() - 1);
+                        Object alertValue = lastSample.get(1);
+                        if (alertValue instanceof String) {
+                            if ("0".equals(alertValue)) {
+                                break;
+                            }
+                            triggerScale = true;
+                        }
+                    }
+                }
+                break;
+
+            default:
+                triggerScale = false;
+                break;
+        }
+        return triggerScale;
+    }
+
+    /**
+     * Escapes the alert name for a regex matcher inside a PromQL string literal, where the backslashes of the regex have to be escaped too.
+     */
+    private String escapeRegex(String alertName) {
+        StringBuilder escaped = new StringBuilder();
+        for (char c : alertName.toCharArray()) {
+            if (c == '\\') {
+                escaped.append("\\\\\\\\");
+            } else if (REGEX_META_CHARACTERS.indexOf(c) >= 0) {
+                escaped.append("\\\\").append(c);
+            } else if (c == '"') {
+                escaped.append("\\\"");
+            } else {
+                escaped.append(c);
+            }
         }
+        return escaped.toString();
     }
 
     private boolean isPolicyAttached(BaseAlert alert) {
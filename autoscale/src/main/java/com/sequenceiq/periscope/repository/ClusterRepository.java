@@ -1,7 +1,10 @@
 package com.sequenceiq.periscope.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import javax.transaction.Transactional;
+
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -41,4 +44,10 @@ public interface ClusterRepository extends BaseRepository<Cluster, Long> {
     @Query("UPDATE Cluster c SET c.periscopeNodeId = NULL WHERE c.periscopeNodeId = :periscopeNodeId")
     void deallocateClustersOfNode(@Param("periscopeNodeId") String periscopeNodeId);
 
+    @DisableHasPermission
+    @Modifying
+    @Transactional(Transactional.TxType.REQUIRED)
+    @Query("UPDATE Cluster c SET c.lastEvaluated = :lastEvaluated WHERE c.id IN :ids")
+    int updateLastEvaluated(@Param("ids") Collection<Long> ids, @Param("lastEvaluated") long lastEvaluated);
+
 }
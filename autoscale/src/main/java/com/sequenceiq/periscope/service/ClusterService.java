@@ -5,6 +5,7 @@ import static com.sequenceiq.periscope.api.model.ClusterState.SUSPENDED;
 import static com.sequenceiq.periscope.service.NotFoundException.notFound;
 import static org.springframework.util.StringUtils.isEmpty;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.StreamSupport;
@@ -17,6 +18,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import com.google.common.collect.Iterables;
 import com.sequenceiq.cloudbreak.common.user.CloudbreakUser;
 import com.sequenceiq.periscope.api.model.ClusterState;
 import com.sequenceiq.periscope.api.model.ScalingConfigurationRequest;
@@ -36,6 +38,8 @@ public class ClusterService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ClusterService.class);
 
+    private static final int LAST_EVALUATED_UPDATE_BATCH_SIZE = 1000;
+
     @Inject
     private ClusterRepository clusterRepository;
 
@@ -124,6 +128,12 @@ public class ClusterService {
         return clusterRepository.save(cluster);
     }
 
+    public void updateLastEvaluated(Collection<Long> clusterIds, long lastEvaluated) {
+        for (List<Long> batch : Iterables.partition(clusterIds, LAST_EVALUATED_UPDATE_BATCH_SIZE)) {
+            clusterRepository.updateLastEvaluated(batch, lastEvaluated);
+        }
+    }
+
     public Cluster findById(Long clusterId) {
         return clusterRepository.findById(clusterId).orElseThrow(notFound("Cluster", clusterId));
     }
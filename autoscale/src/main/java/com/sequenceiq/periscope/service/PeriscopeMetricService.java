@@ -1,6 +1,12 @@
 package com.sequenceiq.periscope.service;
 
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.PostConstruct;
 
@@ -9,22 +15,46 @@ import org.springframework.stereotype.Service;
 import com.sequenceiq.cloudbreak.common.metrics.AbstractMetricService;
 import com.sequenceiq.periscope.domain.MetricType;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+
 @Service("MetricService")
 public class PeriscopeMetricService extends AbstractMetricService {
 
     private static final String METRIC_PREFIX = "periscope";
 
+    private static final String MONITOR_TAG = "monitor";
+
+    /**
+     * Metrics submitted with a cluster or monitor label, they are not initialized without labels as all metrics of a name must have the same
+     * labels.
+     */
+    private static final Set<MetricType> LABELED_METRICS = EnumSet.of(MetricType.PROMETHEUS_EVALUATION_LATENCY, MetricType.MONITOR_TICK,
+            MetricType.MONITOR_BACKLOG);
+
+    private final Map<String, AtomicInteger> monitorBacklogs = new ConcurrentHashMap<>();
+
     @PostConstruct
     protected void init() {
         Arrays.stream(MetricType.values())
-                .filter(m -> !gaugeMetric(m))
+                .filter(m -> !gaugeMetric(m) && !LABELED_METRICS.contains(m))
                 .forEach(this::initMicrometerMetricCounter);
 
         Arrays.stream(MetricType.values())
-                .filter(this::gaugeMetric)
+                .filter(m -> gaugeMetric(m) && !LABELED_METRICS.contains(m))
                 .forEach(m -> submit(m, 0));
     }
 
+    /**
+     * Records the duration of a monitor tick and the number of evaluators submitted and not yet finished after it.
+     */
+    public void recordMonitorTick(String monitor, long durationMillis, int backlog) {
+        Metrics.timer(getMetricName(MetricType.MONITOR_TICK), MONITOR_TAG, monitor).record(durationMillis, TimeUnit.MILLISECONDS);
+        monitorBacklogs.computeIfAbsent(monitor,
+                key -> Metrics.gauge(getMetricName(MetricType.MONITOR_BACKLOG), Tags.of(MONITOR_TAG, key), new AtomicInteger()))
+                .set(backlog);
+    }
+
     @Override
     protected String getMetricPrefix() {
         return METRIC_PREFIX;
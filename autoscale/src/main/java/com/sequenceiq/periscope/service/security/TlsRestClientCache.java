@@ -0,0 +1,137 @@
+package com.sequenceiq.periscope.service.security;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.ws.rs.client.Client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.sequenceiq.cloudbreak.client.RestClientUtil;
+import com.sequenceiq.periscope.model.TlsConfiguration;
+
+/**
+ * Shares the TLS rest clients of the clusters between the evaluations. The clients are keyed by the {@link TlsConfiguration} provided by the
+ * tlsConfigurationCache, so clusters get a new client when their certificates change. Clients that are not used for a while are evicted,
+ * an evicted client is closed when its last {@link LeasedClient} is closed, so an evaluation running on it is not cut off.
+ */
+@Service
+public class TlsRestClientCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TlsRestClientCache.class);
+
+    @Value("${periscope.restclient.cache.max.size:10000}")
+    private long maxSize;
+
+    @Value("${periscope.restclient.cache.idle.timeout.minutes:30}")
+    private long idleTimeoutMinutes;
+
+    private LoadingCache<TlsConfiguration, SharedClient> clients;
+
+    @PostConstruct
+    public void init() {
+        clients = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(idleTimeoutMinutes, TimeUnit.MINUTES)
+                .removalListener((TlsConfiguration tlsConfig, SharedClient sharedClient, RemovalCause cause) -> {
+                    LOGGER.debug("Evicting rest client, cause: {}", cause);
+                    if (sharedClient != null) {
+                        sharedClient.evict();
+                    }
+                })
+                .build(this::createClient);
+    }
+
+    public LeasedClient lease(TlsConfiguration tlsConfig) {
+        while (true) {
+            SharedClient sharedClient = clients.get(tlsConfig);
+            if (sharedClient.lease()) {
+                return new LeasedClient(sharedClient);
+            }
+            // evicted between the lookup and the lease, the removal listener may not have been notified yet
+            clients.asMap().remove(tlsConfig, sharedClient);
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        clients.invalidateAll();
+        clients.cleanUp();
+    }
+
+    private SharedClient createClient(TlsConfiguration tlsConfig) throws Exception {
+        LOGGER.debug("Creating new rest client, {} clients are cached", clients.estimatedSize());
+        return new SharedClient(createRestClient(tlsConfig));
+    }
+
+    Client createRestClient(TlsConfiguration tlsConfig) throws Exception {
+        return RestClientUtil.createClient(tlsConfig.getServerCert(), tlsConfig.getClientCert(), tlsConfig.getClientKey(), true);
+    }
+
+    public static class LeasedClient implements AutoCloseable {
+
+        private final SharedClient sharedClient;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        LeasedClient(SharedClient sharedClient) {
+            this.sharedClient = sharedClient;
+        }
+
+        public Client getClient() {
+            return sharedClient.client;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                sharedClient.release();
+            }
+        }
+    }
+
+    static class SharedClient {
+
+        private final Client client;
+
+        private int leases;
+
+        private boolean evicted;
+
+        SharedClient(Client client) {
+            this.client = client;
+        }
+
+        synchronized boolean lease() {
+            if (evicted) {
+                return false;
+            }
+            leases++;
+            return true;
+        }
+
+        synchronized void release() {
+            leases--;
+            if (evicted && leases == 0) {
+                client.close();
+            }
+        }
+
+        synchronized void evict() {
+            if (!evicted) {
+                evicted = true;
+                if (leases == 0) {
+                    client.close();
+                }
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@ import com.sequenceiq.periscope.monitor.handler.PersistRejectedThreadExecutionHa
 import com.sequenceiq.periscope.repository.FailedNodeRepository;
 import com.sequenceiq.periscope.service.AmbariClientProvider;
 import com.sequenceiq.periscope.service.ClusterService;
+import com.sequenceiq.periscope.service.PeriscopeMetricService;
 import com.sequenceiq.periscope.service.RejectedThreadService;
 import com.sequenceiq.periscope.service.configuration.CloudbreakClientConfiguration;
 import com.sequenceiq.periscope.service.evaluator.HostHealthEvaluatorService;
@@ -60,7 +61,7 @@ public class RejectedThreadContext {
                     })
     )
     @MockBean({Clock.class, ClusterService.class, AmbariClientProvider.class, CloudbreakClientConfiguration.class,
-            MetricUtils.class, InternalCrnBuilder.class, FailedNodeRepository.class})
+            MetricUtils.class, InternalCrnBuilder.class, FailedNodeRepository.class, PeriscopeMetricService.class})
     @EnableAsync
     public static class SpringConfig implements AsyncConfigurer {
 
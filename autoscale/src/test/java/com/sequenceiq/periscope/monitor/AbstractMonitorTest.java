@@ -1,7 +1,11 @@
 package com.sequenceiq.periscope.monitor;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -25,6 +29,7 @@ import com.sequenceiq.periscope.monitor.context.EvaluatorContext;
 import com.sequenceiq.periscope.monitor.evaluator.EvaluatorExecutor;
 import com.sequenceiq.periscope.monitor.executor.ExecutorServiceWithRegistry;
 import com.sequenceiq.periscope.service.ClusterService;
+import com.sequenceiq.periscope.service.PeriscopeMetricService;
 import com.sequenceiq.periscope.service.RejectedThreadService;
 import com.sequenceiq.periscope.service.ha.PeriscopeNodeConfig;
 
@@ -49,6 +54,9 @@ public class AbstractMonitorTest {
     @Mock
     private RejectedThreadService rejectedThreadService;
 
+    @Mock
+    private PeriscopeMetricService metricService;
+
     @Mock
     private Monitored monitored;
 
@@ -72,6 +80,24 @@ public class AbstractMonitorTest {
         verify(executorServiceWithRegistry).submitIfAbsent(testExecutor, CLUSTER_ID);
         verify(monitored).setLastEvaluated(anyLong());
         verify(rejectedThreadService).remove(CLUSTER_ID);
+        verify(metricService).recordMonitorTick(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    public void testExecuteUpdatesLastEvaluatedOfClustersInBatch() {
+        List<Cluster> clusterList = getClusters();
+        when(periscopeNodeConfig.getId()).thenReturn("nodeId");
+        when(clusterService.findAllForNode(ClusterState.RUNNING, true, "nodeId")).thenReturn(clusterList);
+        JobExecutionContext context = getContext();
+        ApplicationContext applicationContext = (ApplicationContext) context.getJobDetail().getJobDataMap().get("APPLICATION_CONTEXT");
+        when(applicationContext.getBean("CronTimeEvaluator", EvaluatorExecutor.class)).thenReturn(testExecutor);
+
+        new TimeMonitor().execute(context);
+
+        verify(executorServiceWithRegistry).submitIfAbsent(testExecutor, CLUSTER_ID);
+        verify(clusterService).updateLastEvaluated(eq(List.of(CLUSTER_ID)), anyLong());
+        verify(clusterService, never()).save(any(Cluster.class));
+        verify(metricService).recordMonitorTick(eq("time-monitor"), anyLong(), anyInt());
     }
 
     private JobExecutionContext getContext() {
@@ -88,6 +114,7 @@ public class AbstractMonitorTest {
         when(applicationContext.getBean(PeriscopeNodeConfig.class)).thenReturn(periscopeNodeConfig);
         when(applicationContext.getBean(testExecutor.getClass().getSimpleName(), EvaluatorExecutor.class)).thenReturn(testExecutor);
         when(applicationContext.getBean(RejectedThreadService.class)).thenReturn(rejectedThreadService);
+        when(applicationContext.getBean(PeriscopeMetricService.class)).thenReturn(metricService);
 
         return jobExecutionContext;
     }
@@ -1,21 +1,56 @@
 package com.sequenceiq.periscope.monitor.evaluator;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Response;
+
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEvent;
 
+import com.sequenceiq.periscope.api.model.AlertState;
+import com.sequenceiq.periscope.domain.Cluster;
+import com.sequenceiq.periscope.domain.ClusterManager;
+import com.sequenceiq.periscope.domain.MetricType;
+import com.sequenceiq.periscope.domain.PrometheusAlert;
+import com.sequenceiq.periscope.domain.ScalingPolicy;
+import com.sequenceiq.periscope.model.PrometheusResponse;
+import com.sequenceiq.periscope.model.PrometheusResponse.Data;
+import com.sequenceiq.periscope.model.PrometheusResponse.Metric;
+import com.sequenceiq.periscope.model.PrometheusResponse.Result;
+import com.sequenceiq.periscope.model.TlsConfiguration;
 import com.sequenceiq.periscope.monitor.context.ClusterIdEvaluatorContext;
+import com.sequenceiq.periscope.monitor.event.ScalingEvent;
 import com.sequenceiq.periscope.monitor.event.UpdateFailedEvent;
 import com.sequenceiq.periscope.monitor.executor.ExecutorServiceWithRegistry;
 import com.sequenceiq.periscope.repository.PrometheusAlertRepository;
 import com.sequenceiq.periscope.service.ClusterService;
+import com.sequenceiq.periscope.service.PeriscopeMetricService;
+import com.sequenceiq.periscope.service.security.TlsRestClientCache;
+import com.sequenceiq.periscope.service.security.TlsRestClientCache.LeasedClient;
 import com.sequenceiq.periscope.service.security.TlsSecurityService;
 
 public class PrometheusEvaluatorTest {
@@ -31,6 +66,12 @@ public class PrometheusEvaluatorTest {
     @Mock
     private TlsSecurityService tlsSecurityService;
 
+    @Mock
+    private TlsRestClientCache tlsRestClientCache;
+
+    @Mock
+    private PeriscopeMetricService metricService;
+
     @Mock
     private ExecutorServiceWithRegistry executorServiceWithRegistry;
 
@@ -54,5 +95,85 @@ public class PrometheusEvaluatorTest {
 
         verify(executorServiceWithRegistry).finished(underTest, CLUSTER_ID);
         verify(eventPublisher).publishEvent(any(UpdateFailedEvent.class));
+        verify(metricService).recordTimerMetric(eq(MetricType.PROMETHEUS_EVALUATION_LATENCY), any(Duration.class), eq("cluster"), eq(String.valueOf(CLUSTER_ID)));
+    }
+
+    @Test
+    public void testAlertsWithTheSamePeriodAreQueriedTogether() {
+        underTest.setContext(new ClusterIdEvaluatorContext(CLUSTER_ID));
+        Cluster cluster = new Cluster();
+        ClusterManager clusterManager = new ClusterManager();
+        clusterManager.setHost("host");
+        clusterManager.setPort("9443");
+        cluster.setClusterManager(clusterManager);
+        when(clusterService.findById(CLUSTER_ID)).thenReturn(cluster);
+        TlsConfiguration tlsConfig = new TlsConfiguration("key", "cert", "serverCert");
+        when(tlsSecurityService.getTls(CLUSTER_ID)).thenReturn(tlsConfig);
+        PrometheusAlert firingAlert = createAlert("firing", AlertState.CRITICAL, 5);
+        PrometheusAlert silentAlert = createAlert("silent", AlertState.CRITICAL, 5);
+        PrometheusAlert resolvedAlert = createAlert("resolved", AlertState.OK, 10);
+        when(alertRepository.findAllByCluster(CLUSTER_ID)).thenReturn(List.of(firingAlert, silentAlert, resolvedAlert));
+
+        Client client = mock(Client.class);
+        WebTarget target = mock(WebTarget.class);
+        Invocation.Builder builder = mock(Invocation.Builder.class);
+        Response firingResponse = createResponse(createResult("firing", "firing", "1"));
+        Response emptyResponse = createResponse();
+        LeasedClient leasedClient = mock(LeasedClient.class);
+        when(tlsRestClientCache.lease(tlsConfig)).thenReturn(leasedClient);
+        when(leasedClient.getClient()).thenReturn(client);
+        when(client.target(anyString())).thenReturn(target);
+        when(target.path(anyString())).thenReturn(target);
+        when(target.queryParam(anyString(), any())).thenReturn(target);
+        when(target.request()).thenReturn(builder);
+        when(builder.header(anyString(), any())).thenReturn(builder);
+        when(builder.get()).thenReturn(firingResponse, emptyResponse);
+
+        underTest.run();
+
+        ArgumentCaptor<Object> queries = ArgumentCaptor.forClass(Object.class);
+        verify(target, times(2)).queryParam(eq("query"), queries.capture());
+        Set<String> decodedQueries = queries.getAllValues().stream()
+                .map(query -> URLDecoder.decode((String) query, StandardCharsets.UTF_8))
+                .collect(Collectors.toSet());
+        assertTrue(decodedQueries.toString(), decodedQueries.contains("ALERTS{alertname=~\"firing|silent\"}[5m]")
+                || decodedQueries.contains("ALERTS{alertname=~\"silent|firing\"}[5m]"));
+        assertTrue(decodedQueries.toString(), decodedQueries.contains("ALERTS{alertname=~\"resolved\"}[10m]"));
+        ArgumentCaptor<ApplicationEvent> events = ArgumentCaptor.forClass(ApplicationEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals(Set.of("firing", "resolved"), events.getAllValues().stream()
+                .map(event -> ((ScalingEvent) event).getAlert().getName())
+                .collect(Collectors.toSet()));
+        verify(leasedClient).close();
+    }
+
+    private PrometheusAlert createAlert(String name, AlertState alertState, int period) {
+        PrometheusAlert alert = new PrometheusAlert();
+        alert.setName(name);
+        alert.setAlertState(alertState);
+        alert.setPeriod(period);
+        alert.setScalingPolicy(new ScalingPolicy());
+        return alert;
+    }
+
+    private Result createResult(String alertName, String alertState, String value) {
+        Metric metric = new Metric();
+        metric.setAlertname(alertName);
+        metric.setAlertstate(alertState);
+        Result result = new Result();
+        result.setMetric(metric);
+        result.setValues(List.of(List.of(1.0, value)));
+        return result;
+    }
+
+    private Response createResponse(Result... results) {
+        Data data = new Data();
+        data.setResult(List.of(results));
+        PrometheusResponse prometheusResponse = new PrometheusResponse();
+        prometheusResponse.setData(data);
+        Response response = mock(Response.class);
+        when(response.getStatusInfo()).thenReturn(Response.Status.OK);
+        when(response.readEntity(PrometheusResponse.class)).thenReturn(prometheusResponse);
+        return response;
     }
 }
@@ -0,0 +1,77 @@
+package com.sequenceiq.periscope.service.security;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import javax.ws.rs.client.Client;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.sequenceiq.periscope.model.TlsConfiguration;
+import com.sequenceiq.periscope.service.security.TlsRestClientCache.LeasedClient;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TlsRestClientCacheTest {
+
+    private static final long WAIT_MS = 500L;
+
+    private final TlsConfiguration tlsConfig = new TlsConfiguration("key", "cert", "serverCert");
+
+    @Spy
+    private TlsRestClientCache underTest;
+
+    @Before
+    public void setUp() throws Exception {
+        ReflectionTestUtils.setField(underTest, "maxSize", 10L);
+        ReflectionTestUtils.setField(underTest, "idleTimeoutMinutes", 30L);
+        doAnswer(invocation -> mock(Client.class)).when(underTest).createRestClient(any());
+        underTest.init();
+    }
+
+    @Test
+    public void testClientIsSharedBetweenTheLeases() throws Exception {
+        try (LeasedClient first = underTest.lease(tlsConfig); LeasedClient second = underTest.lease(tlsConfig)) {
+            assertSame(first.getClient(), second.getClient());
+        }
+        verify(underTest, times(1)).createRestClient(tlsConfig);
+    }
+
+    @Test
+    public void testIdleClientIsClosedWhenEvicted() {
+        LeasedClient leasedClient = underTest.lease(tlsConfig);
+        leasedClient.close();
+
+        underTest.closeAll();
+
+        verify(leasedClient.getClient(), timeout(WAIT_MS)).close();
+    }
+
+    @Test
+    public void testEvictedClientIsClosedAfterItsLastLease() {
+        LeasedClient leasedClient = underTest.lease(tlsConfig);
+        Client client = leasedClient.getClient();
+
+        underTest.closeAll();
+
+        verify(client, after(WAIT_MS).never()).close();
+        try (LeasedClient newLease = underTest.lease(tlsConfig)) {
+            assertNotSame(client, newLease.getClient());
+        }
+        leasedClient.close();
+        leasedClient.close();
+        verify(client, times(1)).close();
+    }
+}
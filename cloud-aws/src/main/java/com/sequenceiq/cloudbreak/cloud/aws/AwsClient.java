@@ -22,6 +22,7 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.amazonaws.services.securitytoken.AWSSecurityTokenService;
 import com.amazonaws.services.securitytoken.AWSSecurityTokenServiceClient;
+import com.sequenceiq.cloudbreak.cloud.aws.cache.AwsClientCache;
 import com.sequenceiq.cloudbreak.cloud.aws.client.AmazonAutoScalingRetryClient;
 import com.sequenceiq.cloudbreak.cloud.aws.client.AmazonCloudFormationRetryClient;
 import com.sequenceiq.cloudbreak.cloud.aws.view.AwsCredentialView;
@@ -61,6 +62,9 @@ public class AwsClient {
     @Inject
     private Retry retry;
 
+    @Inject
+    private AwsClientCache awsClientCache;
+
     public AuthenticatedContext createAuthenticatedContext(CloudContext cloudContext, CloudCredential cloudCredential) {
         AuthenticatedContext authenticatedContext = new AuthenticatedContext(cloudContext, cloudCredential);
         try {
@@ -76,6 +80,11 @@ public class AwsClient {
     }
 
     public AmazonEC2Client createAccess(AwsCredentialView awsCredential, String regionName) {
+        return awsClientCache.get(AmazonEC2Client.class, awsCredential, regionName, isRoleAssumeRequired(awsCredential),
+                () -> createEc2Client(awsCredential, regionName));
+    }
+
+    private AmazonEC2Client createEc2Client(AwsCredentialView awsCredential, String regionName) {
         AmazonEC2Client client = isRoleAssumeRequired(awsCredential) ?
                 new AmazonEC2Client(createAwsSessionCredentialProvider(awsCredential)) :
                 new AmazonEC2Client(createAwsCredentials(awsCredential));
@@ -105,6 +114,11 @@ public class AwsClient {
     }
 
     public AmazonCloudFormationClient createCloudFormationClient(AwsCredentialView awsCredential, String regionName) {
+        return awsClientCache.get(AmazonCloudFormationClient.class, awsCredential, regionName, isRoleAssumeRequired(awsCredential),
+                () -> createAmazonCloudFormationClient(awsCredential, regionName));
+    }
+
+    private AmazonCloudFormationClient createAmazonCloudFormationClient(AwsCredentialView awsCredential, String regionName) {
         AmazonCloudFormationClient client = isRoleAssumeRequired(awsCredential) ?
                 new AmazonCloudFormationClient(createAwsSessionCredentialProvider(awsCredential)) :
                 new AmazonCloudFormationClient(createAwsCredentials(awsCredential));
@@ -117,6 +131,11 @@ public class AwsClient {
     }
 
     public AmazonAutoScalingClient createAutoScalingClient(AwsCredentialView awsCredential, String regionName) {
+        return awsClientCache.get(AmazonAutoScalingClient.class, awsCredential, regionName, isRoleAssumeRequired(awsCredential),
+                () -> createAmazonAutoScalingClient(awsCredential, regionName));
+    }
+
+    private AmazonAutoScalingClient createAmazonAutoScalingClient(AwsCredentialView awsCredential, String regionName) {
         AmazonAutoScalingClient client = isRoleAssumeRequired(awsCredential) ?
                 new AmazonAutoScalingClient(createAwsSessionCredentialProvider(awsCredential)) :
                 new AmazonAutoScalingClient(createAwsCredentials(awsCredential));
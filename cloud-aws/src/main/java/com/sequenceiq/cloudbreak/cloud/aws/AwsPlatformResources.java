@@ -33,7 +33,6 @@ import org.springframework.stereotype.Service;
 
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.SdkClientException;
-import com.amazonaws.regions.RegionUtils;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.ListTablesRequest;
 import com.amazonaws.services.dynamodbv2.model.ListTablesResult;
@@ -512,7 +511,7 @@ public class AwsPlatformResources implements PlatformResources {
             if (region == null || Strings.isNullOrEmpty(region.value()) || awsRegion.getRegionName().equals(region.value())) {
                 DescribeAvailabilityZonesRequest describeAvailabilityZonesRequest = new DescribeAvailabilityZonesRequest();
 
-                ec2Client.setRegion(RegionUtils.getRegion(awsRegion.getRegionName()));
+                AmazonEC2Client regionalEc2Client = awsClient.createAccess(new AwsCredentialView(cloudCredential), awsRegion.getRegionName());
                 Filter filter = new Filter();
                 filter.setName("region-name");
                 Collection<String> list = new ArrayList<>();
@@ -523,7 +522,8 @@ public class AwsPlatformResources implements PlatformResources {
 
                 try {
                     LOGGER.debug("Describing AZs in region {}", awsRegion.getRegionName());
-                    DescribeAvailabilityZonesResult describeAvailabilityZonesResult = ec2Client.describeAvailabilityZones(describeAvailabilityZonesRequest);
+                    DescribeAvailabilityZonesResult describeAvailabilityZonesResult =
+                            regionalEc2Client.describeAvailabilityZones(describeAvailabilityZonesRequest);
 
                     List<AvailabilityZone> tmpAz = new ArrayList<>();
                     for (com.amazonaws.services.ec2.model.AvailabilityZone availabilityZone : describeAvailabilityZonesResult.getAvailabilityZones()) {
@@ -564,26 +564,6 @@ public class AwsPlatformResources implements PlatformResources {
         }
     }
 
-    private DescribeAvailabilityZonesResult describeAvailabilityZonesResult(AmazonEC2Client ec2Client, com.amazonaws.services.ec2.model.Region awsRegion) {
-        try {
-            DescribeAvailabilityZonesRequest describeAvailabilityZonesRequest = new DescribeAvailabilityZonesRequest();
-
-            ec2Client.setRegion(RegionUtils.getRegion(awsRegion.getRegionName()));
-            Filter filter = new Filter();
-            filter.setName("region-name");
-            Collection<String> list = new ArrayList<>();
-            list.add(awsRegion.getRegionName());
-            filter.setValues(list);
-
-            describeAvailabilityZonesRequest.withFilters(filter);
-
-            return ec2Client.describeAvailabilityZones(describeAvailabilityZonesRequest);
-        } catch (AmazonEC2Exception e) {
-            LOGGER.info("Failed to retrieve AZ from Region: {}!", awsRegion.getRegionName(), e);
-        }
-        return new DescribeAvailabilityZonesResult();
-    }
-
     private DescribeRegionsResult describeRegionsResult(AmazonEC2Client ec2Client) {
         LOGGER.debug("Getting regions");
         try {
@@ -631,17 +611,15 @@ public class AwsPlatformResources implements PlatformResources {
 
     @Override
     public CloudGateWays gateways(CloudCredential cloudCredential, Region region, Map<String, String> filters) {
-        AmazonEC2Client ec2Client = awsClient.createAccess(cloudCredential);
-
         Map<String, Set<CloudGateWay>> resultCloudGateWayMap = new HashMap<>();
         CloudRegions regions = regions(cloudCredential, region, filters);
 
         for (Entry<Region, List<AvailabilityZone>> regionListEntry : regions.getCloudRegions().entrySet()) {
             if (region == null || Strings.isNullOrEmpty(region.value()) || regionListEntry.getKey().value().equals(region.value())) {
-                ec2Client.setRegion(RegionUtils.getRegion(regionListEntry.getKey().value()));
+                AmazonEC2Client regionalEc2Client = awsClient.createAccess(new AwsCredentialView(cloudCredential), regionListEntry.getKey().value());
 
                 DescribeInternetGatewaysRequest describeInternetGatewaysRequest = new DescribeInternetGatewaysRequest();
-                DescribeInternetGatewaysResult describeInternetGatewaysResult = ec2Client.describeInternetGateways(describeInternetGatewaysRequest);
+                DescribeInternetGatewaysResult describeInternetGatewaysResult = regionalEc2Client.describeInternetGateways(describeInternetGatewaysRequest);
 
                 Set<CloudGateWay> gateWays = new HashSet<>();
                 for (InternetGateway internetGateway : describeInternetGatewaysResult.getInternetGateways()) {
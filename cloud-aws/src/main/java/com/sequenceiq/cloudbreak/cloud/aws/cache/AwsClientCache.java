@@ -0,0 +1,208 @@
+package com.sequenceiq.cloudbreak.cloud.aws.cache;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.amazonaws.AmazonWebServiceClient;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sequenceiq.cloudbreak.cloud.aws.AwsSessionCredentialClient;
+import com.sequenceiq.cloudbreak.cloud.aws.view.AwsCredentialView;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Keeps the AWS SDK clients alive between the calls, so their connection pools and credential providers are reused instead of creating
+ * a new client for every request. The clients are keyed by the type of the client, the identity of the credential and the region.
+ * A client with session credentials expires together with the session credentials it was created with. The evicted clients are shut
+ * down after a grace period, because the callers may still hold them, e.g. in a running polling.
+ */
+@Component
+public class AwsClientCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AwsClientCache.class);
+
+    private static final String METRIC_NAME = "aws.client.cache";
+
+    @Value("${cb.aws.client.cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cb.aws.client.cache.max.size:1000}")
+    private long maxSize;
+
+    @Value("${cb.aws.client.cache.ttl.minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${cb.aws.client.cache.session.refresh.margin.minutes:5}")
+    private long sessionRefreshMarginMinutes;
+
+    @Value("${cb.aws.client.cache.shutdown.grace.minutes:60}")
+    private long shutdownGraceMinutes;
+
+    @Inject
+    private AwsSessionCredentialClient credentialClient;
+
+    private Cache<ClientKey, CachedClient> clients;
+
+    private ScheduledExecutorService shutdownExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            shutdownExecutor = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("aws-client-shutdown-%d").setDaemon(true).build());
+            clients = Caffeine.newBuilder()
+                    .maximumSize(maxSize)
+                    .expireAfter(new ClientExpiry())
+                    .executor(Runnable::run)
+                    .removalListener(this::onRemoval)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(Metrics.globalRegistry, clients, METRIC_NAME);
+        }
+    }
+
+    public <T extends AmazonWebServiceClient> T get(Class<T> clientType, AwsCredentialView awsCredential, String regionName, boolean sessionCredentials,
+            Supplier<T> clientFactory) {
+        if (clients == null) {
+            return clientFactory.get();
+        }
+        ClientKey key = new ClientKey(clientType, awsCredential, regionName);
+        CachedClient cachedClient = clients.get(key, k -> {
+            LOGGER.debug("Creating {} for credential {} in region {}", clientType.getSimpleName(), awsCredential.getName(), regionName);
+            return new CachedClient(clientFactory.get(), getTimeToLiveNanos(awsCredential, sessionCredentials));
+        });
+        return clientType.cast(cachedClient.client);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (clients != null) {
+            List<Runnable> pendingShutdowns = shutdownExecutor.shutdownNow();
+            pendingShutdowns.forEach(Runnable::run);
+            clients.invalidateAll();
+            clients.cleanUp();
+        }
+    }
+
+    private long getTimeToLiveNanos(AwsCredentialView awsCredential, boolean sessionCredentials) {
+        long ttlMillis = TimeUnit.MINUTES.toMillis(ttlMinutes);
+        if (sessionCredentials) {
+            Date expiration = credentialClient.retrieveCachedSessionCredentials(awsCredential).getExpiration();
+            if (expiration != null) {
+                long sessionMillis = expiration.getTime() - TimeUnit.MINUTES.toMillis(sessionRefreshMarginMinutes) - System.currentTimeMillis();
+                ttlMillis = Math.max(0L, Math.min(ttlMillis, sessionMillis));
+            }
+        }
+        return TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    private void onRemoval(ClientKey key, CachedClient cachedClient, RemovalCause cause) {
+        if (cachedClient == null) {
+            return;
+        }
+        LOGGER.debug("{} of credential {} in region {} has been removed from the cache ({})", key.clientType.getSimpleName(), key.credentialCrn,
+                key.regionName, cause);
+        if (shutdownExecutor.isShutdown()) {
+            cachedClient.client.shutdown();
+        } else {
+            shutdownExecutor.schedule(cachedClient.client::shutdown, shutdownGraceMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    private static class ClientExpiry implements Expiry<ClientKey, CachedClient> {
+
+        @Override
+        public long expireAfterCreate(ClientKey key, CachedClient value, long currentTime) {
+            return value.timeToLiveNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(ClientKey key, CachedClient value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(ClientKey key, CachedClient value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private static class ClientKey {
+
+        private final Class<?> clientType;
+
+        private final String credentialCrn;
+
+        private final String roleArn;
+
+        private final String externalId;
+
+        private final String accessKey;
+
+        private final String secretKeyHash;
+
+        private final String regionName;
+
+        ClientKey(Class<?> clientType, AwsCredentialView awsCredential, String regionName) {
+            this.clientType = clientType;
+            credentialCrn = awsCredential.getCredentialCrn();
+            roleArn = awsCredential.getRoleArn();
+            externalId = awsCredential.getExternalId();
+            accessKey = awsCredential.getAccessKey();
+            secretKeyHash = DigestUtils.sha256Hex(Objects.toString(awsCredential.getSecretKey(), ""));
+            this.regionName = regionName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ClientKey clientKey = (ClientKey) o;
+            return Objects.equals(clientType, clientKey.clientType) && Objects.equals(credentialCrn, clientKey.credentialCrn)
+                    && Objects.equals(roleArn, clientKey.roleArn) && Objects.equals(externalId, clientKey.externalId)
+                    && Objects.equals(accessKey, clientKey.accessKey) && Objects.equals(secretKeyHash, clientKey.secretKeyHash)
+                    && Objects.equals(regionName, clientKey.regionName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(clientType, credentialCrn, roleArn, externalId, accessKey, secretKeyHash, regionName);
+        }
+    }
+
+    private static class CachedClient {
+
+        private final AmazonWebServiceClient client;
+
+        private final long timeToLiveNanos;
+
+        CachedClient(AmazonWebServiceClient client, long timeToLiveNanos) {
+            this.client = client;
+            this.timeToLiveNanos = timeToLiveNanos;
+        }
+    }
+}
@@ -114,6 +114,7 @@ public class AwsPlatformResourcesTest {
 
         when(awsDefaultZoneProvider.getDefaultZone(any(CloudCredential.class))).thenReturn("eu-central-1");
         when(awsClient.createAccess(any(CloudCredential.class))).thenReturn(amazonEC2Client);
+        when(awsClient.createAccess(any(AwsCredentialView.class), anyString())).thenReturn(amazonEC2Client);
         when(amazonEC2Client.describeRegions(any(DescribeRegionsRequest.class))).thenReturn(describeRegionsResult);
         when(amazonEC2Client.describeAvailabilityZones(any(DescribeAvailabilityZonesRequest.class))).thenReturn(describeAvailabilityZonesResult);
         when(describeRegionsResult.getRegions()).thenReturn(Collections.singletonList(region));
@@ -0,0 +1,98 @@
+package com.sequenceiq.cloudbreak.cloud.aws.cache;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.amazonaws.services.ec2.AmazonEC2Client;
+import com.sequenceiq.cloudbreak.cloud.aws.AwsSessionCredentialClient;
+import com.sequenceiq.cloudbreak.cloud.aws.AwsSessionCredentials;
+import com.sequenceiq.cloudbreak.cloud.aws.view.AwsCredentialView;
+import com.sequenceiq.cloudbreak.cloud.model.CloudCredential;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AwsClientCacheTest {
+
+    private static final String REGION = "eu-central-1";
+
+    @InjectMocks
+    private AwsClientCache underTest;
+
+    @Mock
+    private AwsSessionCredentialClient credentialClient;
+
+    private final AwsCredentialView keyBasedCredential = credential(Map.of("accessKey", "access", "secretKey", "secret"));
+
+    private final AwsCredentialView roleBasedCredential = credential(Map.of("roleArn", "arn:aws:iam::123456789012:role/cb"));
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(underTest, "enabled", true);
+        ReflectionTestUtils.setField(underTest, "maxSize", 10L);
+        ReflectionTestUtils.setField(underTest, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(underTest, "sessionRefreshMarginMinutes", 5L);
+        ReflectionTestUtils.setField(underTest, "shutdownGraceMinutes", 60L);
+        underTest.init();
+    }
+
+    @After
+    public void tearDown() {
+        underTest.shutdown();
+    }
+
+    @Test
+    public void testClientIsReusedForTheSameCredentialAndRegion() {
+        AmazonEC2Client first = underTest.get(AmazonEC2Client.class, keyBasedCredential, REGION, false, () -> mock(AmazonEC2Client.class));
+        AmazonEC2Client second = underTest.get(AmazonEC2Client.class, keyBasedCredential, REGION, false, () -> mock(AmazonEC2Client.class));
+
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testClientIsNotSharedBetweenRegions() {
+        AmazonEC2Client first = underTest.get(AmazonEC2Client.class, keyBasedCredential, REGION, false, () -> mock(AmazonEC2Client.class));
+        AmazonEC2Client second = underTest.get(AmazonEC2Client.class, keyBasedCredential, "us-west-1", false, () -> mock(AmazonEC2Client.class));
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void testClientExpiresWithTheSessionCredentials() {
+        when(credentialClient.retrieveCachedSessionCredentials(roleBasedCredential))
+                .thenReturn(new AwsSessionCredentials("access", "secret", "token", new Date()));
+
+        AmazonEC2Client first = underTest.get(AmazonEC2Client.class, roleBasedCredential, REGION, true, () -> mock(AmazonEC2Client.class));
+        AmazonEC2Client second = underTest.get(AmazonEC2Client.class, roleBasedCredential, REGION, true, () -> mock(AmazonEC2Client.class));
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void testClientIsCreatedForEveryCallWhenDisabled() {
+        underTest.shutdown();
+        AwsClientCache disabled = new AwsClientCache();
+        disabled.init();
+
+        AmazonEC2Client first = disabled.get(AmazonEC2Client.class, keyBasedCredential, REGION, false, () -> mock(AmazonEC2Client.class));
+        AmazonEC2Client second = disabled.get(AmazonEC2Client.class, keyBasedCredential, REGION, false, () -> mock(AmazonEC2Client.class));
+
+        assertNotSame(first, second);
+    }
+
+    private static AwsCredentialView credential(Map<String, Object> parameters) {
+        return new AwsCredentialView(new CloudCredential("crn:credential", "aws", parameters));
+    }
+}
@@ -6,12 +6,13 @@ import org.reactivestreams.Subscriber;
 
 import com.sequenceiq.cloudbreak.cloud.context.CloudContext;
 import com.sequenceiq.cloudbreak.cloud.model.CloudCredential;
+import com.sequenceiq.cloudbreak.common.event.AwaitedRequest;
 import com.sequenceiq.cloudbreak.common.event.Selectable;
 
 import reactor.rx.Promise;
 import reactor.rx.Promises;
 
-public class CloudPlatformRequest<T> implements Selectable {
+public class CloudPlatformRequest<T> implements Selectable, AwaitedRequest {
 
     private final CloudContext cloudContext;
 
@@ -2,21 +2,34 @@ package com.sequenceiq.cloudbreak.cloud.scheduler;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import javax.inject.Inject;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListenableScheduledFuture;
 import com.google.common.util.concurrent.ListeningScheduledExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.sequenceiq.cloudbreak.cloud.task.PollTask;
 
+import reactor.fn.timer.Timer;
+
 @Component
 public class SyncPollingScheduler<T> {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(SyncPollingScheduler.class);
+
     private static final long NO_WAIT_INTERVAL = 0L;
 
     private static final int POLLING_INTERVAL = 1000;
@@ -25,10 +38,18 @@ public class SyncPollingScheduler<T> {
 
     private static final int FAILURE_TOLERANT_ATTEMPT = 3;
 
+    private static final int BACKOFF_MULTIPLIER = 2;
+
+    @Value("${cb.reactor.polling.backoff.max.interval:15000}")
+    private long maxBackoffInterval;
+
     @Inject
     @Qualifier("reactorListeningScheduledExecutorService")
     private ListeningScheduledExecutorService scheduler;
 
+    @Inject
+    private Timer timer;
+
     public T schedule(PollTask<T> task) throws ExecutionException, InterruptedException, TimeoutException {
         return schedule(task, POLLING_INTERVAL, MAX_POLLING_ATTEMPT, FAILURE_TOLERANT_ATTEMPT);
     }
@@ -61,4 +82,108 @@ public class SyncPollingScheduler<T> {
         return scheduler.schedule(task, interval, TimeUnit.SECONDS);
     }
 
+    public ListenableFuture<T> scheduleAsync(PollTask<T> task) {
+        return scheduleAsync(task, POLLING_INTERVAL, MAX_POLLING_ATTEMPT, FAILURE_TOLERANT_ATTEMPT);
+    }
+
+    /**
+     * Non-blocking variant of {@link #schedule(PollTask, int, int, int)}. No thread is parked between the attempts: the waiting is done
+     * by the shared hashed wheel timer, which only hands the next attempt over to the executor. The wait time between the attempts grows
+     * exponentially with jitter from the given interval up to the configured maximum, while the task still has to finish within the same
+     * time (interval * maxAttempt) as in the blocking variant.
+     */
+    public ListenableFuture<T> scheduleAsync(PollTask<T> task, int interval, int maxAttempt, int maxFailureTolerant) {
+        AsyncPoll poll = new AsyncPoll(task, interval, maxAttempt, maxFailureTolerant);
+        poll.attempt();
+        return poll.result;
+    }
+
+    private class AsyncPoll implements FutureCallback<T> {
+
+        private final SettableFuture<T> result = SettableFuture.create();
+
+        private final PollTask<T> task;
+
+        private final int interval;
+
+        private final int maxAttempt;
+
+        private final int maxFailureTolerant;
+
+        private final long deadline;
+
+        private volatile int attempt;
+
+        private volatile int actualFailureTolerant;
+
+        private volatile long backoff;
+
+        AsyncPoll(PollTask<T> task, int interval, int maxAttempt, int maxFailureTolerant) {
+            this.task = task;
+            this.interval = interval;
+            this.maxAttempt = maxAttempt;
+            this.maxFailureTolerant = maxFailureTolerant;
+            deadline = System.currentTimeMillis() + (long) interval * maxAttempt;
+            backoff = interval;
+        }
+
+        void attempt() {
+            if (result.isDone()) {
+                return;
+            }
+            if (task.cancelled()) {
+                result.setException(new CancellationException("Task was cancelled."));
+                return;
+            }
+            attempt++;
+            try {
+                Futures.addCallback(scheduler.submit(task), this, MoreExecutors.directExecutor());
+            } catch (RuntimeException e) {
+                result.setException(e);
+            }
+        }
+
+        @Override
+        public void onSuccess(T value) {
+            try {
+                if (task.completed(value)) {
+                    result.set(value);
+                } else {
+                    scheduleNextAttempt();
+                }
+            } catch (RuntimeException e) {
+                onFailure(e);
+            }
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            actualFailureTolerant++;
+            if (actualFailureTolerant >= maxFailureTolerant) {
+                result.setException(t);
+            } else {
+                LOGGER.debug("Polling attempt {} of task ({}) failed, {} more failures are tolerated", attempt, task.getClass().getSimpleName(),
+                        maxFailureTolerant - actualFailureTolerant, t);
+                scheduleNextAttempt();
+            }
+        }
+
+        private void scheduleNextAttempt() {
+            long delay = nextDelay();
+            if (attempt >= maxAttempt || System.currentTimeMillis() + delay > deadline) {
+                result.setException(new TimeoutException(String.format("Task (%s) did not finished within %d seconds",
+                        task.getClass().getSimpleName(), interval * maxAttempt)));
+            } else {
+                timer.submit(now -> attempt(), delay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private long nextDelay() {
+            long currentBackoff = backoff;
+            backoff = Math.min(Math.max(currentBackoff * BACKOFF_MULTIPLIER, interval), Math.max(maxBackoffInterval, interval));
+            long half = currentBackoff / 2;
+            return half + ThreadLocalRandom.current().nextLong(half + 1);
+        }
+    }
+
 }
@@ -0,0 +1,163 @@
+package com.sequenceiq.cloudbreak.cloud.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.util.concurrent.ListeningScheduledExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.sequenceiq.cloudbreak.cloud.context.AuthenticatedContext;
+import com.sequenceiq.cloudbreak.cloud.task.PollTask;
+
+import reactor.fn.Consumer;
+import reactor.fn.timer.Timer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SyncPollingSchedulerTest {
+
+    private static final int INTERVAL = 100;
+
+    @InjectMocks
+    private SyncPollingScheduler<Integer> underTest;
+
+    @Mock
+    private Timer timer;
+
+    private ListeningScheduledExecutorService scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = MoreExecutors.listeningDecorator(Executors.newScheduledThreadPool(2));
+        ReflectionTestUtils.setField(underTest, "scheduler", scheduler);
+        ReflectionTestUtils.setField(underTest, "maxBackoffInterval", 400L);
+        lenient().doAnswer(invocation -> {
+            ((Consumer<Long>) invocation.getArgument(0)).accept(0L);
+            return null;
+        }).when(timer).submit(any(), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testAsyncPollingBacksOffUntilTheTaskCompletes() throws Exception {
+        CountingPollTask task = new CountingPollTask(5, 0);
+
+        Integer result = underTest.scheduleAsync(task, INTERVAL, 100, 3).get(10, TimeUnit.SECONDS);
+
+        assertEquals(Integer.valueOf(5), result);
+        ArgumentCaptor<Long> delays = ArgumentCaptor.forClass(Long.class);
+        verify(timer, times(4)).submit(any(), delays.capture(), eq(TimeUnit.MILLISECONDS));
+        long[] maxDelays = {100L, 200L, 400L, 400L};
+        for (int i = 0; i < maxDelays.length; i++) {
+            long delay = delays.getAllValues().get(i);
+            assertTrue("Delay " + delay + " of attempt " + i, delay >= maxDelays[i] / 2 && delay <= maxDelays[i]);
+        }
+    }
+
+    @Test
+    public void testAsyncPollingFailsWhenTheAttemptsRunOut() throws InterruptedException, TimeoutException {
+        CountingPollTask task = new CountingPollTask(Integer.MAX_VALUE, 0);
+
+        try {
+            underTest.scheduleAsync(task, INTERVAL, 3, 3).get(10, TimeUnit.SECONDS);
+            fail("Polling should have timed out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertEquals(3, task.attempts.get());
+    }
+
+    @Test
+    public void testAsyncPollingFailsAfterTheToleratedFailures() throws InterruptedException, TimeoutException {
+        CountingPollTask task = new CountingPollTask(Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+        try {
+            underTest.scheduleAsync(task, INTERVAL, 100, 2).get(10, TimeUnit.SECONDS);
+            fail("Polling should have failed");
+        } catch (ExecutionException e) {
+            assertEquals("Poll failed", e.getCause().getMessage());
+        }
+        assertEquals(2, task.attempts.get());
+    }
+
+    @Test
+    public void testAsyncPollingStopsWhenTheTaskIsCancelled() throws InterruptedException, TimeoutException {
+        CountingPollTask task = new CountingPollTask(Integer.MAX_VALUE, 0);
+        task.cancelled = true;
+
+        try {
+            underTest.scheduleAsync(task, INTERVAL, 100, 2).get(10, TimeUnit.SECONDS);
+            fail("Polling should have been cancelled");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CancellationException);
+        }
+        assertEquals(0, task.attempts.get());
+        verify(timer, never()).submit(any(), anyLong(), any());
+    }
+
+    private static class CountingPollTask implements PollTask<Integer> {
+
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        private final int completedAt;
+
+        private final int failUntil;
+
+        private volatile boolean cancelled;
+
+        CountingPollTask(int completedAt, int failUntil) {
+            this.completedAt = completedAt;
+            this.failUntil = failUntil;
+        }
+
+        @Override
+        public AuthenticatedContext getAuthenticatedContext() {
+            return null;
+        }
+
+        @Override
+        public Integer call() {
+            int attempt = attempts.incrementAndGet();
+            if (attempt <= failUntil) {
+                throw new IllegalStateException("Poll failed");
+            }
+            return attempt;
+        }
+
+        @Override
+        public boolean completed(Integer attempt) {
+            return attempt >= completedAt;
+        }
+
+        @Override
+        public boolean cancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -27,6 +27,9 @@ import org.springframework.stereotype.Service;
 
 import com.google.common.collect.Ordering;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.sequenceiq.cloudbreak.cloud.context.AuthenticatedContext;
 import com.sequenceiq.cloudbreak.cloud.model.CloudInstance;
 import com.sequenceiq.cloudbreak.cloud.model.CloudResource;
@@ -60,6 +63,12 @@ public class ComputeResourceService {
     @Value("${cb.gcp.create.batch.size}")
     private Integer createBatchSize;
 
+    @Value("${cb.compute.polling.async.enabled:false}")
+    private boolean asyncPollingEnabled;
+
+    @Value("${cb.compute.pipelined.enabled:false}")
+    private boolean pipelinedExecutionEnabled;
+
     @Inject
     private AsyncTaskExecutor resourceBuilderExecutor;
 
@@ -93,6 +102,9 @@ public class ComputeResourceService {
 
     public List<CloudResourceStatus> deleteResources(ResourceBuilderContext context, AuthenticatedContext auth,
             Iterable<CloudResource> resources, boolean cancellable) {
+        if (pipelinedExecutionEnabled) {
+            return deleteResourcesPipelined(context, auth, resources, cancellable);
+        }
         List<CloudResourceStatus> results = new ArrayList<>();
         Collection<Future<ResourceRequestResult<List<CloudResourceStatus>>>> futures = new ArrayList<>();
         Platform platform = auth.getCloudContext().getPlatform();
@@ -115,6 +127,24 @@ public class ComputeResourceService {
         return results;
     }
 
+    private List<CloudResourceStatus> deleteResourcesPipelined(ResourceBuilderContext context, AuthenticatedContext auth,
+            Iterable<CloudResource> resources, boolean cancellable) {
+        List<CloudResourceStatus> results = new ArrayList<>();
+        ResourceRequestPipeline<List<CloudResourceStatus>> pipeline = new ResourceRequestPipeline<>(resourceBuilderExecutor,
+                context.getParallelResourceRequest());
+        Platform platform = auth.getCloudContext().getPlatform();
+        List<ComputeResourceBuilder<ResourceBuilderContext>> builders = resourceBuilders.compute(platform);
+        for (int i = builders.size() - 1; i >= 0; i--) {
+            ComputeResourceBuilder<?> builder = builders.get(i);
+            for (CloudResource cloudResource : getResources(builder.resourceType(), resources)) {
+                pipeline.submit(createThread(ResourceDeleteThread.NAME, context, auth, cloudResource, builder, cancellable));
+            }
+            // wait for builder type to finish before starting the next one
+            results.addAll(flatList(pipeline.drain().get(FutureResult.SUCCESS)));
+        }
+        return results;
+    }
+
     public List<CloudVmInstanceStatus> stopInstances(ResourceBuilderContext context, AuthenticatedContext auth,
             List<CloudResource> resources, List<CloudInstance> cloudInstances) {
         return stopStart(context, auth, resources, cloudInstances);
@@ -144,6 +174,11 @@ public class ComputeResourceService {
                 Collection<List<CloudInstance>> instancesChunks = allInstances.stream()
                         .collect(Collectors.groupingBy(it -> counter.getAndIncrement() / stopStartBatchSize)).values();
 
+                if (asyncPollingEnabled) {
+                    results.addAll(stopStartWithChainedPolls(context, auth, builder, instancesChunks));
+                    continue;
+                }
+
                 Collection<Future<ResourceRequestResult<List<CloudVmInstanceStatus>>>> futures = new ArrayList<>();
                 for (List<CloudInstance> instancesChunk : instancesChunks) {
                     LOGGER.debug("Submit stop/start operation thread with {} instances", instancesChunk.size());
@@ -160,7 +195,7 @@ public class ComputeResourceService {
                     PollTask<List<CloudVmInstanceStatus>> pollTask = resourcePollTaskFactory
                             .newPollComputeStatusTask(builder, auth, context, checkInstances);
                     try {
-                        List<CloudVmInstanceStatus> statuses = syncVMPollingScheduler.schedule(pollTask);
+                        List<CloudVmInstanceStatus> statuses = getPollResult(startPolling(syncVMPollingScheduler, pollTask));
                         results.addAll(statuses);
                     } catch (Exception e) {
                         LOGGER.debug("Failed to poll the instances status of {}, set the status to failed", checkInstances, e);
@@ -176,6 +211,63 @@ public class ComputeResourceService {
         return results;
     }
 
+    /**
+     * Every chunk starts the status poll of its instances as soon as its stop/start request returns, so the builder thread is released
+     * right after the request instead of being parked for the poll. The caller waits once for the polls of all chunks, the results are
+     * collected per chunk, so a failed chunk only sets the status of its own instances to failed.
+     */
+    private List<CloudVmInstanceStatus> stopStartWithChainedPolls(ResourceBuilderContext context, AuthenticatedContext auth,
+            ComputeResourceBuilder<?> builder, Collection<List<CloudInstance>> instancesChunks) {
+        List<List<CloudInstance>> chunks = new ArrayList<>(instancesChunks);
+        List<Future<ListenableFuture<List<CloudVmInstanceStatus>>>> chunkPolls = new ArrayList<>(chunks.size());
+        for (List<CloudInstance> instancesChunk : chunks) {
+            LOGGER.debug("Submit stop/start operation thread with {} instances", instancesChunk.size());
+            ResourceStopStartThread thread = createThread(ResourceStopStartThread.NAME, context, auth, instancesChunk, builder);
+            chunkPolls.add(resourceBuilderExecutor.submit(() -> startStatusPoll(context, auth, builder, thread.call())));
+        }
+        LOGGER.debug("Wait for the stop/start operations and status polls of {} chunks to finish", chunkPolls.size());
+        List<CloudVmInstanceStatus> results = new ArrayList<>();
+        for (int i = 0; i < chunkPolls.size(); i++) {
+            try {
+                results.addAll(chunkPolls.get(i).get().get());
+            } catch (ExecutionException e) {
+                LOGGER.error("Failed to execute the stop/start request of {}, set the status to failed", chunks.get(i), e.getCause());
+                results.addAll(getFailedStatuses(chunks.get(i), e.getCause().getMessage()));
+            } catch (InterruptedException e) {
+                LOGGER.error("Interrupted while waiting for the stop/start requests, set the status of the remaining instances to failed", e);
+                Thread.currentThread().interrupt();
+                for (int j = i; j < chunkPolls.size(); j++) {
+                    chunkPolls.get(j).cancel(true);
+                    results.addAll(getFailedStatuses(chunks.get(j), "Interrupted while waiting for the stop/start request"));
+                }
+                break;
+            }
+        }
+        return results;
+    }
+
+    private List<CloudVmInstanceStatus> getFailedStatuses(List<CloudInstance> instances, String statusReason) {
+        return instances.stream()
+                .map(instance -> new CloudVmInstanceStatus(instance, InstanceStatus.FAILED, statusReason))
+                .collect(Collectors.toList());
+    }
+
+    private ListenableFuture<List<CloudVmInstanceStatus>> startStatusPoll(ResourceBuilderContext context, AuthenticatedContext auth,
+            ComputeResourceBuilder<?> builder, ResourceRequestResult<List<CloudVmInstanceStatus>> stopStartResult) {
+        List<CloudVmInstanceStatus> vmStatuses = stopStartResult.getResult();
+        if (FutureResult.FAILED == stopStartResult.getStatus() || vmStatuses == null || vmStatuses.isEmpty()) {
+            return Futures.immediateFuture(List.of());
+        }
+        List<CloudInstance> checkInstances = vmStatuses.stream().map(CloudVmInstanceStatus::getCloudInstance).collect(Collectors.toList());
+        PollTask<List<CloudVmInstanceStatus>> pollTask = resourcePollTaskFactory.newPollComputeStatusTask(builder, auth, context, checkInstances);
+        return Futures.catching(syncVMPollingScheduler.scheduleAsync(pollTask), Exception.class, e -> {
+            LOGGER.debug("Failed to poll the instances status of {}, set the status to failed", checkInstances, e);
+            return vmStatuses.stream()
+                    .map(vs -> new CloudVmInstanceStatus(vs.getCloudInstance(), InstanceStatus.FAILED, e.getMessage()))
+                    .collect(Collectors.toList());
+        }, MoreExecutors.directExecutor());
+    }
+
     private <T> Map<FutureResult, List<T>> waitForRequests(Collection<Future<ResourceRequestResult<T>>> futures) {
         Map<FutureResult, List<T>> result = new EnumMap<>(FutureResult.class);
         result.put(FutureResult.FAILED, new ArrayList<>());
@@ -199,6 +291,29 @@ public class ComputeResourceService {
         return result;
     }
 
+    /**
+     * In async mode the polls are multiplexed on the shared polling timer, so the instances are polled in parallel and no thread is
+     * parked between the attempts. Otherwise the poll is executed synchronously and its outcome is wrapped into a completed future.
+     */
+    private <T> Future<T> startPolling(SyncPollingScheduler<T> pollingScheduler, PollTask<T> pollTask) {
+        if (asyncPollingEnabled) {
+            return pollingScheduler.scheduleAsync(pollTask);
+        }
+        try {
+            return Futures.immediateFuture(pollingScheduler.schedule(pollTask));
+        } catch (Exception e) {
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
+    private <T> T getPollResult(Future<T> poll) throws Exception {
+        try {
+            return poll.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
     private boolean isRequestFull(int runningRequests, ResourceBuilderContext context) {
         return isRequestFullWithCloudPlatform(1, runningRequests, context);
     }
@@ -258,12 +373,19 @@ public class ComputeResourceService {
             Collection<Future<ResourceRequestResult<List<CloudResourceStatus>>>> futures = new ArrayList<>();
             for (Group group : getOrderedCopy(groups)) {
                 List<CloudInstance> instances = group.getInstances();
-
                 LOGGER.debug("Split the instances to {} chunks to execute the operation in parallel", createBatchSize);
                 AtomicInteger counter = new AtomicInteger();
                 Collection<List<CloudInstance>> instancesChunks = instances.stream()
                         .collect(Collectors.groupingBy(it -> counter.getAndIncrement() / createBatchSize)).values();
 
+                if (pipelinedExecutionEnabled) {
+                    if (!instancesChunks.isEmpty()) {
+                        handleCreatedResources(createInstancesPipelined(cloudStack, group, instancesChunks), groups, group, upscale, adjustmentType,
+                                threshold, results);
+                    }
+                    continue;
+                }
+
                 for (List<CloudInstance> instancesChunk : instancesChunks) {
                     LOGGER.debug("Submit the create operation thread with {} instances", instancesChunk.size());
                     ResourceCreateThread thread = createThread(ResourceCreateThread.NAME, instancesChunk, group, ctx, auth, cloudStack);
@@ -274,16 +396,37 @@ public class ComputeResourceService {
                 if (!futures.isEmpty()) {
                     LOGGER.debug("Wait for all {} creation threads to finish", futures.size());
                     List<List<CloudResourceStatus>> cloudResourceStatusChunks = waitForRequests(futures).get(FutureResult.SUCCESS);
-                    List<CloudResourceStatus> resourceStatuses = waitForResourceCreations(cloudResourceStatusChunks);
-                    List<CloudResourceStatus> failedResources = filterResourceStatuses(resourceStatuses, ResourceStatus.FAILED);
-                    cloudFailureHandler.rollback(auth, failedResources, group, getFullNodeCount(groups), ctx,
-                            resourceBuilders, new ScaleContext(upscale, adjustmentType, threshold));
-                    results.addAll(filterResourceStatuses(resourceStatuses, ResourceStatus.CREATED));
+                    handleCreatedResources(cloudResourceStatusChunks, groups, group, upscale, adjustmentType, threshold, results);
                 }
             }
             return results;
         }
 
+        /**
+         * Every chunk is created by its own request, at most as many at once as the context allows, and the next chunk is submitted as soon
+         * as any of the running ones has finished, so a slow chunk does not hold back the chunks after the ones running with it.
+         */
+        private List<List<CloudResourceStatus>> createInstancesPipelined(CloudStack cloudStack, Group group,
+                Collection<List<CloudInstance>> instancesChunks) {
+            LOGGER.debug("Create {} chunks of instances with at most {} requests in flight", instancesChunks.size(), ctx.getParallelResourceRequest());
+            ResourceRequestPipeline<List<CloudResourceStatus>> pipeline = new ResourceRequestPipeline<>(resourceBuilderExecutor,
+                    ctx.getParallelResourceRequest());
+            for (List<CloudInstance> instancesChunk : instancesChunks) {
+                LOGGER.debug("Submit the create operation thread with {} instances", instancesChunk.size());
+                pipeline.submit(createThread(ResourceCreateThread.NAME, instancesChunk, group, ctx, auth, cloudStack));
+            }
+            return pipeline.drain().get(FutureResult.SUCCESS);
+        }
+
+        private void handleCreatedResources(List<List<CloudResourceStatus>> cloudResourceStatusChunks, Iterable<Group> groups, Group group,
+                Boolean upscale, AdjustmentType adjustmentType, Long threshold, List<CloudResourceStatus> results) {
+            List<CloudResourceStatus> resourceStatuses = waitForResourceCreations(cloudResourceStatusChunks);
+            List<CloudResourceStatus> failedResources = filterResourceStatuses(resourceStatuses, ResourceStatus.FAILED);
+            cloudFailureHandler.rollback(auth, failedResources, group, getFullNodeCount(groups), ctx,
+                    resourceBuilders, new ScaleContext(upscale, adjustmentType, threshold));
+            results.addAll(filterResourceStatuses(resourceStatuses, ResourceStatus.CREATED));
+        }
+
         private List<CloudResourceStatus> waitForResourceCreations(List<List<CloudResourceStatus>> cloudResourceStatusChunks) {
             List<CloudResourceStatus> result = new ArrayList<>();
             for (List<CloudResourceStatus> cloudResourceStatuses : cloudResourceStatusChunks) {
@@ -300,16 +443,23 @@ public class ComputeResourceService {
                     }
                     ComputeResourceBuilder<ResourceBuilderContext> builder = builderOpt.get();
                     LOGGER.debug("Determined resource builder for instances: {}", builder.resourceType());
+                    List<Future<List<CloudResourceStatus>>> polls = new ArrayList<>(instanceResourceStatuses.size());
                     for (CloudResourceStatus instanceResourceStatus : instanceResourceStatuses) {
                         PollGroup pollGroup = InMemoryStateStore.getStack(auth.getCloudContext().getId());
                         if (pollGroup == null || CANCELLED.equals(pollGroup)) {
+                            LOGGER.debug("Building is cancelled, cancel the {} polls already started", polls.size());
+                            polls.forEach(poll -> poll.cancel(true));
                             throw new CancellationException(format("Building of %s has been cancelled", instanceResourceStatus));
                         }
                         CloudResource instance = instanceResourceStatus.getCloudResource();
                         PollTask<List<CloudResourceStatus>> pollTask = resourcePollTaskFactory
                                 .newPollResourceTask(builder, auth, List.of(instance), ctx, true);
+                        polls.add(startPolling(syncPollingScheduler, pollTask));
+                    }
+                    for (int i = 0; i < instanceResourceStatuses.size(); i++) {
+                        CloudResourceStatus instanceResourceStatus = instanceResourceStatuses.get(i);
                         try {
-                            List<CloudResourceStatus> statuses = syncPollingScheduler.schedule(pollTask);
+                            List<CloudResourceStatus> statuses = getPollResult(polls.get(i));
                             instanceResourceStatus.setStatus(statuses.get(0).getStatus());
                         } catch (Exception e) {
                             LOGGER.debug("Failure during polling the instance status of {}", instanceResourceStatus, e);
@@ -0,0 +1,82 @@
+package com.sequenceiq.cloudbreak.cloud.template.compute;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps at most {@code window} resource requests in flight on the executor. A new request is submitted as soon as any of the running ones
+ * has finished, so a single slow request only holds its own slot instead of stalling a whole batch. The results are collected in
+ * completion order, {@link #drain()} waits for the outstanding requests.
+ */
+class ResourceRequestPipeline<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResourceRequestPipeline.class);
+
+    private final CompletionService<ResourceRequestResult<T>> completionService;
+
+    private final int window;
+
+    private final Map<FutureResult, List<T>> results = new EnumMap<>(FutureResult.class);
+
+    private int inFlight;
+
+    ResourceRequestPipeline(Executor executor, int window) {
+        completionService = new ExecutorCompletionService<>(executor);
+        this.window = Math.max(1, window);
+        resetResults();
+    }
+
+    void submit(Callable<ResourceRequestResult<T>> request) {
+        if (inFlight >= window) {
+            harvest();
+        }
+        completionService.submit(request);
+        inFlight++;
+    }
+
+    Map<FutureResult, List<T>> drain() {
+        LOGGER.debug("Waiting for {} requests to finish", inFlight);
+        while (inFlight > 0) {
+            harvest();
+        }
+        Map<FutureResult, List<T>> drained = new EnumMap<>(results);
+        resetResults();
+        return drained;
+    }
+
+    private void harvest() {
+        Future<ResourceRequestResult<T>> future;
+        try {
+            future = completionService.take();
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while waiting for the requests, {} requests are abandoned", inFlight, e);
+            Thread.currentThread().interrupt();
+            inFlight = 0;
+            return;
+        }
+        inFlight--;
+        try {
+            ResourceRequestResult<T> resourceRequestResult = future.get();
+            results.get(resourceRequestResult.getStatus() == FutureResult.FAILED ? FutureResult.FAILED : FutureResult.SUCCESS)
+                    .add(resourceRequestResult.getResult());
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.error("Failed to execute the request", e);
+        }
+    }
+
+    private void resetResults() {
+        results.put(FutureResult.FAILED, new ArrayList<>());
+        results.put(FutureResult.SUCCESS, new ArrayList<>());
+    }
+}
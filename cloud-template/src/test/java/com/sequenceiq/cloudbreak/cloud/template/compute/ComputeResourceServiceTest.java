@@ -0,0 +1,264 @@
+package com.sequenceiq.cloudbreak.cloud.template.compute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.util.concurrent.Futures;
+import com.sequenceiq.cloudbreak.cloud.context.AuthenticatedContext;
+import com.sequenceiq.cloudbreak.cloud.context.CloudContext;
+import com.sequenceiq.cloudbreak.cloud.model.CloudInstance;
+import com.sequenceiq.cloudbreak.cloud.model.CloudResource;
+import com.sequenceiq.cloudbreak.cloud.model.CloudResourceStatus;
+import com.sequenceiq.cloudbreak.cloud.model.CloudStack;
+import com.sequenceiq.cloudbreak.cloud.model.CloudVmInstanceStatus;
+import com.sequenceiq.cloudbreak.cloud.model.Group;
+import com.sequenceiq.cloudbreak.cloud.model.InstanceStatus;
+import com.sequenceiq.cloudbreak.cloud.model.ResourceStatus;
+import com.sequenceiq.cloudbreak.cloud.scheduler.SyncPollingScheduler;
+import com.sequenceiq.cloudbreak.cloud.task.PollTask;
+import com.sequenceiq.cloudbreak.cloud.template.ComputeResourceBuilder;
+import com.sequenceiq.cloudbreak.cloud.template.context.ResourceBuilderContext;
+import com.sequenceiq.cloudbreak.cloud.template.init.ResourceBuilders;
+import com.sequenceiq.cloudbreak.cloud.template.task.ResourcePollTaskFactory;
+import com.sequenceiq.common.api.type.CommonStatus;
+import com.sequenceiq.common.api.type.ResourceType;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ComputeResourceServiceTest {
+
+    private static final int STOP_START_BATCH_SIZE = 2;
+
+    private static final int PARALLEL_RESOURCE_REQUEST = 2;
+
+    private static final int CREATE_BATCH_SIZE = 3;
+
+    private static final long REQUEST_MILLIS = 50L;
+
+    @InjectMocks
+    private ComputeResourceService underTest;
+
+    @Mock
+    private ApplicationContext applicationContext;
+
+    @Mock
+    private ResourceBuilders resourceBuilders;
+
+    @Mock
+    private CloudFailureHandler cloudFailureHandler;
+
+    @Mock
+    private SyncPollingScheduler<List<CloudVmInstanceStatus>> syncVMPollingScheduler;
+
+    @Mock
+    private SyncPollingScheduler<List<CloudResourceStatus>> syncPollingScheduler;
+
+    @Mock
+    private ResourcePollTaskFactory resourcePollTaskFactory;
+
+    @Mock
+    private ComputeResourceBuilder<ResourceBuilderContext> builder;
+
+    private final Map<PollTask<List<CloudVmInstanceStatus>>, List<CloudInstance>> polledInstances = new ConcurrentHashMap<>();
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(PARALLEL_RESOURCE_REQUEST);
+
+    private final ResourceBuilderContext context = new ResourceBuilderContext("test", null, PARALLEL_RESOURCE_REQUEST, false);
+
+    private final AuthenticatedContext auth = new AuthenticatedContext(new CloudContext(1L, "test", "GCP", "user", "account"), null);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(underTest, "resourceBuilderExecutor", new ConcurrentTaskExecutor(executorService));
+        ReflectionTestUtils.setField(underTest, "stopStartBatchSize", STOP_START_BATCH_SIZE);
+        ReflectionTestUtils.setField(underTest, "asyncPollingEnabled", true);
+        when(builder.resourceType()).thenReturn(ResourceType.GCP_INSTANCE);
+        when(resourceBuilders.compute(any())).thenAnswer(invocation -> new ArrayList<>(List.of(builder)));
+        when(applicationContext.getBean(eq(ResourceStopStartThread.NAME), any(), any(), any(), any())).thenAnswer(invocation ->
+                new ResourceStopStartThread(invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3), invocation.getArgument(4)));
+        when(builder.stop(any(), any(), any())).thenAnswer(invocation -> new CloudVmInstanceStatus(invocation.getArgument(2), InstanceStatus.IN_PROGRESS));
+        when(resourcePollTaskFactory.newPollComputeStatusTask(any(), any(), any(), any())).thenAnswer(invocation -> {
+            PollTask<List<CloudVmInstanceStatus>> pollTask = mock(PollTask.class);
+            polledInstances.put(pollTask, invocation.getArgument(3));
+            return pollTask;
+        });
+        when(syncVMPollingScheduler.scheduleAsync(any())).thenAnswer(invocation -> Futures.immediateFuture(
+                polledInstances.get(invocation.getArgument(0)).stream()
+                        .map(instance -> new CloudVmInstanceStatus(instance, InstanceStatus.STOPPED))
+                        .collect(Collectors.toList())));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void testStopWithChainedPollsReturnsThePolledStatusesOfEveryChunk() {
+        List<CloudInstance> instances = instances(5);
+
+        List<CloudVmInstanceStatus> statuses = underTest.stopInstances(context, auth, resources(instances), instances);
+
+        assertEquals(instances, statuses.stream().map(CloudVmInstanceStatus::getCloudInstance).collect(Collectors.toList()));
+        statuses.forEach(status -> assertEquals(InstanceStatus.STOPPED, status.getStatus()));
+        assertEquals(3, polledInstances.size());
+    }
+
+    @Test
+    void testStopWithChainedPollsSetsTheInstancesOfAFailedPollToFailed() {
+        List<CloudInstance> instances = instances(4);
+        when(syncVMPollingScheduler.scheduleAsync(any())).thenAnswer(invocation -> {
+            List<CloudInstance> chunk = polledInstances.get(invocation.getArgument(0));
+            return chunk.contains(instances.get(0))
+                    ? Futures.immediateFailedFuture(new IllegalStateException("poll timed out"))
+                    : Futures.immediateFuture(chunk.stream().map(instance -> new CloudVmInstanceStatus(instance, InstanceStatus.STOPPED))
+                    .collect(Collectors.toList()));
+        });
+
+        List<CloudVmInstanceStatus> statuses = underTest.stopInstances(context, auth, resources(instances), instances);
+
+        assertEquals(4, statuses.size());
+        assertStatus(statuses, instances.get(0), InstanceStatus.FAILED, "poll timed out");
+        assertStatus(statuses, instances.get(1), InstanceStatus.FAILED, "poll timed out");
+        assertStatus(statuses, instances.get(2), InstanceStatus.STOPPED, null);
+        assertStatus(statuses, instances.get(3), InstanceStatus.STOPPED, null);
+    }
+
+    @Test
+    void testStopWithChainedPollsKeepsTheResultsOfTheOtherChunksWhenAChunkFails() {
+        List<CloudInstance> instances = instances(5);
+        when(builder.stop(any(), any(), eq(instances.get(2)))).thenThrow(new IllegalStateException("stop request failed"));
+
+        List<CloudVmInstanceStatus> statuses = underTest.stopInstances(context, auth, resources(instances), instances);
+
+        assertEquals(5, statuses.size());
+        assertStatus(statuses, instances.get(0), InstanceStatus.STOPPED, null);
+        assertStatus(statuses, instances.get(1), InstanceStatus.STOPPED, null);
+        assertStatus(statuses, instances.get(2), InstanceStatus.FAILED, "stop request failed");
+        assertStatus(statuses, instances.get(3), InstanceStatus.FAILED, "stop request failed");
+        assertStatus(statuses, instances.get(4), InstanceStatus.STOPPED, null);
+        assertEquals(2, polledInstances.size());
+    }
+
+    @Test
+    void testPipelinedCreateSubmitsTheInstancesInChunksOfTheCreateBatchSize() throws Exception {
+        ReflectionTestUtils.setField(underTest, "pipelinedExecutionEnabled", true);
+        ReflectionTestUtils.setField(underTest, "createBatchSize", CREATE_BATCH_SIZE);
+        List<CloudInstance> instances = instances(7);
+        Group group = mock(Group.class);
+        when(group.getInstances()).thenReturn(instances);
+        List<List<CloudInstance>> createdChunks = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(applicationContext.getBean(eq(ResourceCreateThread.NAME), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            List<CloudInstance> chunk = invocation.getArgument(1);
+            ResourceCreateThread thread = mock(ResourceCreateThread.class);
+            when(thread.call()).thenAnswer(call -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                createdChunks.add(chunk);
+                TimeUnit.MILLISECONDS.sleep(REQUEST_MILLIS);
+                running.decrementAndGet();
+                return new ResourceRequestResult<>(FutureResult.SUCCESS, chunk.stream()
+                        .map(instance -> new CloudResourceStatus(resource(instance.getInstanceId(), ResourceType.GCP_DISK), ResourceStatus.CREATED))
+                        .collect(Collectors.toList()));
+            });
+            return thread;
+        });
+
+        List<CloudResourceStatus> statuses = underTest.buildResourcesForUpscale(context, auth, mock(CloudStack.class), List.of(group));
+
+        assertEquals(3, createdChunks.size());
+        assertEquals(List.of(3, 3, 1), createdChunks.stream().map(List::size).sorted(Comparator.reverseOrder()).collect(Collectors.toList()));
+        assertEquals(Set.copyOf(instances), createdChunks.stream().flatMap(List::stream).collect(Collectors.toSet()));
+        assertTrue(maxRunning.get() <= PARALLEL_RESOURCE_REQUEST);
+        assertEquals(7, statuses.size());
+    }
+
+    @Test
+    void testPipelinedDeleteFinishesTheResourcesOfABuilderBeforeTheNextBuilderAndSkipsTheFailedOnes() {
+        ReflectionTestUtils.setField(underTest, "pipelinedExecutionEnabled", true);
+        ComputeResourceBuilder<ResourceBuilderContext> diskBuilder = mock(ComputeResourceBuilder.class);
+        when(diskBuilder.resourceType()).thenReturn(ResourceType.GCP_DISK);
+        when(resourceBuilders.compute(any())).thenAnswer(invocation -> new ArrayList<>(List.of(diskBuilder, builder)));
+        List<CloudResource> resources = List.of(resource("disk-0", ResourceType.GCP_DISK), resource("disk-1", ResourceType.GCP_DISK),
+                resource("instance-0", ResourceType.GCP_INSTANCE), resource("instance-1", ResourceType.GCP_INSTANCE),
+                resource("instance-2", ResourceType.GCP_INSTANCE));
+        List<String> deleted = new CopyOnWriteArrayList<>();
+        when(applicationContext.getBean(eq(ResourceDeleteThread.NAME), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            CloudResource resource = invocation.getArgument(3);
+            ResourceDeleteThread thread = mock(ResourceDeleteThread.class);
+            when(thread.call()).thenAnswer(call -> {
+                TimeUnit.MILLISECONDS.sleep(REQUEST_MILLIS);
+                deleted.add(resource.getName());
+                return "instance-1".equals(resource.getName())
+                        ? new ResourceRequestResult<>(FutureResult.FAILED, List.of(new CloudResourceStatus(resource, ResourceStatus.FAILED)))
+                        : new ResourceRequestResult<>(FutureResult.SUCCESS, List.of(new CloudResourceStatus(resource, ResourceStatus.DELETED)));
+            });
+            return thread;
+        });
+
+        List<CloudResourceStatus> statuses = underTest.deleteResources(context, auth, resources, false);
+
+        assertEquals(Set.of("instance-0", "instance-1", "instance-2"), Set.copyOf(deleted.subList(0, 3)));
+        assertEquals(Set.of("disk-0", "disk-1"), Set.copyOf(deleted.subList(3, 5)));
+        assertEquals(Set.of("instance-0", "instance-2", "disk-0", "disk-1"),
+                statuses.stream().map(status -> status.getCloudResource().getName()).collect(Collectors.toSet()));
+    }
+
+    private void assertStatus(List<CloudVmInstanceStatus> statuses, CloudInstance instance, InstanceStatus status, String statusReason) {
+        CloudVmInstanceStatus instanceStatus = statuses.stream().filter(s -> s.getCloudInstance().equals(instance)).findFirst().orElseThrow();
+        assertEquals(status, instanceStatus.getStatus());
+        assertEquals(statusReason, instanceStatus.getStatusReason());
+    }
+
+    private List<CloudInstance> instances(int count) {
+        List<CloudInstance> instances = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            instances.add(new CloudInstance("instance-" + i, null, null));
+        }
+        return instances;
+    }
+
+    private List<CloudResource> resources(List<CloudInstance> instances) {
+        return instances.stream().map(instance -> resource(instance.getInstanceId(), ResourceType.GCP_INSTANCE)).collect(Collectors.toList());
+    }
+
+    private CloudResource resource(String name, ResourceType type) {
+        return CloudResource.builder()
+                .type(type)
+                .status(CommonStatus.CREATED)
+                .name(name)
+                .params(Map.of())
+                .build();
+    }
+}
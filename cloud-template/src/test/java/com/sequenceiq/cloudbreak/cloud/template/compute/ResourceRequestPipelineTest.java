@@ -0,0 +1,124 @@
+package com.sequenceiq.cloudbreak.cloud.template.compute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ResourceRequestPipelineTest {
+
+    private static final int WINDOW = 2;
+
+    private static final long WAIT_SECONDS = 5L;
+
+    private static final long BLOCKED_SUBMIT_MILLIS = 200L;
+
+    private ExecutorService executorService;
+
+    @BeforeEach
+    void setUp() {
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void testSubmitWaitsForAFreeSlotWhenTheWindowIsFull() throws Exception {
+        ResourceRequestPipeline<String> underTest = new ResourceRequestPipeline<>(executorService, WINDOW);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger started = new AtomicInteger();
+        underTest.submit(blockedRequest("first", started, release));
+        underTest.submit(blockedRequest("second", started, release));
+
+        Future<?> thirdSubmit = executorService.submit(() -> underTest.submit(blockedRequest("third", started, release)));
+        TimeUnit.MILLISECONDS.sleep(BLOCKED_SUBMIT_MILLIS);
+
+        assertEquals(WINDOW, started.get());
+        assertFalse(thirdSubmit.isDone());
+        release.countDown();
+        thirdSubmit.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        List<String> results = underTest.drain().get(FutureResult.SUCCESS);
+        assertEquals(3, started.get());
+        assertEquals(3, results.size());
+        assertTrue(results.containsAll(List.of("first", "second", "third")));
+    }
+
+    @Test
+    void testResultsAreCollectedInCompletionOrder() {
+        CountDownLatch firstRequestFinished = new CountDownLatch(1);
+        ResourceRequestPipeline<String> underTest = new ResourceRequestPipeline<>(command -> executorService.execute(() -> {
+            command.run();
+            firstRequestFinished.countDown();
+        }), WINDOW);
+
+        underTest.submit(() -> {
+            firstRequestFinished.await(WAIT_SECONDS, TimeUnit.SECONDS);
+            return new ResourceRequestResult<>(FutureResult.SUCCESS, "slow");
+        });
+        underTest.submit(() -> new ResourceRequestResult<>(FutureResult.SUCCESS, "fast"));
+
+        assertEquals(List.of("fast", "slow"), underTest.drain().get(FutureResult.SUCCESS));
+    }
+
+    @Test
+    void testDrainCollectsTheOtherRequestsAfterAFailedOneAndResetsTheResults() {
+        ResourceRequestPipeline<String> underTest = new ResourceRequestPipeline<>(executorService, WINDOW);
+        underTest.submit(() -> new ResourceRequestResult<>(FutureResult.SUCCESS, "created"));
+        underTest.submit(() -> {
+            throw new IllegalStateException("cloud provider error");
+        });
+        underTest.submit(() -> new ResourceRequestResult<>(FutureResult.FAILED, "failed"));
+        underTest.submit(() -> new ResourceRequestResult<>(FutureResult.SUCCESS, "deleted"));
+
+        Map<FutureResult, List<String>> results = underTest.drain();
+
+        assertEquals(2, results.get(FutureResult.SUCCESS).size());
+        assertTrue(results.get(FutureResult.SUCCESS).containsAll(List.of("created", "deleted")));
+        assertEquals(List.of("failed"), results.get(FutureResult.FAILED));
+
+        underTest.submit(() -> new ResourceRequestResult<>(FutureResult.SUCCESS, "next"));
+        results = underTest.drain();
+        assertEquals(List.of("next"), results.get(FutureResult.SUCCESS));
+        assertTrue(results.get(FutureResult.FAILED).isEmpty());
+    }
+
+    @Test
+    void testDrainAbandonsTheOutstandingRequestsWhenTheCallerIsInterrupted() {
+        ResourceRequestPipeline<String> underTest = new ResourceRequestPipeline<>(executorService, WINDOW);
+        CountDownLatch release = new CountDownLatch(1);
+        underTest.submit(blockedRequest("blocked", new AtomicInteger(), release));
+
+        Thread.currentThread().interrupt();
+        Map<FutureResult, List<String>> results = underTest.drain();
+
+        assertTrue(Thread.interrupted());
+        assertTrue(results.get(FutureResult.SUCCESS).isEmpty());
+        assertTrue(results.get(FutureResult.FAILED).isEmpty());
+        release.countDown();
+        assertTrue(underTest.drain().get(FutureResult.SUCCESS).isEmpty());
+    }
+
+    private Callable<ResourceRequestResult<String>> blockedRequest(String result, AtomicInteger started, CountDownLatch release) {
+        return () -> {
+            started.incrementAndGet();
+            release.await(WAIT_SECONDS, TimeUnit.SECONDS);
+            return new ResourceRequestResult<>(FutureResult.SUCCESS, result);
+        };
+    }
+}
@@ -0,0 +1,8 @@
+package com.sequenceiq.cloudbreak.common.event;
+
+/**
+ * Payload of a request whose sender blocks until a handler answers it. Such a request may be sent from a thread that has to stay
+ * free for the answer, so the reactor dispatcher must not queue it behind the sender.
+ */
+public interface AwaitedRequest extends Payload {
+}
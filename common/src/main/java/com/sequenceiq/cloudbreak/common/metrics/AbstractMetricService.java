@@ -1,7 +1,9 @@
 package com.sequenceiq.cloudbreak.common.metrics;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.Map;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
 import com.sequenceiq.cloudbreak.common.metrics.type.Metric;
@@ -9,6 +11,7 @@ import com.sequenceiq.cloudbreak.common.metrics.type.Metric;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
 
 public abstract class AbstractMetricService implements MetricService {
 
@@ -50,11 +53,30 @@ public abstract class AbstractMetricService implements MetricService {
         counter.increment();
     }
 
+    @Override
+    public void incrementMetricCounter(Metric metric, double amount, String... tags) {
+        Metrics.counter(getMetricName(metric), tags).increment(amount);
+    }
+
+    @Override
+    public void recordTimerMetric(Metric metric, Duration duration, String... tags) {
+        Metrics.timer(getMetricName(metric), tags).record(duration);
+    }
+
+    /**
+     * Registers a gauge that reads its value from the state object on every scrape. The registry holds the state object weakly, so the caller
+     * must keep a reference to it.
+     */
+    @Override
+    public <T> void registerGaugeMetric(Metric metric, T stateObject, ToDoubleFunction<T> valueFunction, String... tags) {
+        Metrics.gauge(getMetricName(metric), Tags.of(tags), stateObject, valueFunction);
+    }
+
     protected boolean gaugeMetric(Metric metric) {
         return metric.getMetricName().contains("state") || metric.getMetricName().contains("leader") || metric.getMetricName().contains("threadpool");
     }
 
-    private String getMetricName(Metric metric) {
+    protected String getMetricName(Metric metric) {
         return getMetricPrefix() + '.' + metric.getMetricName().toLowerCase();
     }
 
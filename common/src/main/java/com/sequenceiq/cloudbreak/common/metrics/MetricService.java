@@ -1,6 +1,8 @@
 package com.sequenceiq.cloudbreak.common.metrics;
 
+import java.time.Duration;
 import java.util.Map;
+import java.util.function.ToDoubleFunction;
 
 import com.sequenceiq.cloudbreak.common.metrics.type.Metric;
 
@@ -12,4 +14,10 @@ public interface MetricService {
     void initMicrometerMetricCounter(Metric metric);
 
     void incrementMetricCounter(Metric metric, String... tags);
+
+    void incrementMetricCounter(Metric metric, double amount, String... tags);
+
+    void recordTimerMetric(Metric metric, Duration duration, String... tags);
+
+    <T> void registerGaugeMetric(Metric metric, T stateObject, ToDoubleFunction<T> valueFunction, String... tags);
 }
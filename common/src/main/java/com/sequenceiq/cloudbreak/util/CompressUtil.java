@@ -3,10 +3,13 @@ package com.sequenceiq.cloudbreak.util;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -17,13 +20,41 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
 
+import com.google.common.hash.Hashing;
+
 public class CompressUtil {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CompressUtil.class);
 
+    // fixed entry time, so the same resources always give the same archive
+    private static final long ENTRY_TIME = 315532800000L;
+
+    private static final Map<List<String>, byte[]> COMPRESSED_FOLDERS = new ConcurrentHashMap<>();
+
     private CompressUtil() {
     }
 
+    /**
+     * Returns the archive of the classpath folders, it is built once per folder list as the classpath does not change at runtime.
+     * The returned array is shared between the callers and must not be modified.
+     */
+    public static byte[] getCompressedOutputFromFolders(String... classpathFolders) throws IOException {
+        try {
+            return COMPRESSED_FOLDERS.computeIfAbsent(List.of(classpathFolders), folders -> {
+                try {
+                    byte[] compressedOutput = generateCompressedOutputFromFolders(classpathFolders);
+                    LOGGER.info("Archive of {} has been built, size: {} bytes, sha256: {}", folders, compressedOutput.length,
+                            Hashing.sha256().hashBytes(compressedOutput));
+                    return compressedOutput;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
     public static byte[] generateCompressedOutputFromFolders(String... classpathFolders) throws IOException {
         try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
             try (ZipOutputStream zout = new ZipOutputStream(baos)) {
@@ -32,13 +63,14 @@ public class CompressUtil {
                     fillStructureWithResources(structure, classpathFolder);
                 }
                 for (Map.Entry<String, List<Resource>> entry : structure.entrySet()) {
-                    zout.putNextEntry(new ZipEntry(entry.getKey()));
+                    zout.putNextEntry(zipEntry(entry.getKey()));
+                    entry.getValue().sort(Comparator.comparing(Resource::getFilename));
                     for (Resource resource : entry.getValue()) {
                         LOGGER.debug("Zip entry: {}", resource.getFilename());
-                        zout.putNextEntry(new ZipEntry(entry.getKey() + resource.getFilename()));
-                        InputStream inputStream = resource.getInputStream();
-                        byte[] bytes = IOUtils.toByteArray(inputStream);
-                        zout.write(bytes);
+                        zout.putNextEntry(zipEntry(entry.getKey() + resource.getFilename()));
+                        try (InputStream inputStream = resource.getInputStream()) {
+                            IOUtils.copy(inputStream, zout);
+                        }
                         zout.closeEntry();
                     }
                 }
@@ -50,6 +82,12 @@ public class CompressUtil {
         }
     }
 
+    private static ZipEntry zipEntry(String name) {
+        ZipEntry zipEntry = new ZipEntry(name);
+        zipEntry.setTime(ENTRY_TIME);
+        return zipEntry;
+    }
+
     private static void fillStructureWithResources(Map<String, List<Resource>> structure,
             String folder) throws IOException {
         ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
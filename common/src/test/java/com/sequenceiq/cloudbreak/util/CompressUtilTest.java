@@ -0,0 +1,35 @@
+package com.sequenceiq.cloudbreak.util;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompressUtilTest {
+
+    @Test
+    public void testCompressedOutputIsTheSameForTheSameResources() throws Exception {
+        byte[] first = CompressUtil.generateCompressedOutputFromFolders("compress-test");
+        byte[] second = CompressUtil.generateCompressedOutputFromFolders("compress-test");
+
+        Assert.assertArrayEquals(first, second);
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(first))) {
+            ZipEntry zipEntry = zipInputStream.getNextEntry();
+            while (zipEntry != null) {
+                entries.add(zipEntry.getName());
+                zipEntry = zipInputStream.getNextEntry();
+            }
+        }
+        Assert.assertEquals(List.of("/", "/init.sls", "/top.sls"), entries);
+    }
+
+    @Test
+    public void testCompressedOutputIsBuiltOnce() throws Exception {
+        Assert.assertSame(CompressUtil.getCompressedOutputFromFolders("compress-test"), CompressUtil.getCompressedOutputFromFolders("compress-test"));
+    }
+}
@@ -82,6 +82,12 @@ public class AppConfig implements ResourceLoaderAware {
     @Value("${cb.intermediate.threadpool.capacity.size:}")
     private int intermediateQueueCapacity;
 
+    @Value("${cb.structuredevent.rest.threadpool.core.size:2}")
+    private int structuredEventRestCorePoolSize;
+
+    @Value("${cb.structuredevent.rest.threadpool.capacity.size:200}")
+    private int structuredEventRestQueueCapacity;
+
     @Value("${rest.debug}")
     private boolean restDebug;
 
@@ -221,6 +227,19 @@ public class AppConfig implements ResourceLoaderAware {
         return executor;
     }
 
+    @Bean
+    public AsyncTaskExecutor structuredEventRestExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(structuredEventRestCorePoolSize);
+        // a full queue rejects the event, which is then sent on the request thread, so the captured entities waiting here stay bounded
+        executor.setMaxPoolSize(structuredEventRestCorePoolSize);
+        executor.setQueueCapacity(structuredEventRestQueueCapacity);
+        executor.setThreadNamePrefix("structuredEventRestExecutor-");
+        executor.setTaskDecorator(new MDCCleanerTaskDecorator());
+        executor.initialize();
+        return executor;
+    }
+
     @Bean
     public FreeIpaApiClientParams freeIpaApiClientParams() {
         return new FreeIpaApiClientParams(restDebug, certificateValidation, ignorePreValidation, freeIpaServerUrl);
@@ -0,0 +1,208 @@
+package com.sequenceiq.cloudbreak.job;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.Iterables;
+import com.sequenceiq.cloudbreak.cloud.context.CloudContext;
+import com.sequenceiq.cloudbreak.cloud.handler.InstanceStateQuery;
+import com.sequenceiq.cloudbreak.cloud.model.CloudCredential;
+import com.sequenceiq.cloudbreak.cloud.model.CloudInstance;
+import com.sequenceiq.cloudbreak.cloud.model.CloudVmInstanceStatus;
+import com.sequenceiq.cloudbreak.cloud.model.InstanceStatus;
+import com.sequenceiq.cloudbreak.domain.stack.Stack;
+import com.sequenceiq.cloudbreak.service.stack.flow.InstanceSyncState;
+import com.sequenceiq.cloudbreak.service.stack.flow.StackSyncService;
+import com.sequenceiq.flow.core.FlowLogService;
+
+/**
+ * Collects the provider side instance checks of the {@link StackStatusCheckerJob} runs and sends them to the provider together. The checks
+ * are grouped by platform variant, credential and region, every group is queried in pages of at most {@code pageSize} instances, then the
+ * statuses are handed back to {@link StackSyncService#autoSync} stack by stack. If a page fails, its stacks are queried one by one, so a
+ * single broken stack does not make the instances of the other stacks unknown.
+ */
+@Component
+public class StackInstanceSyncBatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StackInstanceSyncBatcher.class);
+
+    @Value("${cb.statuschecker.instancesync.batch.enabled:false}")
+    private boolean enabled;
+
+    @Value("#{'${cb.statuschecker.instancesync.batch.platforms:AWS}'.split(',')}")
+    private Set<String> platforms;
+
+    @Value("${cb.statuschecker.instancesync.batch.page.size:200}")
+    private int pageSize;
+
+    @Inject
+    private InstanceStateQuery instanceStateQuery;
+
+    @Inject
+    private StackSyncService syncService;
+
+    @Inject
+    private FlowLogService flowLogService;
+
+    private Map<Long, SyncRequest> pendingRequests = new LinkedHashMap<>();
+
+    public boolean isBatchingEnabled(Stack stack) {
+        return enabled && platforms.contains(stack.cloudPlatform());
+    }
+
+    public synchronized void submit(Stack stack, CloudContext cloudContext, CloudCredential cloudCredential, List<CloudInstance> cloudInstances,
+            InstanceSyncState defaultState) {
+        LOGGER.debug("Instance sync of stack {} is queued with {} instances", stack.getId(), cloudInstances.size());
+        pendingRequests.put(stack.getId(), new SyncRequest(stack, cloudContext, cloudCredential, cloudInstances, defaultState));
+    }
+
+    @Scheduled(fixedDelayString = "${cb.statuschecker.instancesync.batch.interval:30000}")
+    public void flush() {
+        Collection<SyncRequest> requests = takePendingRequests();
+        if (requests.isEmpty()) {
+            return;
+        }
+        Map<GroupKey, List<SyncRequest>> groups = requests.stream()
+                .filter(this::isNoOtherFlowRunning)
+                .collect(Collectors.groupingBy(GroupKey::new, LinkedHashMap::new, Collectors.toList()));
+        LOGGER.debug("Syncing instances of {} stacks in {} groups", requests.size(), groups.size());
+        groups.values().forEach(this::syncGroup);
+    }
+
+    private synchronized Collection<SyncRequest> takePendingRequests() {
+        Collection<SyncRequest> requests = pendingRequests.values();
+        pendingRequests = new LinkedHashMap<>();
+        return requests;
+    }
+
+    private boolean isNoOtherFlowRunning(SyncRequest request) {
+        boolean otherFlowRunning = flowLogService.isOtherFlowRunning(request.stack.getId());
+        if (otherFlowRunning) {
+            LOGGER.debug("Instance sync of stack {} is skipped, because flow is running for it", request.stack.getId());
+        }
+        return !otherFlowRunning;
+    }
+
+    private void syncGroup(List<SyncRequest> group) {
+        Map<CloudInstance, SyncRequest> requestsByInstance = new IdentityHashMap<>();
+        Map<SyncRequest, List<CloudVmInstanceStatus>> statusesByRequest = new IdentityHashMap<>();
+        for (SyncRequest request : group) {
+            request.cloudInstances.forEach(instance -> requestsByInstance.put(instance, request));
+            statusesByRequest.put(request, new ArrayList<>());
+        }
+        List<CloudInstance> instances = group.stream().flatMap(request -> request.cloudInstances.stream()).collect(Collectors.toList());
+        for (List<CloudInstance> page : Iterables.partition(instances, pageSize)) {
+            try {
+                List<CloudVmInstanceStatus> statuses = instanceStateQuery.getCloudVmInstanceStatuses(group.get(0).cloudCredential,
+                        group.get(0).cloudContext, new ArrayList<>(page));
+                for (CloudVmInstanceStatus status : statuses) {
+                    SyncRequest request = requestsByInstance.get(status.getCloudInstance());
+                    if (request != null) {
+                        statusesByRequest.get(request).add(status);
+                    } else {
+                        LOGGER.debug("Instance status without a queued instance is ignored: {}", status);
+                    }
+                }
+            } catch (RuntimeException e) {
+                LOGGER.info("Failed to query {} instances together, querying them stack by stack", page.size(), e);
+                page.stream()
+                        .map(requestsByInstance::get)
+                        .distinct()
+                        .forEach(request -> statusesByRequest.get(request).addAll(queryStack(request, page)));
+            }
+        }
+        statusesByRequest.forEach(this::autoSync);
+    }
+
+    private List<CloudVmInstanceStatus> queryStack(SyncRequest request, List<CloudInstance> page) {
+        List<CloudInstance> instances = page.stream()
+                .filter(instance -> request.cloudInstances.stream().anyMatch(requestInstance -> requestInstance == instance))
+                .collect(Collectors.toList());
+        try {
+            return instanceStateQuery.getCloudVmInstanceStatuses(request.cloudCredential, request.cloudContext, new ArrayList<>(instances));
+        } catch (RuntimeException e) {
+            return instances.stream()
+                    .map(instance -> new CloudVmInstanceStatus(instance, InstanceStatus.UNKNOWN))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void autoSync(SyncRequest request, List<CloudVmInstanceStatus> statuses) {
+        try {
+            LOGGER.debug("Cluster '{}' state check on provider, instances: {}", request.stack.getId(), statuses);
+            syncService.autoSync(request.stack, statuses, true, request.defaultState);
+        } catch (RuntimeException e) {
+            LOGGER.info("Exception during the instance sync of stack {}", request.stack.getId(), e);
+        }
+    }
+
+    private static class SyncRequest {
+
+        private final Stack stack;
+
+        private final CloudContext cloudContext;
+
+        private final CloudCredential cloudCredential;
+
+        private final List<CloudInstance> cloudInstances;
+
+        private final InstanceSyncState defaultState;
+
+        SyncRequest(Stack stack, CloudContext cloudContext, CloudCredential cloudCredential, List<CloudInstance> cloudInstances,
+                InstanceSyncState defaultState) {
+            this.stack = stack;
+            this.cloudContext = cloudContext;
+            this.cloudCredential = cloudCredential;
+            this.cloudInstances = cloudInstances;
+            this.defaultState = defaultState;
+        }
+    }
+
+    private static class GroupKey {
+
+        private final String platformVariant;
+
+        private final String credentialId;
+
+        private final String region;
+
+        GroupKey(SyncRequest request) {
+            platformVariant = request.cloudContext.getPlatformVariant().getVariant().value();
+            credentialId = request.cloudCredential.getId();
+            region = request.cloudContext.getLocation().getRegion().value();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            GroupKey groupKey = (GroupKey) o;
+            return Objects.equals(platformVariant, groupKey.platformVariant) && Objects.equals(credentialId, groupKey.credentialId)
+                    && Objects.equals(region, groupKey.region);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(platformVariant, credentialId, region);
+        }
+    }
+}
@@ -89,6 +89,9 @@ public class StackStatusCheckerJob extends StatusCheckerJob {
     @Inject
     private FlowLogService flowLogService;
 
+    @Inject
+    private StackInstanceSyncBatcher instanceSyncBatcher;
+
     @Override
     protected void executeInternal(JobExecutionContext context) throws JobExecutionException {
         if (flowLogService.isOtherFlowRunning(getStackId())) {
@@ -138,6 +141,11 @@ public class StackStatusCheckerJob extends StatusCheckerJob {
     }
 
     private void syncInstances(Stack stack, Collection<InstanceMetaData> instanceMetaData, InstanceSyncState defaultState) {
+        if (instanceSyncBatcher.isBatchingEnabled(stack)) {
+            List<CloudInstance> cloudInstances = getCloudInstances(stack, instanceMetaData);
+            instanceSyncBatcher.submit(stack, getCloudContext(stack), getCloudCredential(stack.getEnvironmentCrn()), cloudInstances, defaultState);
+            return;
+        }
         List<CloudVmInstanceStatus> instanceStatuses = queryInstanceStatuses(stack, instanceMetaData);
         LOGGER.debug("Cluster '{}' state check on provider, instances: {}", stack.getId(), instanceStatuses);
         syncService.autoSync(stack, instanceStatuses, true, defaultState);
@@ -189,14 +197,23 @@ public class StackStatusCheckerJob extends StatusCheckerJob {
     }
 
     private List<CloudVmInstanceStatus> queryInstanceStatuses(Stack stack, Collection<InstanceMetaData> instanceMetaData) {
+        List<CloudInstance> cloudInstances = getCloudInstances(stack, instanceMetaData);
+        CloudContext cloudContext = getCloudContext(stack);
+        CloudCredential cloudCredential = getCloudCredential(stack.getEnvironmentCrn());
+
+        return cloudInstances.size() > 0 ? getCloudVmInstanceStatuses(cloudInstances, cloudContext, cloudCredential) : Collections.emptyList();
+    }
+
+    private List<CloudInstance> getCloudInstances(Stack stack, Collection<InstanceMetaData> instanceMetaData) {
         List<CloudInstance> cloudInstances = cloudInstanceConverter.convert(instanceMetaData);
         cloudInstances.forEach(instance -> stack.getParameters().forEach(instance::putParameter));
+        return cloudInstances;
+    }
+
+    private CloudContext getCloudContext(Stack stack) {
         Location location = location(region(stack.getRegion()), availabilityZone(stack.getAvailabilityZone()));
-        CloudContext cloudContext = new CloudContext(stack.getId(), stack.getName(), stack.cloudPlatform(), stack.getPlatformVariant(),
+        return new CloudContext(stack.getId(), stack.getName(), stack.cloudPlatform(), stack.getPlatformVariant(),
                 location, stack.getCreator().getUserId(), stack.getWorkspace().getId());
-        CloudCredential cloudCredential = getCloudCredential(stack.getEnvironmentCrn());
-
-        return cloudInstances.size() > 0 ? getCloudVmInstanceStatuses(cloudInstances, cloudContext, cloudCredential) : Collections.emptyList();
     }
 
     private List<CloudVmInstanceStatus> getCloudVmInstanceStatuses(List<CloudInstance> cloudInstances,
@@ -68,11 +68,7 @@ public class CachedImageCatalogProvider {
             } else {
                 content = readCatalogFromFile(catalogUrl);
             }
-            catalog = objectMapper.readValue(content, CloudbreakImageCatalogV2.class);
-            validateImageCatalogUuids(catalog);
-            validateCloudBreakVersions(catalog);
-            cleanAndValidateMaps(catalog);
-            catalog = filterImagesByOsType(catalog);
+            catalog = parse(content);
             long timeOfParse = System.currentTimeMillis() - started;
             LOGGER.debug("ImageCatalog has been get and parsed from '{}' and took '{}' ms.", catalogUrl, timeOfParse);
         } catch (RuntimeException e) {
@@ -85,6 +81,29 @@ public class CachedImageCatalogProvider {
         return catalog;
     }
 
+    public CloudbreakImageCatalogV2 parseImageCatalog(String catalogUrl, String content) throws CloudbreakImageCatalogException {
+        try {
+            long started = System.currentTimeMillis();
+            CloudbreakImageCatalogV2 catalog = parse(content);
+            LOGGER.debug("ImageCatalog has been parsed from '{}' and took '{}' ms.", catalogUrl, System.currentTimeMillis() - started);
+            return catalog;
+        } catch (RuntimeException e) {
+            throw new CloudbreakImageCatalogException(String.format("Failed to get image catalog: %s from %s", e.getMessage(), catalogUrl), e);
+        } catch (JsonMappingException e) {
+            throw new CloudbreakImageCatalogException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new CloudbreakImageCatalogException(String.format("Failed to read image catalog from file: '%s'", catalogUrl), e);
+        }
+    }
+
+    private CloudbreakImageCatalogV2 parse(String content) throws IOException, CloudbreakImageCatalogException {
+        CloudbreakImageCatalogV2 catalog = objectMapper.readValue(content, CloudbreakImageCatalogV2.class);
+        validateImageCatalogUuids(catalog);
+        validateCloudBreakVersions(catalog);
+        cleanAndValidateMaps(catalog);
+        return filterImagesByOsType(catalog);
+    }
+
     private CloudbreakImageCatalogV2 filterImagesByOsType(CloudbreakImageCatalogV2 catalog) {
         LOGGER.debug("Filtering images by OS type {}", getEnabledLinuxTypes());
         if (CollectionUtils.isEmpty(getEnabledLinuxTypes()) || Objects.isNull(catalog) || Objects.isNull(catalog.getImages())) {
@@ -125,7 +144,7 @@ public class CachedImageCatalogProvider {
         return enabledLinuxTypes.stream().filter(StringUtils::isNoneBlank).collect(Collectors.toList());
     }
 
-    private String readResponse(WebTarget target, Response response) throws CloudbreakImageCatalogException {
+    String readResponse(WebTarget target, Response response) throws CloudbreakImageCatalogException {
         CloudbreakImageCatalogV2 catalog;
         if (!response.getStatusInfo().getFamily().equals(Family.SUCCESSFUL)) {
             throw new CloudbreakImageCatalogException(String.format("Failed to get image catalog from '%s' due to: '%s'",
@@ -160,7 +179,7 @@ public class CachedImageCatalogProvider {
         }
     }
 
-    private String readCatalogFromFile(String catalogUrl) throws IOException {
+    String readCatalogFromFile(String catalogUrl) throws IOException {
         File customCatalogFile = new File(etcConfigDir, catalogUrl);
         return FileReaderUtils.readFileFromPath(customCatalogFile.toPath());
     }
@@ -1,7 +1,12 @@
 package com.sequenceiq.cloudbreak.service.image;
 
+import java.util.Optional;
+
 import javax.inject.Inject;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.sequenceiq.cloudbreak.cloud.model.catalog.CloudbreakImageCatalogV2;
@@ -10,17 +15,40 @@ import com.sequenceiq.cloudbreak.core.CloudbreakImageCatalogException;
 @Service
 public class ImageCatalogProvider {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageCatalogProvider.class);
+
+    @Value("${cb.image.catalog.indexed.enabled:false}")
+    private boolean indexedCatalogEnabled;
+
     @Inject
     private CachedImageCatalogProvider cachedImageCatalogProvider;
 
+    @Inject
+    private IndexedImageCatalogCache indexedImageCatalogCache;
+
     public CloudbreakImageCatalogV2 getImageCatalogV2(String catalogUrl) throws CloudbreakImageCatalogException {
         return getImageCatalogV2(catalogUrl, false);
     }
 
     public CloudbreakImageCatalogV2 getImageCatalogV2(String catalogUrl, boolean forceRefresh) throws CloudbreakImageCatalogException {
+        Optional<IndexedImageCatalog> indexedImageCatalog = getIndexedImageCatalog(catalogUrl, forceRefresh);
+        if (indexedImageCatalog.isPresent()) {
+            return indexedImageCatalog.get().getCatalog();
+        }
         if (forceRefresh) {
             cachedImageCatalogProvider.evictImageCatalogCache(catalogUrl);
         }
         return cachedImageCatalogProvider.getImageCatalogV2(catalogUrl);
     }
+
+    public Optional<IndexedImageCatalog> getIndexedImageCatalog(String catalogUrl, boolean forceRefresh) throws CloudbreakImageCatalogException {
+        if (!indexedCatalogEnabled) {
+            return Optional.empty();
+        }
+        if (catalogUrl == null) {
+            LOGGER.info("No image catalog was defined!");
+            return Optional.empty();
+        }
+        return Optional.of(indexedImageCatalogCache.get(catalogUrl, forceRefresh));
+    }
 }
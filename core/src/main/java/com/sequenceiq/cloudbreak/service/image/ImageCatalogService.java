@@ -275,11 +275,9 @@ public class ImageCatalogService extends AbstractWorkspaceAwareResourceService<I
 
     public StatedImage getImage(String catalogUrl, String catalogName, String imageId) throws CloudbreakImageNotFoundException,
             CloudbreakImageCatalogException {
-        Images images = imageCatalogProvider.getImageCatalogV2(catalogUrl).getImages();
-        Optional<? extends Image> image = getImage(imageId, images);
+        Optional<? extends Image> image = findImage(catalogUrl, imageId, false);
         if (image.isEmpty()) {
-            images = imageCatalogProvider.getImageCatalogV2(catalogUrl, true).getImages();
-            image = getImage(imageId, images);
+            image = findImage(catalogUrl, imageId, true);
         }
         if (image.isEmpty()) {
             throw new CloudbreakImageNotFoundException(String.format("Could not find any image with id: '%s'.", imageId));
@@ -400,6 +398,16 @@ public class ImageCatalogService extends AbstractWorkspaceAwareResourceService<I
         return new Images(emptyList(), emptyList(), emptyList(), emptyList(), emptySet());
     }
 
+    private Optional<? extends Image> findImage(String catalogUrl, String imageId, boolean forceRefresh) throws CloudbreakImageCatalogException {
+        Optional<IndexedImageCatalog> indexedImageCatalog = imageCatalogProvider.getIndexedImageCatalog(catalogUrl, forceRefresh);
+        if (indexedImageCatalog.isPresent()) {
+            return indexedImageCatalog.get().getImageByUuid(imageId);
+        }
+        CloudbreakImageCatalogV2 imageCatalog = forceRefresh ? imageCatalogProvider.getImageCatalogV2(catalogUrl, true)
+                : imageCatalogProvider.getImageCatalogV2(catalogUrl);
+        return getImage(imageId, imageCatalog.getImages());
+    }
+
     private Optional<? extends Image> getImage(String imageId, Images images) {
         Optional<? extends Image> image = findFirstWithImageId(imageId, images.getBaseImages());
         if (image.isEmpty()) {
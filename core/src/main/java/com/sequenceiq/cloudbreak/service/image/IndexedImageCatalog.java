@@ -0,0 +1,82 @@
+package com.sequenceiq.cloudbreak.service.image;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import com.google.common.collect.ImmutableMap;
+import com.sequenceiq.cloudbreak.cloud.model.catalog.CloudbreakImageCatalogV2;
+import com.sequenceiq.cloudbreak.cloud.model.catalog.Image;
+import com.sequenceiq.cloudbreak.cloud.model.catalog.Images;
+
+/**
+ * A parsed image catalog together with the images by uuid index built once when the catalog is loaded. It also keeps the validators of the
+ * downloaded content, so the next refresh can be a conditional request.
+ */
+public class IndexedImageCatalog {
+
+    private final CloudbreakImageCatalogV2 catalog;
+
+    private final Map<String, Image> imagesByUuid;
+
+    private final String eTag;
+
+    private final String lastModified;
+
+    private final String contentDigest;
+
+    public IndexedImageCatalog(CloudbreakImageCatalogV2 catalog, String eTag, String lastModified, String contentDigest) {
+        this.catalog = catalog;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+        this.contentDigest = contentDigest;
+        Map<String, Image> byUuid = new LinkedHashMap<>();
+        allImages(catalog).forEach(image -> byUuid.putIfAbsent(image.getUuid(), image));
+        imagesByUuid = ImmutableMap.copyOf(byUuid);
+    }
+
+    private IndexedImageCatalog(IndexedImageCatalog indexedImageCatalog, String eTag, String lastModified) {
+        catalog = indexedImageCatalog.catalog;
+        imagesByUuid = indexedImageCatalog.imagesByUuid;
+        contentDigest = indexedImageCatalog.contentDigest;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+
+    public IndexedImageCatalog withValidators(String eTag, String lastModified) {
+        return new IndexedImageCatalog(this, eTag, lastModified);
+    }
+
+    public CloudbreakImageCatalogV2 getCatalog() {
+        return catalog;
+    }
+
+    public Optional<Image> getImageByUuid(String uuid) {
+        return Optional.ofNullable(imagesByUuid.get(uuid));
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public String getContentDigest() {
+        return contentDigest;
+    }
+
+    private static Stream<Image> allImages(CloudbreakImageCatalogV2 catalog) {
+        if (catalog == null || catalog.getImages() == null) {
+            return Stream.empty();
+        }
+        Images images = catalog.getImages();
+        return Stream.of(images.getBaseImages(), images.getHdpImages(), images.getHdfImages(), images.getCdhImages())
+                .filter(Objects::nonNull)
+                .flatMap(List::stream);
+    }
+}
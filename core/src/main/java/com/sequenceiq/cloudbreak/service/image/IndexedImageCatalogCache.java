@@ -0,0 +1,168 @@
+package com.sequenceiq.cloudbreak.service.image;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sequenceiq.cloudbreak.client.RestClientUtil;
+import com.sequenceiq.cloudbreak.cloud.model.catalog.CloudbreakImageCatalogV2;
+import com.sequenceiq.cloudbreak.core.CloudbreakImageCatalogException;
+
+/**
+ * Keeps the image catalogs as {@link IndexedImageCatalog}s. A catalog older than the ttl is still served while it is refreshed in the
+ * background, only the first load and the forced refreshes block the caller. The refresh of a remote catalog is a conditional request with
+ * the ETag and Last-Modified validators of the previous download, and the catalog is parsed and indexed again only if its content has changed.
+ */
+@Component
+public class IndexedImageCatalogCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexedImageCatalogCache.class);
+
+    @Value("${cb.image.catalog.cache.ttl:15}")
+    private long ttlMinutes;
+
+    @Inject
+    private CachedImageCatalogProvider cachedImageCatalogProvider;
+
+    private final Map<String, CatalogEntry> entries = new ConcurrentHashMap<>();
+
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    private ExecutorService refreshExecutor;
+
+    @PostConstruct
+    public void init() {
+        refreshExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("image-catalog-refresh-%d").setDaemon(true).build());
+    }
+
+    public IndexedImageCatalog get(String catalogUrl, boolean forceRefresh) throws CloudbreakImageCatalogException {
+        CatalogEntry entry = entries.get(catalogUrl);
+        if (entry == null || forceRefresh) {
+            return load(catalogUrl, entry);
+        }
+        if (entry.isOlderThan(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(ttlMinutes)) && entry.startRefresh()) {
+            LOGGER.debug("Image catalog '{}' is stale, refreshing it in the background", catalogUrl);
+            refreshExecutor.execute(() -> refreshInBackground(catalogUrl, entry));
+        }
+        return entry.catalog;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    private void refreshInBackground(String catalogUrl, CatalogEntry entry) {
+        try {
+            load(catalogUrl, entry);
+        } catch (CloudbreakImageCatalogException | RuntimeException e) {
+            LOGGER.warn("Failed to refresh image catalog '{}', the previous version is kept", catalogUrl, e);
+        } finally {
+            entry.finishRefresh();
+        }
+    }
+
+    private IndexedImageCatalog load(String catalogUrl, CatalogEntry expected) throws CloudbreakImageCatalogException {
+        synchronized (locks.computeIfAbsent(catalogUrl, url -> new Object())) {
+            CatalogEntry current = entries.get(catalogUrl);
+            if (current != null && current != expected) {
+                LOGGER.debug("Image catalog '{}' has been loaded in the meantime", catalogUrl);
+                return current.catalog;
+            }
+            IndexedImageCatalog previous = current == null ? null : current.catalog;
+            IndexedImageCatalog loaded = catalogUrl.startsWith("http") ? download(catalogUrl, previous) : readFromFile(catalogUrl, previous);
+            entries.put(catalogUrl, new CatalogEntry(loaded));
+            return loaded;
+        }
+    }
+
+    private IndexedImageCatalog download(String catalogUrl, IndexedImageCatalog previous) throws CloudbreakImageCatalogException {
+        try {
+            WebTarget target = RestClientUtil.get().target(catalogUrl);
+            Invocation.Builder request = target.request();
+            if (previous != null && previous.getETag() != null) {
+                request = request.header(HttpHeaders.IF_NONE_MATCH, previous.getETag());
+            }
+            if (previous != null && previous.getLastModified() != null) {
+                request = request.header(HttpHeaders.IF_MODIFIED_SINCE, previous.getLastModified());
+            }
+            Response response = request.get();
+            if (previous != null && response.getStatus() == Status.NOT_MODIFIED.getStatusCode()) {
+                LOGGER.debug("Image catalog '{}' has not been modified", catalogUrl);
+                response.close();
+                return previous;
+            }
+            String content = cachedImageCatalogProvider.readResponse(target, response);
+            return index(catalogUrl, content, response.getHeaderString(HttpHeaders.ETAG), response.getHeaderString(HttpHeaders.LAST_MODIFIED), previous);
+        } catch (RuntimeException e) {
+            throw new CloudbreakImageCatalogException(String.format("Failed to get image catalog: %s from %s", e.getMessage(), catalogUrl), e);
+        }
+    }
+
+    private IndexedImageCatalog readFromFile(String catalogUrl, IndexedImageCatalog previous) throws CloudbreakImageCatalogException {
+        try {
+            return index(catalogUrl, cachedImageCatalogProvider.readCatalogFromFile(catalogUrl), null, null, previous);
+        } catch (IOException e) {
+            throw new CloudbreakImageCatalogException(String.format("Failed to read image catalog from file: '%s'", catalogUrl), e);
+        }
+    }
+
+    private IndexedImageCatalog index(String catalogUrl, String content, String eTag, String lastModified, IndexedImageCatalog previous)
+            throws CloudbreakImageCatalogException {
+        String contentDigest = Hashing.sha256().hashString(content, StandardCharsets.UTF_8).toString();
+        if (previous != null && contentDigest.equals(previous.getContentDigest())) {
+            LOGGER.debug("Content of image catalog '{}' has not been changed", catalogUrl);
+            return previous.withValidators(eTag, lastModified);
+        }
+        CloudbreakImageCatalogV2 catalog = cachedImageCatalogProvider.parseImageCatalog(catalogUrl, content);
+        return new IndexedImageCatalog(catalog, eTag, lastModified, contentDigest);
+    }
+
+    private static class CatalogEntry {
+
+        private final IndexedImageCatalog catalog;
+
+        private final long loaded = System.currentTimeMillis();
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        CatalogEntry(IndexedImageCatalog catalog) {
+            this.catalog = catalog;
+        }
+
+        boolean isOlderThan(long timestamp) {
+            return loaded < timestamp;
+        }
+
+        boolean startRefresh() {
+            return refreshing.compareAndSet(false, true);
+        }
+
+        void finishRefresh() {
+            refreshing.set(false);
+        }
+    }
+}
@@ -23,7 +23,15 @@ public enum MetricType implements Metric {
     CLUSTER_START_SUCCESSFUL("cluster.start.successful"),
     CLUSTER_START_FAILED("cluster.start.failed"),
 
-    STACK_PREPARATION("stack.preparation.duration");
+    STACK_PREPARATION("stack.preparation.duration"),
+
+    STRUCTURED_EVENT_PIPELINE_WRITTEN("structuredevent.pipeline.written"),
+    STRUCTURED_EVENT_PIPELINE_DROPPED("structuredevent.pipeline.dropped"),
+    STRUCTURED_EVENT_PIPELINE_SPILLED("structuredevent.pipeline.spilled"),
+    STRUCTURED_EVENT_PIPELINE_FAILED("structuredevent.pipeline.failed"),
+    STRUCTURED_EVENT_PIPELINE_QUEUE_SIZE("structuredevent.pipeline.queue.size"),
+    STRUCTURED_EVENT_REST_CAPTURE("structuredevent.rest.capture"),
+    STRUCTURED_EVENT_REST_EVENT_BUILD("structuredevent.rest.event.build");
 
     private final String metricName;
 
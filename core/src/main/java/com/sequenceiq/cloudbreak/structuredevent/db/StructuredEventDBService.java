@@ -5,8 +5,11 @@ import static com.sequenceiq.cloudbreak.exception.NotFoundException.notFound;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
 import org.springframework.core.convert.ConversionService;
@@ -15,6 +18,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
+import com.sequenceiq.cloudbreak.common.json.JsonUtil;
 import com.sequenceiq.cloudbreak.domain.StructuredEventEntity;
 import com.sequenceiq.cloudbreak.domain.stack.Stack;
 import com.sequenceiq.cloudbreak.service.AbstractWorkspaceAwareResourceService;
@@ -26,6 +30,8 @@ import com.sequenceiq.cloudbreak.structuredevent.event.StructuredEventType;
 import com.sequenceiq.cloudbreak.structuredevent.event.StructuredFlowEvent;
 import com.sequenceiq.cloudbreak.structuredevent.event.StructuredNotificationEvent;
 import com.sequenceiq.cloudbreak.structuredevent.event.StructuredRestCallEvent;
+import com.sequenceiq.cloudbreak.structuredevent.pipeline.StructuredEventPipeline;
+import com.sequenceiq.cloudbreak.structuredevent.pipeline.StructuredEventPipelineFactory;
 import com.sequenceiq.cloudbreak.workspace.model.User;
 import com.sequenceiq.cloudbreak.workspace.model.Workspace;
 import com.sequenceiq.cloudbreak.workspace.repository.workspace.WorkspaceResourceRepository;
@@ -45,10 +51,43 @@ public class StructuredEventDBService extends AbstractWorkspaceAwareResourceServ
     @Inject
     private StackService stackService;
 
+    @Inject
+    private StructuredEventPipelineFactory structuredEventPipelineFactory;
+
+    private StructuredEventPipeline<StructuredEvent> structuredEventPipeline;
+
+    @PostConstruct
+    public void initStructuredEventPipeline() {
+        if (structuredEventPipelineFactory.isEnabled()) {
+            structuredEventPipeline = structuredEventPipelineFactory.create("db", this::storeStructuredEvents, JsonUtil::writeValueAsStringSilent);
+        }
+    }
+
+    @PreDestroy
+    public void stopStructuredEventPipeline() {
+        if (structuredEventPipeline != null) {
+            structuredEventPipeline.stop();
+        }
+    }
+
     @Override
     public void storeStructuredEvent(StructuredEvent structuredEvent) {
-        StructuredEventEntity structuredEventEntityEntity = conversionService.convert(structuredEvent, StructuredEventEntity.class);
-        create(structuredEventEntityEntity, structuredEventEntityEntity.getWorkspace(), null);
+        if (structuredEventPipeline != null) {
+            structuredEventPipeline.offer(structuredEvent);
+        } else {
+            StructuredEventEntity structuredEventEntityEntity = conversionService.convert(structuredEvent, StructuredEventEntity.class);
+            create(structuredEventEntityEntity, structuredEventEntityEntity.getWorkspace(), null);
+        }
+    }
+
+    /**
+     * Saves the events in one transaction, the inserts are sent in JDBC batches as configured by hibernate.jdbc.batch_size.
+     */
+    public void storeStructuredEvents(List<StructuredEvent> structuredEvents) {
+        List<StructuredEventEntity> structuredEventEntities = structuredEvents.stream()
+                .map(structuredEvent -> conversionService.convert(structuredEvent, StructuredEventEntity.class))
+                .collect(Collectors.toList());
+        structuredEventRepository.saveAll(structuredEventEntities);
     }
 
     @Override
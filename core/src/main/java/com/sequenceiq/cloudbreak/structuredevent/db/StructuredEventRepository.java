@@ -33,6 +33,10 @@ public interface StructuredEventRepository extends WorkspaceResourceRepository<S
     @DisableCheckPermissions
     StructuredEventEntity save(StructuredEventEntity entity);
 
+    @Override
+    @DisableCheckPermissions
+    <S extends StructuredEventEntity> Iterable<S> saveAll(Iterable<S> entities);
+
     @CheckPermissionsByWorkspaceId
     @Query("SELECT se from StructuredEventEntity se WHERE se.workspace.id = :workspaceId AND se.id = :id")
     StructuredEventEntity findByWorkspaceIdAndId(@Param("workspaceId") Long workspaceId, @Param("id") Long id);
@@ -1,13 +1,28 @@
 package com.sequenceiq.cloudbreak.structuredevent.file;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import com.sequenceiq.flow.reactor.ErrorHandlerAwareReactorEventFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sequenceiq.cloudbreak.common.json.JsonUtil;
 import com.sequenceiq.cloudbreak.conf.StructuredEventSenderConfig;
 import com.sequenceiq.cloudbreak.structuredevent.StructuredEventSenderService;
 import com.sequenceiq.cloudbreak.structuredevent.event.StructuredEvent;
+import com.sequenceiq.cloudbreak.structuredevent.pipeline.StructuredEventPipeline;
+import com.sequenceiq.cloudbreak.structuredevent.pipeline.StructuredEventPipelineFactory;
+import com.sequenceiq.flow.reactor.ErrorHandlerAwareReactorEventFactory;
 
 import reactor.bus.Event;
 import reactor.bus.EventBus;
@@ -17,6 +32,10 @@ public class AsyncFileStructuredEventSender implements StructuredEventSenderServ
 
     public static final String SAVE_STRUCTURED_EVENT_TO_FILE = "SAVE_STRUCTURED_EVENT_TO_FILE";
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncFileStructuredEventSender.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @Inject
     private StructuredEventSenderConfig structuredEventSenderConfig;
 
@@ -26,6 +45,25 @@ public class AsyncFileStructuredEventSender implements StructuredEventSenderServ
     @Inject
     private EventBus eventBus;
 
+    @Inject
+    private StructuredEventPipelineFactory structuredEventPipelineFactory;
+
+    private StructuredEventPipeline<Event<StructuredEvent>> structuredEventPipeline;
+
+    @PostConstruct
+    public void initStructuredEventPipeline() {
+        if (isEnabled() && structuredEventPipelineFactory.isEnabled()) {
+            structuredEventPipeline = structuredEventPipelineFactory.create("file", this::appendToFile, JsonUtil::writeValueAsStringSilent);
+        }
+    }
+
+    @PreDestroy
+    public void stopStructuredEventPipeline() {
+        if (structuredEventPipeline != null) {
+            structuredEventPipeline.stop();
+        }
+    }
+
     @Override
     public boolean isEnabled() {
         return structuredEventSenderConfig.isFilePathConfigured();
@@ -33,7 +71,30 @@ public class AsyncFileStructuredEventSender implements StructuredEventSenderServ
 
     @Override
     public void storeStructuredEvent(StructuredEvent structuredEvent) {
-        sendAsyncEvent(SAVE_STRUCTURED_EVENT_TO_FILE, eventFactory.createEvent(structuredEvent));
+        Event<StructuredEvent> event = eventFactory.createEvent(structuredEvent);
+        if (structuredEventPipeline != null) {
+            structuredEventPipeline.offer(event);
+        } else {
+            sendAsyncEvent(SAVE_STRUCTURED_EVENT_TO_FILE, event);
+        }
+    }
+
+    /**
+     * Only the writer thread of the pipeline appends to the audit file, the lines of a batch are written at once in the same format as
+     * the FileStructuredEventHandler writes them.
+     */
+    private void appendToFile(List<Event<StructuredEvent>> events) {
+        File file = new File(structuredEventSenderConfig.getAuditFilePath());
+        try {
+            List<String> lines = new ArrayList<>(events.size());
+            for (Event<StructuredEvent> event : events) {
+                lines.add(objectMapper.writeValueAsString(event));
+            }
+            FileUtils.writeLines(file, StandardCharsets.UTF_8.name(), lines, "\n", true);
+            LOGGER.trace("{} structured events have been sent to file: {}", events.size(), file.getAbsolutePath());
+        } catch (IOException e) {
+            throw new IllegalStateException("Can not write structured events to file " + file.getAbsolutePath(), e);
+        }
     }
 
     private void sendAsyncEvent(String selector, Event<?> event) {
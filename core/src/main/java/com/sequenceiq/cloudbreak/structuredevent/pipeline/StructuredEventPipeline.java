@@ -0,0 +1,150 @@
+package com.sequenceiq.cloudbreak.structuredevent.pipeline;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
+import com.sequenceiq.cloudbreak.service.metrics.MetricType;
+
+/**
+ * Bounded queue of structured events with a single writer thread that hands the events to the batch writer in batches. The events are
+ * offered without blocking the caller, when the queue is full they are spilled to a file if a spill file is configured, otherwise dropped.
+ */
+public class StructuredEventPipeline<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StructuredEventPipeline.class);
+
+    private static final long POLL_TIMEOUT_MS = 500L;
+
+    private static final long STOP_TIMEOUT_MS = 10000L;
+
+    private static final String PIPELINE_TAG = "pipeline";
+
+    private final String name;
+
+    private final BlockingQueue<T> queue;
+
+    private final int batchSize;
+
+    private final Consumer<List<T>> batchWriter;
+
+    private final Function<T, String> spillSerializer;
+
+    private final File spillFile;
+
+    private final MetricService metricService;
+
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    public StructuredEventPipeline(String name, int capacity, int batchSize, Consumer<List<T>> batchWriter, Function<T, String> spillSerializer,
+            String spillFilePath, MetricService metricService) {
+        this.name = name;
+        queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.batchWriter = batchWriter;
+        this.spillSerializer = spillSerializer;
+        spillFile = spillFilePath == null || spillFilePath.isEmpty() ? null : new File(spillFilePath);
+        this.metricService = metricService;
+        metricService.registerGaugeMetric(MetricType.STRUCTURED_EVENT_PIPELINE_QUEUE_SIZE, queue, BlockingQueue::size, PIPELINE_TAG, name);
+        writer = new Thread(this::writeBatches, "structured-event-" + name);
+        writer.setDaemon(true);
+        writer.start();
+        LOGGER.info("Structured event pipeline {} started with capacity {}, batch size {}, overflow: {}", name, capacity, batchSize,
+                spillFile == null ? "drop" : "spill to " + spillFile.getAbsolutePath());
+    }
+
+    public void offer(T event) {
+        if (!running || !queue.offer(event)) {
+            overflow(List.of(event));
+        }
+    }
+
+    /**
+     * Stops accepting events and waits for the writer to flush the queued ones.
+     */
+    public void stop() {
+        running = false;
+        try {
+            writer.join(STOP_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            LOGGER.warn("Structured event pipeline {} stopped with {} events in the queue", name, queue.size());
+            List<T> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            overflow(remaining);
+        }
+    }
+
+    private void writeBatches() {
+        List<T> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                T event = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    batch.add(event);
+                    queue.drainTo(batch, batchSize - 1);
+                    write(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                LOGGER.info("Structured event pipeline {} writer has been interrupted", name);
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void write(List<T> batch) {
+        try {
+            batchWriter.accept(batch);
+            incrementCounter(MetricType.STRUCTURED_EVENT_PIPELINE_WRITTEN, batch.size());
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to write {} structured events in pipeline {}", batch.size(), name, e);
+            incrementCounter(MetricType.STRUCTURED_EVENT_PIPELINE_FAILED, batch.size());
+            overflow(batch);
+        }
+    }
+
+    private void overflow(List<T> events) {
+        if (spillFile == null) {
+            incrementCounter(MetricType.STRUCTURED_EVENT_PIPELINE_DROPPED, events.size());
+            LOGGER.debug("{} structured events have been dropped in pipeline {}", events.size(), name);
+        } else {
+            spill(events);
+        }
+    }
+
+    private synchronized void spill(List<T> events) {
+        StringBuilder lines = new StringBuilder();
+        try {
+            for (T event : events) {
+                lines.append(spillSerializer.apply(event)).append('\n');
+            }
+            FileUtils.writeStringToFile(spillFile, lines.toString(), StandardCharsets.UTF_8, true);
+            incrementCounter(MetricType.STRUCTURED_EVENT_PIPELINE_SPILLED, events.size());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Failed to spill {} structured events of pipeline {} to {}", events.size(), name, spillFile.getAbsolutePath(), e);
+            incrementCounter(MetricType.STRUCTURED_EVENT_PIPELINE_DROPPED, events.size());
+        }
+    }
+
+    private void incrementCounter(MetricType metricType, int count) {
+        metricService.incrementMetricCounter(metricType, count, PIPELINE_TAG, name);
+    }
+}
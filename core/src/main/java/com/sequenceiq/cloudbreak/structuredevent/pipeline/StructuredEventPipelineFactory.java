@@ -0,0 +1,44 @@
+package com.sequenceiq.cloudbreak.structuredevent.pipeline;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.inject.Inject;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
+
+/**
+ * Creates the pipelines that take the structured events off the reactor event bus, so that audit traffic does not compete with the flows for
+ * the dispatcher threads and the backlog of the event bus.
+ */
+@Component
+public class StructuredEventPipelineFactory {
+
+    @Value("${cb.structuredevent.pipeline.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cb.structuredevent.pipeline.capacity:10000}")
+    private int capacity;
+
+    @Value("${cb.structuredevent.pipeline.batch.size:50}")
+    private int batchSize;
+
+    @Value("${cb.structuredevent.pipeline.spill.directory:}")
+    private String spillDirectory;
+
+    @Inject
+    private MetricService metricService;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public <T> StructuredEventPipeline<T> create(String name, Consumer<List<T>> batchWriter, Function<T, String> spillSerializer) {
+        String spillFilePath = spillDirectory.isEmpty() ? null : spillDirectory + '/' + name + "-structured-events.spill";
+        return new StructuredEventPipeline<>(name, capacity, batchSize, batchWriter, spillSerializer, spillFilePath, metricService);
+    }
+}
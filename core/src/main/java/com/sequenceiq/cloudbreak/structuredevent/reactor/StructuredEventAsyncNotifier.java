@@ -4,9 +4,11 @@ import javax.inject.Inject;
 
 import org.springframework.stereotype.Component;
 
-import com.sequenceiq.flow.reactor.ErrorHandlerAwareReactorEventFactory;
 import com.sequenceiq.cloudbreak.structuredevent.StructuredEventClient;
+import com.sequenceiq.cloudbreak.structuredevent.StructuredEventService;
 import com.sequenceiq.cloudbreak.structuredevent.event.StructuredEvent;
+import com.sequenceiq.cloudbreak.structuredevent.pipeline.StructuredEventPipelineFactory;
+import com.sequenceiq.flow.reactor.ErrorHandlerAwareReactorEventFactory;
 
 import reactor.bus.Event;
 import reactor.bus.EventBus;
@@ -21,9 +23,20 @@ public class StructuredEventAsyncNotifier implements StructuredEventClient {
     @Inject
     private EventBus eventBus;
 
+    @Inject
+    private StructuredEventPipelineFactory structuredEventPipelineFactory;
+
+    @Inject
+    private StructuredEventService structuredEventService;
+
     @Override
     public void sendStructuredEvent(StructuredEvent structuredEvent) {
-        sendAsyncEvent(EVENT_LOG, eventFactory.createEvent(structuredEvent));
+        if (structuredEventPipelineFactory.isEnabled()) {
+            // the event is only queued to the structured event pipeline, there is no need to go through the event bus
+            structuredEventService.storeStructuredEvent(structuredEvent);
+        } else {
+            sendAsyncEvent(EVENT_LOG, eventFactory.createEvent(structuredEvent));
+        }
     }
 
     private void sendAsyncEvent(String selector, Event<?> event) {
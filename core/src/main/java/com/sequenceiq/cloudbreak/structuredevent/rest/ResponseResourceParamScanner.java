@@ -0,0 +1,83 @@
+package com.sequenceiq.cloudbreak.structuredevent.rest;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Looks up the id and the crn of the resource in a JSON response with the streaming parser of Jackson instead of reading the whole tree
+ * and scanning the response with regular expressions. A field of the top level object wins, otherwise the first numeric id and the first
+ * crn of the nested objects are used. The scanning stops as soon as every key is found on the top level and a truncated response yields
+ * the values found before the cut.
+ */
+public final class ResponseResourceParamScanner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResponseResourceParamScanner.class);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String ID = "id";
+
+    private ResponseResourceParamScanner() {
+    }
+
+    public static Map<String, String> scan(byte[] content, int length, Set<String> keys) {
+        Map<String, String> topLevelValues = new HashMap<>(keys.size());
+        Map<String, String> nestedValues = new HashMap<>(keys.size());
+        try (JsonParser parser = JSON_FACTORY.createParser(content, 0, length)) {
+            int depth = 0;
+            JsonToken token = parser.nextToken();
+            while (token != null && topLevelValues.size() < keys.size()) {
+                if (token == JsonToken.FIELD_NAME && keys.contains(parser.getCurrentName())) {
+                    String key = parser.getCurrentName();
+                    token = parser.nextToken();
+                    if (token != null && token.isScalarValue()) {
+                        if (depth == 1) {
+                            collectTopLevelValue(parser, key, topLevelValues);
+                        } else {
+                            collectNestedValue(parser, key, nestedValues);
+                        }
+                        token = parser.nextToken();
+                    }
+                    continue;
+                }
+                if (token.isStructStart()) {
+                    if (depth == 1 && nestedValues.size() == keys.size()) {
+                        // only a top level field could change the result, the nested values are not looked at any more
+                        parser.skipChildren();
+                    } else {
+                        depth++;
+                    }
+                } else if (token.isStructEnd()) {
+                    depth--;
+                }
+                token = parser.nextToken();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Response is not a complete JSON, the resource params found before the parsing stopped are used: {}", e.getMessage());
+        }
+        nestedValues.putAll(topLevelValues);
+        return nestedValues;
+    }
+
+    private static void collectTopLevelValue(JsonParser parser, String key, Map<String, String> values) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_NULL) {
+            values.put(key, parser.getValueAsString());
+        }
+    }
+
+    private static void collectNestedValue(JsonParser parser, String key, Map<String, String> values) throws IOException {
+        JsonToken expectedToken = ID.equals(key) ? JsonToken.VALUE_NUMBER_INT : JsonToken.VALUE_STRING;
+        if (parser.currentToken() == expectedToken && !values.containsKey(key)) {
+            values.put(key, parser.getValueAsString());
+        }
+    }
+}
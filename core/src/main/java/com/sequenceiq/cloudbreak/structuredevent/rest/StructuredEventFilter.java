@@ -14,12 +14,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -48,6 +52,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -56,8 +62,11 @@ import com.google.common.collect.Maps;
 import com.sequenceiq.cloudbreak.auth.security.authentication.AuthenticatedUserService;
 import com.sequenceiq.cloudbreak.authorization.lookup.WorkspaceAwareRepositoryLookupService;
 import com.sequenceiq.cloudbreak.common.json.JsonUtil;
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
 import com.sequenceiq.cloudbreak.common.user.CloudbreakUser;
+import com.sequenceiq.cloudbreak.logger.MDCBuilder;
 import com.sequenceiq.cloudbreak.service.CloudbreakRestRequestThreadLocalService;
+import com.sequenceiq.cloudbreak.service.metrics.MetricType;
 import com.sequenceiq.cloudbreak.structuredevent.StructuredEventClient;
 import com.sequenceiq.cloudbreak.structuredevent.event.OperationDetails;
 import com.sequenceiq.cloudbreak.structuredevent.event.StructuredRestCallEvent;
@@ -86,12 +95,24 @@ public class StructuredEventFilter implements WriterInterceptor, ContainerReques
 
     private static final String RESPONSE_DETAILS = "RESPONSE_DETAIS";
 
+    private static final String REQUEST_ENTITY = "REQUEST_ENTITY";
+
+    private static final String CAPTURE_NANOS = "CAPTURE_NANOS";
+
     private static final int MAX_CONTENT_LENGTH = 65535;
 
     private static final String ID = "id";
 
     private static final String CRN = "crn";
 
+    private static final int CAPTURE_BUFFER_POOL_SIZE = 32;
+
+    private static final int INITIAL_CAPTURE_BUFFER_SIZE = 1024;
+
+    private static final int POOLED_CAPTURE_THRESHOLD = 16384;
+
+    private static final String UNKNOWN_RESOURCE_TYPE = "unknown";
+
     private final List<String> skippedHeadersList = Lists.newArrayList("authorization");
 
     private final Map<String, WorkspaceResourceRepository<?, ?>> pathRepositoryMap = new HashMap<>();
@@ -100,6 +121,8 @@ public class StructuredEventFilter implements WriterInterceptor, ContainerReques
 
     private final Pattern extractCrnRestParamFromResponsePattern = Pattern.compile("\"" + CRN + "\":\"([0-9a-zA-Z:-]*)\"");
 
+    private final BlockingQueue<byte[]> captureBuffers = new ArrayBlockingQueue<>(CAPTURE_BUFFER_POOL_SIZE);
+
     @Inject
     private NodeConfig nodeConfig;
 
@@ -122,6 +145,16 @@ public class StructuredEventFilter implements WriterInterceptor, ContainerReques
     @Value("${cb.structuredevent.rest.contentlogging:false}")
     private Boolean contentLogging;
 
+    @Value("${cb.structuredevent.rest.streamingcapture.enabled:false}")
+    private boolean streamingCapture;
+
+    @Inject
+    @Named("structuredEventRestExecutor")
+    private AsyncTaskExecutor structuredEventRestExecutor;
+
+    @Inject
+    private MetricService metricService;
+
     @Autowired
     private ApplicationContext applicationContext;
 
@@ -151,28 +184,58 @@ public class StructuredEventFilter implements WriterInterceptor, ContainerReques
         boolean loggingEnabled = isLoggingEnabled(requestContext);
         requestContext.setProperty(LOGGING_ENABLED_PROPERTY, loggingEnabled);
         if (loggingEnabled) {
+            long captureStart = System.nanoTime();
             requestContext.setProperty(REQUEST_TIME, System.currentTimeMillis());
-            StringBuilder body = new StringBuilder();
-            requestContext.setEntityStream(logInboundEntity(body, requestContext.getEntityStream(), MessageUtils.getCharset(requestContext.getMediaType())));
-            requestContext.setProperty(REST_PARAMS, getRequestUrlParameters(requestContext));
-            requestContext.setProperty(REQUEST_DETAILS, createRequestDetails(requestContext, body.toString()));
+            if (streamingCapture) {
+                requestContext.setEntityStream(captureInboundEntity(requestContext));
+                requestContext.setProperty(REST_PARAMS, getRequestUrlParameters(requestContext));
+                requestContext.setProperty(REQUEST_DETAILS, createRequestDetails(requestContext, null));
+            } else {
+                StringBuilder body = new StringBuilder();
+                requestContext.setEntityStream(logInboundEntity(body, requestContext.getEntityStream(),
+                        MessageUtils.getCharset(requestContext.getMediaType())));
+                requestContext.setProperty(REST_PARAMS, getRequestUrlParameters(requestContext));
+                requestContext.setProperty(REQUEST_DETAILS, createRequestDetails(requestContext, body.toString()));
+            }
+            requestContext.setProperty(CAPTURE_NANOS, System.nanoTime() - captureStart);
         }
     }
 
     @Override
     public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
         if (BooleanUtils.isTrue((Boolean) requestContext.getProperty(LOGGING_ENABLED_PROPERTY))) {
+            long captureStart = System.nanoTime();
             RestResponseDetails restResponse = createResponseDetails(responseContext);
+            RestRequestDetails restRequest = (RestRequestDetails) requestContext.getProperty(REQUEST_DETAILS);
+            Map<String, String> restParams = (Map<String, String>) requestContext.getProperty(REST_PARAMS);
+            String resourceType = null;
             if (responseContext.hasEntity()) {
-                OutputStream stream = new LoggingStream(responseContext.getEntityStream());
-                responseContext.setEntityStream(stream);
-                requestContext.setProperty(LOGGINGSTREAM_PROPERTY, stream);
+                if (!streamingCapture) {
+                    OutputStream stream = new LoggingStream(responseContext.getEntityStream());
+                    responseContext.setEntityStream(stream);
+                    requestContext.setProperty(LOGGINGSTREAM_PROPERTY, stream);
+                } else if (contentLogging) {
+                    OutputStream stream = new CapturingStream(responseContext.getEntityStream());
+                    responseContext.setEntityStream(stream);
+                    requestContext.setProperty(LOGGINGSTREAM_PROPERTY, stream);
+                }
                 requestContext.setProperty(RESPONSE_DETAILS, restResponse);
             } else {
+                // the background event may extend the params with the ones of the response, the tag is read before the hand over
+                resourceType = getResourceTypeTag(restParams);
                 Long requestTime = (Long) requestContext.getProperty(REQUEST_TIME);
-                RestRequestDetails restRequest = (RestRequestDetails) requestContext.getProperty(REQUEST_DETAILS);
-                Map<String, String> restParams = (Map<String, String>) requestContext.getProperty(REST_PARAMS);
-                sendStructuredEvent(restRequest, restResponse, restParams, requestTime, "");
+                if (streamingCapture) {
+                    sendStructuredEventInBackground(restRequest, (CapturedEntity) requestContext.getProperty(REQUEST_ENTITY), restResponse, null,
+                            restParams, requestTime);
+                } else {
+                    sendStructuredEvent(restRequest, restResponse, restParams, requestTime, "");
+                }
+            }
+            long captureNanos = getCaptureNanos(requestContext.getProperty(CAPTURE_NANOS), captureStart);
+            if (responseContext.hasEntity()) {
+                requestContext.setProperty(CAPTURE_NANOS, captureNanos);
+            } else {
+                recordCaptureTime(restRequest, resourceType, captureNanos);
             }
         }
     }
@@ -181,35 +244,120 @@ public class StructuredEventFilter implements WriterInterceptor, ContainerReques
     public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
         context.proceed();
         if (BooleanUtils.isTrue((Boolean) context.getProperty(LOGGING_ENABLED_PROPERTY))) {
+            long captureStart = System.nanoTime();
             Long requestTime = (Long) context.getProperty(REQUEST_TIME);
             RestRequestDetails restRequest = (RestRequestDetails) context.getProperty(REQUEST_DETAILS);
             RestResponseDetails restResponse = (RestResponseDetails) context.getProperty(RESPONSE_DETAILS);
-            String responseBody = ((LoggingStream) context.getProperty(LOGGINGSTREAM_PROPERTY)).getStringBuilder(
-                    MessageUtils.getCharset(context.getMediaType())).toString();
             Map<String, String> restParams = (Map<String, String>) context.getProperty(REST_PARAMS);
             if (restParams == null) {
                 restParams = new HashMap<>();
             }
-            extendRestParamsFromResponse(restParams, responseBody);
-            sendStructuredEvent(restRequest, restResponse, restParams, requestTime, responseBody);
+            String resourceType = getResourceTypeTag(restParams);
+            Object stream = context.getProperty(LOGGINGSTREAM_PROPERTY);
+            if (streamingCapture) {
+                CapturedEntity responseEntity = stream instanceof CapturingStream ? ((CapturingStream) stream).detach(context.getMediaType()) : null;
+                sendStructuredEventInBackground(restRequest, (CapturedEntity) context.getProperty(REQUEST_ENTITY), restResponse, responseEntity,
+                        restParams, requestTime);
+            } else {
+                String responseBody = ((LoggingStream) stream).getStringBuilder(MessageUtils.getCharset(context.getMediaType())).toString();
+                extendRestParamsFromResponse(restParams, responseBody);
+                sendStructuredEvent(restRequest, restResponse, restParams, requestTime, responseBody);
+            }
+            recordCaptureTime(restRequest, resourceType, getCaptureNanos(context.getProperty(CAPTURE_NANOS), captureStart));
+        }
+    }
+
+    /**
+     * The request thread only hands over the captured bytes, the bodies are decoded, the resource params are looked up in the response and
+     * the event is sent on the structuredEventRestExecutor. The user and the workspace are thread locals of the request, so they are
+     * resolved before the hand over, and the logging context of the request is carried over to the task and restored after it, as the task
+     * may also run on the request thread when the executor is saturated.
+     */
+    private void sendStructuredEventInBackground(RestRequestDetails restRequest, CapturedEntity requestEntity, RestResponseDetails restResponse,
+            CapturedEntity responseEntity, Map<String, String> restParams, Long requestTime) {
+        RestCallDetails restCall = createRestCall(restRequest, restResponse, requestTime);
+        CloudbreakUser cloudbreakUser = getCloudbreakUser();
+        Long workspaceId = restRequestThreadLocalService.getRequestedWorkspaceId();
+        Map<String, String> requestMdcContext = MDCBuilder.getMdcContextMap();
+        Runnable sendTask = () -> {
+            long start = System.nanoTime();
+            Map<String, String> callerMdcContext = MDCBuilder.getMdcContextMap();
+            MDCBuilder.buildMdcContextFromMap(requestMdcContext);
+            try {
+                restRequest.setBody(requestEntity != null ? requestEntity.decode() : "");
+                restResponse.setBody(responseEntity != null ? responseEntity.decode() : "");
+                if (responseEntity != null) {
+                    extendRestParamsFromResponse(restParams, responseEntity);
+                }
+                structuredEventClient.sendStructuredEvent(new StructuredRestCallEvent(createOperationDetails(restParams, requestTime, workspaceId,
+                        cloudbreakUser), restCall));
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to send the structured event of {} {}", restRequest.getMethod(), restRequest.getRequestUri(), e);
+            } finally {
+                if (responseEntity != null) {
+                    releaseCaptureBuffer(responseEntity.content);
+                }
+                metricService.recordTimerMetric(MetricType.STRUCTURED_EVENT_REST_EVENT_BUILD, Duration.ofNanos(System.nanoTime() - start),
+                        "resourceType", getResourceTypeTag(restParams));
+                MDCBuilder.buildMdcContextFromMap(callerMdcContext);
+            }
+        };
+        try {
+            structuredEventRestExecutor.execute(sendTask);
+        } catch (TaskRejectedException e) {
+            LOGGER.debug("Structured event executor is saturated, sending the event of {} on the request thread", restRequest.getRequestUri());
+            sendTask.run();
+        }
+    }
+
+    private long getCaptureNanos(Object previousCaptureNanos, long captureStart) {
+        return System.nanoTime() - captureStart + (previousCaptureNanos != null ? (Long) previousCaptureNanos : 0L);
+    }
+
+    /**
+     * Records the time spent by the filter on the request thread, tagged by the method and the resource type of the endpoint, so that the
+     * overhead of the buffered and the streaming capture can be compared per endpoint. The resource type is taken before the event is handed
+     * over to the structuredEventRestExecutor, as the params are not touched by the request thread after that.
+     */
+    private void recordCaptureTime(RestRequestDetails restRequest, String resourceType, long captureNanos) {
+        if (restRequest != null) {
+            metricService.recordTimerMetric(MetricType.STRUCTURED_EVENT_REST_CAPTURE, Duration.ofNanos(captureNanos),
+                    "method", restRequest.getMethod(),
+                    "resourceType", resourceType,
+                    "mode", streamingCapture ? "streaming" : "buffered");
         }
     }
 
+    private String getResourceTypeTag(Map<String, String> restParams) {
+        String resourceType = restParams != null ? restParams.get(RESOURCE_TYPE) : null;
+        return StringUtils.isNotEmpty(resourceType) ? resourceType : UNKNOWN_RESOURCE_TYPE;
+    }
+
     private void sendStructuredEvent(RestRequestDetails restRequest, RestResponseDetails restResponse, Map<String, String> restParams, Long requestTime,
             String responseBody) {
         restResponse.setBody(responseBody);
+        RestCallDetails restCall = createRestCall(restRequest, restResponse, requestTime);
+        CloudbreakUser cloudbreakUser = getCloudbreakUser();
+        Long workspaceId = restRequestThreadLocalService.getRequestedWorkspaceId();
+        structuredEventClient.sendStructuredEvent(new StructuredRestCallEvent(createOperationDetails(restParams, requestTime, workspaceId, cloudbreakUser),
+                restCall));
+    }
+
+    private RestCallDetails createRestCall(RestRequestDetails restRequest, RestResponseDetails restResponse, Long requestTime) {
         RestCallDetails restCall = new RestCallDetails();
         restCall.setRestRequest(restRequest);
         restCall.setRestResponse(restResponse);
         restCall.setDuration(System.currentTimeMillis() - requestTime);
+        return restCall;
+    }
+
+    private CloudbreakUser getCloudbreakUser() {
         CloudbreakUser cloudbreakUser = restRequestThreadLocalService.getCloudbreakUser();
         if (cloudbreakUser == null) {
             String serviceId = authenticatedUserService.getServiceAccountId();
             cloudbreakUser = new CloudbreakUser(serviceId, serviceId, serviceId, serviceId, serviceId);
         }
-        Long workspaceId = restRequestThreadLocalService.getRequestedWorkspaceId();
-        structuredEventClient.sendStructuredEvent(new StructuredRestCallEvent(createOperationDetails(restParams, requestTime, workspaceId, cloudbreakUser),
-                restCall));
+        return cloudbreakUser;
     }
 
     private Map<String, String> getRequestUrlParameters(ContainerRequestContext requestContext) {
@@ -258,6 +406,22 @@ public class StructuredEventFilter implements WriterInterceptor, ContainerReques
         }
     }
 
+    private void extendRestParamsFromResponse(Map<String, String> params, CapturedEntity responseEntity) {
+        if (responseEntity.mediaType != null && MediaType.APPLICATION_JSON_TYPE.isCompatible(responseEntity.mediaType)) {
+            Set<String> resourcesParamsToCollect = new HashSet<>();
+            decorateSetWithValueIfNecessary(isResourceIdIsAbsentOrNull(params), ID, resourcesParamsToCollect);
+            decorateSetWithValueIfNecessary(isResourceCrnIsAbsentOrNull(params), CRN, resourcesParamsToCollect);
+            if (!resourcesParamsToCollect.isEmpty()) {
+                Map<String, String> resourceParams = ResponseResourceParamScanner.scan(responseEntity.content, responseEntity.length,
+                        resourcesParamsToCollect);
+                addExtractedValuesToParameters(params, resourceParams, ID, RESOURCE_ID);
+                addExtractedValuesToParameters(params, resourceParams, CRN, RESOURCE_CRN);
+            }
+        } else {
+            extendRestParamsFromResponse(params, responseEntity.decode());
+        }
+    }
+
     private void addExtractedValuesToParameters(Map<String, String> params, Map<String, String> resourceParams, String id, String resourceId) {
         if (resourceParams.containsKey(id)) {
             params.put(resourceId, resourceParams.get(id));
@@ -378,6 +542,38 @@ public class StructuredEventFilter implements WriterInterceptor, ContainerReques
         return stream;
     }
 
+    private InputStream captureInboundEntity(ContainerRequestContext requestContext) throws IOException {
+        InputStream stream = requestContext.getEntityStream();
+        if (contentLogging) {
+            if (!stream.markSupported()) {
+                stream = new BufferedInputStream(stream);
+            }
+            stream.mark(MAX_CONTENT_LENGTH + 1);
+            byte[] buffer = borrowCaptureBuffer();
+            try {
+                int entitySize = Math.max(stream.read(buffer), 0);
+                byte[] content = Arrays.copyOf(buffer, Math.min(entitySize, MAX_CONTENT_LENGTH));
+                requestContext.setProperty(REQUEST_ENTITY, new CapturedEntity(content, content.length, entitySize > MAX_CONTENT_LENGTH,
+                        requestContext.getMediaType()));
+            } finally {
+                releaseCaptureBuffer(buffer);
+            }
+            stream.reset();
+        }
+        return stream;
+    }
+
+    private byte[] borrowCaptureBuffer() {
+        byte[] buffer = captureBuffers.poll();
+        return buffer != null ? buffer : new byte[MAX_CONTENT_LENGTH + 1];
+    }
+
+    private void releaseCaptureBuffer(byte[] buffer) {
+        if (buffer.length == MAX_CONTENT_LENGTH + 1) {
+            captureBuffers.offer(buffer);
+        }
+    }
+
     private class LoggingStream extends FilterOutputStream {
         private final ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
@@ -405,5 +601,105 @@ public class StructuredEventFilter implements WriterInterceptor, ContainerReques
             }
             out.write(i);
         }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (contentLogging && baos.size() <= MAX_CONTENT_LENGTH) {
+                baos.write(b, off, Math.min(len, MAX_CONTENT_LENGTH + 1 - baos.size()));
+            }
+            out.write(b, off, len);
+        }
+    }
+
+    /**
+     * Passes the entity through and keeps its first MAX_CONTENT_LENGTH bytes, the buffer is handed over to the CapturedEntity. The pool is only
+     * a free list of the large buffers, a buffer is allocated when it is empty.
+     */
+    private class CapturingStream extends FilterOutputStream {
+
+        private byte[] buffer;
+
+        private int length;
+
+        private boolean truncated;
+
+        CapturingStream(OutputStream inner) {
+            super(inner);
+        }
+
+        @Override
+        public void write(int i) throws IOException {
+            if (ensureCapacity(1) > 0) {
+                buffer[length++] = (byte) i;
+            } else {
+                truncated = true;
+            }
+            out.write(i);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            int captured = ensureCapacity(len);
+            System.arraycopy(b, off, buffer, length, captured);
+            length += captured;
+            truncated |= captured < len;
+            out.write(b, off, len);
+        }
+
+        CapturedEntity detach(MediaType mediaType) {
+            CapturedEntity capturedEntity = new CapturedEntity(buffer != null ? buffer : new byte[0], length, truncated, mediaType);
+            buffer = null;
+            length = 0;
+            return capturedEntity;
+        }
+
+        /**
+         * A small entity is captured in a buffer growing with it, only an entity outgrowing POOLED_CAPTURE_THRESHOLD is moved to a buffer of
+         * the pool, which is returned once the event is sent. Returns the number of bytes that can be captured from the next write.
+         */
+        private int ensureCapacity(int size) {
+            int captured = Math.min(size, MAX_CONTENT_LENGTH - length);
+            int required = length + captured;
+            if (buffer == null || required > buffer.length) {
+                byte[] grown;
+                if (required > POOLED_CAPTURE_THRESHOLD) {
+                    grown = borrowCaptureBuffer();
+                } else {
+                    int doubled = buffer == null ? INITIAL_CAPTURE_BUFFER_SIZE : buffer.length * 2;
+                    grown = new byte[Math.min(Math.max(doubled, required), POOLED_CAPTURE_THRESHOLD)];
+                }
+                if (buffer != null) {
+                    System.arraycopy(buffer, 0, grown, 0, length);
+                }
+                buffer = grown;
+            }
+            return captured;
+        }
+    }
+
+    private static class CapturedEntity {
+
+        private final byte[] content;
+
+        private final int length;
+
+        private final boolean truncated;
+
+        private final MediaType mediaType;
+
+        CapturedEntity(byte[] content, int length, boolean truncated, MediaType mediaType) {
+            this.content = content;
+            this.length = length;
+            this.truncated = truncated;
+            this.mediaType = mediaType;
+        }
+
+        String decode() {
+            StringBuilder b = new StringBuilder(new String(content, 0, length, MessageUtils.getCharset(mediaType)));
+            if (truncated) {
+                b.append("...more...");
+            }
+            return b.append('\n').toString();
+        }
     }
 }
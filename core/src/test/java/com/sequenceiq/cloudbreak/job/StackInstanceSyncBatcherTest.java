@@ -0,0 +1,165 @@
+package com.sequenceiq.cloudbreak.job;
+
+import static com.sequenceiq.cloudbreak.cloud.model.AvailabilityZone.availabilityZone;
+import static com.sequenceiq.cloudbreak.cloud.model.Location.location;
+import static com.sequenceiq.cloudbreak.cloud.model.Region.region;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.sequenceiq.cloudbreak.cloud.context.CloudContext;
+import com.sequenceiq.cloudbreak.cloud.handler.InstanceStateQuery;
+import com.sequenceiq.cloudbreak.cloud.model.CloudCredential;
+import com.sequenceiq.cloudbreak.cloud.model.CloudInstance;
+import com.sequenceiq.cloudbreak.cloud.model.CloudVmInstanceStatus;
+import com.sequenceiq.cloudbreak.cloud.model.InstanceStatus;
+import com.sequenceiq.cloudbreak.domain.stack.Stack;
+import com.sequenceiq.cloudbreak.service.stack.flow.InstanceSyncState;
+import com.sequenceiq.cloudbreak.service.stack.flow.StackSyncService;
+import com.sequenceiq.flow.core.FlowLogService;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StackInstanceSyncBatcherTest {
+
+    private static final CloudCredential CREDENTIAL = new CloudCredential("crn:credential", "credential");
+
+    @InjectMocks
+    private StackInstanceSyncBatcher underTest;
+
+    @Mock
+    private InstanceStateQuery instanceStateQuery;
+
+    @Mock
+    private StackSyncService syncService;
+
+    @Mock
+    private FlowLogService flowLogService;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(underTest, "pageSize", 3);
+        when(flowLogService.isOtherFlowRunning(anyLong())).thenReturn(Boolean.FALSE);
+    }
+
+    @Test
+    public void testStacksOfTheSameCredentialAndRegionAreQueriedTogether() {
+        Stack stack1 = stack(1L);
+        Stack stack2 = stack(2L);
+        Stack stack3 = stack(3L);
+        List<CloudInstance> instances1 = instances("i-1", "i-2");
+        List<CloudInstance> instances2 = instances("i-3");
+        List<CloudInstance> instances3 = instances("i-4");
+        when(instanceStateQuery.getCloudVmInstanceStatuses(any(), any(), any())).thenAnswer(invocation -> running(invocation.getArgument(2)));
+
+        underTest.submit(stack1, cloudContext(1L, "eu-central-1"), CREDENTIAL, instances1, InstanceSyncState.RUNNING);
+        underTest.submit(stack2, cloudContext(2L, "eu-central-1"), CREDENTIAL, instances2, InstanceSyncState.RUNNING);
+        underTest.submit(stack3, cloudContext(3L, "us-west-1"), CREDENTIAL, instances3, InstanceSyncState.DELETED_ON_PROVIDER_SIDE);
+        underTest.flush();
+
+        verify(instanceStateQuery, times(2)).getCloudVmInstanceStatuses(any(), any(), any());
+        assertEquals(instances1, syncedInstances(stack1, InstanceSyncState.RUNNING));
+        assertEquals(instances2, syncedInstances(stack2, InstanceSyncState.RUNNING));
+        assertEquals(instances3, syncedInstances(stack3, InstanceSyncState.DELETED_ON_PROVIDER_SIDE));
+    }
+
+    @Test
+    public void testGroupsAreQueriedInPages() {
+        Stack stack1 = stack(1L);
+        Stack stack2 = stack(2L);
+        when(instanceStateQuery.getCloudVmInstanceStatuses(any(), any(), any())).thenAnswer(invocation -> running(invocation.getArgument(2)));
+
+        underTest.submit(stack1, cloudContext(1L, "eu-central-1"), CREDENTIAL, instances("i-1", "i-2"), InstanceSyncState.RUNNING);
+        underTest.submit(stack2, cloudContext(2L, "eu-central-1"), CREDENTIAL, instances("i-3", "i-4"), InstanceSyncState.RUNNING);
+        underTest.flush();
+
+        verify(instanceStateQuery, times(1)).getCloudVmInstanceStatuses(any(), any(), instancesOfSize(3));
+        verify(instanceStateQuery, times(1)).getCloudVmInstanceStatuses(any(), any(), instancesOfSize(1));
+    }
+
+    @Test
+    public void testFailedPageIsQueriedStackByStack() {
+        Stack stack1 = stack(1L);
+        Stack stack2 = stack(2L);
+        List<CloudInstance> instances1 = instances("i-1");
+        List<CloudInstance> instances2 = instances("i-2");
+        when(instanceStateQuery.getCloudVmInstanceStatuses(any(), any(), instancesOfSize(2)))
+                .thenThrow(new IllegalStateException("InvalidInstanceID.NotFound"));
+        when(instanceStateQuery.getCloudVmInstanceStatuses(any(), contextOfStack(1L), instancesOfSize(1)))
+                .thenAnswer(invocation -> running(invocation.getArgument(2)));
+        when(instanceStateQuery.getCloudVmInstanceStatuses(any(), contextOfStack(2L), instancesOfSize(1)))
+                .thenThrow(new IllegalStateException("InvalidInstanceID.NotFound"));
+
+        underTest.submit(stack1, cloudContext(1L, "eu-central-1"), CREDENTIAL, instances1, InstanceSyncState.RUNNING);
+        underTest.submit(stack2, cloudContext(2L, "eu-central-1"), CREDENTIAL, instances2, InstanceSyncState.RUNNING);
+        underTest.flush();
+
+        ArgumentCaptor<List<CloudVmInstanceStatus>> statuses = ArgumentCaptor.forClass(List.class);
+        verify(syncService).autoSync(eq(stack1), statuses.capture(), eq(true), eq(InstanceSyncState.RUNNING));
+        assertEquals(InstanceStatus.STARTED, statuses.getValue().get(0).getStatus());
+        verify(syncService).autoSync(eq(stack2), statuses.capture(), eq(true), eq(InstanceSyncState.RUNNING));
+        assertEquals(InstanceStatus.UNKNOWN, statuses.getValue().get(0).getStatus());
+    }
+
+    @Test
+    public void testStackWithRunningFlowIsSkipped() {
+        Stack stack1 = stack(1L);
+        when(flowLogService.isOtherFlowRunning(1L)).thenReturn(Boolean.TRUE);
+
+        underTest.submit(stack1, cloudContext(1L, "eu-central-1"), CREDENTIAL, instances("i-1"), InstanceSyncState.RUNNING);
+        underTest.flush();
+
+        verify(instanceStateQuery, never()).getCloudVmInstanceStatuses(any(), any(), any());
+        verify(syncService, never()).autoSync(any(), any(), eq(true), any());
+    }
+
+    private List<CloudInstance> syncedInstances(Stack stack, InstanceSyncState defaultState) {
+        ArgumentCaptor<List<CloudVmInstanceStatus>> statuses = ArgumentCaptor.forClass(List.class);
+        verify(syncService).autoSync(eq(stack), statuses.capture(), eq(true), eq(defaultState));
+        return statuses.getValue().stream().map(CloudVmInstanceStatus::getCloudInstance).collect(Collectors.toList());
+    }
+
+    private static List<CloudInstance> instancesOfSize(int size) {
+        return argThat(instances -> instances != null && instances.size() == size);
+    }
+
+    private static CloudContext contextOfStack(Long stackId) {
+        return argThat(context -> context != null && stackId.equals(context.getId()));
+    }
+
+    private static List<CloudVmInstanceStatus> running(List<CloudInstance> instances) {
+        return instances.stream().map(instance -> new CloudVmInstanceStatus(instance, InstanceStatus.STARTED)).collect(Collectors.toList());
+    }
+
+    private static List<CloudInstance> instances(String... instanceIds) {
+        return List.of(instanceIds).stream().map(instanceId -> new CloudInstance(instanceId, null, null)).collect(Collectors.toList());
+    }
+
+    private static CloudContext cloudContext(Long stackId, String region) {
+        return new CloudContext(stackId, "stack" + stackId, "AWS", "AWS", location(region(region), availabilityZone(region + "a")), "user", 1L);
+    }
+
+    private static Stack stack(Long id) {
+        Stack stack = mock(Stack.class);
+        when(stack.getId()).thenReturn(id);
+        return stack;
+    }
+}
@@ -6,6 +6,7 @@ import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -38,6 +39,7 @@ import com.sequenceiq.cloudbreak.service.cluster.ClusterApiConnectors;
 import com.sequenceiq.cloudbreak.service.cluster.ClusterService;
 import com.sequenceiq.cloudbreak.service.environment.credential.CredentialConverter;
 import com.sequenceiq.cloudbreak.service.stack.StackService;
+import com.sequenceiq.cloudbreak.service.stack.flow.InstanceSyncState;
 import com.sequenceiq.cloudbreak.service.stack.flow.StackSyncService;
 import com.sequenceiq.cloudbreak.workspace.model.User;
 import com.sequenceiq.cloudbreak.workspace.model.Workspace;
@@ -118,6 +120,9 @@ public class StackStatusCheckerJobTest {
     @Mock
     private CloudInstance cloudInstance;
 
+    @Mock
+    private StackInstanceSyncBatcher instanceSyncBatcher;
+
     @Before
     public void  init() {
         when(flowLogService.isOtherFlowRunning(anyLong())).thenReturn(Boolean.FALSE);
@@ -211,4 +216,16 @@ public class StackStatusCheckerJobTest {
         verify(clusterService, times(1)).reportHealthChange(any(), anySet(), anySet());
         verify(instanceStateQuery, times(1)).getCloudVmInstanceStatuses(any(), any(), any());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testInstanceSyncIsQueuedWhenBatchingIsEnabled() throws JobExecutionException {
+        setupForCMNotAccessible();
+        when(instanceSyncBatcher.isBatchingEnabled(stack)).thenReturn(true);
+        when(cloudInstanceConverter.convert(anyList())).thenReturn(List.of(cloudInstance));
+        underTest.executeInternal(jobExecutionContext);
+
+        verify(instanceSyncBatcher, times(1)).submit(eq(stack), any(), any(), eq(List.of(cloudInstance)), eq(InstanceSyncState.DELETED_ON_PROVIDER_SIDE));
+        verify(instanceStateQuery, times(0)).getCloudVmInstanceStatuses(any(), any(), any());
+        verify(stackSyncService, times(0)).autoSync(any(), any(), anyBoolean(), any());
+    }
+}
@@ -0,0 +1,120 @@
+package com.sequenceiq.cloudbreak.service.image;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.sequenceiq.cloudbreak.cloud.model.catalog.CloudbreakImageCatalogV2;
+import com.sequenceiq.cloudbreak.cloud.model.catalog.Image;
+import com.sequenceiq.cloudbreak.core.CloudbreakImageCatalogException;
+import com.sequenceiq.cloudbreak.util.FileReaderUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IndexedImageCatalogCacheTest {
+
+    private static final String CATALOG_FILE = "image-catalog.json";
+
+    private static final String IMAGE_ID = "7aca1fa6-980c-44e2-a75e-3144b18a5993";
+
+    @InjectMocks
+    private IndexedImageCatalogCache underTest;
+
+    @Mock
+    private CachedImageCatalogProvider cachedImageCatalogProvider;
+
+    private String content;
+
+    @Before
+    public void setUp() throws Exception {
+        content = FileReaderUtils.readFileFromClasspath("com/sequenceiq/cloudbreak/service/image/cb-image-catalog-v2.json");
+        ReflectionTestUtils.setField(underTest, "ttlMinutes", 15L);
+        ReflectionTestUtils.setField(underTest, "refreshExecutor", MoreExecutors.newDirectExecutorService());
+    }
+
+    @Test
+    public void testCatalogIsIndexedOnce() throws Exception {
+        mockParse();
+        when(cachedImageCatalogProvider.readCatalogFromFile(CATALOG_FILE)).thenReturn(content);
+
+        IndexedImageCatalog first = underTest.get(CATALOG_FILE, false);
+        IndexedImageCatalog second = underTest.get(CATALOG_FILE, false);
+
+        assertSame(first, second);
+        verify(cachedImageCatalogProvider, times(1)).readCatalogFromFile(CATALOG_FILE);
+        Image image = first.getImageByUuid(IMAGE_ID).get();
+        assertEquals(IMAGE_ID, image.getUuid());
+        assertTrue(first.getImageByUuid("unknown").isEmpty());
+    }
+
+    @Test
+    public void testStaleCatalogWithUnchangedContentIsNotParsedAgain() throws Exception {
+        mockParse();
+        when(cachedImageCatalogProvider.readCatalogFromFile(CATALOG_FILE)).thenReturn(content);
+        ReflectionTestUtils.setField(underTest, "ttlMinutes", -1L);
+
+        IndexedImageCatalog first = underTest.get(CATALOG_FILE, false);
+        underTest.get(CATALOG_FILE, false);
+        ReflectionTestUtils.setField(underTest, "ttlMinutes", 15L);
+        IndexedImageCatalog refreshed = underTest.get(CATALOG_FILE, false);
+
+        verify(cachedImageCatalogProvider, times(2)).readCatalogFromFile(CATALOG_FILE);
+        verify(cachedImageCatalogProvider, times(1)).parseImageCatalog(eq(CATALOG_FILE), anyString());
+        assertSame(first.getCatalog(), refreshed.getCatalog());
+    }
+
+    @Test
+    public void testForcedRefreshParsesChangedContent() throws Exception {
+        mockParse();
+        when(cachedImageCatalogProvider.readCatalogFromFile(CATALOG_FILE)).thenReturn(content, content + '\n');
+
+        IndexedImageCatalog first = underTest.get(CATALOG_FILE, false);
+        IndexedImageCatalog refreshed = underTest.get(CATALOG_FILE, true);
+
+        verify(cachedImageCatalogProvider, times(2)).parseImageCatalog(eq(CATALOG_FILE), anyString());
+        assertNotSame(first.getCatalog(), refreshed.getCatalog());
+        assertSame(refreshed, underTest.get(CATALOG_FILE, false));
+    }
+
+    @Test
+    public void testFailedBackgroundRefreshKeepsStaleCatalog() throws Exception {
+        mockParse();
+        when(cachedImageCatalogProvider.readCatalogFromFile(CATALOG_FILE)).thenReturn(content).thenThrow(new IOException("gone"));
+        ReflectionTestUtils.setField(underTest, "ttlMinutes", -1L);
+
+        IndexedImageCatalog first = underTest.get(CATALOG_FILE, false);
+        IndexedImageCatalog stale = underTest.get(CATALOG_FILE, false);
+
+        assertSame(first, stale);
+        assertSame(first, underTest.get(CATALOG_FILE, false));
+    }
+
+    @Test(expected = CloudbreakImageCatalogException.class)
+    public void testFirstLoadFailureIsReported() throws Exception {
+        when(cachedImageCatalogProvider.readCatalogFromFile(CATALOG_FILE)).thenThrow(new IOException("missing"));
+
+        underTest.get(CATALOG_FILE, false);
+    }
+
+    private void mockParse() throws CloudbreakImageCatalogException {
+        when(cachedImageCatalogProvider.parseImageCatalog(eq(CATALOG_FILE), anyString()))
+                .thenAnswer(invocation -> new ObjectMapper().readValue((String) invocation.getArgument(1), CloudbreakImageCatalogV2.class));
+    }
+}
@@ -0,0 +1,114 @@
+package com.sequenceiq.cloudbreak.structuredevent.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
+import com.sequenceiq.cloudbreak.service.metrics.MetricType;
+
+public class StructuredEventPipelineTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final MetricService metricService = mock(MetricService.class);
+
+    @Test
+    public void testEventsAreWrittenInBatchesByOneWriter() {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        List<String> writerThreads = new CopyOnWriteArrayList<>();
+        StructuredEventPipeline<String> underTest = new StructuredEventPipeline<>("test", 100, 10, batch -> {
+            batches.add(List.copyOf(batch));
+            writerThreads.add(Thread.currentThread().getName());
+        }, event -> event, null, metricService);
+
+        IntStream.range(0, 25).forEach(i -> underTest.offer("event-" + i));
+        underTest.stop();
+
+        List<String> written = batches.stream().flatMap(List::stream).collect(Collectors.toList());
+        assertEquals(IntStream.range(0, 25).mapToObj(i -> "event-" + i).collect(Collectors.toList()), written);
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 10));
+        assertEquals(1L, writerThreads.stream().distinct().count());
+    }
+
+    @Test
+    public void testOverflowIsSpilledToFile() throws Exception {
+        CountDownLatch writerBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        File spillFile = new File(temporaryFolder.getRoot(), "test.spill");
+        StructuredEventPipeline<String> underTest = new StructuredEventPipeline<>("spill-test", 1, 1, batch -> {
+            writerBlocked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, event -> "{\"event\":\"" + event + "\"}", spillFile.getAbsolutePath(), metricService);
+
+        underTest.offer("first");
+        assertTrue(writerBlocked.await(10, TimeUnit.SECONDS));
+        underTest.offer("queued");
+        underTest.offer("overflow");
+        release.countDown();
+        underTest.stop();
+
+        assertEquals(List.of("{\"event\":\"overflow\"}"), Files.readAllLines(spillFile.toPath(), StandardCharsets.UTF_8));
+        verify(metricService).incrementMetricCounter(MetricType.STRUCTURED_EVENT_PIPELINE_SPILLED, 1, "pipeline", "spill-test");
+    }
+
+    @Test
+    public void testMetricsAreRecordedThroughTheMetricServiceAndTheQueueSizeGaugeIsBackedByTheQueue() throws InterruptedException {
+        CountDownLatch writerBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StructuredEventPipeline<String> underTest = new StructuredEventPipeline<>("metrics-test", 2, 1, batch -> {
+            writerBlocked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (batch.contains("failing")) {
+                throw new IllegalStateException("db down");
+            }
+        }, event -> event, null, metricService);
+        ArgumentCaptor<BlockingQueue<String>> queueCaptor = ArgumentCaptor.forClass(BlockingQueue.class);
+        ArgumentCaptor<ToDoubleFunction<BlockingQueue<String>>> valueFunctionCaptor = ArgumentCaptor.forClass(ToDoubleFunction.class);
+        verify(metricService).registerGaugeMetric(eq(MetricType.STRUCTURED_EVENT_PIPELINE_QUEUE_SIZE), queueCaptor.capture(),
+                valueFunctionCaptor.capture(), eq("pipeline"), eq("metrics-test"));
+
+        underTest.offer("first");
+        assertTrue(writerBlocked.await(10, TimeUnit.SECONDS));
+        underTest.offer("failing");
+        underTest.offer("queued");
+        underTest.offer("dropped");
+        assertEquals(2.0, valueFunctionCaptor.getValue().applyAsDouble(queueCaptor.getValue()), 0.0);
+        release.countDown();
+        underTest.stop();
+
+        assertEquals(0.0, valueFunctionCaptor.getValue().applyAsDouble(queueCaptor.getValue()), 0.0);
+        verify(metricService, times(2)).incrementMetricCounter(MetricType.STRUCTURED_EVENT_PIPELINE_WRITTEN, 1, "pipeline", "metrics-test");
+        verify(metricService).incrementMetricCounter(MetricType.STRUCTURED_EVENT_PIPELINE_FAILED, 1, "pipeline", "metrics-test");
+        verify(metricService, times(2)).incrementMetricCounter(MetricType.STRUCTURED_EVENT_PIPELINE_DROPPED, 1, "pipeline", "metrics-test");
+    }
+}
@@ -0,0 +1,67 @@
+package com.sequenceiq.cloudbreak.structuredevent.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class ResponseResourceParamScannerTest {
+
+    private static final String CRN = "crn:cdp:datahub:us-west-1:cloudera:cluster:b20f9cb7-05fa-48ce-b249-02f5ab755808";
+
+    private static final String NESTED_CRN = "crn:cdp:datahub:us-west-1:cloudera:instanceGroup:4c5d1c0e-5a3b-4bd6-a7c5-1f1b0d1c7e21";
+
+    @Test
+    void testTopLevelValuesWinOverNestedOnes() {
+        Map<String, String> params = scan("{\"instanceGroups\":[{\"id\":7,\"crn\":\"" + NESTED_CRN + "\"}],\"id\":12345,\"crn\":\"" + CRN + "\"}",
+                Set.of("id", "crn"));
+
+        assertEquals("12345", params.get("id"));
+        assertEquals(CRN, params.get("crn"));
+    }
+
+    @Test
+    void testFirstNestedValuesAreUsedWithoutTopLevelOnes() {
+        Map<String, String> params = scan("{\"responses\":[{\"name\":\"a\",\"id\":1,\"crn\":\"" + NESTED_CRN + "\"},{\"id\":2,\"crn\":\"" + CRN + "\"}]}",
+                Set.of("id", "crn"));
+
+        assertEquals("1", params.get("id"));
+        assertEquals(NESTED_CRN, params.get("crn"));
+    }
+
+    @Test
+    void testQuotedTopLevelIdIsAcceptedButNestedOneIsNot() {
+        assertEquals("12345", scan("{\"id\": \"12345\"}", Set.of("id")).get("id"));
+        assertTrue(scan("{\"cluster\":{\"id\":\"abc\"}}", Set.of("id")).isEmpty());
+    }
+
+    @Test
+    void testOnlyRequestedKeysAreCollected() {
+        Map<String, String> params = scan("{\"id\":12345,\"crn\":\"" + CRN + "\"}", Set.of("crn"));
+
+        assertEquals(Map.of("crn", CRN), params);
+    }
+
+    @Test
+    void testTruncatedResponseYieldsValuesBeforeTheCut() {
+        Map<String, String> params = scan("{\"name\":\"cluster\",\"crn\":\"" + CRN + "\",\"instanceGroups\":[{\"id\":3,\"nodes\":[{\"fq", Set.of("id", "crn"));
+
+        assertEquals("3", params.get("id"));
+        assertEquals(CRN, params.get("crn"));
+    }
+
+    @Test
+    void testNullAndNonJsonResponsesYieldNothing() {
+        assertTrue(scan("{\"id\":null}", Set.of("id")).isEmpty());
+        assertTrue(scan("The recipe's name can only contain lowercase alphanumeric characters", Set.of("id", "crn")).isEmpty());
+    }
+
+    private Map<String, String> scan(String response, Set<String> keys) {
+        byte[] content = response.getBytes(StandardCharsets.UTF_8);
+        return ResponseResourceParamScanner.scan(content, content.length, keys);
+    }
+}
@@ -3,16 +3,30 @@ package com.sequenceiq.cloudbreak.structuredevent.rest;
 import static com.sequenceiq.cloudbreak.structuredevent.rest.urlparsers.RestUrlParser.RESOURCE_CRN;
 import static com.sequenceiq.cloudbreak.structuredevent.rest.urlparsers.RestUrlParser.RESOURCE_ID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.ws.rs.container.ContainerResponseContext;
 import javax.ws.rs.core.HttpHeaders;
@@ -21,10 +35,12 @@ import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.ext.WriterInterceptorContext;
 
 import org.glassfish.jersey.internal.MapPropertiesDelegate;
 import org.glassfish.jersey.server.ContainerRequest;
 import org.glassfish.jersey.server.ContainerResponse;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -32,12 +48,18 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.MDC;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import com.sequenceiq.cloudbreak.auth.security.authentication.AuthenticatedUserService;
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
+import com.sequenceiq.cloudbreak.logger.LoggerContextKey;
+import com.sequenceiq.cloudbreak.logger.MDCBuilder;
 import com.sequenceiq.cloudbreak.service.CloudbreakRestRequestThreadLocalService;
 import com.sequenceiq.cloudbreak.structuredevent.StructuredEventClient;
 import com.sequenceiq.cloudbreak.structuredevent.event.StructuredRestCallEvent;
+import com.sequenceiq.cloudbreak.service.metrics.MetricType;
 import com.sequenceiq.cloudbreak.structuredevent.event.rest.RestRequestDetails;
 import com.sequenceiq.flow.ha.NodeConfig;
 
@@ -62,12 +84,23 @@ class StructuredEventFilterTest {
     @Mock
     private NodeConfig nodeConfig;
 
+    @Mock
+    private WriterInterceptorContext writerInterceptorContext;
+
+    @Mock
+    private MetricService metricService;
+
     @BeforeEach
     public void setup() {
         ReflectionTestUtils.setField(underTest, "restUrlParsers", new ArrayList<>());
         ReflectionTestUtils.setField(underTest, "contentLogging", true);
     }
 
+    @AfterEach
+    public void tearDown() {
+        MDCBuilder.cleanupMdc();
+    }
+
     @Test
     void filter() throws IOException {
         MultivaluedMap<String, String> headersMap = createRequestHeader();
@@ -118,6 +151,116 @@ class StructuredEventFilterTest {
         headersMap.forEach((key, value) -> assertEquals(value.get(0), captorValue.getRestCall().getRestRequest().getHeaders().get(key)));
     }
 
+    @Test
+    void filterWithStreamingCapture() throws IOException {
+        ReflectionTestUtils.setField(underTest, "streamingCapture", true);
+        ReflectionTestUtils.setField(underTest, "structuredEventRestExecutor", new ConcurrentTaskExecutor(Runnable::run));
+        ArgumentCaptor<StructuredRestCallEvent> structuredEventCaptor = ArgumentCaptor.forClass(StructuredRestCallEvent.class);
+        doNothing().when(structuredEventClient).sendStructuredEvent(structuredEventCaptor.capture());
+
+        String responseBody = "{\"stacks\":[{\"id\":7}],\"id\":12345,\"crn\":\"crn:cdp:datahub:us-west-1:cloudera:cluster:b20f9cb7\"}";
+        String writtenResponse = filterWithStreamingCapture(responseBody);
+
+        assertEquals(responseBody, writtenResponse);
+        StructuredRestCallEvent captorValue = structuredEventCaptor.getValue();
+        assertEquals("{\"name\":\"cluster\"}\n", captorValue.getRestCall().getRestRequest().getBody());
+        assertEquals(responseBody + '\n', captorValue.getRestCall().getRestResponse().getBody());
+        assertEquals(12345L, captorValue.getOperation().getResourceId());
+        assertEquals("crn:cdp:datahub:us-west-1:cloudera:cluster:b20f9cb7", captorValue.getOperation().getResourceCrn());
+    }
+
+    @Test
+    void filterWithStreamingCaptureBorrowsPooledBufferOnlyForLargeResponses() throws IOException {
+        ReflectionTestUtils.setField(underTest, "streamingCapture", true);
+        List<Runnable> pendingEvents = new ArrayList<>();
+        ReflectionTestUtils.setField(underTest, "structuredEventRestExecutor", new ConcurrentTaskExecutor(pendingEvents::add));
+        ArgumentCaptor<StructuredRestCallEvent> structuredEventCaptor = ArgumentCaptor.forClass(StructuredRestCallEvent.class);
+        doNothing().when(structuredEventClient).sendStructuredEvent(structuredEventCaptor.capture());
+        Collection<?> captureBuffers = (Collection<?>) ReflectionTestUtils.getField(underTest, "captureBuffers");
+
+        String largeResponseBody = "{\"id\":12345,\"name\":\"" + "a".repeat(70000) + "\"}";
+        assertEquals(largeResponseBody, filterWithStreamingCapture(largeResponseBody));
+        assertTrue(captureBuffers.isEmpty());
+        pendingEvents.remove(0).run();
+        assertEquals(1, captureBuffers.size());
+        String capturedBody = structuredEventCaptor.getValue().getRestCall().getRestResponse().getBody();
+        assertTrue(capturedBody.endsWith("...more...\n"));
+        assertEquals(12345L, structuredEventCaptor.getValue().getOperation().getResourceId());
+
+        filterWithStreamingCapture("{\"id\":1}");
+        assertEquals(1, captureBuffers.size());
+        pendingEvents.remove(0).run();
+        assertEquals(1, captureBuffers.size());
+        assertEquals("{\"id\":1}\n", structuredEventCaptor.getValue().getRestCall().getRestResponse().getBody());
+    }
+
+    @Test
+    void filterWithStreamingCaptureSendsEventOnRequestThreadWhenExecutorIsSaturated() throws IOException {
+        ReflectionTestUtils.setField(underTest, "streamingCapture", true);
+        ReflectionTestUtils.setField(underTest, "structuredEventRestExecutor", new ConcurrentTaskExecutor(task -> {
+            throw new RejectedExecutionException("queue is full");
+        }));
+        ArgumentCaptor<StructuredRestCallEvent> structuredEventCaptor = ArgumentCaptor.forClass(StructuredRestCallEvent.class);
+        doNothing().when(structuredEventClient).sendStructuredEvent(structuredEventCaptor.capture());
+
+        String responseBody = "{\"id\":12345}";
+        assertEquals(responseBody, filterWithStreamingCapture(responseBody));
+
+        StructuredRestCallEvent captorValue = structuredEventCaptor.getValue();
+        assertEquals(responseBody + '\n', captorValue.getRestCall().getRestResponse().getBody());
+        assertEquals(12345L, captorValue.getOperation().getResourceId());
+    }
+
+    @Test
+    void filterWithStreamingCaptureSendsEventWithTheLoggingContextOfTheRequestAndRecordsTheTimers() throws Exception {
+        ReflectionTestUtils.setField(underTest, "streamingCapture", true);
+        List<Runnable> pendingEvents = new ArrayList<>();
+        ReflectionTestUtils.setField(underTest, "structuredEventRestExecutor", new ConcurrentTaskExecutor(pendingEvents::add));
+        AtomicReference<String> resourceCrnOfTheEvent = new AtomicReference<>();
+        AtomicReference<String> resourceCrnAfterTheEvent = new AtomicReference<>();
+        doAnswer(invocation -> {
+            resourceCrnOfTheEvent.set(MDC.get(LoggerContextKey.RESOURCE_CRN.toString()));
+            return null;
+        }).when(structuredEventClient).sendStructuredEvent(any(StructuredRestCallEvent.class));
+        String resourceCrn = "crn:cdp:datahub:us-west-1:cloudera:cluster:b20f9cb7";
+        MDCBuilder.addResourceCrn(resourceCrn);
+
+        filterWithStreamingCapture("{\"id\":12345}");
+        Thread sender = new Thread(() -> {
+            pendingEvents.remove(0).run();
+            resourceCrnAfterTheEvent.set(MDC.get(LoggerContextKey.RESOURCE_CRN.toString()));
+        });
+        sender.start();
+        sender.join();
+
+        assertEquals(resourceCrn, resourceCrnOfTheEvent.get());
+        assertNull(resourceCrnAfterTheEvent.get());
+        verify(metricService).recordTimerMetric(eq(MetricType.STRUCTURED_EVENT_REST_CAPTURE), any(Duration.class), eq("method"), eq("PUT"),
+                eq("resourceType"), eq("unknown"), eq("mode"), eq("streaming"));
+        verify(metricService).recordTimerMetric(eq(MetricType.STRUCTURED_EVENT_REST_EVENT_BUILD), any(Duration.class), eq("resourceType"),
+                eq("unknown"));
+    }
+
+    private String filterWithStreamingCapture(String responseBody) throws IOException {
+        ContainerRequest requestContext = createRequestContext(createRequestHeader());
+        requestContext.setEntityStream(new ByteArrayInputStream("{\"name\":\"cluster\"}".getBytes(StandardCharsets.UTF_8)));
+        underTest.filter(requestContext);
+
+        ContainerResponse responseContext = new ContainerResponse(requestContext, Response.ok("entity").build());
+        ByteArrayOutputStream responseStream = new ByteArrayOutputStream();
+        responseContext.setEntityStream(responseStream);
+        underTest.filter(requestContext, responseContext);
+
+        when(writerInterceptorContext.getProperty(anyString())).thenAnswer(invocation -> requestContext.getProperty(invocation.getArgument(0)));
+        when(writerInterceptorContext.getMediaType()).thenReturn(MediaType.APPLICATION_JSON_TYPE);
+        doAnswer(invocation -> {
+            responseContext.getEntityStream().write(responseBody.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(writerInterceptorContext).proceed();
+        underTest.aroundWriteTo(writerInterceptorContext);
+        return responseStream.toString(StandardCharsets.UTF_8);
+    }
+
     @Test
     public void testResourceIdParsingWhenValidJsonIsReturned() {
         Map<String, String> params = new HashMap<>();
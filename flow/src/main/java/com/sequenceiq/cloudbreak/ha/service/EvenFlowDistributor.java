@@ -5,17 +5,40 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
 
 import com.sequenceiq.cloudbreak.ha.domain.Node;
 
+/**
+ * The default flow distributor, it is created for every {@code cb.ha.flow.distributor} value except {@code weighted}, so an unknown value
+ * fails the startup with a clear message instead of leaving the node without a distributor.
+ */
 @Service
+@ConditionalOnExpression("!'${cb.ha.flow.distributor:even}'.trim().equalsIgnoreCase('weighted')")
 public class EvenFlowDistributor implements FlowDistributor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EvenFlowDistributor.class);
 
+    private static final String EVEN_DISTRIBUTOR = "even";
+
+    @Value("${cb.ha.flow.distributor:even}")
+    private String distributor;
+
+    @PostConstruct
+    public void init() {
+        if (StringUtils.isNotBlank(distributor) && !EVEN_DISTRIBUTOR.equalsIgnoreCase(distributor.trim())) {
+            throw new IllegalStateException(String.format("Unknown flow distributor is configured with cb.ha.flow.distributor=%s, "
+                    + "the supported values are 'even' and 'weighted'", distributor));
+        }
+    }
+
     @Override
     public Map<Node, List<String>> distribute(List<String> flows, List<Node> nodes) {
         Map<Node, List<String>> result = new HashMap<>();
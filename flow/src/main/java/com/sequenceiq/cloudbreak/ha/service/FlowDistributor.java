@@ -1,11 +1,18 @@
 package com.sequenceiq.cloudbreak.ha.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import com.sequenceiq.cloudbreak.ha.domain.Node;
+import com.sequenceiq.flow.domain.FlowLog;
 
 public interface FlowDistributor {
 
     Map<Node, List<String>> distribute(List<String> flows, List<Node> nodes);
+
+    default Map<Node, List<String>> distributeFlowLogs(Collection<FlowLog> flowLogs, List<Node> nodes) {
+        return distribute(flowLogs.stream().map(FlowLog::getFlowId).distinct().collect(Collectors.toList()), nodes);
+    }
 }
@@ -0,0 +1,199 @@
+package com.sequenceiq.cloudbreak.ha.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+
+import com.sequenceiq.cloudbreak.ha.domain.Node;
+import com.sequenceiq.flow.core.FlowLogService;
+import com.sequenceiq.flow.core.FlowRegister;
+import com.sequenceiq.flow.domain.FlowLog;
+import com.sequenceiq.flow.ha.NodeConfig;
+
+/**
+ * Distributes the flows of the failed nodes based on the load of the active nodes. The flows of the same resource (including the
+ * flows of a flow chain) are handed over to the same node, and every group goes to the node that has the smallest load at the time,
+ * starting with the heaviest group. The cost of a flow is configured per flow type, e.g.
+ * {@code cb.ha.flow.distributor.weights=StackCreationFlowConfig=5,StackTerminationFlowConfig=2}, every other flow costs 1.
+ */
+@Service
+@ConditionalOnExpression("'${cb.ha.flow.distributor:even}'.trim().equalsIgnoreCase('weighted')")
+public class WeightedFlowDistributor implements FlowDistributor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WeightedFlowDistributor.class);
+
+    private static final long DEFAULT_FLOW_WEIGHT = 1L;
+
+    private static final int FLOW_ID_INDEX = 0;
+
+    private static final int NODE_ID_INDEX = 2;
+
+    @Value("#{'${cb.ha.flow.distributor.weights:}'.split(',')}")
+    private List<String> flowWeightDefinitions;
+
+    @Inject
+    private FlowLogService flowLogService;
+
+    @Inject
+    private FlowRegister runningFlows;
+
+    @Inject
+    private NodeConfig nodeConfig;
+
+    private final Map<String, Long> flowWeights = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (String definition : flowWeightDefinitions) {
+            if (StringUtils.isNotBlank(definition)) {
+                String[] parts = definition.split("=");
+                if (parts.length == 2 && StringUtils.isNumeric(parts[1].trim())) {
+                    flowWeights.put(parts[0].trim(), Long.valueOf(parts[1].trim()));
+                } else {
+                    LOGGER.warn("Invalid flow weight definition, it will be ignored: {}", definition);
+                }
+            }
+        }
+        LOGGER.info("Flow weights used for the flow distribution: {}", flowWeights);
+    }
+
+    @Override
+    public Map<Node, List<String>> distribute(List<String> flows, List<Node> nodes) {
+        List<FlowGroup> flowGroups = flows.stream()
+                .distinct()
+                .map(flowId -> new FlowGroup(flowId, Set.of(flowId), DEFAULT_FLOW_WEIGHT))
+                .collect(Collectors.toList());
+        return assign(flowGroups, nodes, getNodeLoads(nodes));
+    }
+
+    @Override
+    public Map<Node, List<String>> distributeFlowLogs(Collection<FlowLog> flowLogs, List<Node> nodes) {
+        return distributeFlowLogs(flowLogs, nodes, getNodeLoads(nodes));
+    }
+
+    public Map<Node, List<String>> distributeFlowLogs(Collection<FlowLog> flowLogs, List<Node> nodes, Map<String, Long> nodeLoads) {
+        return assign(groupFlowLogs(flowLogs), nodes, nodeLoads);
+    }
+
+    public long getFlowWeight(Class<?> flowType) {
+        return flowType == null ? DEFAULT_FLOW_WEIGHT : flowWeights.getOrDefault(flowType.getSimpleName(), DEFAULT_FLOW_WEIGHT);
+    }
+
+    /**
+     * The pending flow logs only tell which node runs a flow, so the current load of a node is the number of its running flows.
+     * The flow register of this node is also checked as it already knows about the flows that are not persisted yet.
+     */
+    private Map<String, Long> getNodeLoads(List<Node> nodes) {
+        Set<String> nodeIds = nodes.stream().map(Node::getUuid).collect(Collectors.toSet());
+        Map<String, Long> nodeLoads = flowLogService.findAllPending().stream()
+                .filter(row -> row[NODE_ID_INDEX] != null && nodeIds.contains(row[NODE_ID_INDEX].toString()))
+                .collect(Collectors.groupingBy(row -> row[NODE_ID_INDEX].toString(),
+                        Collectors.mapping(row -> row[FLOW_ID_INDEX], Collectors.collectingAndThen(Collectors.toSet(), set -> (long) set.size()))));
+        String localNodeId = nodeConfig.getId();
+        if (localNodeId != null && nodeIds.contains(localNodeId)) {
+            nodeLoads.merge(localNodeId, (long) runningFlows.getRunningFlowIds().size(), Math::max);
+        }
+        LOGGER.debug("Current load of the active nodes: {}", nodeLoads);
+        return nodeLoads;
+    }
+
+    private List<FlowGroup> groupFlowLogs(Collection<FlowLog> flowLogs) {
+        Map<String, Map<String, Class<?>>> flowTypesByGroup = new LinkedHashMap<>();
+        for (FlowLog flowLog : flowLogs) {
+            Map<String, Class<?>> flowTypes = flowTypesByGroup.computeIfAbsent(getGroupKey(flowLog), key -> new LinkedHashMap<>());
+            if (flowTypes.get(flowLog.getFlowId()) == null) {
+                flowTypes.put(flowLog.getFlowId(), flowLog.getFlowType());
+            }
+        }
+        List<FlowGroup> flowGroups = new ArrayList<>(flowTypesByGroup.size());
+        flowTypesByGroup.forEach((key, flowTypes) -> {
+            long weight = flowTypes.values().stream().mapToLong(this::getFlowWeight).sum();
+            flowGroups.add(new FlowGroup(key, new LinkedHashSet<>(flowTypes.keySet()), weight));
+        });
+        return flowGroups;
+    }
+
+    private String getGroupKey(FlowLog flowLog) {
+        if (flowLog.getResourceId() != null) {
+            return "resource-" + flowLog.getResourceId();
+        } else if (flowLog.getFlowChainId() != null) {
+            return "chain-" + flowLog.getFlowChainId();
+        }
+        return "flow-" + flowLog.getFlowId();
+    }
+
+    private Map<Node, List<String>> assign(List<FlowGroup> flowGroups, List<Node> nodes, Map<String, Long> nodeLoads) {
+        Map<Node, List<String>> result = new HashMap<>();
+        if (nodes.isEmpty()) {
+            return result;
+        }
+        Map<Node, Long> loads = new LinkedHashMap<>();
+        nodes.forEach(node -> loads.put(node, nodeLoads.getOrDefault(node.getUuid(), 0L)));
+        LOGGER.debug("Number of flow groups to distribute: {}, across: {} nodes with load: {}", flowGroups.size(), nodes.size(), loads);
+        flowGroups.stream()
+                .sorted(Comparator.comparingLong(FlowGroup::getWeight).reversed().thenComparing(FlowGroup::getKey))
+                .forEach(flowGroup -> {
+                    Node node = getLeastLoadedNode(loads);
+                    loads.merge(node, flowGroup.getWeight(), Long::sum);
+                    result.computeIfAbsent(node, k -> new ArrayList<>()).addAll(flowGroup.getFlowIds());
+                });
+        LOGGER.info("Result of flow distribution: {}, node load after distribution: {}", result, loads);
+        return result;
+    }
+
+    private Node getLeastLoadedNode(Map<Node, Long> loads) {
+        Node leastLoaded = null;
+        long minLoad = Long.MAX_VALUE;
+        for (Map.Entry<Node, Long> entry : loads.entrySet()) {
+            if (entry.getValue() < minLoad) {
+                leastLoaded = entry.getKey();
+                minLoad = entry.getValue();
+            }
+        }
+        return leastLoaded;
+    }
+
+    private static class FlowGroup {
+
+        private final String key;
+
+        private final Set<String> flowIds;
+
+        private final long weight;
+
+        FlowGroup(String key, Set<String> flowIds, long weight) {
+            this.key = key;
+            this.flowIds = flowIds;
+            this.weight = weight;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        Set<String> getFlowIds() {
+            return flowIds;
+        }
+
+        long getWeight() {
+            return weight;
+        }
+    }
+}
@@ -173,7 +173,7 @@ public class HeartbeatService {
             updatedFlowLogs.addAll(invalidFlows);
             failedFlowLogs.removeAll(invalidFlows);
             LOGGER.info("The following flows have been filtered out from distribution: {}", getFlowIds(invalidFlows));
-            Map<Node, List<String>> flowDistribution = flowDistributor.distribute(getFlowIds(failedFlowLogs), activeNodes);
+            Map<Node, List<String>> flowDistribution = flowDistributor.distributeFlowLogs(failedFlowLogs, activeNodes);
             for (Entry<Node, List<String>> entry : flowDistribution.entrySet()) {
                 entry.getValue().forEach(flowId ->
                         failedFlowLogs.stream().filter(flowLog -> flowLog.getFlowId().equalsIgnoreCase(flowId)).forEach(flowLog -> {
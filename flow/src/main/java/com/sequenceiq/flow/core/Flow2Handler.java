@@ -5,6 +5,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
@@ -16,6 +17,7 @@ import org.springframework.stereotype.Component;
 import com.cedarsoftware.util.io.JsonReader;
 import com.sequenceiq.cloudbreak.common.event.Acceptable;
 import com.sequenceiq.cloudbreak.common.event.Payload;
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
 import com.sequenceiq.cloudbreak.common.service.TransactionService;
 import com.sequenceiq.cloudbreak.common.service.TransactionService.TransactionExecutionException;
 import com.sequenceiq.cloudbreak.common.service.TransactionService.TransactionRuntimeExecutionException;
@@ -69,6 +71,9 @@ public class Flow2Handler implements Consumer<Event<? extends Payload>> {
     @Inject
     private ApplicationFlowInformation applicationFlowInformation;
 
+    @Inject
+    private MetricService metricService;
+
     @Override
     public void accept(Event<? extends Payload> event) {
         String key = (String) event.getKey();
@@ -112,7 +117,7 @@ public class Flow2Handler implements Consumer<Event<? extends Payload>> {
                         flowLogService.save(flowParameters, flowChainId, key, payload, null, flowConfig.getClass(), flow.getCurrentState());
                         acceptFlow(payload);
                         logFlowId(flowId);
-                        runningFlows.put(flow, flowChainId);
+                        runningFlows.put(flow, flowChainId, payload.getResourceId());
                         flow.sendEvent(key, flowParameters.getFlowTriggerUserCrn(), payload);
                     }
                 } else {
@@ -151,7 +156,7 @@ public class Flow2Handler implements Consumer<Event<? extends Payload>> {
     private boolean isFlowAcceptable(String key, Payload payload) {
         if (payload instanceof Acceptable && ((Acceptable) payload).accepted() != null) {
             Acceptable acceptable = (Acceptable) payload;
-            if (!applicationFlowInformation.getAllowedParallelFlows().contains(key) && flowLogService.isOtherFlowRunning(payload.getResourceId())) {
+            if (!applicationFlowInformation.getAllowedParallelFlows().contains(key) && isOtherFlowRunning(payload.getResourceId())) {
                 acceptable.accepted().accept(Boolean.FALSE);
                 return false;
             }
@@ -159,6 +164,27 @@ public class Flow2Handler implements Consumer<Event<? extends Payload>> {
         return true;
     }
 
+    private boolean isOtherFlowRunning(Long resourceId) {
+        if (!getRunningNonTerminationFlowIds(resourceId).isEmpty()) {
+            return true;
+        }
+        if (runningFlows.isResourceIndexed(resourceId)) {
+            return false;
+        }
+        boolean otherFlowRunning = flowLogService.isOtherFlowRunning(resourceId);
+        if (!otherFlowRunning) {
+            runningFlows.markResourceIndexed(resourceId);
+        }
+        return otherFlowRunning;
+    }
+
+    private Set<String> getRunningNonTerminationFlowIds(Long resourceId) {
+        return runningFlows.getRunningFlowsByResourceId(resourceId).stream()
+                .filter(flow -> !applicationFlowInformation.getTerminationFlow().contains(flow.getFlowConfigClass()))
+                .map(Flow::getFlowId)
+                .collect(Collectors.toSet());
+    }
+
     private void acceptFlow(Payload payload) {
         if (payload instanceof Acceptable && ((Acceptable) payload).accepted() != null) {
             Acceptable acceptable = (Acceptable) payload;
@@ -169,7 +195,7 @@ public class Flow2Handler implements Consumer<Event<? extends Payload>> {
     }
 
     private void cancelRunningFlows(Long stackId) throws TransactionExecutionException {
-        Set<String> flowIds = flowLogService.findAllRunningNonTerminationFlowIdsByStackId(stackId);
+        Set<String> flowIds = getRunningNonTerminationFlowIds(stackId);
         LOGGER.debug("flow cancellation arrived: ids: {}", flowIds);
         for (String id : flowIds) {
             String flowChainId = runningFlows.getFlowChainId(id);
@@ -190,6 +216,9 @@ public class Flow2Handler implements Consumer<Event<? extends Payload>> {
         LOGGER.debug("flow finalizing arrived: id: {}", flowId);
         flowLogService.close(stackId, flowId);
         Flow flow = runningFlows.remove(flowId);
+        if (flow != null) {
+            metricService.incrementMetricCounter(FlowMetricType.FLOW_FINISHED, "failed", String.valueOf(flow.isFlowFailed()));
+        }
         if (flowChainId != null) {
             if (flow.isFlowFailed()) {
                 flowChains.removeFullFlowChain(flowChainId);
@@ -212,7 +241,7 @@ public class Flow2Handler implements Consumer<Event<? extends Payload>> {
                 try {
                     Payload payload = (Payload) JsonReader.jsonToJava(flowLog.getPayload());
                     Flow flow = flowConfig.get().createFlow(flowLog.getFlowId(), payload.getResourceId());
-                    runningFlows.put(flow, flowLog.getFlowChainId());
+                    runningFlows.put(flow, flowLog.getFlowChainId(), flowLog.getResourceId());
                     if (flowLog.getFlowChainId() != null) {
                         flowChainHandler.restoreFlowChain(flowLog.getFlowChainId());
                     }
@@ -4,7 +4,12 @@ import com.sequenceiq.cloudbreak.common.metrics.type.Metric;
 
 public enum FlowMetricType implements Metric {
     FLOW_STEP("flowstep"),
-    ACTIVE_FLOWS("activeflow");
+    ACTIVE_FLOWS("activeflow"),
+    FLOW_FINISHED("flow.finished"),
+    FLOW_LOG_FLUSH_TIME("flowlog.writebehind.flushtime"),
+    FLOW_LOG_WRITE_BEHIND_QUEUE("flowlog.writebehind.queue"),
+    EVENTBUS_SHARD_QUEUE_SIZE("eventbus.shard.queue"),
+    EVENTBUS_SHARD_WAIT_TIME("eventbus.shard.waittime");
 
     private final String metricName;
 
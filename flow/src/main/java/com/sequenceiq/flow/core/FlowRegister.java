@@ -1,18 +1,21 @@
 package com.sequenceiq.flow.core;
 
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.ImmutableTriple;
+import org.apache.commons.lang3.tuple.Triple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import com.sequenceiq.cloudbreak.common.metrics.MetricService;
+import com.sequenceiq.flow.ha.NodeConfig;
 
 @Component
 public class FlowRegister {
@@ -22,34 +25,76 @@ public class FlowRegister {
     @Inject
     private MetricService metricService;
 
-    private final Map<String, Pair<Flow, String>> runningFlows = new ConcurrentHashMap<>();
+    @Inject
+    private NodeConfig nodeConfig;
+
+    private final Map<String, Triple<Flow, String, Long>> runningFlows = new ConcurrentHashMap<>();
+
+    private final Map<Long, Set<String>> runningFlowIdsByResourceId = new ConcurrentHashMap<>();
 
-    public void put(Flow flow, String chainFlowId) {
+    private final Set<Long> indexedResourceIds = ConcurrentHashMap.newKeySet();
+
+    public void put(Flow flow, String chainFlowId, Long resourceId) {
         LOGGER.info("Put flow {} to running flows", flow.getFlowId());
-        runningFlows.put(flow.getFlowId(), new ImmutablePair<>(flow, chainFlowId));
+        runningFlows.put(flow.getFlowId(), new ImmutableTriple<>(flow, chainFlowId, resourceId));
+        if (resourceId != null) {
+            runningFlowIdsByResourceId.compute(resourceId, (id, flowIds) -> {
+                Set<String> resourceFlowIds = flowIds == null ? ConcurrentHashMap.newKeySet() : flowIds;
+                resourceFlowIds.add(flow.getFlowId());
+                return resourceFlowIds;
+            });
+        }
         LOGGER.info("Running flows after put: {}", runningFlows.keySet());
         metricService.submit(FlowMetricType.ACTIVE_FLOWS, runningFlows.size());
     }
 
     public Flow get(String flowId) {
-        Pair<Flow, String> p = runningFlows.get(flowId);
+        Triple<Flow, String, Long> p = runningFlows.get(flowId);
         return p != null ? p.getLeft() : null;
     }
 
     public String getFlowChainId(String flowId) {
-        Pair<Flow, String> p = runningFlows.get(flowId);
-        return p != null ? p.getRight() : null;
+        Triple<Flow, String, Long> p = runningFlows.get(flowId);
+        return p != null ? p.getMiddle() : null;
     }
 
     public Flow remove(String flowId) {
         LOGGER.info("Remove flow {} from running flows", flowId);
-        Pair<Flow, String> pair = runningFlows.remove(flowId);
+        Triple<Flow, String, Long> triple = runningFlows.remove(flowId);
+        if (triple != null && triple.getRight() != null) {
+            runningFlowIdsByResourceId.computeIfPresent(triple.getRight(), (id, flowIds) -> {
+                flowIds.remove(flowId);
+                return flowIds.isEmpty() ? null : flowIds;
+            });
+        }
         metricService.submit(FlowMetricType.ACTIVE_FLOWS, runningFlows.size());
         LOGGER.info("Running flows after removal: {}", runningFlows.keySet());
-        return pair == null ? null : pair.getLeft();
+        return triple == null ? null : triple.getLeft();
     }
 
     public Set<String> getRunningFlowIds() {
         return runningFlows.keySet();
     }
+
+    public Set<Flow> getRunningFlowsByResourceId(Long resourceId) {
+        return runningFlowIdsByResourceId.getOrDefault(resourceId, Set.of()).stream()
+                .map(this::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * The running flows of a resource are known without querying the database if this node is the only one that can start flows and
+     * the database has already confirmed once that no flow from before the node started is running on the resource.
+     * In HA mode other nodes can run flows on the same resource, so the index can only tell that a flow is running, but not that none is.
+     */
+    public boolean isResourceIndexed(Long resourceId) {
+        return !nodeConfig.isNodeIdSpecified() && indexedResourceIds.contains(resourceId);
+    }
+
+    public void markResourceIndexed(Long resourceId) {
+        if (!nodeConfig.isNodeIdSpecified()) {
+            indexedResourceIds.add(resourceId);
+        }
+    }
 }
@@ -12,6 +12,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
 import com.sequenceiq.cloudbreak.logger.concurrent.MDCCleanerThreadPoolExecutor;
 import com.sequenceiq.flow.core.ApplicationFlowInformation;
 import com.sequenceiq.flow.reactor.handler.ConsumerNotFoundHandler;
@@ -21,6 +22,7 @@ import reactor.Environment;
 import reactor.bus.Event;
 import reactor.bus.EventBus;
 import reactor.bus.spec.EventBusSpec;
+import reactor.core.Dispatcher;
 import reactor.core.dispatch.ThreadPoolExecutorDispatcher;
 import reactor.core.support.Exceptions;
 import reactor.core.support.NamedDaemonThreadFactory;
@@ -40,6 +42,18 @@ public class EventBusConfig {
     @Value("${cb.eventbus.threadpool.backlog.size:1000}")
     private int eventBusThreadPoolBacklogSize;
 
+    @Value("${cb.eventbus.dispatcher.sharded:false}")
+    private boolean shardedDispatcher;
+
+    @Value("${cb.eventbus.dispatcher.shard.count:150}")
+    private int shardCount;
+
+    @Value("${cb.eventbus.dispatcher.shard.backlog.size:100}")
+    private int shardBacklogSize;
+
+    @Value("${cb.eventbus.dispatcher.shard.backpressure.timeout.ms:30000}")
+    private long shardBackpressureTimeoutMs;
+
     @Inject
     @Lazy
     private ApplicationFlowInformation applicationFlowInformation;
@@ -48,6 +62,9 @@ public class EventBusConfig {
     @Lazy
     private FlowLogDBService flowLogDBService;
 
+    @Inject
+    private MetricService metricService;
+
     @Bean
     public Timer timer(Environment env) {
         return env.getTimer();
@@ -62,7 +79,7 @@ public class EventBusConfig {
     public EventBus reactor(MDCCleanerThreadPoolExecutor threadPoolExecutor, Environment env) {
         return new EventBusSpec()
                 .env(env)
-                .dispatcher(new ThreadPoolExecutorDispatcher(eventBusThreadPoolBacklogSize, eventBusThreadPoolCoreSize, threadPoolExecutor))
+                .dispatcher(createDispatcher(threadPoolExecutor))
                 .traceEventPath()
                 .dispatchErrorHandler(throwable -> {
                     handleFlowFail(throwable);
@@ -72,6 +89,14 @@ public class EventBusConfig {
                 .get();
     }
 
+    private Dispatcher createDispatcher(MDCCleanerThreadPoolExecutor threadPoolExecutor) {
+        if (shardedDispatcher) {
+            LOGGER.info("Reactor uses resource sharded dispatcher with {} shards and {} backlog per shard", shardCount, shardBacklogSize);
+            return new ResourceShardedDispatcher(shardCount, shardBacklogSize, shardBackpressureTimeoutMs, threadPoolExecutor, metricService);
+        }
+        return new ThreadPoolExecutorDispatcher(eventBusThreadPoolBacklogSize, eventBusThreadPoolCoreSize, threadPoolExecutor);
+    }
+
     private void handleFlowFail(Throwable throwable) {
         if (throwable.getCause() instanceof Exceptions.ValueCause) {
             try {
@@ -86,6 +111,7 @@ public class EventBusConfig {
                             LOGGER.error("Unhandled exception happened in flow {}, lets cancel it", flowId, throwable);
                             flowLogDBService.getLastFlowLog(flowId).ifPresent(flowLog -> {
                                 flowLogDBService.updateLastFlowLogStatus(flowLog, true);
+                                flowLogDBService.flushPendingFlowLogs(flowId);
                                 applicationFlowInformation.handleFlowFail(flowLog);
                             });
                         }
@@ -1,14 +1,18 @@
 package com.sequenceiq.flow.reactor.config;
 
 import com.sequenceiq.cloudbreak.logger.concurrent.MDCCleanerThreadPoolExecutor;
+import com.sequenceiq.flow.reactor.config.ResourceShardedDispatcher.ShardStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import reactor.bus.EventBus;
 import reactor.core.Dispatcher;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Component
 public class EventBusStatisticReporter {
@@ -30,6 +34,16 @@ public class EventBusStatisticReporter {
         LOGGER.error("Reactor state is critical, statistics: {}", create());
     }
 
+    @Scheduled(fixedDelayString = "${cb.eventbus.dispatcher.shard.report.rate:10000}")
+    public void reportShardStatistics() {
+        if (eventBus.getDispatcher() instanceof ResourceShardedDispatcher) {
+            ResourceShardedDispatcher dispatcher = (ResourceShardedDispatcher) eventBus.getDispatcher();
+            List<ShardStatistics> shardStatistics = dispatcher.getShardStatistics();
+            dispatcher.resetMaxWaitTimes();
+            LOGGER.debug("Reactor shard statistics: {}", shardStatistics);
+        }
+    }
+
     private EventBusStatistics create() {
         EventBusStatistics stats = new EventBusStatistics();
         Dispatcher dispatcher = eventBus.getDispatcher();
@@ -43,6 +57,11 @@ public class EventBusStatisticReporter {
         stats.setTaskCount(executor.getTaskCount());
         stats.setActiveCount(executor.getActiveCount());
         stats.setCompletedTaskCount(executor.getCompletedTaskCount());
+        if (dispatcher instanceof ResourceShardedDispatcher) {
+            stats.setShardStatistics(((ResourceShardedDispatcher) dispatcher).getShardStatistics().stream()
+                    .filter(shardStatistics -> shardStatistics.getQueueSize() > 0)
+                    .collect(Collectors.toList()));
+        }
 
         return stats;
     }
@@ -67,6 +86,8 @@ public class EventBusStatisticReporter {
 
         private boolean inContext;
 
+        private List<ShardStatistics> shardStatistics = List.of();
+
         public void setGetActiveCount(long getActiveCount) {
             this.getActiveCount = getActiveCount;
         }
@@ -103,6 +124,10 @@ public class EventBusStatisticReporter {
             this.inContext = inContext;
         }
 
+        public void setShardStatistics(List<ShardStatistics> shardStatistics) {
+            this.shardStatistics = shardStatistics;
+        }
+
         @Override
         public String toString() {
             return "EventBusStatistics{" +
@@ -115,6 +140,7 @@ public class EventBusStatisticReporter {
                     ", poolSize=" + poolSize +
                     ", activeCount=" + activeCount +
                     ", inContext=" + inContext +
+                    ", busyShards=" + shardStatistics +
                     '}';
         }
     }
@@ -0,0 +1,280 @@
+package com.sequenceiq.flow.reactor.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sequenceiq.cloudbreak.common.event.AwaitedRequest;
+import com.sequenceiq.cloudbreak.common.event.Payload;
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
+import com.sequenceiq.cloudbreak.logger.concurrent.MDCCleanerThreadPoolExecutor;
+import com.sequenceiq.flow.core.FlowMetricType;
+
+import reactor.bus.Event;
+import reactor.core.dispatch.AbstractLifecycleDispatcher;
+import reactor.core.support.NamedDaemonThreadFactory;
+
+/**
+ * Dispatcher that routes every event to a single threaded shard selected by the resource id of its payload. Events of the same
+ * resource (stack, environment, sdx etc.) are processed in order without locking, while different resources run in parallel.
+ * Instead of silently dropping events when a shard is full, the caller blocks until the shard has a free slot and gets a
+ * {@link RejectedExecutionException} if that does not happen within the configured timeout.
+ * <p>
+ * An {@link AwaitedRequest} is never sharded. Its sender, typically a flow action running on the shard of the same resource, blocks until
+ * the request is answered, so the request runs on the unordered executor. This also keeps the long-running cloud platform handlers from
+ * stalling the other resources of a shard.
+ * <p>
+ * The queue size of every shard is exported as a gauge, the time an event waits for its shard is recorded as a timer.
+ */
+public class ResourceShardedDispatcher extends AbstractLifecycleDispatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResourceShardedDispatcher.class);
+
+    private static final String SHARD_TAG = "shard";
+
+    private final List<Shard> shards;
+
+    private final int shardBacklogSize;
+
+    private final long backpressureTimeoutMs;
+
+    private final Executor unorderedExecutor;
+
+    private final MetricService metricService;
+
+    private final Set<Thread> workerThreads = ConcurrentHashMap.newKeySet();
+
+    public ResourceShardedDispatcher(int shardCount, int shardBacklogSize, long backpressureTimeoutMs, Executor unorderedExecutor,
+            MetricService metricService) {
+        this.shardBacklogSize = shardBacklogSize;
+        this.backpressureTimeoutMs = backpressureTimeoutMs;
+        this.unorderedExecutor = unorderedExecutor;
+        this.metricService = metricService;
+        shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new Shard(i));
+        }
+    }
+
+    @Override
+    protected Task allocateTask() {
+        return new ShardTask();
+    }
+
+    @Override
+    protected Task allocateRecursiveTask() {
+        return new ShardTask();
+    }
+
+    @Override
+    protected void execute(Task task) {
+        ShardTask shardTask = (ShardTask) task;
+        if (shardTask.isAwaitedRequest()) {
+            unorderedExecutor.execute(shardTask);
+            return;
+        }
+        Shard shard = shards.get(Math.floorMod(shardTask.getShardKey().hashCode(), shards.size()));
+        shard.submit(shardTask, workerThreads.contains(Thread.currentThread()));
+    }
+
+    @Override
+    public long remainingSlots() {
+        return shards.stream().mapToLong(shard -> shard.permits.availablePermits()).sum();
+    }
+
+    @Override
+    public long backlogSize() {
+        return (long) shardBacklogSize * shards.size();
+    }
+
+    @Override
+    public boolean supportsOrdering() {
+        return true;
+    }
+
+    @Override
+    public void shutdown() {
+        shards.forEach(shard -> shard.executor.shutdown());
+        super.shutdown();
+    }
+
+    public List<ShardStatistics> getShardStatistics() {
+        List<ShardStatistics> statistics = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            statistics.add(new ShardStatistics(shard.index, shard.executor.getQueue().size(), shard.lastWaitTime.get(), shard.maxWaitTime.get()));
+        }
+        return statistics;
+    }
+
+    public void resetMaxWaitTimes() {
+        shards.forEach(shard -> shard.maxWaitTime.set(0L));
+    }
+
+    private class Shard {
+
+        private final int index;
+
+        private final String shardTag;
+
+        private final ThreadPoolExecutor executor;
+
+        private final Semaphore permits;
+
+        private final AtomicLong lastWaitTime = new AtomicLong();
+
+        private final AtomicLong maxWaitTime = new AtomicLong();
+
+        Shard(int index) {
+            this.index = index;
+            ThreadFactory threadFactory = new NamedDaemonThreadFactory("reactorShard-" + index);
+            executor = new MDCCleanerThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> {
+                        Thread thread = threadFactory.newThread(runnable);
+                        workerThreads.add(thread);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy());
+            permits = new Semaphore(shardBacklogSize);
+            shardTag = String.valueOf(index);
+            metricService.registerGaugeMetric(FlowMetricType.EVENTBUS_SHARD_QUEUE_SIZE, executor.getQueue(), Collection::size, SHARD_TAG, shardTag);
+        }
+
+        void submit(ShardTask task, boolean calledFromWorker) {
+            // events raised by a handler must never wait for a shard, otherwise a full shard could deadlock itself
+            if (!calledFromWorker) {
+                acquirePermit();
+            }
+            task.shard = this;
+            task.ownsPermit = !calledFromWorker;
+            task.enqueued = System.currentTimeMillis();
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                if (task.ownsPermit) {
+                    permits.release();
+                }
+                throw e;
+            }
+        }
+
+        private void acquirePermit() {
+            try {
+                if (!permits.tryAcquire(backpressureTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    LOGGER.error("Reactor shard {} is full, event could not be dispatched in {} ms. Queue size: {}", index, backpressureTimeoutMs,
+                            executor.getQueue().size());
+                    throw new RejectedExecutionException(String.format("Reactor shard %d is full, event could not be dispatched.", index));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for a free reactor shard slot.", e);
+            }
+        }
+
+        void taskStarted(long enqueued) {
+            long waitTime = System.currentTimeMillis() - enqueued;
+            lastWaitTime.set(waitTime);
+            maxWaitTime.accumulateAndGet(waitTime, Math::max);
+            metricService.recordTimerMetric(FlowMetricType.EVENTBUS_SHARD_WAIT_TIME, Duration.ofMillis(waitTime), SHARD_TAG, shardTag);
+        }
+    }
+
+    private class ShardTask extends Task {
+
+        private Shard shard;
+
+        private boolean ownsPermit;
+
+        private long enqueued;
+
+        boolean isAwaitedRequest() {
+            return data instanceof Event && ((Event<?>) data).getData() instanceof AwaitedRequest;
+        }
+
+        Object getShardKey() {
+            if (data instanceof Event) {
+                Object payload = ((Event<?>) data).getData();
+                if (payload instanceof Payload && ((Payload) payload).getResourceId() != null) {
+                    return ((Payload) payload).getResourceId();
+                }
+            }
+            // events without a resource have no ordering requirement, they are spread across the shards
+            return this;
+        }
+
+        @Override
+        public void run() {
+            Shard currentShard = shard;
+            if (currentShard == null) {
+                route(this);
+                return;
+            }
+            boolean releasePermit = ownsPermit;
+            currentShard.taskStarted(enqueued);
+            try {
+                route(this);
+            } finally {
+                if (releasePermit) {
+                    currentShard.permits.release();
+                }
+            }
+        }
+    }
+
+    public static class ShardStatistics {
+
+        private final int shard;
+
+        private final int queueSize;
+
+        private final long lastWaitTime;
+
+        private final long maxWaitTime;
+
+        public ShardStatistics(int shard, int queueSize, long lastWaitTime, long maxWaitTime) {
+            this.shard = shard;
+            this.queueSize = queueSize;
+            this.lastWaitTime = lastWaitTime;
+            this.maxWaitTime = maxWaitTime;
+        }
+
+        public int getShard() {
+            return shard;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public long getLastWaitTime() {
+            return lastWaitTime;
+        }
+
+        public long getMaxWaitTime() {
+            return maxWaitTime;
+        }
+
+        @Override
+        public String toString() {
+            return "ShardStatistics{" +
+                    "shard=" + shard +
+                    ", queueSize=" + queueSize +
+                    ", lastWaitTime=" + lastWaitTime +
+                    ", maxWaitTime=" + maxWaitTime +
+                    '}';
+        }
+    }
+}
@@ -65,6 +65,9 @@ public class FlowLogDBService implements FlowLogService {
     @Inject
     private ResourceIdProvider resourceIdProvider;
 
+    @Inject
+    private FlowLogWriteBehindService flowLogWriteBehindService;
+
     public FlowLog save(FlowParameters flowParameters, String flowChanId, String key, Payload payload, Map<Object, Object> variables, Class<?> flowType,
             FlowState currentState) {
         String payloadAsString = getSerializedString(payload);
@@ -72,7 +75,12 @@ public class FlowLogDBService implements FlowLogService {
         FlowLog flowLog = new FlowLog(payload.getResourceId(), flowParameters.getFlowId(), flowChanId, flowParameters.getFlowTriggerUserCrn(), key,
                 payloadAsString, payload.getClass(), variablesJson, flowType, currentState.toString());
         flowLog.setCloudbreakNodeId(nodeConfig.getId());
-        return flowLogRepository.save(flowLog);
+        if (flowLogWriteBehindService.isTracked(flowLog.getFlowId()) && flowLogWriteBehindService.enqueueInsert(flowLog)) {
+            return flowLog;
+        }
+        FlowLog savedFlowLog = flowLogRepository.save(flowLog);
+        flowLogWriteBehindService.track(flowLog.getFlowId());
+        return savedFlowLog;
     }
 
     public String getSerializedString(Object object) {
@@ -105,6 +113,7 @@ public class FlowLogDBService implements FlowLogService {
 
     private FlowLog finalize(Long stackId, String flowId, String state) throws TransactionExecutionException {
         return transactionService.required(() -> {
+            flowLogWriteBehindService.flush(flowId);
             flowLogRepository.finalizeByFlowId(flowId);
             getLastFlowLog(flowId).ifPresent(flowLog -> updateLastFlowLogStatus(flowLog, false));
             FlowLog flowLog = new FlowLog(stackId, flowId, state, Boolean.TRUE, StateStatus.SUCCESSFUL);
@@ -121,7 +130,10 @@ public class FlowLogDBService implements FlowLogService {
 
     public void updateLastFlowLogStatus(FlowLog lastFlowLog, boolean failureEvent) {
         StateStatus stateStatus = failureEvent ? StateStatus.FAILED : StateStatus.SUCCESSFUL;
-        flowLogRepository.updateLastLogStatusInFlow(lastFlowLog.getId(), stateStatus);
+        if (!flowLogWriteBehindService.enqueueStatusUpdate(lastFlowLog, stateStatus)) {
+            flushIfWrittenBehind(lastFlowLog);
+            flowLogRepository.updateLastLogStatusInFlow(lastFlowLog.getId(), stateStatus);
+        }
     }
 
     public void cancelTooOldTerminationFlowForResource(Long resourceId, long olderThan) {
@@ -163,6 +175,8 @@ public class FlowLogDBService implements FlowLogService {
         String payloadJson = JsonWriter.objectToJson(payload, writeOptions);
         String variablesJson = JsonWriter.objectToJson(variables, writeOptions);
         Optional.ofNullable(lastFlowLog)
+                .filter(flowLog -> !flowLogWriteBehindService.enqueuePayloadUpdate(flowLog, payloadJson, variablesJson))
+                .map(this::getPersistedFlowLog)
                 .ifPresent(flowLog -> {
                     flowLog.setPayload(payloadJson);
                     flowLog.setVariables(variablesJson);
@@ -170,8 +184,35 @@ public class FlowLogDBService implements FlowLogService {
                 });
     }
 
+    /**
+     * A flow log written by the write-behind service is not managed by JPA, saving it would insert it again. Its buffered entries are
+     * flushed and the persisted entity is used instead.
+     */
+    private FlowLog getPersistedFlowLog(FlowLog flowLog) {
+        if (flushIfWrittenBehind(flowLog)) {
+            return flowLogRepository.findById(flowLog.getId()).orElseGet(() -> {
+                LOGGER.warn("Flow log {} of flow {} is not persisted, its payload is not updated.", flowLog.getId(), flowLog.getFlowId());
+                return null;
+            });
+        }
+        return flowLog;
+    }
+
+    private boolean flushIfWrittenBehind(FlowLog flowLog) {
+        boolean writtenBehind = flowLogWriteBehindService.isWrittenBehind(flowLog);
+        if (writtenBehind) {
+            flowLogWriteBehindService.flush(flowLog.getFlowId());
+        }
+        return writtenBehind;
+    }
+
     public Optional<FlowLog> getLastFlowLog(String flowId) {
-        return flowLogRepository.findFirstByFlowIdOrderByCreatedDesc(flowId);
+        Optional<FlowLog> lastPendingFlowLog = flowLogWriteBehindService.getLastPendingFlowLog(flowId);
+        return lastPendingFlowLog.isPresent() ? lastPendingFlowLog : flowLogRepository.findFirstByFlowIdOrderByCreatedDesc(flowId);
+    }
+
+    public void flushPendingFlowLogs(String flowId) {
+        flowLogWriteBehindService.flush(flowId);
     }
 
     @Override
@@ -181,7 +222,7 @@ public class FlowLogDBService implements FlowLogService {
 
     @Override
     public Optional<FlowLog> findFirstByFlowIdOrderByCreatedDesc(String flowId) {
-        return flowLogRepository.findFirstByFlowIdOrderByCreatedDesc(flowId);
+        return getLastFlowLog(flowId);
     }
 
     @Override
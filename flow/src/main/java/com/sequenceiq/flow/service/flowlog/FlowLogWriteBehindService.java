@@ -0,0 +1,355 @@
+package com.sequenceiq.flow.service.flowlog;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
+import com.sequenceiq.cloudbreak.common.service.TransactionService;
+import com.sequenceiq.cloudbreak.common.service.TransactionService.TransactionExecutionException;
+import com.sequenceiq.flow.core.FlowMetricType;
+import com.sequenceiq.flow.core.FlowRegister;
+import com.sequenceiq.flow.domain.FlowLog;
+import com.sequenceiq.flow.domain.StateStatus;
+
+/**
+ * Opt-in write-behind buffer for the intermediate flow log entries of the flows running on this node.
+ * The first entry of a flow and the finalization of a flow are always written synchronously, everything in between is
+ * coalesced per flow and written with batched JDBC statements on a short interval or when the queue reaches its size threshold.
+ * A status update of the last entry is only written together with the entry that follows it, so the database never shows a
+ * running flow without a PENDING entry.
+ */
+@Service
+public class FlowLogWriteBehindService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FlowLogWriteBehindService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO flowlog (id, resourceid, created, flowid, flowchainid, flowtriggerusercrn, nextevent, payload, "
+            + "payloadtype, variables, flowtype, currentstate, finalized, cloudbreaknodeid, statestatus, resourcetype, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String UPDATE_STATUS_SQL = "UPDATE flowlog SET statestatus = ? WHERE id = ?";
+
+    private static final String UPDATE_PAYLOAD_SQL = "UPDATE flowlog SET payload = ?, variables = ?, version = COALESCE(version, 0) + 1 WHERE id = ?";
+
+    private static final String ALLOCATE_IDS_SQL = "SELECT nextval('flowlog_id_seq') FROM generate_series(1, ?)";
+
+    @Value("${cb.flowlog.writebehind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cb.flowlog.writebehind.flush.size:200}")
+    private int flushSize;
+
+    @Value("${cb.flowlog.writebehind.id.allocation.size:50}")
+    private int idAllocationSize;
+
+    @Inject
+    private JdbcTemplate jdbcTemplate;
+
+    @Inject
+    private TransactionService transactionService;
+
+    @Inject
+    private MetricService metricService;
+
+    @Inject
+    private FlowRegister runningFlows;
+
+    private final Map<String, PendingFlowLogs> trackedFlows = new ConcurrentHashMap<>();
+
+    private final Set<FlowLog> writtenBehindFlowLogs = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    private final Deque<Long> allocatedIds = new ArrayDeque<>();
+
+    private final Object flushLock = new Object();
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            metricService.registerGaugeMetric(FlowMetricType.FLOW_LOG_WRITE_BEHIND_QUEUE, queueDepth, AtomicInteger::get);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isTracked(String flowId) {
+        return enabled && trackedFlows.containsKey(flowId);
+    }
+
+    public void track(String flowId) {
+        if (enabled) {
+            trackedFlows.putIfAbsent(flowId, new PendingFlowLogs(flowId));
+        }
+    }
+
+    public boolean enqueueInsert(FlowLog flowLog) {
+        PendingFlowLogs pending = trackedFlows.get(flowLog.getFlowId());
+        if (pending == null) {
+            return false;
+        }
+        flowLog.setId(nextId());
+        if (!pending.addInsert(flowLog)) {
+            flowLog.setId(null);
+            return false;
+        }
+        writtenBehindFlowLogs.add(flowLog);
+        if (queueDepth.incrementAndGet() >= flushSize) {
+            LOGGER.debug("Flow log write-behind queue reached its size threshold ({}), flushing.", flushSize);
+            flushAll();
+        }
+        return true;
+    }
+
+    public boolean enqueueStatusUpdate(FlowLog flowLog, StateStatus stateStatus) {
+        PendingFlowLogs pending = flowLog.getId() == null ? null : trackedFlows.get(flowLog.getFlowId());
+        if (pending == null) {
+            return false;
+        }
+        return pending.holdStatusUpdate(flowLog.getId(), stateStatus);
+    }
+
+    public boolean enqueuePayloadUpdate(FlowLog flowLog, String payload, String variables) {
+        PendingFlowLogs pending = flowLog.getId() == null ? null : trackedFlows.get(flowLog.getFlowId());
+        if (pending == null) {
+            return false;
+        }
+        return pending.updatePayload(flowLog, payload, variables);
+    }
+
+    /**
+     * Whether the entity was inserted by this service. Such an entity is not managed by JPA, so it must not be saved through the repository.
+     */
+    public boolean isWrittenBehind(FlowLog flowLog) {
+        return writtenBehindFlowLogs.contains(flowLog);
+    }
+
+    public Optional<FlowLog> getLastPendingFlowLog(String flowId) {
+        PendingFlowLogs pending = trackedFlows.get(flowId);
+        return pending == null ? Optional.empty() : pending.getLastInsert();
+    }
+
+    /**
+     * Writes every buffered entry of the flow in the caller's transaction and stops buffering for it. Used at the durability points
+     * of a flow, e.g. before it gets finalized. If the write fails the entries are kept, so the next flush retries them.
+     */
+    public void flush(String flowId) {
+        PendingFlowLogs pending = trackedFlows.get(flowId);
+        if (pending != null) {
+            synchronized (flushLock) {
+                DrainedFlowLogs drained = pending.close();
+                try {
+                    write(List.of(drained));
+                } catch (RuntimeException e) {
+                    LOGGER.error("Failed to flush the buffered flow logs of {}, they will be retried with the next flush.", flowId, e);
+                    pending.restore(drained);
+                    throw e;
+                }
+                trackedFlows.remove(flowId, pending);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cb.flowlog.writebehind.flush.interval:200}")
+    public void scheduledFlush() {
+        if (enabled) {
+            flushAll();
+        }
+    }
+
+    public void flushAll() {
+        synchronized (flushLock) {
+            List<DrainedFlowLogs> drainedFlowLogs = new ArrayList<>();
+            for (Entry<String, PendingFlowLogs> entry : trackedFlows.entrySet()) {
+                PendingFlowLogs pending = entry.getValue();
+                if (runningFlows.get(entry.getKey()) == null) {
+                    drainedFlowLogs.add(pending.close());
+                    trackedFlows.remove(entry.getKey(), pending);
+                } else {
+                    drainedFlowLogs.add(pending.drain());
+                }
+            }
+            try {
+                transactionService.requiresNew(() -> {
+                    write(drainedFlowLogs);
+                    return null;
+                });
+            } catch (TransactionExecutionException e) {
+                LOGGER.error("Failed to flush the buffered flow logs, they will be retried with the next flush.", e);
+                drainedFlowLogs.forEach(drained -> {
+                    drained.source.restore(drained);
+                    trackedFlows.putIfAbsent(drained.source.flowId, drained.source);
+                });
+            }
+        }
+    }
+
+    private void write(List<DrainedFlowLogs> drainedFlowLogs) {
+        long start = System.currentTimeMillis();
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> statusUpdates = new ArrayList<>();
+        List<Object[]> payloadUpdates = new ArrayList<>();
+        for (DrainedFlowLogs drained : drainedFlowLogs) {
+            drained.inserts.forEach(flowLog -> inserts.add(toInsertArgs(flowLog)));
+            drained.statusUpdates.forEach((id, stateStatus) -> statusUpdates.add(new Object[]{stateStatus.name(), id}));
+            drained.payloadUpdates.forEach((id, payload) -> payloadUpdates.add(new Object[]{payload[0], payload[1], id}));
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        }
+        if (!payloadUpdates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_PAYLOAD_SQL, payloadUpdates);
+        }
+        if (!statusUpdates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_STATUS_SQL, statusUpdates);
+        }
+        int written = inserts.size();
+        if (written + statusUpdates.size() + payloadUpdates.size() > 0) {
+            long flushTime = System.currentTimeMillis() - start;
+            LOGGER.debug("Flushed {} flow log inserts, {} status and {} payload updates in {} ms.", written, statusUpdates.size(), payloadUpdates.size(),
+                    flushTime);
+            metricService.recordTimerMetric(FlowMetricType.FLOW_LOG_FLUSH_TIME, Duration.ofMillis(flushTime));
+        }
+        queueDepth.addAndGet(-written);
+    }
+
+    private Object[] toInsertArgs(FlowLog flowLog) {
+        return new Object[]{flowLog.getId(), flowLog.getResourceId(), flowLog.getCreated(), flowLog.getFlowId(), flowLog.getFlowChainId(),
+                flowLog.getFlowTriggerUserCrn(), flowLog.getNextEvent(), flowLog.getPayload(), getClassName(flowLog.getPayloadType()),
+                flowLog.getVariables(), getClassName(flowLog.getFlowType()), flowLog.getCurrentState(), flowLog.getFinalized(),
+                flowLog.getCloudbreakNodeId(), flowLog.getStateStatus().name(), flowLog.getResourceType()};
+    }
+
+    private String getClassName(Class<?> clazz) {
+        return clazz == null ? null : clazz.getName();
+    }
+
+    private synchronized Long nextId() {
+        if (allocatedIds.isEmpty()) {
+            allocatedIds.addAll(jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, Long.class, idAllocationSize));
+        }
+        return allocatedIds.poll();
+    }
+
+    private static class PendingFlowLogs {
+
+        private final String flowId;
+
+        private final List<FlowLog> inserts = new ArrayList<>();
+
+        private final Map<Long, StateStatus> heldStatusUpdates = new HashMap<>();
+
+        private final Map<Long, StateStatus> statusUpdates = new HashMap<>();
+
+        private final Map<Long, String[]> payloadUpdates = new HashMap<>();
+
+        private FlowLog lastInsert;
+
+        private boolean closed;
+
+        PendingFlowLogs(String flowId) {
+            this.flowId = flowId;
+        }
+
+        synchronized boolean addInsert(FlowLog flowLog) {
+            if (!closed) {
+                releaseStatusUpdates();
+                inserts.add(flowLog);
+                lastInsert = flowLog;
+            }
+            return !closed;
+        }
+
+        synchronized boolean holdStatusUpdate(Long id, StateStatus stateStatus) {
+            if (!closed) {
+                heldStatusUpdates.put(id, stateStatus);
+            }
+            return !closed;
+        }
+
+        synchronized boolean updatePayload(FlowLog flowLog, String payload, String variables) {
+            if (!closed) {
+                if (inserts.contains(flowLog)) {
+                    flowLog.setPayload(payload);
+                    flowLog.setVariables(variables);
+                } else {
+                    payloadUpdates.put(flowLog.getId(), new String[]{payload, variables});
+                }
+            }
+            return !closed;
+        }
+
+        synchronized Optional<FlowLog> getLastInsert() {
+            return Optional.ofNullable(lastInsert);
+        }
+
+        synchronized DrainedFlowLogs close() {
+            closed = true;
+            releaseStatusUpdates();
+            return drain();
+        }
+
+        synchronized DrainedFlowLogs drain() {
+            DrainedFlowLogs drained = new DrainedFlowLogs(this, new ArrayList<>(inserts),
+                    new HashMap<>(statusUpdates), new HashMap<>(payloadUpdates));
+            inserts.clear();
+            statusUpdates.clear();
+            payloadUpdates.clear();
+            return drained;
+        }
+
+        private void releaseStatusUpdates() {
+            statusUpdates.putAll(heldStatusUpdates);
+            heldStatusUpdates.clear();
+        }
+
+        synchronized void restore(DrainedFlowLogs drained) {
+            closed = false;
+            inserts.addAll(0, drained.inserts);
+            drained.statusUpdates.forEach(statusUpdates::putIfAbsent);
+            drained.payloadUpdates.forEach(payloadUpdates::putIfAbsent);
+        }
+    }
+
+    private static class DrainedFlowLogs {
+
+        private final PendingFlowLogs source;
+
+        private final List<FlowLog> inserts;
+
+        private final Map<Long, StateStatus> statusUpdates;
+
+        private final Map<Long, String[]> payloadUpdates;
+
+        DrainedFlowLogs(PendingFlowLogs source, List<FlowLog> inserts, Map<Long, StateStatus> statusUpdates, Map<Long, String[]> payloadUpdates) {
+            this.source = source;
+            this.inserts = inserts;
+            this.statusUpdates = statusUpdates;
+            this.payloadUpdates = payloadUpdates;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+-- // flowlog pending resourceid index
+-- Migration SQL that makes the change goes here.
+
+CREATE INDEX IF NOT EXISTS idx_flowlog_resourceid_pending ON flowlog USING btree (resourceid) WHERE statestatus = 'PENDING';
+
+-- //@UNDO
+-- SQL to undo the change goes here.
+
+DROP INDEX IF EXISTS idx_flowlog_resourceid_pending;
@@ -154,7 +154,7 @@ public class HeartbeatServiceTest {
         distribution.computeIfAbsent(clusterNodes.get(0), v -> new ArrayList<>()).
                 addAll(Arrays.asList(suspendedFlows.get(0), suspendedFlows.get(1), suspendedFlows.get(2),
                         suspendedFlows.get(3), suspendedFlows.get(4)));
-        when(flowDistributor.distribute(any(), any())).thenReturn(distribution);
+        when(flowDistributor.distributeFlowLogs(any(), any())).thenReturn(distribution);
 
         Set<FlowLog> myNewFlowLogs = new HashSet<>();
         myNewFlowLogs.addAll(node1FlowLogs);
@@ -206,7 +206,7 @@ public class HeartbeatServiceTest {
         distribution.computeIfAbsent(clusterNodes.get(0), v -> new ArrayList<>()).
                 addAll(Arrays.asList(suspendedFlows.get(0), suspendedFlows.get(1), suspendedFlows.get(2),
                         suspendedFlows.get(3), suspendedFlows.get(4)));
-        when(flowDistributor.distribute(any(), any())).thenReturn(distribution);
+        when(flowDistributor.distributeFlowLogs(any(), any())).thenReturn(distribution);
 
         Set<FlowLog> myNewFlowLogs = new HashSet<>();
         myNewFlowLogs.addAll(node1FlowLogs);
@@ -258,7 +258,7 @@ public class HeartbeatServiceTest {
         distribution.computeIfAbsent(clusterNodes.get(0), v -> new ArrayList<>()).
                 addAll(Arrays.asList(suspendedFlows.get(0), suspendedFlows.get(1), suspendedFlows.get(2),
                         suspendedFlows.get(3), suspendedFlows.get(4)));
-        when(flowDistributor.distribute(any(), any())).thenReturn(distribution);
+        when(flowDistributor.distributeFlowLogs(any(), any())).thenReturn(distribution);
 
         Set<FlowLog> myNewFlowLogs = new HashSet<>();
         myNewFlowLogs.addAll(node1FlowLogs);
@@ -323,7 +323,7 @@ public class HeartbeatServiceTest {
         distribution.computeIfAbsent(clusterNodes.get(0), v -> new ArrayList<>()).
                 addAll(Arrays.asList(suspendedFlows.get(0), suspendedFlows.get(1), suspendedFlows.get(2),
                         suspendedFlows.get(3), suspendedFlows.get(4)));
-        when(flowDistributor.distribute(any(), any())).thenReturn(distribution);
+        when(flowDistributor.distributeFlowLogs(any(), any())).thenReturn(distribution);
 
         Set<FlowLog> myNewFlowLogs = new HashSet<>();
         myNewFlowLogs.addAll(node1FlowLogs);
@@ -374,7 +374,7 @@ public class HeartbeatServiceTest {
                 addAll(Arrays.asList(suspendedFlows.get(0), suspendedFlows.get(2)));
         distribution.computeIfAbsent(clusterNodes.get(2), v -> new ArrayList<>()).
                 addAll(Collections.singletonList(suspendedFlows.get(1)));
-        when(flowDistributor.distribute(any(), any())).thenReturn(distribution);
+        when(flowDistributor.distributeFlowLogs(any(), any())).thenReturn(distribution);
 
         Set<FlowLog> myNewFlowLogs = new HashSet<>();
         myNewFlowLogs.addAll(node1FlowLogs.stream().filter(fl -> fl.getFlowId().equalsIgnoreCase(suspendedFlows.get(0))).collect(Collectors.toList()));
@@ -416,7 +416,7 @@ public class HeartbeatServiceTest {
                 addAll(Arrays.asList(suspendedFlows.get(0), suspendedFlows.get(2)));
         distribution.computeIfAbsent(clusterNodes.get(2), v -> new ArrayList<>()).
                 addAll(Collections.singletonList(suspendedFlows.get(1)));
-        when(flowDistributor.distribute(any(), any())).thenReturn(distribution);
+        when(flowDistributor.distributeFlowLogs(any(), any())).thenReturn(distribution);
 
         List<FlowLog> myNewFlowLogs = node1FlowLogs.stream().filter(fl -> fl.getFlowId().equalsIgnoreCase(suspendedFlows.get(0))).collect(Collectors.toList());
         when(flowLogService.findAllByCloudbreakNodeId(MY_ID)).thenReturn(new HashSet<>(myNewFlowLogs));
@@ -553,7 +553,7 @@ public class HeartbeatServiceTest {
         when(flowLogService.findAllByCloudbreakNodeId(NODE_1_ID)).thenReturn(failedFlowLogs2);
 
         Map<Node, List<String>> flowDistribution = createFlowDistribution(failedFLowLogs1, failedFlowLogs2);
-        when(flowDistributor.distribute(anyList(), eq(clusterNodes.subList(2, clusterNodes.size())))).thenReturn(flowDistribution);
+        when(flowDistributor.distributeFlowLogs(anyList(), eq(clusterNodes.subList(2, clusterNodes.size())))).thenReturn(flowDistribution);
 
         Set<Long> deletedResources = failedFLowLogs1.stream()
                 .map(FlowLog::getResourceId)
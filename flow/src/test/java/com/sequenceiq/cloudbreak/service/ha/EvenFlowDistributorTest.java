@@ -10,9 +10,12 @@ import java.util.Map;
 import java.util.Random;
 import java.util.stream.Collectors;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.sequenceiq.cloudbreak.ha.domain.Node;
 import com.sequenceiq.cloudbreak.ha.service.EvenFlowDistributor;
@@ -30,8 +33,27 @@ public class EvenFlowDistributorTest {
 
     private static final String NODE_3_ID = "65B623B9-9FE7-41F4-95A5-848DCB0C108E";
 
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
     private final EvenFlowDistributor flowDistributor = new EvenFlowDistributor();
 
+    @Test
+    public void testKnownDistributorIsAccepted() {
+        ReflectionTestUtils.setField(flowDistributor, "distributor", " Even ");
+        flowDistributor.init();
+        ReflectionTestUtils.setField(flowDistributor, "distributor", "");
+        flowDistributor.init();
+    }
+
+    @Test
+    public void testUnknownDistributorFailsTheStartup() {
+        ReflectionTestUtils.setField(flowDistributor, "distributor", "weigthed");
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("cb.ha.flow.distributor=weigthed");
+        flowDistributor.init();
+    }
+
     @Test
     public void testOddFlowDistribution() {
         List<Node> nodes = getClusterNodes();
@@ -0,0 +1,139 @@
+package com.sequenceiq.cloudbreak.service.ha;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import com.sequenceiq.cloudbreak.ha.domain.Node;
+import com.sequenceiq.flow.domain.FlowLog;
+import com.sequenceiq.flow.domain.StateStatus;
+
+/**
+ * Replays flow distribution decisions for N nodes and M orphaned flows. The nodes start with a random load, the flows have random types
+ * and some resources have chained flows. The result tells how the load of the nodes looks like after the distribution.
+ */
+class FlowDistributionSimulator {
+
+    private final Random random;
+
+    private final Map<Class<?>, Long> flowTypeWeights;
+
+    FlowDistributionSimulator(long seed, Map<Class<?>, Long> flowTypeWeights) {
+        random = new Random(seed);
+        this.flowTypeWeights = flowTypeWeights;
+    }
+
+    List<Node> createNodes(int nodeCount) {
+        List<Node> nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(new Node(UUID.randomUUID().toString()));
+        }
+        return nodes;
+    }
+
+    Map<String, Long> createNodeLoads(List<Node> nodes, int maxLoad) {
+        return nodes.stream().collect(Collectors.toMap(Node::getUuid, node -> (long) random.nextInt(maxLoad + 1)));
+    }
+
+    /**
+     * Every resource gets one flow, every third resource gets a flow chain with additional flows.
+     */
+    List<FlowLog> createFlowLogs(int flowCount) {
+        List<Class<?>> flowTypes = new ArrayList<>(flowTypeWeights.keySet());
+        List<FlowLog> flowLogs = new ArrayList<>();
+        long resourceId = 0L;
+        int created = 0;
+        while (created < flowCount) {
+            resourceId++;
+            int chainedFlows = resourceId % 3 == 0 ? Math.min(random.nextInt(3) + 2, flowCount - created) : 1;
+            String flowChainId = chainedFlows > 1 ? UUID.randomUUID().toString() : null;
+            for (int i = 0; i < chainedFlows; i++) {
+                String flowId = UUID.randomUUID().toString();
+                Class<?> flowType = flowTypes.get(random.nextInt(flowTypes.size()));
+                int flowLogCount = random.nextInt(3) + 1;
+                for (int j = 0; j < flowLogCount; j++) {
+                    FlowLog flowLog = new FlowLog(resourceId, flowId, "STATE_" + j, false, StateStatus.PENDING);
+                    flowLog.setFlowChainId(flowChainId);
+                    flowLog.setFlowType(flowType);
+                    flowLogs.add(flowLog);
+                }
+                created++;
+            }
+        }
+        return flowLogs;
+    }
+
+    long getMaxResourceWeight(List<FlowLog> flowLogs) {
+        return getFlowTypes(flowLogs).entrySet().stream()
+                .collect(Collectors.groupingBy(entry -> getResourceId(flowLogs, entry.getKey()),
+                        Collectors.summingLong(entry -> flowTypeWeights.getOrDefault(entry.getValue(), 1L))))
+                .values().stream().mapToLong(Long::longValue).max().orElse(0L);
+    }
+
+    long getTotalWeight(List<FlowLog> flowLogs) {
+        return getFlowTypes(flowLogs).values().stream().mapToLong(flowType -> flowTypeWeights.getOrDefault(flowType, 1L)).sum();
+    }
+
+    SimulationResult simulate(List<Node> nodes, Map<String, Long> nodeLoads, List<FlowLog> flowLogs,
+            BiFunction<List<FlowLog>, List<Node>, Map<Node, List<String>>> distributor) {
+        Map<String, Class<?>> flowTypes = getFlowTypes(flowLogs);
+        Map<Node, List<String>> distribution = distributor.apply(flowLogs, nodes);
+        Map<Node, Long> loads = new HashMap<>();
+        for (Node node : nodes) {
+            long load = nodeLoads.getOrDefault(node.getUuid(), 0L);
+            for (String flowId : distribution.getOrDefault(node, List.of())) {
+                load += flowTypeWeights.getOrDefault(flowTypes.get(flowId), 1L);
+            }
+            loads.put(node, load);
+        }
+        return new SimulationResult(distribution, loads);
+    }
+
+    private Map<String, Class<?>> getFlowTypes(List<FlowLog> flowLogs) {
+        Map<String, Class<?>> flowTypes = new HashMap<>();
+        flowLogs.forEach(flowLog -> flowTypes.put(flowLog.getFlowId(), flowLog.getFlowType()));
+        return flowTypes;
+    }
+
+    private Long getResourceId(List<FlowLog> flowLogs, String flowId) {
+        return flowLogs.stream().filter(flowLog -> flowLog.getFlowId().equals(flowId)).findFirst().map(FlowLog::getResourceId).orElse(null);
+    }
+
+    static class SimulationResult {
+
+        private final Map<Node, List<String>> distribution;
+
+        private final Map<Node, Long> loads;
+
+        SimulationResult(Map<Node, List<String>> distribution, Map<Node, Long> loads) {
+            this.distribution = distribution;
+            this.loads = loads;
+        }
+
+        Map<Node, List<String>> getDistribution() {
+            return distribution;
+        }
+
+        Map<Node, Long> getLoads() {
+            return loads;
+        }
+
+        long getMaxLoad() {
+            return loads.values().stream().mapToLong(Long::longValue).max().orElse(0L);
+        }
+
+        long getMinLoad() {
+            return loads.values().stream().mapToLong(Long::longValue).min().orElse(0L);
+        }
+
+        @Override
+        public String toString() {
+            return "SimulationResult{maxLoad=" + getMaxLoad() + ", minLoad=" + getMinLoad() + ", loads=" + loads.values() + '}';
+        }
+    }
+}
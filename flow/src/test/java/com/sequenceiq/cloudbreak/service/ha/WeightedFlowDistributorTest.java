@@ -0,0 +1,161 @@
+package com.sequenceiq.cloudbreak.service.ha;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.sequenceiq.cloudbreak.ha.domain.Node;
+import com.sequenceiq.cloudbreak.ha.service.EvenFlowDistributor;
+import com.sequenceiq.cloudbreak.ha.service.WeightedFlowDistributor;
+import com.sequenceiq.cloudbreak.service.ha.FlowDistributionSimulator.SimulationResult;
+import com.sequenceiq.flow.core.FlowLogService;
+import com.sequenceiq.flow.core.FlowRegister;
+import com.sequenceiq.flow.domain.FlowLog;
+import com.sequenceiq.flow.domain.StateStatus;
+import com.sequenceiq.flow.ha.NodeConfig;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WeightedFlowDistributorTest {
+
+    private static final String MY_ID = "E80C7BD9-61CD-442E-AFDA-C3B30FEDE88F";
+
+    private static final String NODE_1_ID = "5575B7AD-45CB-487D-BE14-E33C913F9394";
+
+    private static final String NODE_2_ID = "854506AC-A0D5-4C98-A47C-70F6251FC604";
+
+    private static final Map<Class<?>, Long> FLOW_TYPE_WEIGHTS = Map.of(LightFlowConfig.class, 1L, MediumFlowConfig.class, 3L, HeavyFlowConfig.class, 5L);
+
+    @InjectMocks
+    private WeightedFlowDistributor underTest;
+
+    @Mock
+    private FlowLogService flowLogService;
+
+    @Mock
+    private FlowRegister runningFlows;
+
+    @Mock
+    private NodeConfig nodeConfig;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(underTest, "flowWeightDefinitions", List.of("MediumFlowConfig=3", " HeavyFlowConfig = 5 ", "invalid"));
+        underTest.init();
+    }
+
+    @Test
+    public void testFlowWeights() {
+        assertEquals(1L, underTest.getFlowWeight(LightFlowConfig.class));
+        assertEquals(3L, underTest.getFlowWeight(MediumFlowConfig.class));
+        assertEquals(5L, underTest.getFlowWeight(HeavyFlowConfig.class));
+        assertEquals(1L, underTest.getFlowWeight(null));
+    }
+
+    @Test
+    public void testSaturatedNodeDoesNotGetFlows() {
+        List<Node> nodes = List.of(new Node(MY_ID), new Node(NODE_1_ID), new Node(NODE_2_ID));
+        when(nodeConfig.getId()).thenReturn(MY_ID);
+        when(runningFlows.getRunningFlowIds()).thenReturn(Set.of("local1", "local2", "local3", "local4", "local5", "local6"));
+        List<Object[]> pending = new ArrayList<>();
+        pending.add(new Object[]{"flow1", 1L, NODE_1_ID});
+        pending.add(new Object[]{"flow2", 2L, NODE_1_ID});
+        pending.add(new Object[]{"flow2", 2L, NODE_1_ID});
+        pending.add(new Object[]{"failed", 3L, "failed-node"});
+        when(flowLogService.findAllPending()).thenReturn(pending);
+
+        List<FlowLog> flowLogs = new ArrayList<>();
+        for (long i = 10; i < 16; i++) {
+            flowLogs.add(createFlowLog(i, "flow" + i, null, LightFlowConfig.class));
+        }
+
+        Map<Node, List<String>> result = underTest.distributeFlowLogs(flowLogs, nodes);
+
+        assertFalse(result.containsKey(nodes.get(0)));
+        assertEquals(2, result.get(nodes.get(1)).size());
+        assertEquals(4, result.get(nodes.get(2)).size());
+    }
+
+    @Test
+    public void testFlowsOfTheSameResourceStayTogether() {
+        List<Node> nodes = List.of(new Node(NODE_1_ID), new Node(NODE_2_ID));
+        List<FlowLog> flowLogs = List.of(
+                createFlowLog(1L, "flow1", "chain1", HeavyFlowConfig.class),
+                createFlowLog(1L, "flow1", "chain1", HeavyFlowConfig.class),
+                createFlowLog(1L, "flow2", "chain1", LightFlowConfig.class),
+                createFlowLog(2L, "flow3", null, MediumFlowConfig.class),
+                createFlowLog(3L, "flow4", null, MediumFlowConfig.class),
+                createFlowLog(null, "flow5", "chain2", LightFlowConfig.class),
+                createFlowLog(null, "flow6", "chain2", LightFlowConfig.class));
+
+        Map<Node, List<String>> result = underTest.distributeFlowLogs(flowLogs, nodes, Map.of());
+
+        assertEquals(List.of("flow1", "flow2", "flow5", "flow6"), result.get(nodes.get(0)));
+        assertEquals(List.of("flow3", "flow4"), result.get(nodes.get(1)));
+    }
+
+    @Test
+    public void testSimulationOfNodesAndFlows() {
+        EvenFlowDistributor evenFlowDistributor = new EvenFlowDistributor();
+        for (int nodeCount : new int[]{1, 2, 3, 5, 10}) {
+            for (int flowCount : new int[]{1, 10, 100, 1000}) {
+                FlowDistributionSimulator simulator = new FlowDistributionSimulator(nodeCount * 31L + flowCount, FLOW_TYPE_WEIGHTS);
+                List<Node> nodes = simulator.createNodes(nodeCount);
+                Map<String, Long> nodeLoads = simulator.createNodeLoads(nodes, 20);
+                List<FlowLog> flowLogs = simulator.createFlowLogs(flowCount);
+
+                SimulationResult weighted = simulator.simulate(nodes, nodeLoads, flowLogs,
+                        (logs, activeNodes) -> underTest.distributeFlowLogs(logs, activeNodes, nodeLoads));
+                SimulationResult even = simulator.simulate(nodes, nodeLoads, flowLogs, evenFlowDistributor::distributeFlowLogs);
+
+                String message = String.format("nodes: %d, flows: %d, weighted: %s, even: %s", nodeCount, flowCount, weighted, even);
+                long initialMaxLoad = nodeLoads.values().stream().mapToLong(Long::longValue).max().orElse(0L);
+                long totalLoad = nodeLoads.values().stream().mapToLong(Long::longValue).sum() + simulator.getTotalWeight(flowLogs);
+                long upperBound = Math.max(initialMaxLoad, totalLoad / nodeCount + simulator.getMaxResourceWeight(flowLogs));
+                assertTrue(message, weighted.getMaxLoad() <= upperBound);
+                assertEquals(message, flowLogs.stream().map(FlowLog::getFlowId).distinct().count(),
+                        weighted.getDistribution().values().stream().mapToLong(List::size).sum());
+                assertResourcesOnSingleNode(flowLogs, weighted.getDistribution());
+            }
+        }
+    }
+
+    private void assertResourcesOnSingleNode(List<FlowLog> flowLogs, Map<Node, List<String>> distribution) {
+        Map<String, Node> nodeByFlowId = distribution.entrySet().stream()
+                .flatMap(entry -> entry.getValue().stream().map(flowId -> Map.entry(flowId, entry.getKey())))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        Map<Long, Set<Node>> nodesByResourceId = flowLogs.stream()
+                .collect(Collectors.groupingBy(FlowLog::getResourceId, Collectors.mapping(fl -> nodeByFlowId.get(fl.getFlowId()), Collectors.toSet())));
+        nodesByResourceId.forEach((resourceId, resourceNodes) -> assertEquals("Resource " + resourceId, 1, resourceNodes.size()));
+    }
+
+    private FlowLog createFlowLog(Long resourceId, String flowId, String flowChainId, Class<?> flowType) {
+        FlowLog flowLog = new FlowLog(resourceId, flowId, "RUNNING", false, StateStatus.PENDING);
+        flowLog.setFlowChainId(flowChainId);
+        flowLog.setFlowType(flowType);
+        return flowLog;
+    }
+
+    private static class LightFlowConfig {
+    }
+
+    private static class MediumFlowConfig {
+    }
+
+    private static class HeavyFlowConfig {
+    }
+}
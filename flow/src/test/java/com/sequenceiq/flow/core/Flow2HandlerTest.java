@@ -43,7 +43,9 @@ import org.springframework.test.util.ReflectionTestUtils;
 
 import com.cedarsoftware.util.io.JsonWriter;
 import com.google.common.collect.Lists;
+import com.sequenceiq.cloudbreak.common.event.Acceptable;
 import com.sequenceiq.cloudbreak.common.event.Payload;
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
 import com.sequenceiq.cloudbreak.common.service.TransactionService;
 import com.sequenceiq.cloudbreak.common.service.TransactionService.TransactionExecutionException;
 import com.sequenceiq.flow.core.chain.FlowChainHandler;
@@ -57,6 +59,8 @@ import com.sequenceiq.flow.domain.StateStatus;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import reactor.bus.Event;
 import reactor.bus.Event.Headers;
+import reactor.rx.Promise;
+import reactor.rx.Promises;
 
 @SuppressFBWarnings("RV_RETURN_VALUE_IGNORED_NO_SIDE_EFFECT")
 public class Flow2HandlerTest {
@@ -130,6 +134,9 @@ public class Flow2HandlerTest {
     @Mock
     private ApplicationFlowInformation applicationFlowInformation;
 
+    @Mock
+    private MetricService metricService;
+
     private FlowState flowState;
 
     private Event<? extends Payload> dummyEvent;
@@ -158,7 +165,7 @@ public class Flow2HandlerTest {
         event.setKey("KEY");
         underTest.accept(event);
         verify(flowConfigurationMap, times(1)).get(anyString());
-        verify(runningFlows, times(1)).put(eq(flow), isNull(String.class));
+        verify(runningFlows, times(1)).put(eq(flow), isNull(String.class), eq(STACK_ID));
         verify(flowLogService, times(1))
                 .save(any(FlowParameters.class), nullable(String.class), eq("KEY"), any(Payload.class), any(), eq(flowConfig.getClass()), eq(flowState));
         verify(flow, times(1)).sendEvent(anyString(), isNull(), any());
@@ -179,19 +186,45 @@ public class Flow2HandlerTest {
         event.getHeaders().set(FlowConstants.FLOW_TRIGGER_USERCRN, FLOW_TRIGGER_USERCRN);
         underTest.accept(event);
         verify(flowConfigurationMap, times(1)).get(anyString());
-        verify(runningFlows, times(1)).put(eq(flow), isNull(String.class));
+        verify(runningFlows, times(1)).put(eq(flow), isNull(String.class), eq(STACK_ID));
         verify(flowLogService, times(1)).save(any(FlowParameters.class), nullable(String.class), eq("KEY"), any(Payload.class), any(),
                 ArgumentMatchers.eq(helloWorldFlowConfig.getClass()), eq(flowState));
         verify(flow, times(1)).sendEvent(anyString(), anyString(), any());
     }
 
+    @Test
+    public void testNewFlowRejectedByRunningFlowIndex() {
+        Promise<Boolean> accepted = Promises.prepare();
+        Acceptable acceptablePayload = new Acceptable() {
+            @Override
+            public Promise<Boolean> accepted() {
+                return accepted;
+            }
+
+            @Override
+            public Long getResourceId() {
+                return STACK_ID;
+            }
+        };
+        BDDMockito.<FlowConfiguration<?>>given(flowConfigurationMap.get(any())).willReturn(flowConfig);
+        given(flowConfig.getFlowTriggerCondition()).willReturn(flowTriggerCondition);
+        given(flowTriggerCondition.isFlowTriggerable(anyLong())).willReturn(true);
+        given(runningFlows.getRunningFlowsByResourceId(STACK_ID)).willReturn(Collections.singleton(flow));
+        Event<Acceptable> event = new Event<>(acceptablePayload);
+        event.setKey("KEY");
+        underTest.accept(event);
+        assertEquals(Boolean.FALSE, accepted.get());
+        verify(flowLogService, never()).isOtherFlowRunning(anyLong());
+        verify(runningFlows, never()).put(any(Flow.class), isNull(String.class), anyLong());
+    }
+
     @Test
     public void testNewFlowButNotHandled() {
         Event<Payload> event = new Event<>(payload);
         event.setKey("KEY");
         underTest.accept(event);
         verify(flowConfigurationMap, times(1)).get(anyString());
-        verify(runningFlows, never()).put(any(Flow.class), isNull(String.class));
+        verify(runningFlows, never()).put(any(Flow.class), isNull(String.class), anyLong());
         verify(flowLogService, never()).save(any(FlowParameters.class), anyString(), anyString(), any(Payload.class), anyMap(), any(), any(FlowState.class));
     }
 
@@ -256,9 +289,10 @@ public class Flow2HandlerTest {
         verify(flowLogService, times(1)).close(anyLong(), eq(FLOW_ID));
         verify(runningFlows, times(1)).remove(eq(FLOW_ID));
         verify(runningFlows, never()).get(eq(FLOW_ID));
-        verify(runningFlows, never()).put(any(Flow.class), isNull(String.class));
+        verify(runningFlows, never()).put(any(Flow.class), isNull(String.class), anyLong());
         verify(flowChains, never()).removeFlowChain(anyString());
         verify(flowChains, never()).triggerNextFlow(anyString(), anyString(), any(Map.class));
+        verify(metricService, times(1)).incrementMetricCounter(FlowMetricType.FLOW_FINISHED, "failed", "false");
     }
 
     @Test
@@ -271,7 +305,7 @@ public class Flow2HandlerTest {
         verify(flowLogService, times(1)).close(anyLong(), eq(FLOW_ID));
         verify(runningFlows, times(1)).remove(eq(FLOW_ID));
         verify(runningFlows, never()).get(eq(FLOW_ID));
-        verify(runningFlows, never()).put(any(Flow.class), isNull(String.class));
+        verify(runningFlows, never()).put(any(Flow.class), isNull(String.class), anyLong());
         verify(flowChains, never()).removeFlowChain(anyString());
         verify(flowChains, times(1)).triggerNextFlow(eq(FLOW_CHAIN_ID), eq(FLOW_TRIGGER_USERCRN), any(Map.class));
     }
@@ -286,9 +320,10 @@ public class Flow2HandlerTest {
         verify(flowLogService, times(1)).close(anyLong(), eq(FLOW_ID));
         verify(runningFlows, times(1)).remove(eq(FLOW_ID));
         verify(runningFlows, never()).get(eq(FLOW_ID));
-        verify(runningFlows, never()).put(any(Flow.class), isNull(String.class));
+        verify(runningFlows, never()).put(any(Flow.class), isNull(String.class), anyLong());
         verify(flowChains, never()).removeFullFlowChain(anyString());
         verify(flowChains, never()).triggerNextFlow(anyString(), anyString(), any(Map.class));
+        verify(metricService, times(1)).incrementMetricCounter(FlowMetricType.FLOW_FINISHED, "failed", "true");
     }
 
     @Test
@@ -302,14 +337,15 @@ public class Flow2HandlerTest {
         verify(flowLogService, times(1)).close(anyLong(), eq(FLOW_ID));
         verify(runningFlows, times(1)).remove(eq(FLOW_ID));
         verify(runningFlows, never()).get(eq(FLOW_ID));
-        verify(runningFlows, never()).put(any(Flow.class), isNull(String.class));
+        verify(runningFlows, never()).put(any(Flow.class), isNull(String.class), anyLong());
         verify(flowChains, times(1)).removeFullFlowChain(anyString());
         verify(flowChains, never()).triggerNextFlow(anyString(), anyString(), any(Map.class));
     }
 
     @Test
     public void testCancelRunningFlows() throws TransactionExecutionException {
-        given(flowLogService.findAllRunningNonTerminationFlowIdsByStackId(anyLong())).willReturn(Collections.singleton(FLOW_ID));
+        given(flow.getFlowId()).willReturn(FLOW_ID);
+        given(runningFlows.getRunningFlowsByResourceId(STACK_ID)).willReturn(Collections.singleton(flow));
         given(runningFlows.remove(FLOW_ID)).willReturn(flow);
         given(runningFlows.getFlowChainId(eq(FLOW_ID))).willReturn(FLOW_CHAIN_ID);
         dummyEvent.setKey(Flow2Handler.FLOW_CANCEL);
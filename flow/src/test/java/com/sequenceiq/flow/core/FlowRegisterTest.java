@@ -0,0 +1,69 @@
+package com.sequenceiq.flow.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.Set;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
+import com.sequenceiq.flow.ha.NodeConfig;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FlowRegisterTest {
+
+    private static final Long RESOURCE_ID = 1L;
+
+    @InjectMocks
+    private FlowRegister underTest;
+
+    @Mock
+    private MetricService metricService;
+
+    @Mock
+    private NodeConfig nodeConfig;
+
+    @Mock
+    private Flow flow;
+
+    @Test
+    public void testRunningFlowsAreIndexedByResourceId() {
+        when(flow.getFlowId()).thenReturn("flowId");
+
+        underTest.put(flow, "chainId", RESOURCE_ID);
+
+        assertEquals(Set.of(flow), underTest.getRunningFlowsByResourceId(RESOURCE_ID));
+        assertTrue(underTest.getRunningFlowsByResourceId(2L).isEmpty());
+        assertEquals("chainId", underTest.getFlowChainId("flowId"));
+
+        underTest.remove("flowId");
+
+        assertTrue(underTest.getRunningFlowsByResourceId(RESOURCE_ID).isEmpty());
+    }
+
+    @Test
+    public void testResourceIsIndexedOnlyWithoutHa() {
+        when(nodeConfig.isNodeIdSpecified()).thenReturn(false);
+
+        assertFalse(underTest.isResourceIndexed(RESOURCE_ID));
+        underTest.markResourceIndexed(RESOURCE_ID);
+
+        assertTrue(underTest.isResourceIndexed(RESOURCE_ID));
+    }
+
+    @Test
+    public void testResourceIsNeverIndexedInHa() {
+        when(nodeConfig.isNodeIdSpecified()).thenReturn(true);
+
+        underTest.markResourceIndexed(RESOURCE_ID);
+
+        assertFalse(underTest.isResourceIndexed(RESOURCE_ID));
+    }
+}
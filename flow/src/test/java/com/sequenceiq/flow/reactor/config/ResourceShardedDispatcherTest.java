@@ -0,0 +1,175 @@
+package com.sequenceiq.flow.reactor.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ToDoubleFunction;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.sequenceiq.cloudbreak.common.event.AwaitedRequest;
+import com.sequenceiq.cloudbreak.common.event.Payload;
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
+import com.sequenceiq.flow.core.FlowMetricType;
+
+import reactor.bus.Event;
+
+public class ResourceShardedDispatcherTest {
+
+    private final ExecutorService unorderedExecutor = Executors.newCachedThreadPool();
+
+    private final MetricService metricService = mock(MetricService.class);
+
+    private ResourceShardedDispatcher underTest;
+
+    @After
+    public void tearDown() {
+        underTest.shutdown();
+        unorderedExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testEventsOfTheSameResourceAreProcessedInOrderOnTheSameThread() throws InterruptedException {
+        underTest = new ResourceShardedDispatcher(4, 100, 1000L, unorderedExecutor, metricService);
+        Map<Long, List<Integer>> processed = new ConcurrentHashMap<>();
+        Map<Long, List<String>> threads = new ConcurrentHashMap<>();
+        CountDownLatch latch = new CountDownLatch(60);
+
+        for (int i = 0; i < 20; i++) {
+            for (long resourceId = 1; resourceId <= 3; resourceId++) {
+                int sequence = i;
+                underTest.dispatch(Event.wrap(new TestPayload(resourceId)), event -> {
+                    Long id = event.getData().getResourceId();
+                    processed.computeIfAbsent(id, k -> new CopyOnWriteArrayList<>()).add(sequence);
+                    threads.computeIfAbsent(id, k -> new CopyOnWriteArrayList<>()).add(Thread.currentThread().getName());
+                    latch.countDown();
+                }, null);
+            }
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (long resourceId = 1; resourceId <= 3; resourceId++) {
+            List<Integer> sequences = processed.get(resourceId);
+            for (int i = 0; i < sequences.size(); i++) {
+                assertEquals(Integer.valueOf(i), sequences.get(i));
+            }
+            assertEquals(1L, threads.get(resourceId).stream().distinct().count());
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testFullShardRejectsTheCallerAfterTimeout() {
+        underTest = new ResourceShardedDispatcher(1, 1, 10L, unorderedExecutor, metricService);
+        CountDownLatch blocker = new CountDownLatch(1);
+        try {
+            underTest.dispatch(Event.wrap(new TestPayload(1L)), event -> awaitQuietly(blocker), null);
+            underTest.dispatch(Event.wrap(new TestPayload(1L)), event -> { }, null);
+        } finally {
+            blocker.countDown();
+        }
+    }
+
+    @Test
+    public void testHandlerCanAwaitRequestOfItsOwnResource() throws InterruptedException, ExecutionException, TimeoutException {
+        underTest = new ResourceShardedDispatcher(1, 10, 1000L, unorderedExecutor, metricService);
+        CompletableFuture<String> handlerResult = new CompletableFuture<>();
+
+        underTest.dispatch(Event.wrap(new TestPayload(1L)), event -> {
+            TestRequest request = new TestRequest(1L);
+            underTest.dispatch(Event.wrap(request), requestEvent -> requestEvent.getData().result.complete("answered"), null);
+            try {
+                handlerResult.complete(request.result.get(5, TimeUnit.SECONDS));
+            } catch (InterruptedException | ExecutionException | TimeoutException e) {
+                handlerResult.completeExceptionally(e);
+            }
+        }, null);
+
+        assertEquals("answered", handlerResult.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testShardQueueSizeIsExportedAsGaugeAndWaitTimeAsTimer() throws InterruptedException {
+        underTest = new ResourceShardedDispatcher(1, 10, 1000L, unorderedExecutor, metricService);
+        ArgumentCaptor<Collection<?>> queueCaptor = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<ToDoubleFunction<Collection<?>>> valueFunctionCaptor = ArgumentCaptor.forClass(ToDoubleFunction.class);
+        verify(metricService).registerGaugeMetric(eq(FlowMetricType.EVENTBUS_SHARD_QUEUE_SIZE), queueCaptor.capture(), valueFunctionCaptor.capture(),
+                eq("shard"), eq("0"));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch processed = new CountDownLatch(2);
+
+        underTest.dispatch(Event.wrap(new TestPayload(1L)), event -> {
+            started.countDown();
+            awaitQuietly(blocker);
+            processed.countDown();
+        }, null);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        underTest.dispatch(Event.wrap(new TestPayload(1L)), event -> processed.countDown(), null);
+        assertEquals(1.0, valueFunctionCaptor.getValue().applyAsDouble(queueCaptor.getValue()), 0.0);
+        blocker.countDown();
+
+        assertTrue(processed.await(10, TimeUnit.SECONDS));
+        assertEquals(0.0, valueFunctionCaptor.getValue().applyAsDouble(queueCaptor.getValue()), 0.0);
+        verify(metricService, timeout(1000L).times(2)).recordTimerMetric(eq(FlowMetricType.EVENTBUS_SHARD_WAIT_TIME), any(Duration.class),
+                eq("shard"), eq("0"));
+    }
+
+    private void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class TestRequest implements AwaitedRequest {
+
+        private final Long resourceId;
+
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        TestRequest(Long resourceId) {
+            this.resourceId = resourceId;
+        }
+
+        @Override
+        public Long getResourceId() {
+            return resourceId;
+        }
+    }
+
+    private static class TestPayload implements Payload {
+
+        private final Long resourceId;
+
+        TestPayload(Long resourceId) {
+            this.resourceId = resourceId;
+        }
+
+        @Override
+        public Long getResourceId() {
+            return resourceId;
+        }
+    }
+}
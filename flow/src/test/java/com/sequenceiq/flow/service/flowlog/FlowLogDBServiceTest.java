@@ -5,6 +5,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -26,6 +27,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -83,6 +85,9 @@ public class FlowLogDBServiceTest {
     @Mock
     private NodeConfig nodeConfig;
 
+    @Mock
+    private FlowLogWriteBehindService flowLogWriteBehindService;
+
     @Test
     public void updateLastFlowLogStatus() {
         runUpdateLastFlowLogStatusTest(false, StateStatus.SUCCESSFUL);
@@ -102,6 +107,27 @@ public class FlowLogDBServiceTest {
         verify(flowLogRepository, times(1)).updateLastLogStatusInFlow(ID, successful);
     }
 
+    @Test
+    public void updateLastFlowLogStatusWhenWriteBehindIsTracking() {
+        FlowLog flowLog = new FlowLog();
+        flowLog.setId(ID);
+        when(flowLogWriteBehindService.enqueueStatusUpdate(flowLog, StateStatus.SUCCESSFUL)).thenReturn(true);
+
+        underTest.updateLastFlowLogStatus(flowLog, false);
+
+        verify(flowLogRepository, never()).updateLastLogStatusInFlow(anyLong(), any());
+    }
+
+    @Test
+    public void getLastFlowLogFromWriteBehindBuffer() {
+        FlowLog flowLog = new FlowLog();
+        when(flowLogWriteBehindService.getLastPendingFlowLog(FLOW_ID)).thenReturn(Optional.of(flowLog));
+
+        assertEquals(Optional.of(flowLog), underTest.getLastFlowLog(FLOW_ID));
+
+        verify(flowLogRepository, never()).findFirstByFlowIdOrderByCreatedDesc(anyString());
+    }
+
     @Test
     public void getLastFlowLog() {
         FlowLog flowLog = new FlowLog();
@@ -136,6 +162,38 @@ public class FlowLogDBServiceTest {
         assertEquals(variablesJson, savedFlowLog.getVariables());
     }
 
+    @Test
+    public void updateLastFlowLogPayloadOfWrittenBehindFlowLogUpdatesThePersistedEntity() {
+        FlowLog flowLog = new FlowLog();
+        flowLog.setId(ID);
+        flowLog.setFlowId(FLOW_ID);
+        FlowLog persistedFlowLog = new FlowLog();
+        persistedFlowLog.setId(ID);
+        persistedFlowLog.setVersion(0L);
+        when(flowLogWriteBehindService.isWrittenBehind(flowLog)).thenReturn(true);
+        when(flowLogRepository.findById(ID)).thenReturn(Optional.of(persistedFlowLog));
+
+        underTest.updateLastFlowLogPayload(flowLog, mock(Selectable.class), Map.of());
+
+        verify(flowLogWriteBehindService).flush(FLOW_ID);
+        verify(flowLogRepository).save(persistedFlowLog);
+        verify(flowLogRepository, never()).save(flowLog);
+    }
+
+    @Test
+    public void updateLastFlowLogStatusOfWrittenBehindFlowLogFlushesFirst() {
+        FlowLog flowLog = new FlowLog();
+        flowLog.setId(ID);
+        flowLog.setFlowId(FLOW_ID);
+        when(flowLogWriteBehindService.isWrittenBehind(flowLog)).thenReturn(true);
+
+        underTest.updateLastFlowLogStatus(flowLog, false);
+
+        InOrder inOrder = inOrder(flowLogWriteBehindService, flowLogRepository);
+        inOrder.verify(flowLogWriteBehindService).flush(FLOW_ID);
+        inOrder.verify(flowLogRepository).updateLastLogStatusInFlow(ID, StateStatus.SUCCESSFUL);
+    }
+
     @Test
     public void testGetResourceIdIfTheInputIsCrn() {
         when(resourceIdProvider.getResourceIdByResourceCrn(anyString())).thenReturn(1L);
@@ -221,6 +279,7 @@ public class FlowLogDBServiceTest {
         when(transactionService.required(any())).thenAnswer(invocation -> ((Supplier) invocation.getArguments()[0]).get());
         when(nodeConfig.getId()).thenReturn("node1");
         underTest.cancelTooOldTerminationFlowForResource(1L, 10000L);
+        verify(flowLogWriteBehindService).flush(eq("flow1"));
         verify(flowLogRepository).finalizeByFlowId(eq("flow1"));
         verify(flowLogRepository, times(0)).finalizeByFlowId(eq("flow2"));
         verify(flowLogRepository).updateLastLogStatusInFlow(eq(10L), eq(StateStatus.SUCCESSFUL));
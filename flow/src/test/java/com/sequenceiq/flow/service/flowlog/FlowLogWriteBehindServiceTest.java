@@ -0,0 +1,191 @@
+package com.sequenceiq.flow.service.flowlog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
+import com.sequenceiq.cloudbreak.common.service.TransactionService;
+import com.sequenceiq.flow.core.Flow;
+import com.sequenceiq.flow.core.FlowMetricType;
+import com.sequenceiq.flow.core.FlowRegister;
+import com.sequenceiq.flow.domain.FlowLog;
+import com.sequenceiq.flow.domain.StateStatus;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FlowLogWriteBehindServiceTest {
+
+    private static final String FLOW_ID = "flowId";
+
+    @InjectMocks
+    private FlowLogWriteBehindService underTest;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private MetricService metricService;
+
+    @Mock
+    private FlowRegister runningFlows;
+
+    @Mock
+    private Flow flow;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(underTest, "enabled", true);
+        ReflectionTestUtils.setField(underTest, "flushSize", 100);
+        ReflectionTestUtils.setField(underTest, "idAllocationSize", 2);
+    }
+
+    @Test
+    public void testUntrackedFlowIsNotBuffered() {
+        FlowLog flowLog = createFlowLog(1L);
+
+        assertFalse(underTest.enqueueInsert(flowLog));
+        assertFalse(underTest.enqueueStatusUpdate(flowLog, StateStatus.SUCCESSFUL));
+        assertFalse(underTest.getLastPendingFlowLog(FLOW_ID).isPresent());
+    }
+
+    @Test
+    public void testDisabledWriteBehindDoesNotTrack() {
+        ReflectionTestUtils.setField(underTest, "enabled", false);
+
+        underTest.track(FLOW_ID);
+
+        assertFalse(underTest.isTracked(FLOW_ID));
+    }
+
+    @Test
+    public void testStatusUpdateIsWrittenTogetherWithTheNextEntry() throws TransactionService.TransactionExecutionException {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(2))).thenReturn(List.of(10L, 11L));
+        when(transactionService.requiresNew(any())).thenAnswer(invocation -> ((Supplier) invocation.getArguments()[0]).get());
+        when(runningFlows.get(FLOW_ID)).thenReturn(flow);
+        underTest.track(FLOW_ID);
+
+        assertTrue(underTest.enqueueStatusUpdate(createFlowLog(1L), StateStatus.SUCCESSFUL));
+        underTest.flushAll();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+
+        FlowLog next = createFlowLog(null);
+        assertTrue(underTest.enqueueInsert(next));
+        assertEquals(Long.valueOf(10L), next.getId());
+        assertEquals(next, underTest.getLastPendingFlowLog(FLOW_ID).get());
+        underTest.flushAll();
+
+        ArgumentCaptor<List<Object[]>> statusCaptor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq("UPDATE flowlog SET statestatus = ? WHERE id = ?"), statusCaptor.capture());
+        assertEquals("SUCCESSFUL", statusCaptor.getValue().get(0)[0]);
+        assertEquals(1L, statusCaptor.getValue().get(0)[1]);
+        ArgumentCaptor<List<Object[]>> insertCaptor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(getInsertSql()), insertCaptor.capture());
+        assertEquals(10L, insertCaptor.getValue().get(0)[0]);
+    }
+
+    @Test
+    public void testFlushStopsTrackingTheFlow() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(2))).thenReturn(List.of(10L, 11L));
+        underTest.track(FLOW_ID);
+        assertTrue(underTest.enqueueInsert(createFlowLog(null)));
+
+        underTest.flush(FLOW_ID);
+
+        verify(jdbcTemplate).batchUpdate(eq(getInsertSql()), anyList());
+        assertFalse(underTest.isTracked(FLOW_ID));
+        assertFalse(underTest.enqueueInsert(createFlowLog(null)));
+    }
+
+    @Test
+    public void testFailedFlushKeepsTheEntriesForTheNextFlush() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(2))).thenReturn(List.of(10L, 11L));
+        when(jdbcTemplate.batchUpdate(eq(getInsertSql()), anyList())).thenThrow(new DataAccessResourceFailureException("db down")).thenReturn(new int[1]);
+        underTest.track(FLOW_ID);
+        FlowLog flowLog = createFlowLog(null);
+        assertTrue(underTest.enqueueInsert(flowLog));
+        assertTrue(underTest.isWrittenBehind(flowLog));
+
+        try {
+            underTest.flush(FLOW_ID);
+            fail("Flush should have failed");
+        } catch (DataAccessResourceFailureException e) {
+            assertTrue(underTest.isTracked(FLOW_ID));
+            assertEquals(flowLog, underTest.getLastPendingFlowLog(FLOW_ID).get());
+        }
+        underTest.flush(FLOW_ID);
+
+        ArgumentCaptor<List<Object[]>> insertCaptor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(getInsertSql()), insertCaptor.capture());
+        assertEquals(10L, insertCaptor.getValue().get(0)[0]);
+        assertFalse(underTest.isTracked(FLOW_ID));
+    }
+
+    @Test
+    public void testQueueDepthGaugeFollowsTheQueueAndFlushTimeIsRecordedAsTimer() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(2))).thenReturn(List.of(10L, 11L));
+        underTest.init();
+        ArgumentCaptor<AtomicInteger> queueDepthCaptor = ArgumentCaptor.forClass(AtomicInteger.class);
+        ArgumentCaptor<ToDoubleFunction<AtomicInteger>> valueFunctionCaptor = ArgumentCaptor.forClass(ToDoubleFunction.class);
+        verify(metricService).registerGaugeMetric(eq(FlowMetricType.FLOW_LOG_WRITE_BEHIND_QUEUE), queueDepthCaptor.capture(),
+                valueFunctionCaptor.capture());
+        underTest.track(FLOW_ID);
+
+        underTest.enqueueInsert(createFlowLog(null));
+        underTest.enqueueInsert(createFlowLog(null));
+        assertEquals(2.0, valueFunctionCaptor.getValue().applyAsDouble(queueDepthCaptor.getValue()), 0.0);
+        underTest.flush(FLOW_ID);
+
+        assertEquals(0.0, valueFunctionCaptor.getValue().applyAsDouble(queueDepthCaptor.getValue()), 0.0);
+        verify(metricService).recordTimerMetric(eq(FlowMetricType.FLOW_LOG_FLUSH_TIME), any(Duration.class));
+        verify(metricService, never()).submit(any(), anyDouble());
+    }
+
+    @Test
+    public void testQueueDepthGaugeIsNotRegisteredWhenDisabled() {
+        ReflectionTestUtils.setField(underTest, "enabled", false);
+
+        underTest.init();
+
+        verify(metricService, never()).registerGaugeMetric(any(), any(), any());
+    }
+
+    private String getInsertSql() {
+        return (String) ReflectionTestUtils.getField(FlowLogWriteBehindService.class, "INSERT_SQL");
+    }
+
+    private FlowLog createFlowLog(Long id) {
+        FlowLog flowLog = new FlowLog(1L, FLOW_ID, "chain", "crn", "NEXT_EVENT", "{}", Object.class, "{}", Object.class, "STATE");
+        flowLog.setId(id);
+        return flowLog;
+    }
+}
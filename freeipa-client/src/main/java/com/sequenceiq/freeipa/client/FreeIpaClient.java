@@ -13,12 +13,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.reflect.TypeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.googlecode.jsonrpc4j.JsonRpcHttpClient;
+import com.sequenceiq.freeipa.client.model.BatchItemResult;
+import com.sequenceiq.freeipa.client.model.BatchOperation;
+import com.sequenceiq.freeipa.client.model.BatchResult;
 import com.sequenceiq.freeipa.client.model.Ca;
 import com.sequenceiq.freeipa.client.model.Cert;
 import com.sequenceiq.freeipa.client.model.Config;
@@ -145,6 +149,10 @@ public class FreeIpaClient {
         return (User) invoke("user_del", flags, params, User.class).getResult();
     }
 
+    public BatchOperation deleteUserOperation(String userUid) {
+        return new BatchOperation("user_del", List.of(userUid), Map.of());
+    }
+
     public Role deleteRole(String roleName) throws FreeIpaClientException {
         List<String> flags = List.of(roleName);
         Map<String, Object> params = Map.of();
@@ -153,14 +161,21 @@ public class FreeIpaClient {
 
     public User userAdd(String user, String firstName, String lastName) throws FreeIpaClientException {
         List<String> flags = List.of(user);
-        Map<String, Object> params = Map.of(
+        return (User) invoke("user_add", flags, userAddParams(firstName, lastName), User.class).getResult();
+    }
+
+    public BatchOperation userAddOperation(String user, String firstName, String lastName) {
+        return new BatchOperation("user_add", List.of(user), userAddParams(firstName, lastName));
+    }
+
+    private Map<String, Object> userAddParams(String firstName, String lastName) {
+        return Map.of(
                 "givenname", firstName,
                 "sn", lastName,
                 "loginshell", "/bin/bash",
                 "random", true,
                 "setattr", "krbPasswordExpiration=" + MAX_PASSWORD_EXPIRATION_DATETIME
         );
-        return (User) invoke("user_add", flags, params, User.class).getResult();
     }
 
     /**
@@ -188,13 +203,20 @@ public class FreeIpaClient {
 
     public User userSetPasswordHash(String user, String hashedPassword,
             String unencryptedKrbPrincipalKey, Optional<Instant> expiration) throws FreeIpaClientException {
+        return userMod(user, passwordHashParams(hashedPassword, unencryptedKrbPrincipalKey, expiration));
+    }
+
+    public BatchOperation userSetPasswordHashOperation(String user, String hashedPassword,
+            String unencryptedKrbPrincipalKey, Optional<Instant> expiration) {
+        return new BatchOperation("user_mod", List.of(user), passwordHashParams(hashedPassword, unencryptedKrbPrincipalKey, expiration));
+    }
+
+    private Map<String, Object> passwordHashParams(String hashedPassword, String unencryptedKrbPrincipalKey, Optional<Instant> expiration) {
         String passwordExpirationDate = formatDate(expiration);
-        Map<String, Object> params =
-                Map.of("setattr", List.of(
-                        "cdpHashedPassword=" + hashedPassword,
-                        "cdpUnencryptedKrbPrincipalKey=" + unencryptedKrbPrincipalKey,
-                        "krbPasswordExpiration=" + passwordExpirationDate));
-        return userMod(user, params);
+        return Map.of("setattr", List.of(
+                "cdpHashedPassword=" + hashedPassword,
+                "cdpUnencryptedKrbPrincipalKey=" + unencryptedKrbPrincipalKey,
+                "krbPasswordExpiration=" + passwordExpirationDate));
     }
 
     String formatDate(Optional<Instant> instant) {
@@ -223,6 +245,10 @@ public class FreeIpaClient {
         return (Group) invoke("group_add", flags, params, Group.class).getResult();
     }
 
+    public BatchOperation groupAddOperation(String group) {
+        return new BatchOperation("group_add", List.of(group), Map.of());
+    }
+
     public void deleteGroup(String group) throws FreeIpaClientException {
         List<String> flags = List.of(group);
         Map<String, Object> params = Map.of();
@@ -522,14 +548,44 @@ public class FreeIpaClient {
         return invoke("server_conncheck", List.of(cn), Map.of("remote_cn", remoteCn), Boolean.class);
     }
 
+    /**
+     * Executes the operations with a single call of FreeIPA's batch command. FreeIPA executes the operations one by one and reports
+     * the outcome of each of them, so a failing operation does not stop the others.
+     *
+     * @return the results in the order of the operations
+     */
+    public List<BatchItemResult> callBatch(List<BatchOperation> operations) throws FreeIpaClientException {
+        List<Map<String, Object>> calls = operations.stream()
+                .map(operation -> Map.<String, Object>of(
+                        "method", operation.getMethod(),
+                        "params", List.of(operation.getFlags(), withVersion(operation.getParams()))))
+                .collect(Collectors.toList());
+        // the params of the operations are not logged, they may contain credentials
+        LOGGER.debug("Issuing JSON-RPC batch request with {} operations: {}", operations.size(), operations);
+        BatchResult batchResult = (BatchResult) doInvoke("batch", calls, Map.of(), BatchResult.class).getResult();
+        if (batchResult == null || batchResult.getResults() == null || batchResult.getResults().size() != operations.size()) {
+            throw new FreeIpaClientException(String.format("Batch response does not contain a result for each of the %d operations: %s",
+                    operations.size(), batchResult));
+        }
+        return batchResult.getResults();
+    }
+
     public <T> RPCResponse<T> invoke(String method, List<String> flags, Map<String, Object> params, Type resultType) throws FreeIpaClientException {
+        LOGGER.debug("Issuing JSON-RPC request:\n\n method: {}\n flags: {}\n", method, flags);
+        return doInvoke(method, flags, params, resultType);
+    }
+
+    private Map<String, Object> withVersion(Map<String, Object> params) {
         Map<String, Object> parameterMap = new HashMap<>();
         if (params != null && !params.isEmpty()) {
             parameterMap.putAll(params);
         }
         parameterMap.put("version", apiVersion);
+        return parameterMap;
+    }
 
-        LOGGER.debug("Issuing JSON-RPC request:\n\n method: {}\n flags: {}\n", method, flags);
+    private <T> RPCResponse<T> doInvoke(String method, List<?> flags, Map<String, Object> params, Type resultType) throws FreeIpaClientException {
+        Map<String, Object> parameterMap = withVersion(params);
         ParameterizedType type = TypeUtils
                 .parameterize(RPCResponse.class, resultType);
         try {
@@ -0,0 +1,77 @@
+package com.sequenceiq.freeipa.client.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BatchItemResult {
+    private Object result;
+
+    private String summary;
+
+    private String error;
+
+    private Integer errorCode;
+
+    private String errorName;
+
+    public Object getResult() {
+        return result;
+    }
+
+    public void setResult(Object result) {
+        this.result = result;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    public void setSummary(String summary) {
+        this.summary = summary;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @JsonProperty("error_code")
+    public Integer getErrorCode() {
+        return errorCode;
+    }
+
+    @JsonProperty("error_code")
+    public void setErrorCode(Integer errorCode) {
+        this.errorCode = errorCode;
+    }
+
+    @JsonProperty("error_name")
+    public String getErrorName() {
+        return errorName;
+    }
+
+    @JsonProperty("error_name")
+    public void setErrorName(String errorName) {
+        this.errorName = errorName;
+    }
+
+    @JsonIgnore
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchItemResult{"
+                + "summary='" + summary + '\''
+                + ", error='" + error + '\''
+                + ", errorCode=" + errorCode
+                + ", errorName='" + errorName + '\''
+                + '}';
+    }
+}
@@ -13,12 +13,20 @@ public class UsersyncConfig {
 
     public static final String USERSYNC_TASK_EXECUTOR = "USERSYNC_TASK_EXECUTOR";
 
+    public static final String USERSYNC_GROUP_MEMBERSHIP_TASK_EXECUTOR = "USERSYNC_GROUP_MEMBERSHIP_TASK_EXECUTOR";
+
     @Value("${freeipa.usersync.threadpool.core.size}")
     private int usersyncCorePoolSize;
 
     @Value("${freeipa.usersync.threadpool.capacity.size}")
     private int usersyncQueueCapacity;
 
+    @Value("${freeipa.usersync.group-membership.threadpool.core.size}")
+    private int groupMembershipCorePoolSize;
+
+    @Value("${freeipa.usersync.group-membership.threadpool.capacity.size}")
+    private int groupMembershipQueueCapacity;
+
     @Bean(name = USERSYNC_TASK_EXECUTOR)
     public AsyncTaskExecutor usersyncTaskExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
@@ -29,4 +37,18 @@ public class UsersyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Applies the group membership changes of the environments, separate from the usersync executor as its tasks wait for these ones.
+     */
+    @Bean(name = USERSYNC_GROUP_MEMBERSHIP_TASK_EXECUTOR)
+    public AsyncTaskExecutor usersyncGroupMembershipTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(groupMembershipCorePoolSize);
+        executor.setQueueCapacity(groupMembershipQueueCapacity);
+        executor.setThreadNamePrefix("usersyncGroupMembershipExecutor-");
+        executor.setTaskDecorator(new MDCCleanerTaskDecorator());
+        executor.initialize();
+        return executor;
+    }
 }
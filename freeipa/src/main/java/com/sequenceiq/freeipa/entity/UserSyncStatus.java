@@ -28,6 +28,10 @@ public class UserSyncStatus implements AccountIdAwareResource {
     @Column(columnDefinition = "TEXT")
     private Json umsEventGenerationIds;
 
+    @Convert(converter = JsonToString.class)
+    @Column(columnDefinition = "TEXT")
+    private Json workloadCredentialDigests;
+
     private Long lastFullSyncStartTime;
 
     private Long lastFullSyncEndTime;
@@ -63,6 +67,14 @@ public class UserSyncStatus implements AccountIdAwareResource {
         this.umsEventGenerationIds = umsEventGenerationIds;
     }
 
+    public Json getWorkloadCredentialDigests() {
+        return workloadCredentialDigests;
+    }
+
+    public void setWorkloadCredentialDigests(Json workloadCredentialDigests) {
+        this.workloadCredentialDigests = workloadCredentialDigests;
+    }
+
     public Long getLastFullSyncStartTime() {
         return lastFullSyncStartTime;
     }
@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 
 import org.slf4j.Logger;
@@ -54,6 +55,15 @@ public class BootstrapService {
     @Inject
     private ImageService imageService;
 
+    @PostConstruct
+    public void buildStateConfigZip() {
+        try {
+            getStateConfigZip();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to build the salt state archive at startup, it is built at the first bootstrap", e);
+        }
+    }
+
     public void bootstrap(Long stackId) {
         Set<InstanceMetaData> instanceMetaDatas = instanceMetaDataRepository.findAllInStack(stackId);
         Stack stack = stackRepository.findById(stackId).get();
@@ -83,6 +93,6 @@ public class BootstrapService {
     }
 
     private byte[] getStateConfigZip() throws IOException {
-        return CompressUtil.generateCompressedOutputFromFolders("salt-common", "freeipa-salt");
+        return CompressUtil.getCompressedOutputFromFolders("salt-common", "freeipa-salt");
     }
 }
@@ -1,5 +1,7 @@
 package com.sequenceiq.freeipa.service.freeipa;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import javax.inject.Inject;
@@ -12,16 +14,19 @@ import com.googlecode.jsonrpc4j.JsonRpcClient;
 import com.sequenceiq.cloudbreak.client.HttpClientConfig;
 import com.sequenceiq.cloudbreak.clusterproxy.ClusterProxyConfiguration;
 import com.sequenceiq.cloudbreak.orchestrator.model.GatewayConfig;
+import com.sequenceiq.freeipa.api.v1.freeipa.stack.model.common.instance.InstanceMetadataType;
 import com.sequenceiq.freeipa.client.ClusterProxyErrorRpcListener;
 import com.sequenceiq.freeipa.client.FreeIpaClient;
 import com.sequenceiq.freeipa.client.FreeIpaClientBuilder;
 import com.sequenceiq.freeipa.client.FreeIpaClientException;
 import com.sequenceiq.freeipa.entity.FreeIpa;
+import com.sequenceiq.freeipa.entity.InstanceMetaData;
 import com.sequenceiq.freeipa.entity.Stack;
 import com.sequenceiq.freeipa.service.GatewayConfigService;
 import com.sequenceiq.freeipa.service.TlsSecurityService;
 import com.sequenceiq.freeipa.service.stack.ClusterProxyService;
 import com.sequenceiq.freeipa.service.stack.StackService;
+import com.sequenceiq.freeipa.service.stack.instance.InstanceMetaDataService;
 
 @Service
 public class FreeIpaClientFactory {
@@ -52,6 +57,9 @@ public class FreeIpaClientFactory {
     @Inject
     private TlsSecurityService tlsSecurityService;
 
+    @Inject
+    private InstanceMetaDataService instanceMetaDataService;
+
     public FreeIpaClient getFreeIpaClientForStackId(Long stackId) throws FreeIpaClientException {
         LOGGER.debug("Retrieving stack for stack id {}", stackId);
 
@@ -84,6 +92,27 @@ public class FreeIpaClientFactory {
         }
     }
 
+    /**
+     * Creates a client for every FreeIPA replica of the stack, that is every instance besides the primary gateway, so that requests can be
+     * spread across the instances. Behind cluster proxy the instances cannot be addressed one by one and no replica client is returned.
+     */
+    public List<FreeIpaClient> getFreeIpaClientsForReplicas(Stack stack) {
+        List<FreeIpaClient> freeIpaClients = new ArrayList<>();
+        if (!clusterProxyService.isCreateConfigForClusterProxy(stack)) {
+            for (InstanceMetaData instanceMetaData : instanceMetaDataService.findNotTerminatedForStack(stack.getId())) {
+                if (!instanceMetaData.isFailed() && !InstanceMetadataType.GATEWAY_PRIMARY.equals(instanceMetaData.getInstanceMetadataType())) {
+                    try {
+                        freeIpaClients.add(getFreeIpaClientBuilder(stack, instanceMetaData).build());
+                    } catch (Exception e) {
+                        LOGGER.warn("Couldn't build FreeIPA client for instance {} of stack {}, skipping it",
+                                instanceMetaData.getInstanceId(), stack.getResourceCrn(), e);
+                    }
+                }
+            }
+        }
+        return freeIpaClients;
+    }
+
     public FreeIpaClient getFreeIpaClientForStackWithPing(Stack stack) throws Exception {
         LOGGER.debug("Ping the login endpoint and creating FreeIpaClient for stack {}", stack.getResourceCrn());
         if (clusterProxyService.isCreateConfigForClusterProxy(stack)) {
@@ -117,6 +146,14 @@ public class FreeIpaClientFactory {
                 httpClientConfig, stack.getGatewayport());
     }
 
+    private FreeIpaClientBuilder getFreeIpaClientBuilder(Stack stack, InstanceMetaData instanceMetaData) throws Exception {
+        GatewayConfig gatewayConfig = gatewayConfigService.getGatewayConfig(stack, instanceMetaData);
+        HttpClientConfig httpClientConfig = tlsSecurityService.buildTLSClientConfig(stack, gatewayConfig.getPublicAddress(), instanceMetaData);
+        FreeIpa freeIpa = freeIpaService.findByStack(stack);
+        return new FreeIpaClientBuilder(ADMIN_USER, freeIpa.getAdminPassword(), freeIpa.getDomain().toUpperCase(),
+                httpClientConfig, stack.getGatewayport());
+    }
+
     public String getAdminUser() {
         return ADMIN_USER;
     }
@@ -1,12 +1,10 @@
 package com.sequenceiq.freeipa.service.freeipa.user;
 
 import java.time.Instant;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
 
@@ -28,6 +26,7 @@ import com.sequenceiq.cloudbreak.auth.altus.exception.UmsOperationException;
 import com.sequenceiq.cloudbreak.auth.security.InternalCrnBuilder;
 import com.sequenceiq.freeipa.service.freeipa.user.model.FmsGroup;
 import com.sequenceiq.freeipa.service.freeipa.user.model.FmsUser;
+import com.sequenceiq.freeipa.service.freeipa.user.model.UmsAccountState;
 import com.sequenceiq.freeipa.service.freeipa.user.model.UmsUsersState;
 import com.sequenceiq.freeipa.service.freeipa.user.model.UsersState;
 import com.sequenceiq.freeipa.service.freeipa.user.model.WorkloadCredential;
@@ -44,81 +43,76 @@ public class UmsUsersStateProvider {
     @Inject
     private GrpcUmsClient grpcUmsClient;
 
-    public Map<String, UmsUsersState> getEnvToUmsUsersStateMap(String accountId, String actorCrn, Set<String> environmentCrns,
-                                                            Set<String> userCrns, Set<String> machineUserCrns, Optional<String> requestIdOptional) {
+    /**
+     * Collects the groups, users and machine users of the account. The users are consumed page by page and only their workload users
+     * are kept, so the memory held does not depend on the size of the UMS responses.
+     */
+    public UmsAccountState getUmsAccountState(String accountId, String actorCrn, Set<String> userCrns, Set<String> machineUserCrns,
+            Optional<String> requestIdOptional) {
         try {
-            LOGGER.debug("Getting UMS state for environments {} with requestId {}", environmentCrns, requestIdOptional);
+            LOGGER.debug("Getting UMS account state for account {} with requestId {}", accountId, requestIdOptional);
+            AtomicInteger pageCount = new AtomicInteger();
+            UmsAccountState.Builder accountStateBuilder = new UmsAccountState.Builder();
 
-            Map<String, UmsUsersState> envUsersStateMap = new HashMap<>();
+            grpcUmsClient.listGroups(actorCrn, accountId, List.of(), requestIdOptional)
+                    .forEach(group -> accountStateBuilder.addGroup(group.getCrn(), umsGroupToGroup(group)));
 
             boolean fullSync = userCrns.isEmpty() && machineUserCrns.isEmpty();
+            if (fullSync || !userCrns.isEmpty()) {
+                grpcUmsClient.listUsers(actorCrn, accountId, List.copyOf(userCrns), requestIdOptional, users -> {
+                    users.forEach(u -> accountStateBuilder.addUser(u.getCrn(), umsUserToUser(u)));
+                    pageCount.incrementAndGet();
+                });
+            }
+            if (fullSync || !machineUserCrns.isEmpty()) {
+                grpcUmsClient.listMachineUsers(actorCrn, accountId, List.copyOf(machineUserCrns), requestIdOptional, machineUsers -> {
+                    machineUsers.forEach(mu -> accountStateBuilder.addUser(mu.getCrn(), umsMachineUserToUser(mu)));
+                    pageCount.incrementAndGet();
+                });
+            }
 
-            List<User> users = getUsers(actorCrn, accountId, requestIdOptional, fullSync, userCrns);
-
-            List<MachineUser> machineUsers = getMachineUsers(actorCrn, accountId, requestIdOptional, fullSync, machineUserCrns);
-
-            Map<String, FmsGroup> crnToFmsGroup = grpcUmsClient.listGroups(actorCrn, accountId, List.of(), requestIdOptional).stream()
-                    .collect(Collectors.toMap(Group::getCrn, this::umsGroupToGroup));
-
-            environmentCrns.stream().forEach(environmentCrn -> {
-                UmsUsersState.Builder umsUsersStateBuilder = new UmsUsersState.Builder();
-                UsersState.Builder usersStateBuilder = new UsersState.Builder();
-
-                crnToFmsGroup.values().stream().forEach(usersStateBuilder::addGroup);
-
-                // add internal usersync group for each environment
-                FmsGroup internalUserSyncGroup = new FmsGroup();
-                internalUserSyncGroup.setName(UserServiceConstants.CDP_USERSYNC_INTERNAL_GROUP);
-                usersStateBuilder.addGroup(internalUserSyncGroup);
-
-                users.stream().forEach(u -> {
-                    FmsUser fmsUser = umsUserToUser(u);
-                    // add workload username for each user. This will be helpful in getting users from IPA.
-                    umsUsersStateBuilder.addRequestedWorkloadUsers(fmsUser);
+            UmsAccountState accountState = accountStateBuilder.build();
+            LOGGER.info("UMS account state of {} holds {} groups and {} users and machine users read from {} pages",
+                    accountId, accountState.getCrnToFmsGroup().size(), accountState.getCrnToFmsUser().size(), pageCount.get());
+            return accountState;
+        } catch (RuntimeException e) {
+            throw new UmsOperationException(String.format("Error during UMS operation: '%s'", e.getLocalizedMessage()), e);
+        }
+    }
 
-                    handleUser(umsUsersStateBuilder, usersStateBuilder, crnToFmsGroup, actorCrn, u.getCrn(), fmsUser, environmentCrn, requestIdOptional);
+    /**
+     * Computes the UMS state of an environment from the shared account state, the rights of the members are queried for this environment
+     * only when it is called.
+     */
+    public UmsUsersState getUmsUsersState(UmsAccountState accountState, String actorCrn, String environmentCrn, Optional<String> requestIdOptional) {
+        try {
+            LOGGER.debug("Getting UMS state for environment {} with requestId {}", environmentCrn, requestIdOptional);
+            UmsUsersState.Builder umsUsersStateBuilder = new UmsUsersState.Builder();
+            UsersState.Builder usersStateBuilder = new UsersState.Builder();
 
-                });
+            accountState.getCrnToFmsGroup().values().forEach(usersStateBuilder::addGroup);
 
-                machineUsers.stream().forEach(mu -> {
-                    FmsUser fmsUser = umsMachineUserToUser(mu);
-                    umsUsersStateBuilder.addRequestedWorkloadUsers(fmsUser);
-                    // add workload username for each user. This will be helpful in getting users from IPA.
+            // add internal usersync group for each environment
+            FmsGroup internalUserSyncGroup = new FmsGroup();
+            internalUserSyncGroup.setName(UserServiceConstants.CDP_USERSYNC_INTERNAL_GROUP);
+            usersStateBuilder.addGroup(internalUserSyncGroup);
 
-                    handleUser(umsUsersStateBuilder, usersStateBuilder, crnToFmsGroup, actorCrn, mu.getCrn(), fmsUser, environmentCrn, requestIdOptional);
-                });
+            accountState.getCrnToFmsUser().forEach((memberCrn, fmsUser) -> {
+                // add workload username for each user. This will be helpful in getting users from IPA.
+                umsUsersStateBuilder.addRequestedWorkloadUsers(fmsUser);
 
-                umsUsersStateBuilder.setUsersState(usersStateBuilder.build());
-                envUsersStateMap.put(environmentCrn, umsUsersStateBuilder.build());
+                handleUser(umsUsersStateBuilder, usersStateBuilder, accountState, actorCrn, memberCrn, fmsUser, environmentCrn, requestIdOptional);
             });
 
-            return envUsersStateMap;
+            umsUsersStateBuilder.setUsersState(usersStateBuilder.build());
+            LOGGER.debug("UMS state of environment {} built, {} workload credentials loaded for the account so far",
+                    environmentCrn, accountState.getLoadedWorkloadCredentialCount());
+            return umsUsersStateBuilder.build();
         } catch (RuntimeException e) {
             throw new UmsOperationException(String.format("Error during UMS operation: '%s'", e.getLocalizedMessage()), e);
         }
     }
 
-    private List<User> getUsers(String actorCrn, String accountId, Optional<String> requestIdOptional, boolean fullSync, Set<String> userCrns) {
-        if (fullSync) {
-            return grpcUmsClient.listAllUsers(actorCrn, accountId, requestIdOptional);
-        } else if (!userCrns.isEmpty()) {
-            return grpcUmsClient.listUsers(actorCrn, accountId, List.copyOf(userCrns), requestIdOptional);
-        } else {
-            return List.of();
-        }
-    }
-
-    private List<MachineUser> getMachineUsers(String actorCrn, String accountId, Optional<String> requestIdOptional,
-            boolean fullSync, Set<String> machineUserCrns) {
-        if (fullSync) {
-            return grpcUmsClient.listAllMachineUsers(actorCrn, accountId, requestIdOptional);
-        } else if (!machineUserCrns.isEmpty()) {
-            return grpcUmsClient.listMachineUsers(actorCrn, accountId, List.copyOf(machineUserCrns), requestIdOptional);
-        } else {
-            return List.of();
-        }
-    }
-
     private WorkloadCredential getCredentials(String userCrn, Optional<String> requestId) {
         GetActorWorkloadCredentialsResponse response = grpcUmsClient.getActorWorkloadCredentials(IAM_INTERNAL_ACTOR_CRN, userCrn, requestId);
         String hashedPassword = response.getPasswordHash();
@@ -175,14 +169,14 @@ public class UmsUsersStateProvider {
     }
 
     @SuppressWarnings("ParameterNumber")
-    private void handleUser(UmsUsersState.Builder umsUsersStateBuilder, UsersState.Builder usersStateBuilder, Map<String, FmsGroup> crnToFmsGroup,
+    private void handleUser(UmsUsersState.Builder umsUsersStateBuilder, UsersState.Builder usersStateBuilder, UmsAccountState accountState,
                             String actorCrn, String memberCrn, FmsUser fmsUser, String environmentCrn, Optional<String> requestId) {
         try {
             GetRightsResponse rightsResponse = grpcUmsClient.getRightsForUser(actorCrn, memberCrn, environmentCrn, requestId);
             if (isEnvironmentUser(environmentCrn, rightsResponse)) {
                 usersStateBuilder.addUser(fmsUser);
                 rightsResponse.getGroupCrnList().stream().forEach(gcrn -> {
-                    FmsGroup group = crnToFmsGroup.get(gcrn);
+                    FmsGroup group = accountState.getCrnToFmsGroup().get(gcrn);
                     // If the group is null, then there has been a group membership change after we started the sync
                     // the group and group membership will be updated on the next sync
                     if (group != null) {
@@ -205,8 +199,9 @@ public class UmsUsersStateProvider {
                     usersStateBuilder.addMemberToGroup("admins", fmsUser.getName());
                 }
 
-                // get credentials
-                umsUsersStateBuilder.addWorkloadCredentials(fmsUser.getName(), getCredentials(memberCrn, requestId));
+                // get credentials, they are the same in every environment
+                umsUsersStateBuilder.addWorkloadCredentials(fmsUser.getName(),
+                        accountState.getWorkloadCredential(memberCrn, crn -> getCredentials(crn, requestId)));
             }
         } catch (StatusRuntimeException e) {
             // NOT_FOUND errors indicate that a user/machineUser has been deleted after we have
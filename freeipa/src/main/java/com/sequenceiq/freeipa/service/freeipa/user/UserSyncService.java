@@ -6,12 +6,17 @@ import java.io.IOException;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -23,10 +28,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
 import com.sequenceiq.cloudbreak.auth.altus.Crn;
@@ -42,6 +49,8 @@ import com.sequenceiq.freeipa.api.v1.operation.model.OperationState;
 import com.sequenceiq.freeipa.api.v1.operation.model.OperationType;
 import com.sequenceiq.freeipa.client.FreeIpaClient;
 import com.sequenceiq.freeipa.client.FreeIpaClientException;
+import com.sequenceiq.freeipa.client.model.BatchItemResult;
+import com.sequenceiq.freeipa.client.model.BatchOperation;
 import com.sequenceiq.freeipa.client.model.Config;
 import com.sequenceiq.freeipa.client.model.RPCResponse;
 import com.sequenceiq.freeipa.configuration.UsersyncConfig;
@@ -55,24 +64,56 @@ import com.sequenceiq.freeipa.service.freeipa.FreeIpaClientFactory;
 import com.sequenceiq.freeipa.service.freeipa.user.model.FmsGroup;
 import com.sequenceiq.freeipa.service.freeipa.user.model.FmsUser;
 import com.sequenceiq.freeipa.service.freeipa.user.model.SyncStatusDetail;
+import com.sequenceiq.freeipa.service.freeipa.user.model.UmsAccountState;
 import com.sequenceiq.freeipa.service.freeipa.user.model.UmsEventGenerationIds;
 import com.sequenceiq.freeipa.service.freeipa.user.model.UmsUsersState;
 import com.sequenceiq.freeipa.service.freeipa.user.model.UsersState;
 import com.sequenceiq.freeipa.service.freeipa.user.model.UsersStateDifference;
 import com.sequenceiq.freeipa.service.freeipa.user.model.WorkloadCredential;
+import com.sequenceiq.freeipa.service.freeipa.user.model.WorkloadCredentialDigests;
 import com.sequenceiq.freeipa.service.operation.OperationStatusService;
 import com.sequenceiq.freeipa.service.stack.StackService;
 import com.sequenceiq.freeipa.util.KrbKeySetEncoder;
 
+import io.micrometer.core.instrument.Metrics;
+
 @Service
 public class UserSyncService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(UserSyncService.class);
 
+    private static final String GROUP_MEMBERSHIP_APPLY_METRIC = "freeipa.usersync.group.membership.apply";
+
+    private static final String GROUP_MEMBERSHIP_REQUESTS_METRIC = "freeipa.usersync.group.membership.requests";
+
+    private static final String GROUP_MEMBERSHIP_ERRORS_METRIC = "freeipa.usersync.group.membership.errors";
+
+    private static final String PHASE_TAG = "phase";
+
     @VisibleForTesting
     @Value("${freeipa.usersync.max-subjects-per-request}")
     int maxSubjectsPerRequest;
 
+    @VisibleForTesting
+    @Value("${freeipa.usersync.batch.enabled}")
+    boolean batchEnabled;
+
+    @VisibleForTesting
+    @Value("${freeipa.usersync.batch.size}")
+    int batchSize;
+
+    @VisibleForTesting
+    @Value("${freeipa.usersync.credentials.incremental.enabled}")
+    boolean incrementalCredentialSync;
+
+    @VisibleForTesting
+    @Value("${freeipa.usersync.group-membership.max-concurrent-requests:1}")
+    int maxConcurrentGroupMembershipRequests;
+
+    @VisibleForTesting
+    @Value("${freeipa.usersync.group-membership.spread-across-replicas:false}")
+    boolean spreadGroupMembershipAcrossReplicas;
+
     @Inject
     private StackService stackService;
 
@@ -89,6 +130,10 @@ public class UserSyncService {
     @Qualifier(UsersyncConfig.USERSYNC_TASK_EXECUTOR)
     private AsyncTaskExecutor asyncTaskExecutor;
 
+    @Inject
+    @Qualifier(UsersyncConfig.USERSYNC_GROUP_MEMBERSHIP_TASK_EXECUTOR)
+    private AsyncTaskExecutor groupMembershipTaskExecutor;
+
     @Inject
     private OperationStatusService operationStatusService;
 
@@ -157,22 +202,25 @@ public class UserSyncService {
                     umsEventGenerationIdsProvider.getEventGenerationIds(accountId, requestId) :
                     null;
 
-            Map<String, UmsUsersState> envToUmsStateMap = umsUsersStateProvider
-                    .getEnvToUmsUsersStateMap(accountId, actorCrn, environmentCrns, userCrnFilter, machineUserCrnFilter, requestId);
+            UmsAccountState umsAccountState = umsUsersStateProvider
+                    .getUmsAccountState(accountId, actorCrn, userCrnFilter, machineUserCrnFilter, requestId);
 
             List<SuccessDetails> success = new ArrayList<>();
             List<FailureDetails> failure = new ArrayList<>();
 
             Map<String, Future<SyncStatusDetail>> statusFutures = stacks.stream()
                     .collect(Collectors.toMap(Stack::getEnvironmentCrn,
-                            stack -> asyncSynchronizeStack(stack, envToUmsStateMap.get(stack.getEnvironmentCrn()), umsEventGenerationIds, fullSync)));
+                            stack -> asyncSynchronizeStack(stack, umsAccountState, actorCrn, requestId, umsEventGenerationIds, fullSync)));
 
             statusFutures.forEach((envCrn, statusFuture) -> {
                 try {
                     SyncStatusDetail statusDetail = statusFuture.get();
                     switch (statusDetail.getStatus()) {
                         case COMPLETED:
-                            success.add(new SuccessDetails(envCrn));
+                            SuccessDetails successDetails = new SuccessDetails(envCrn);
+                            statusDetail.getWarnings().asMap().forEach((entity, messages) ->
+                                    successDetails.getAdditionalDetails().put(entity, new ArrayList<>(messages)));
+                            success.add(successDetails);
                             break;
                         case FAILED:
                             failure.add(new FailureDetails(envCrn, statusDetail.getDetails()));
@@ -193,10 +241,10 @@ public class UserSyncService {
         }
     }
 
-    private Future<SyncStatusDetail> asyncSynchronizeStack(Stack stack, UmsUsersState umsUsersState, UmsEventGenerationIds umsEventGenerationIds,
-            boolean fullSync) {
+    private Future<SyncStatusDetail> asyncSynchronizeStack(Stack stack, UmsAccountState umsAccountState, String actorCrn, Optional<String> requestId,
+            UmsEventGenerationIds umsEventGenerationIds, boolean fullSync) {
         return asyncTaskExecutor.submit(() -> {
-            SyncStatusDetail statusDetail = internalSynchronizeStack(stack, umsUsersState, fullSync);
+            SyncStatusDetail statusDetail = internalSynchronizeStack(stack, umsAccountState, actorCrn, requestId, fullSync);
             if (fullSync && statusDetail.getStatus() == SynchronizationStatus.COMPLETED) {
                 UserSyncStatus userSyncStatus = userSyncStatusService.getOrCreateForStack(stack);
                 userSyncStatus.setUmsEventGenerationIds(new Json(umsEventGenerationIds));
@@ -208,21 +256,27 @@ public class UserSyncService {
 
     }
 
-    private SyncStatusDetail internalSynchronizeStack(Stack stack, UmsUsersState umsUsersState, boolean fullSync) {
+    private SyncStatusDetail internalSynchronizeStack(Stack stack, UmsAccountState umsAccountState, String actorCrn, Optional<String> requestId,
+            boolean fullSync) {
         MDCBuilder.buildMdcContext(stack);
         String environmentCrn = stack.getEnvironmentCrn();
         try {
+            // the UMS state of the environment is built in the task of the environment, so only the states of the environments being
+            // synchronized are held at a time
+            UmsUsersState umsUsersState = umsUsersStateProvider.getUmsUsersState(umsAccountState, actorCrn, environmentCrn, requestId);
             FreeIpaClient freeIpaClient = freeIpaClientFactory.getFreeIpaClientForStack(stack);
             UsersState ipaUsersState = getIpaUserState(freeIpaClient, umsUsersState, fullSync);
             LOGGER.debug("IPA UsersState, found {} users and {} groups", ipaUsersState.getUsers().size(), ipaUsersState.getGroups().size());
 
-            applyStateDifferenceToIpa(stack.getEnvironmentCrn(), freeIpaClient,
-                    UsersStateDifference.fromUmsAndIpaUsersStates(umsUsersState.getUsersState(), ipaUsersState));
+            Multimap<String, String> warnings = ArrayListMultimap.create();
+            UsersStateDifference stateDifference = UsersStateDifference.fromUmsAndIpaUsersStates(umsUsersState.getUsersState(), ipaUsersState);
+            applyStateDifferenceToIpa(stack, freeIpaClient, stateDifference, warnings);
 
             // Check for the password related attribute (cdpUserAttr) existence and go for password sync.
-            processUsersWorkloadCredentials(environmentCrn, umsUsersState, freeIpaClient);
+            Set<String> addedUsers = stateDifference.getUsersToAdd().stream().map(FmsUser::getName).collect(Collectors.toSet());
+            processUsersWorkloadCredentials(stack, umsUsersState, freeIpaClient, addedUsers, fullSync);
 
-            return SyncStatusDetail.succeed(environmentCrn, "TODO- collect detail info");
+            return SyncStatusDetail.succeed(environmentCrn, "TODO- collect detail info", warnings);
         } catch (Exception e) {
             LOGGER.warn("Failed to synchronize environment {}", environmentCrn, e);
             return SyncStatusDetail.fail(environmentCrn, e.getLocalizedMessage());
@@ -236,20 +290,32 @@ public class UserSyncService {
                 freeIpaUsersStateProvider.getFilteredFreeIPAState(freeIpaClient, umsUsersState.getRequestedWorkloadUsers());
     }
 
-    private void applyStateDifferenceToIpa(String environmentCrn, FreeIpaClient freeIpaClient, UsersStateDifference stateDifference)
-            throws FreeIpaClientException {
-        LOGGER.info("Applying state difference to environment {}.", environmentCrn);
-
-        addGroups(freeIpaClient, stateDifference.getGroupsToAdd());
-        addUsers(freeIpaClient, stateDifference.getUsersToAdd());
-        addUsersToGroups(freeIpaClient, stateDifference.getGroupMembershipToAdd());
+    private void applyStateDifferenceToIpa(Stack stack, FreeIpaClient freeIpaClient, UsersStateDifference stateDifference,
+            Multimap<String, String> warnings) throws FreeIpaClientException {
+        LOGGER.info("Applying state difference to environment {}.", stack.getEnvironmentCrn());
 
-        removeUsersFromGroups(freeIpaClient, stateDifference.getGroupMembershipToRemove());
-        removeUsers(freeIpaClient, stateDifference.getUsersToRemove());
+        if (batchEnabled) {
+            addGroupsInBatches(freeIpaClient, stateDifference.getGroupsToAdd(), warnings);
+            addUsersInBatches(freeIpaClient, stateDifference.getUsersToAdd(), warnings);
+        } else {
+            addGroups(freeIpaClient, stateDifference.getGroupsToAdd());
+            addUsers(freeIpaClient, stateDifference.getUsersToAdd());
+        }
+        List<FreeIpaClient> groupMembershipClients = getGroupMembershipClients(stack, freeIpaClient);
+        addUsersToGroups(groupMembershipClients, stateDifference.getGroupMembershipToAdd());
+
+        removeUsersFromGroups(groupMembershipClients, stateDifference.getGroupMembershipToRemove());
+        if (batchEnabled) {
+            removeUsersInBatches(freeIpaClient, stateDifference.getUsersToRemove(), warnings);
+        } else {
+            removeUsers(freeIpaClient, stateDifference.getUsersToRemove());
+        }
     }
 
-    private void processUsersWorkloadCredentials(
-            String environmentCrn, UmsUsersState umsUsersState, FreeIpaClient freeIpaClient) throws IOException, FreeIpaClientException {
+    @VisibleForTesting
+    void processUsersWorkloadCredentials(Stack stack, UmsUsersState umsUsersState, FreeIpaClient freeIpaClient, Set<String> addedUsers,
+            boolean fullSync) throws IOException, FreeIpaClientException {
+        String environmentCrn = stack.getEnvironmentCrn();
         Config config = freeIpaClient.getConfig();
         if (config.getIpauserobjectclasses() == null || !config.getIpauserobjectclasses().contains(Config.CDP_USER_ATTRIBUTE)) {
             LOGGER.debug("Doesn't seems like having config attribute, no credentials sync required for env:{}", environmentCrn);
@@ -259,8 +325,13 @@ public class UserSyncService {
         // found the attribute, password sync can be performed
         LOGGER.debug("Having config attribute, going for credentials sync");
 
-        // Should sync for all users and not just diff. At present there is no way to identify that there is a change in password for a user
+        // Without incremental sync the credentials of all users are pushed. With incremental sync only the users are pushed whose credential
+        // digest differs from the last synced one, new users are always pushed as FreeIPA gives them a random password.
+        Map<String, String> syncedDigests = incrementalCredentialSync ? getWorkloadCredentialDigests(stack) : Map.of();
+        Map<String, String> newDigests = new HashMap<>(fullSync ? Map.of() : syncedDigests);
         UsersState usersState = umsUsersState.getUsersState();
+        Map<String, BatchOperation> passwordHashOperations = new LinkedHashMap<>();
+        int unchanged = 0;
         for (FmsUser u : usersState.getUsers()) {
             WorkloadCredential workloadCredential = umsUsersState.getUsersWorkloadCredentialMap().get(u.getName());
             if (workloadCredential == null
@@ -269,16 +340,102 @@ public class UserSyncService {
                 continue;
             }
 
+            String digest = workloadCredential.getDigest();
+            if (incrementalCredentialSync && !addedUsers.contains(u.getName()) && digest.equals(syncedDigests.get(u.getName()))) {
+                newDigests.put(u.getName(), digest);
+                unchanged++;
+                continue;
+            }
+
             // Call ASN_1 Encoder for encoding hashed password and then call user mod for password
             LOGGER.debug("Found Credentials for user {}", u.getName());
             String ansEncodedKrbPrincipalKey = KrbKeySetEncoder.getASNEncodedKrbPrincipalKey(workloadCredential.getKeys());
 
-            freeIpaClient.userSetPasswordHash(u.getName(), workloadCredential.getHashedPassword(),
-                    ansEncodedKrbPrincipalKey, workloadCredential.getExpirationDate());
-            LOGGER.debug("Password synced for the user:{}, for the environment: {}", u.getName(), environmentCrn);
+            if (batchEnabled) {
+                passwordHashOperations.put(u.getName(), freeIpaClient.userSetPasswordHashOperation(u.getName(), workloadCredential.getHashedPassword(),
+                        ansEncodedKrbPrincipalKey, workloadCredential.getExpirationDate()));
+            } else {
+                freeIpaClient.userSetPasswordHash(u.getName(), workloadCredential.getHashedPassword(),
+                        ansEncodedKrbPrincipalKey, workloadCredential.getExpirationDate());
+                LOGGER.debug("Password synced for the user:{}, for the environment: {}", u.getName(), environmentCrn);
+            }
+            newDigests.put(u.getName(), digest);
+        }
+        Multimap<String, String> passwordHashFailures = ArrayListMultimap.create();
+        executeInBatches(freeIpaClient, "set password hash", passwordHashOperations, passwordHashFailures);
+
+        if (incrementalCredentialSync) {
+            passwordHashFailures.keySet().forEach(newDigests::remove);
+            LOGGER.debug("Credentials of {} users were unchanged in environment {}", unchanged, environmentCrn);
+            saveWorkloadCredentialDigests(stack, newDigests);
+        }
+        if (!passwordHashFailures.isEmpty()) {
+            // a failed password hash update fails the synchronization of the environment, like it does without batches
+            throw new FreeIpaClientException(String.format("Failed to set the password hash of users %s", passwordHashFailures.asMap()));
         }
     }
 
+    private Map<String, String> getWorkloadCredentialDigests(Stack stack) throws IOException {
+        Json workloadCredentialDigests = userSyncStatusService.getOrCreateForStack(stack).getWorkloadCredentialDigests();
+        return workloadCredentialDigests == null ? Map.of() : workloadCredentialDigests.get(WorkloadCredentialDigests.class).getDigests();
+    }
+
+    private void saveWorkloadCredentialDigests(Stack stack, Map<String, String> digests) {
+        WorkloadCredentialDigests workloadCredentialDigests = new WorkloadCredentialDigests();
+        workloadCredentialDigests.setDigests(digests);
+        UserSyncStatus userSyncStatus = userSyncStatusService.getOrCreateForStack(stack);
+        userSyncStatus.setWorkloadCredentialDigests(new Json(workloadCredentialDigests));
+        userSyncStatusService.save(userSyncStatus);
+    }
+
+    @VisibleForTesting
+    void addGroupsInBatches(FreeIpaClient freeIpaClient, Set<FmsGroup> fmsGroups, Multimap<String, String> warnings) {
+        Map<String, BatchOperation> operations = new LinkedHashMap<>();
+        fmsGroups.forEach(fmsGroup -> operations.put(fmsGroup.getName(), freeIpaClient.groupAddOperation(fmsGroup.getName())));
+        executeInBatches(freeIpaClient, "add group", operations, warnings);
+    }
+
+    @VisibleForTesting
+    void addUsersInBatches(FreeIpaClient freeIpaClient, Set<FmsUser> fmsUsers, Multimap<String, String> warnings) {
+        Map<String, BatchOperation> operations = new LinkedHashMap<>();
+        fmsUsers.forEach(fmsUser -> operations.put(fmsUser.getName(),
+                freeIpaClient.userAddOperation(fmsUser.getName(), fmsUser.getFirstName(), fmsUser.getLastName())));
+        executeInBatches(freeIpaClient, "add user", operations, warnings);
+    }
+
+    @VisibleForTesting
+    void removeUsersInBatches(FreeIpaClient freeIpaClient, Set<String> usernames, Multimap<String, String> warnings) {
+        Map<String, BatchOperation> operations = new LinkedHashMap<>();
+        usernames.forEach(username -> operations.put(username, freeIpaClient.deleteUserOperation(username)));
+        executeInBatches(freeIpaClient, "remove user", operations, warnings);
+    }
+
+    /**
+     * Sends the operations in batches of {@code batchSize}. The failed operations are recorded in the warnings by the name of the entity,
+     * when a whole batch fails all of its entities are recorded.
+     */
+    private void executeInBatches(FreeIpaClient freeIpaClient, String action, Map<String, BatchOperation> operationsByEntity,
+            Multimap<String, String> warnings) {
+        Iterables.partition(operationsByEntity.entrySet(), batchSize).forEach(batch -> {
+            LOGGER.debug("Executing {} for {} entities in a batch", action, batch.size());
+            List<BatchOperation> operations = batch.stream().map(Map.Entry::getValue).collect(Collectors.toList());
+            try {
+                List<BatchItemResult> results = freeIpaClient.callBatch(operations);
+                for (int i = 0; i < batch.size(); i++) {
+                    BatchItemResult result = results.get(i);
+                    String entity = batch.get(i).getKey();
+                    if (result.isFailed()) {
+                        LOGGER.error("Failed to {} {}: {}", action, entity, result.getError());
+                        warnings.put(entity, String.format("Failed to %s: %s", action, result.getError()));
+                    }
+                }
+            } catch (FreeIpaClientException e) {
+                LOGGER.error("Failed to {} for [{}]", action, batch.stream().map(Map.Entry::getKey).collect(Collectors.joining(",")), e);
+                batch.forEach(entry -> warnings.put(entry.getKey(), String.format("Failed to %s: %s", action, e.getLocalizedMessage())));
+            }
+        });
+    }
+
     private void addGroups(FreeIpaClient freeIpaClient, Set<FmsGroup> fmsGroups) throws FreeIpaClientException {
         for (FmsGroup fmsGroup : fmsGroups) {
             LOGGER.debug("adding group {}", fmsGroup.getName());
@@ -337,38 +494,120 @@ public class UserSyncService {
 
     }
 
+    private List<FreeIpaClient> getGroupMembershipClients(Stack stack, FreeIpaClient freeIpaClient) {
+        if (!spreadGroupMembershipAcrossReplicas) {
+            return List.of(freeIpaClient);
+        }
+        List<FreeIpaClient> freeIpaClients = new ArrayList<>();
+        freeIpaClients.add(freeIpaClient);
+        freeIpaClients.addAll(freeIpaClientFactory.getFreeIpaClientsForReplicas(stack));
+        LOGGER.debug("Spreading group membership changes across {} FreeIPA instances", freeIpaClients.size());
+        return freeIpaClients;
+    }
+
     @VisibleForTesting
-    void addUsersToGroups(FreeIpaClient freeIpaClient, Multimap<String, String> groupMapping) throws FreeIpaClientException {
+    void addUsersToGroups(List<FreeIpaClient> freeIpaClients, Multimap<String, String> groupMapping) {
         LOGGER.debug("adding users to groups: [{}]", groupMapping);
+        applyGroupMembership("add", freeIpaClients, groupMapping, (freeIpaClient, group, users) -> {
+            LOGGER.debug("adding users [{}] to group [{}]", users, group);
+            // TODO specialize response object
+            RPCResponse<Object> groupAddMember = freeIpaClient.groupAddMembers(group, users);
+            LOGGER.debug("Success: {}", groupAddMember.getResult());
+        });
+    }
+
+    @VisibleForTesting
+    void removeUsersFromGroups(List<FreeIpaClient> freeIpaClients, Multimap<String, String> groupMapping) {
+        applyGroupMembership("remove", freeIpaClients, groupMapping, (freeIpaClient, group, users) -> {
+            LOGGER.debug("removing users {} from group {}", users, group);
+            // TODO specialize response object
+            RPCResponse<Object> groupRemoveMembers = freeIpaClient.groupRemoveMembers(group, users);
+            LOGGER.debug("Success: {}", groupRemoveMembers.getResult());
+        });
+    }
+
+    /**
+     * Applies the membership changes of the groups. The chunks of one group are sent one after the other as they modify the same entry,
+     * the groups are independent and up to maxConcurrentGroupMembershipRequests of them are applied in parallel, each of them through
+     * the next FreeIPA instance. A chunk that fails on a replica is retried on the primary instance, the replica may not have the users
+     * that were just added on the primary yet.
+     */
+    private void applyGroupMembership(String phase, List<FreeIpaClient> freeIpaClients, Multimap<String, String> groupMapping,
+            GroupMembershipRequest request) {
+        long start = System.currentTimeMillis();
+        AtomicInteger requestCount = new AtomicInteger();
+        AtomicInteger errorCount = new AtomicInteger();
+        FreeIpaClient primaryClient = freeIpaClients.get(0);
+        List<Runnable> groupTasks = new ArrayList<>();
         for (String group : groupMapping.keySet()) {
-            Iterables.partition(groupMapping.get(group), maxSubjectsPerRequest).forEach(users -> {
-                LOGGER.debug("adding users [{}] to group [{}]", users, group);
-                try {
-                    // TODO specialize response object
-                    RPCResponse<Object> groupAddMember = freeIpaClient.groupAddMembers(group, users);
-                    LOGGER.debug("Success: {}", groupAddMember.getResult());
-                } catch (FreeIpaClientException e) {
-                    // TODO propagate this information out to API
-                    LOGGER.error("Failed to add [{}] to group [{}]", users, group, e);
+            FreeIpaClient freeIpaClient = freeIpaClients.get(groupTasks.size() % freeIpaClients.size());
+            groupTasks.add(() -> Iterables.partition(groupMapping.get(group), maxSubjectsPerRequest).forEach(users -> {
+                requestCount.incrementAndGet();
+                boolean applied = applyGroupMembershipChunk(phase, freeIpaClient, group, users, request);
+                if (!applied && freeIpaClient != primaryClient) {
+                    LOGGER.debug("Retrying to {} members [{}] of group [{}] on the primary FreeIPA instance", phase, users, group);
+                    applied = applyGroupMembershipChunk(phase, primaryClient, group, users, request);
                 }
-            });
+                if (!applied) {
+                    errorCount.incrementAndGet();
+                }
+            }));
         }
+        if (maxConcurrentGroupMembershipRequests <= 1 || groupTasks.size() <= 1) {
+            groupTasks.forEach(Runnable::run);
+        } else {
+            runWithBoundedConcurrency(groupTasks);
+        }
+        long duration = System.currentTimeMillis() - start;
+        Metrics.timer(GROUP_MEMBERSHIP_APPLY_METRIC, PHASE_TAG, phase).record(duration, TimeUnit.MILLISECONDS);
+        Metrics.counter(GROUP_MEMBERSHIP_REQUESTS_METRIC, PHASE_TAG, phase).increment(requestCount.get());
+        Metrics.counter(GROUP_MEMBERSHIP_ERRORS_METRIC, PHASE_TAG, phase).increment(errorCount.get());
+        LOGGER.info("Group membership {} phase sent {} requests for {} groups with {} errors in {} ms",
+                phase, requestCount.get(), groupTasks.size(), errorCount.get(), duration);
     }
 
-    @VisibleForTesting
-    void removeUsersFromGroups(FreeIpaClient freeIpaClient, Multimap<String, String> groupMapping) throws FreeIpaClientException {
-        for (String group : groupMapping.keySet()) {
-            Iterables.partition(groupMapping.get(group), maxSubjectsPerRequest).forEach(users -> {
-                LOGGER.debug("removing users {} from group {}", users, group);
+    private boolean applyGroupMembershipChunk(String phase, FreeIpaClient freeIpaClient, String group, List<String> users,
+            GroupMembershipRequest request) {
+        try {
+            request.apply(freeIpaClient, group, users);
+            return true;
+        } catch (FreeIpaClientException e) {
+            // TODO propagate this information out to API
+            LOGGER.error("Failed to {} members [{}] of group [{}]", phase, users, group, e);
+            return false;
+        }
+    }
+
+    private void runWithBoundedConcurrency(List<Runnable> tasks) {
+        Semaphore permits = new Semaphore(maxConcurrentGroupMembershipRequests);
+        List<Future<?>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Runnable task : tasks) {
+                permits.acquire();
                 try {
-                    // TODO specialize response object
-                    RPCResponse<Object> groupRemoveMembers = freeIpaClient.groupRemoveMembers(group, users);
-                    LOGGER.debug("Success: {}", groupRemoveMembers.getResult());
-                } catch (FreeIpaClientException e) {
-                    // TODO propagate this information out to API
-                    LOGGER.error("Failed to add [{}] to group [{}]", users, group, e);
+                    futures.add(groupMembershipTaskExecutor.submit(() -> runAndRelease(task, permits)));
+                } catch (TaskRejectedException e) {
+                    LOGGER.debug("The group membership executor is saturated, applying the changes of the group on the calling thread");
+                    runAndRelease(task, permits);
                 }
-            });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Interrupted while applying group membership changes", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to apply group membership changes", e.getCause());
+        }
+    }
+
+    private void runAndRelease(Runnable task, Semaphore permits) {
+        try {
+            task.run();
+        } finally {
+            permits.release();
         }
     }
 
@@ -402,4 +641,9 @@ public class UserSyncService {
     private Set<String> union(Collection<String> collection1, Collection<String> collection2) {
         return Stream.concat(collection1.stream(), collection2.stream()).collect(Collectors.toSet());
     }
+
+    @FunctionalInterface
+    private interface GroupMembershipRequest {
+        void apply(FreeIpaClient freeIpaClient, String group, List<String> users) throws FreeIpaClientException;
+    }
 }
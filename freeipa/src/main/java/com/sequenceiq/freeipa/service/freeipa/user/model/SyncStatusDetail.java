@@ -2,6 +2,8 @@ package com.sequenceiq.freeipa.service.freeipa.user.model;
 
 import static java.util.Objects.requireNonNull;
 
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
 import com.sequenceiq.freeipa.api.v1.freeipa.user.model.SynchronizationStatus;
 
 public class SyncStatusDetail {
@@ -12,10 +14,17 @@ public class SyncStatusDetail {
 
     private String details;
 
+    private Multimap<String, String> warnings;
+
     public SyncStatusDetail(String environmentCrn, SynchronizationStatus status, String details) {
+        this(environmentCrn, status, details, ImmutableMultimap.of());
+    }
+
+    public SyncStatusDetail(String environmentCrn, SynchronizationStatus status, String details, Multimap<String, String> warnings) {
         this.environmentCrn = requireNonNull(environmentCrn);
         this.status = requireNonNull(status);
         this.details = requireNonNull(details);
+        this.warnings = ImmutableMultimap.copyOf(requireNonNull(warnings));
     }
 
     public String getEnvironmentCrn() {
@@ -30,6 +39,10 @@ public class SyncStatusDetail {
         return details;
     }
 
+    public Multimap<String, String> getWarnings() {
+        return warnings;
+    }
+
     public static SyncStatusDetail fail(String environmentCrn, String failureMessage) {
         return new SyncStatusDetail(environmentCrn, SynchronizationStatus.FAILED, failureMessage);
     }
@@ -37,4 +50,8 @@ public class SyncStatusDetail {
     public static SyncStatusDetail succeed(String environmentCrn, String details) {
         return new SyncStatusDetail(environmentCrn, SynchronizationStatus.COMPLETED, details);
     }
+
+    public static SyncStatusDetail succeed(String environmentCrn, String details, Multimap<String, String> warnings) {
+        return new SyncStatusDetail(environmentCrn, SynchronizationStatus.COMPLETED, details, warnings);
+    }
 }
@@ -0,0 +1,71 @@
+package com.sequenceiq.freeipa.service.freeipa.user.model;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * The part of the UMS state that is the same for every environment of the account: the groups and the workload users of the users and
+ * machine users keyed by their CRN. It is built once per sync and shared by the environments, the workload credentials are loaded at most
+ * once per member, when the member turns out to have access to one of the environments.
+ */
+public class UmsAccountState {
+
+    private final ImmutableMap<String, FmsGroup> crnToFmsGroup;
+
+    private final ImmutableMap<String, FmsUser> crnToFmsUser;
+
+    private final Map<String, WorkloadCredential> crnToWorkloadCredential = new ConcurrentHashMap<>();
+
+    public UmsAccountState(Map<String, FmsGroup> crnToFmsGroup, Map<String, FmsUser> crnToFmsUser) {
+        this.crnToFmsGroup = ImmutableMap.copyOf(requireNonNull(crnToFmsGroup, "group map is null"));
+        this.crnToFmsUser = ImmutableMap.copyOf(requireNonNull(crnToFmsUser, "user map is null"));
+    }
+
+    public ImmutableMap<String, FmsGroup> getCrnToFmsGroup() {
+        return crnToFmsGroup;
+    }
+
+    public ImmutableMap<String, FmsUser> getCrnToFmsUser() {
+        return crnToFmsUser;
+    }
+
+    public WorkloadCredential getWorkloadCredential(String memberCrn, Function<String, WorkloadCredential> loader) {
+        WorkloadCredential workloadCredential = crnToWorkloadCredential.get(memberCrn);
+        if (workloadCredential == null) {
+            // loaded outside of the map as it is a remote call, concurrent environments may load the same credential twice
+            workloadCredential = loader.apply(memberCrn);
+            crnToWorkloadCredential.putIfAbsent(memberCrn, workloadCredential);
+        }
+        return workloadCredential;
+    }
+
+    public int getLoadedWorkloadCredentialCount() {
+        return crnToWorkloadCredential.size();
+    }
+
+    public static class Builder {
+        private Map<String, FmsGroup> crnToFmsGroup = new LinkedHashMap<>();
+
+        private Map<String, FmsUser> crnToFmsUser = new LinkedHashMap<>();
+
+        public Builder addGroup(String crn, FmsGroup group) {
+            crnToFmsGroup.put(crn, group);
+            return this;
+        }
+
+        public Builder addUser(String crn, FmsUser user) {
+            crnToFmsUser.put(crn, user);
+            return this;
+        }
+
+        public UmsAccountState build() {
+            return new UmsAccountState(crnToFmsGroup, crnToFmsUser);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package com.sequenceiq.freeipa.service.freeipa.user.model;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
 import com.cloudera.thunderhead.service.usermanagement.UserManagementProto.ActorKerberosKey;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 
 public class WorkloadCredential {
 
@@ -32,4 +36,16 @@ public class WorkloadCredential {
     public Optional<Instant> getExpirationDate() {
         return expirationDate;
     }
+
+    /**
+     * SHA-256 digest of everything that is pushed to FreeIPA for the credential, it changes when any of them changes.
+     */
+    public String getDigest() {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(Strings.nullToEmpty(hashedPassword), StandardCharsets.UTF_8);
+        keys.forEach(key -> hasher.putBytes(key.toByteArray()));
+        hasher.putBoolean(expirationDate.isPresent());
+        expirationDate.ifPresent(expiration -> hasher.putLong(expiration.toEpochMilli()));
+        return hasher.hash().toString();
+    }
 }
@@ -0,0 +1,45 @@
+package com.sequenceiq.freeipa.service.freeipa.user.model;
+
+import java.util.Map;
+import java.util.Objects;
+
+import com.google.common.collect.ImmutableMap;
+
+public class WorkloadCredentialDigests {
+
+    private Map<String, String> digests = ImmutableMap.of();
+
+    public Map<String, String> getDigests() {
+        return digests;
+    }
+
+    public void setDigests(Map<String, String> digests) {
+        this.digests = ImmutableMap.copyOf(digests);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        WorkloadCredentialDigests that = (WorkloadCredentialDigests) o;
+
+        return Objects.equals(digests, that.digests);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(digests);
+    }
+
+    @Override
+    public String toString() {
+        return "WorkloadCredentialDigests{"
+                + "users=" + digests.keySet()
+                + '}';
+    }
+}
@@ -0,0 +1,13 @@
+-- // track the digest of the workload credentials synced to the stack
+-- Migration SQL that makes the change goes here.
+
+ALTER TABLE usersyncstatus
+    ADD COLUMN IF NOT EXISTS workloadcredentialdigests TEXT;
+
+COMMENT on COLUMN usersyncstatus.workloadcredentialdigests is 'SHA-256 digest of the last synced workload credential of each user';
+
+-- //@UNDO
+-- SQL to undo the change goes here.
+
+ALTER TABLE usersyncstatus
+    DROP COLUMN IF EXISTS workloadcredentialdigests;
@@ -0,0 +1,118 @@
+package com.sequenceiq.freeipa.service.freeipa.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.cloudera.thunderhead.service.usermanagement.UserManagementProto.GetActorWorkloadCredentialsResponse;
+import com.cloudera.thunderhead.service.usermanagement.UserManagementProto.GetRightsResponse;
+import com.cloudera.thunderhead.service.usermanagement.UserManagementProto.Group;
+import com.cloudera.thunderhead.service.usermanagement.UserManagementProto.MachineUser;
+import com.cloudera.thunderhead.service.usermanagement.UserManagementProto.ResourceRole;
+import com.cloudera.thunderhead.service.usermanagement.UserManagementProto.ResourceRoleAssignment;
+import com.cloudera.thunderhead.service.usermanagement.UserManagementProto.User;
+import com.sequenceiq.cloudbreak.auth.altus.GrpcUmsClient;
+import com.sequenceiq.freeipa.service.freeipa.user.model.FmsUser;
+import com.sequenceiq.freeipa.service.freeipa.user.model.UmsAccountState;
+import com.sequenceiq.freeipa.service.freeipa.user.model.UmsUsersState;
+
+@ExtendWith(MockitoExtension.class)
+class UmsUsersStateProviderTest {
+
+    private static final String ACCOUNT_ID = UUID.randomUUID().toString();
+
+    private static final String ACTOR_CRN = "crn:cdp:iam:us-west-1:" + ACCOUNT_ID + ":user:" + UUID.randomUUID().toString();
+
+    private static final String GROUP_CRN = "crn:cdp:iam:us-west-1:" + ACCOUNT_ID + ":group:developers/" + UUID.randomUUID().toString();
+
+    private static final String ENV_CRN_1 = "crn:cdp:environments:us-west-1:" + ACCOUNT_ID + ":environment:" + UUID.randomUUID().toString();
+
+    private static final String ENV_CRN_2 = "crn:cdp:environments:us-west-1:" + ACCOUNT_ID + ":environment:" + UUID.randomUUID().toString();
+
+    @Mock
+    private GrpcUmsClient grpcUmsClient;
+
+    @InjectMocks
+    private UmsUsersStateProvider underTest;
+
+    @Test
+    void testGetUmsAccountStateConsumesUserPages() {
+        mockAccount();
+
+        UmsAccountState accountState = underTest.getUmsAccountState(ACCOUNT_ID, ACTOR_CRN, Set.of(), Set.of(), Optional.empty());
+
+        assertEquals(1, accountState.getCrnToFmsGroup().size());
+        assertEquals("developers", accountState.getCrnToFmsGroup().get(GROUP_CRN).getName());
+        assertEquals(List.of("user1", "user2", "user3", "machineUser1"),
+                accountState.getCrnToFmsUser().values().stream().map(FmsUser::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testGetUmsUsersStateOfTheAccountStateLoadsCredentialsOncePerMember() {
+        mockAccount();
+        GetRightsResponse rights = GetRightsResponse.newBuilder()
+                .addResourceRolesAssignment(ResourceRoleAssignment.newBuilder()
+                        .setResourceRole(ResourceRole.newBuilder().setCrn("crn:altus:iam:us-west-1:altus:resourceRole:EnvironmentUser")))
+                .addGroupCrn(GROUP_CRN)
+                .build();
+        when(grpcUmsClient.getRightsForUser(eq(ACTOR_CRN), any(), any(), any())).thenReturn(rights);
+        when(grpcUmsClient.getActorWorkloadCredentials(any(), any(), any())).thenReturn(GetActorWorkloadCredentialsResponse.getDefaultInstance());
+
+        UmsAccountState accountState = underTest.getUmsAccountState(ACCOUNT_ID, ACTOR_CRN, Set.of(), Set.of(), Optional.empty());
+
+        for (String environmentCrn : List.of(ENV_CRN_1, ENV_CRN_2)) {
+            UmsUsersState umsUsersState = underTest.getUmsUsersState(accountState, ACTOR_CRN, environmentCrn, Optional.empty());
+            assertEquals(4, umsUsersState.getUsersState().getUsers().size());
+            assertEquals(4, umsUsersState.getUsersWorkloadCredentialMap().size());
+            assertTrue(umsUsersState.getUsersState().getGroupMembership().containsEntry("developers", "user2"));
+            assertTrue(umsUsersState.getUsersState().getGroupMembership()
+                    .containsEntry(UserServiceConstants.CDP_USERSYNC_INTERNAL_GROUP, "machineUser1"));
+        }
+        verify(grpcUmsClient, times(8)).getRightsForUser(eq(ACTOR_CRN), any(), any(), any());
+        verify(grpcUmsClient, times(4)).getActorWorkloadCredentials(any(), any(), any());
+    }
+
+    private void mockAccount() {
+        when(grpcUmsClient.listGroups(ACTOR_CRN, ACCOUNT_ID, List.of(), Optional.empty()))
+                .thenReturn(List.of(Group.newBuilder().setCrn(GROUP_CRN).setGroupName("developers").build()));
+        doAnswer(invocation -> {
+            Consumer<List<User>> pageConsumer = invocation.getArgument(4);
+            pageConsumer.accept(List.of(user("user1"), user("user2")));
+            pageConsumer.accept(List.of(user("user3")));
+            return null;
+        }).when(grpcUmsClient).listUsers(eq(ACTOR_CRN), eq(ACCOUNT_ID), eq(List.of()), eq(Optional.empty()), any());
+        doAnswer(invocation -> {
+            Consumer<List<MachineUser>> pageConsumer = invocation.getArgument(4);
+            pageConsumer.accept(List.of(MachineUser.newBuilder()
+                    .setCrn("crn:cdp:iam:us-west-1:" + ACCOUNT_ID + ":machineUser:machineUser1/" + UUID.randomUUID().toString())
+                    .setWorkloadUsername("machineUser1")
+                    .build()));
+            return null;
+        }).when(grpcUmsClient).listMachineUsers(eq(ACTOR_CRN), eq(ACCOUNT_ID), eq(List.of()), eq(Optional.empty()), any());
+    }
+
+    private User user(String workloadUsername) {
+        return User.newBuilder()
+                .setCrn("crn:cdp:iam:us-west-1:" + ACCOUNT_ID + ":user:" + UUID.randomUUID().toString())
+                .setWorkloadUsername(workloadUsername)
+                .build();
+    }
+}
@@ -1,33 +1,61 @@
 package com.sequenceiq.freeipa.service.freeipa.user;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.cloudera.thunderhead.service.usermanagement.UserManagementProto.ActorKerberosKey;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import com.sequenceiq.cloudbreak.auth.altus.Crn;
+import com.sequenceiq.cloudbreak.common.json.Json;
 import com.sequenceiq.freeipa.client.FreeIpaClient;
 import com.sequenceiq.freeipa.client.FreeIpaClientException;
+import com.sequenceiq.freeipa.client.model.BatchItemResult;
+import com.sequenceiq.freeipa.client.model.BatchOperation;
+import com.sequenceiq.freeipa.client.model.Config;
 import com.sequenceiq.freeipa.client.model.RPCResponse;
 import com.sequenceiq.freeipa.controller.exception.BadRequestException;
+import com.sequenceiq.freeipa.entity.Stack;
+import com.sequenceiq.freeipa.entity.UserSyncStatus;
+import com.sequenceiq.freeipa.service.freeipa.user.model.FmsGroup;
 import com.sequenceiq.freeipa.service.freeipa.user.model.FmsUser;
 import com.sequenceiq.freeipa.service.freeipa.user.model.UmsUsersState;
+import com.sequenceiq.freeipa.service.freeipa.user.model.UsersState;
+import com.sequenceiq.freeipa.service.freeipa.user.model.WorkloadCredential;
+import com.sequenceiq.freeipa.service.freeipa.user.model.WorkloadCredentialDigests;
 
 @ExtendWith(MockitoExtension.class)
 class UserSyncServiceTest {
@@ -49,15 +77,21 @@ class UserSyncServiceTest {
 
     private static final int MAX_SUBJECTS_PER_REQUEST = 10;
 
+    private static final int BATCH_SIZE = 2;
+
     @Mock
     FreeIpaUsersStateProvider freeIpaUsersStateProvider;
 
+    @Mock
+    UserSyncStatusService userSyncStatusService;
+
     @InjectMocks
     UserSyncService underTest;
 
     @BeforeEach
     void setUp() {
         underTest.maxSubjectsPerRequest = MAX_SUBJECTS_PER_REQUEST;
+        underTest.batchSize = BATCH_SIZE;
     }
 
     @Test
@@ -130,7 +164,7 @@ class UserSyncServiceTest {
         when(freeIpaClient.groupAddMembers(any(), any())).thenReturn(response);
 
         Multimap<String, String> groupMapping = setupGroupMapping(5, underTest.maxSubjectsPerRequest * 2);
-        underTest.addUsersToGroups(freeIpaClient, groupMapping);
+        underTest.addUsersToGroups(List.of(freeIpaClient), groupMapping);
 
         groupMapping.keySet().stream().forEach(group -> {
             try {
@@ -148,7 +182,7 @@ class UserSyncServiceTest {
         when(freeIpaClient.groupRemoveMembers(any(), any())).thenReturn(response);
 
         Multimap<String, String> groupMapping = setupGroupMapping(5, underTest.maxSubjectsPerRequest * 2);
-        underTest.removeUsersFromGroups(freeIpaClient, groupMapping);
+        underTest.removeUsersFromGroups(List.of(freeIpaClient), groupMapping);
 
         groupMapping.keySet().stream().forEach(group -> {
             try {
@@ -159,6 +193,216 @@ class UserSyncServiceTest {
         });
     }
 
+    @Test
+    void testAddUsersToGroupsInParallelAcrossReplicas() throws Exception {
+        FreeIpaClient primaryClient = mock(FreeIpaClient.class);
+        FreeIpaClient replicaClient = mock(FreeIpaClient.class);
+        RPCResponse<Object> response = mock(RPCResponse.class);
+        when(primaryClient.groupAddMembers(any(), any())).thenReturn(response);
+        when(replicaClient.groupAddMembers(any(), any())).thenThrow(new FreeIpaClientException("no such entry"));
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        ReflectionTestUtils.setField(underTest, "groupMembershipTaskExecutor", new ConcurrentTaskExecutor(executorService));
+        underTest.maxConcurrentGroupMembershipRequests = 2;
+
+        try {
+            Multimap<String, String> groupMapping = setupGroupMapping(4, underTest.maxSubjectsPerRequest * 2);
+            underTest.addUsersToGroups(List.of(primaryClient, replicaClient), groupMapping);
+        } finally {
+            executorService.shutdown();
+        }
+
+        // every group has 2 chunks, the chunks of 2 groups are sent to the replica first and retried on the primary
+        verify(replicaClient, times(4)).groupAddMembers(any(), any());
+        verify(primaryClient, times(8)).groupAddMembers(any(), any());
+    }
+
+    @Test
+    void testAddUsersToGroupsAppliesTheRejectedGroupsOnTheCallingThreadAndReleasesTheirPermits() throws Exception {
+        FreeIpaClient freeIpaClient = mock(FreeIpaClient.class);
+        RPCResponse<Object> response = mock(RPCResponse.class);
+        when(freeIpaClient.groupAddMembers(any(), any())).thenReturn(response);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        AtomicInteger submitCount = new AtomicInteger();
+        ReflectionTestUtils.setField(underTest, "groupMembershipTaskExecutor", new ConcurrentTaskExecutor(command -> {
+            if (submitCount.incrementAndGet() % 2 == 0) {
+                throw new RejectedExecutionException("saturated");
+            }
+            executorService.execute(command);
+        }));
+        underTest.maxConcurrentGroupMembershipRequests = 2;
+
+        try {
+            Multimap<String, String> groupMapping = setupGroupMapping(6, underTest.maxSubjectsPerRequest);
+            Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> underTest.addUsersToGroups(List.of(freeIpaClient), groupMapping));
+            groupMapping.keySet().forEach(group -> {
+                try {
+                    verify(freeIpaClient).groupAddMembers(eq(group), any());
+                } catch (FreeIpaClientException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        } finally {
+            executorService.shutdown();
+        }
+        Assertions.assertEquals(6, submitCount.get());
+    }
+
+    @Test
+    void testAddUsersInBatchesMapsFailedItemsToWarnings() throws Exception {
+        FreeIpaClient freeIpaClient = mock(FreeIpaClient.class);
+        when(freeIpaClient.userAddOperation(any(), any(), any()))
+                .thenAnswer(invocation -> new BatchOperation("user_add", List.of(invocation.getArgument(0)), Map.of()));
+        when(freeIpaClient.callBatch(anyList()))
+                .thenReturn(List.of(batchItemResult(null), batchItemResult("user with name \"user1\" already exists")))
+                .thenReturn(List.of(batchItemResult(null)));
+        Set<FmsUser> users = new LinkedHashSet<>();
+        for (int i = 0; i < 3; i++) {
+            FmsUser user = new FmsUser();
+            user.setName("user" + i);
+            users.add(user);
+        }
+        Multimap<String, String> warnings = ArrayListMultimap.create();
+
+        underTest.addUsersInBatches(freeIpaClient, users, warnings);
+
+        verify(freeIpaClient, times(2)).callBatch(anyList());
+        Assertions.assertEquals(Set.of("user1"), warnings.keySet());
+        Assertions.assertTrue(warnings.get("user1").iterator().next().contains("already exists"));
+    }
+
+    @Test
+    void testAddGroupsInBatchesRecordsWholeBatchFailure() throws Exception {
+        FreeIpaClient freeIpaClient = mock(FreeIpaClient.class);
+        when(freeIpaClient.groupAddOperation(any()))
+                .thenAnswer(invocation -> new BatchOperation("group_add", List.of(invocation.getArgument(0)), Map.of()));
+        when(freeIpaClient.callBatch(anyList())).thenThrow(new FreeIpaClientException("Connection refused"));
+        Set<FmsGroup> groups = new LinkedHashSet<>();
+        for (int i = 0; i < 2; i++) {
+            FmsGroup group = new FmsGroup();
+            group.setName("group" + i);
+            groups.add(group);
+        }
+        Multimap<String, String> warnings = ArrayListMultimap.create();
+
+        underTest.addGroupsInBatches(freeIpaClient, groups, warnings);
+
+        Assertions.assertEquals(Set.of("group0", "group1"), warnings.keySet());
+    }
+
+    @Test
+    void testIncrementalCredentialSyncPushesOnlyChangedAndNewUsers() throws Exception {
+        underTest.incrementalCredentialSync = true;
+        Stack stack = new Stack();
+        stack.setEnvironmentCrn(ENV_CRN);
+        FreeIpaClient freeIpaClient = mock(FreeIpaClient.class);
+        Config config = new Config();
+        config.setIpauserobjectclasses(Set.of(Config.CDP_USER_ATTRIBUTE));
+        when(freeIpaClient.getConfig()).thenReturn(config);
+
+        WorkloadCredential unchangedCredential = workloadCredential("unchanged", "a2V5MQ==");
+        WorkloadCredential changedCredential = workloadCredential("changed", "a2V5Mg==");
+        WorkloadCredential newUserCredential = workloadCredential("new", "a2V5Mw==");
+        WorkloadCredentialDigests syncedDigests = new WorkloadCredentialDigests();
+        syncedDigests.setDigests(Map.of(
+                "user0", unchangedCredential.getDigest(),
+                "user1", workloadCredential("old", "a2V5Mg==").getDigest(),
+                "user2", newUserCredential.getDigest(),
+                "deleted", unchangedCredential.getDigest()));
+        UserSyncStatus userSyncStatus = new UserSyncStatus(stack);
+        userSyncStatus.setWorkloadCredentialDigests(new Json(syncedDigests));
+        when(userSyncStatusService.getOrCreateForStack(stack)).thenReturn(userSyncStatus);
+
+        UsersState.Builder usersStateBuilder = new UsersState.Builder();
+        UmsUsersState.Builder umsUsersStateBuilder = new UmsUsersState.Builder();
+        List<WorkloadCredential> credentials = List.of(unchangedCredential, changedCredential, newUserCredential);
+        for (int i = 0; i < credentials.size(); i++) {
+            FmsUser user = new FmsUser();
+            user.setName("user" + i);
+            usersStateBuilder.addUser(user);
+            umsUsersStateBuilder.addWorkloadCredentials(user.getName(), credentials.get(i));
+        }
+        UmsUsersState umsUsersState = umsUsersStateBuilder.setUsersState(usersStateBuilder.build()).build();
+
+        underTest.processUsersWorkloadCredentials(stack, umsUsersState, freeIpaClient, Set.of("user2"), true);
+
+        verify(freeIpaClient, never()).userSetPasswordHash(eq("user0"), any(), any(), any());
+        verify(freeIpaClient).userSetPasswordHash(eq("user1"), eq("changed"), any(), any());
+        verify(freeIpaClient).userSetPasswordHash(eq("user2"), eq("new"), any(), any());
+        ArgumentCaptor<UserSyncStatus> savedStatus = ArgumentCaptor.forClass(UserSyncStatus.class);
+        verify(userSyncStatusService).save(savedStatus.capture());
+        Map<String, String> savedDigests = savedStatus.getValue().getWorkloadCredentialDigests().get(WorkloadCredentialDigests.class).getDigests();
+        Assertions.assertEquals(Map.of(
+                "user0", unchangedCredential.getDigest(),
+                "user1", changedCredential.getDigest(),
+                "user2", newUserCredential.getDigest()), savedDigests);
+    }
+
+    @Test
+    void testFailedPasswordHashInBatchFailsTheSyncAndKeepsTheFailedDigestOut() throws Exception {
+        underTest.incrementalCredentialSync = true;
+        underTest.batchEnabled = true;
+        underTest.batchSize = 10;
+        Stack stack = new Stack();
+        stack.setEnvironmentCrn(ENV_CRN);
+        FreeIpaClient freeIpaClient = mock(FreeIpaClient.class);
+        Config config = new Config();
+        config.setIpauserobjectclasses(Set.of(Config.CDP_USER_ATTRIBUTE));
+        when(freeIpaClient.getConfig()).thenReturn(config);
+        when(freeIpaClient.userSetPasswordHashOperation(any(), any(), any(), any()))
+                .thenAnswer(invocation -> new BatchOperation("user_mod", List.of(invocation.getArgument(0)), Map.of()));
+        when(freeIpaClient.callBatch(anyList())).thenAnswer(invocation -> ((List<BatchOperation>) invocation.getArgument(0)).stream()
+                .map(operation -> batchItemResult(operation.getFlags().contains("user1") ? "user1: user not found" : null))
+                .collect(Collectors.toList()));
+        when(userSyncStatusService.getOrCreateForStack(stack)).thenReturn(new UserSyncStatus(stack));
+
+        UsersState.Builder usersStateBuilder = new UsersState.Builder();
+        UmsUsersState.Builder umsUsersStateBuilder = new UmsUsersState.Builder();
+        List<WorkloadCredential> credentials = List.of(workloadCredential("first", "a2V5MQ=="), workloadCredential("second", "a2V5Mg=="));
+        for (int i = 0; i < credentials.size(); i++) {
+            FmsUser user = new FmsUser();
+            user.setName("user" + i);
+            usersStateBuilder.addUser(user);
+            umsUsersStateBuilder.addWorkloadCredentials(user.getName(), credentials.get(i));
+        }
+        UmsUsersState umsUsersState = umsUsersStateBuilder.setUsersState(usersStateBuilder.build()).build();
+
+        FreeIpaClientException exception = Assertions.assertThrows(FreeIpaClientException.class,
+                () -> underTest.processUsersWorkloadCredentials(stack, umsUsersState, freeIpaClient, Set.of(), true));
+
+        Assertions.assertTrue(exception.getMessage().contains("user1: user not found"));
+        Assertions.assertFalse(exception.getMessage().contains("user0"));
+        ArgumentCaptor<UserSyncStatus> savedStatus = ArgumentCaptor.forClass(UserSyncStatus.class);
+        verify(userSyncStatusService).save(savedStatus.capture());
+        Map<String, String> savedDigests = savedStatus.getValue().getWorkloadCredentialDigests().get(WorkloadCredentialDigests.class).getDigests();
+        Assertions.assertEquals(Map.of("user0", credentials.get(0).getDigest()), savedDigests);
+    }
+
+    @Test
+    void testWorkloadCredentialDigestChangesWithExpiration() {
+        WorkloadCredential credential = workloadCredential("hash", "keyValue");
+        WorkloadCredential expiringCredential = new WorkloadCredential("hash", credential.getKeys(), Optional.of(Instant.ofEpochMilli(1L)));
+
+        Assertions.assertEquals(credential.getDigest(), workloadCredential("hash", "keyValue").getDigest());
+        Assertions.assertNotEquals(credential.getDigest(), expiringCredential.getDigest());
+        Assertions.assertNotEquals(credential.getDigest(), workloadCredential("hash", "otherKeyValue").getDigest());
+    }
+
+    private WorkloadCredential workloadCredential(String hashedPassword, String keyValue) {
+        ActorKerberosKey key = ActorKerberosKey.newBuilder()
+                .setSaltType(4)
+                .setKeyType(17)
+                .setKeyValue(keyValue)
+                .setSaltValue("salt")
+                .build();
+        return new WorkloadCredential(hashedPassword, List.of(key), Optional.empty());
+    }
+
+    private BatchItemResult batchItemResult(String error) {
+        BatchItemResult batchItemResult = new BatchItemResult();
+        batchItemResult.setError(error);
+        return batchItemResult;
+    }
+
     private Multimap<String, String> setupGroupMapping(int numGroups, int numPerGroup) {
         Multimap<String, String> groupMapping = HashMultimap.create();
         for (int i = 0; i < numGroups; ++i) {
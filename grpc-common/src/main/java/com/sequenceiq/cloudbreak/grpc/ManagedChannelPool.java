@@ -0,0 +1,79 @@
+package com.sequenceiq.cloudbreak.grpc;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.grpc.ManagedChannel;
+
+/**
+ * A small pool of long-lived channels. The wrappers of the pool are shared, so closing them keeps the channel and its connection open,
+ * the calls are spread over the channels in round-robin order. A channel that has been shut down is replaced by a new one on the
+ * next use, the reconnection of a channel that lost its connection is left to the channel itself.
+ */
+public class ManagedChannelPool implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ManagedChannelPool.class);
+
+    private final Supplier<ManagedChannel> channelFactory;
+
+    private final AtomicReferenceArray<ManagedChannel> channels;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private boolean closed;
+
+    /**
+     * Constructor.
+     *
+     * @param channelFactory creates a new channel
+     * @param size           the number of channels
+     */
+    public ManagedChannelPool(Supplier<ManagedChannel> channelFactory, int size) {
+        checkArgument(size > 0, "The size of the channel pool must be positive");
+        this.channelFactory = checkNotNull(channelFactory);
+        channels = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * Get a shared wrapper of the next channel.
+     */
+    public ManagedChannelWrapper getWrapper() {
+        int index = Math.floorMod(next.getAndIncrement(), channels.length());
+        ManagedChannel channel = channels.get(index);
+        if (channel == null || channel.isShutdown()) {
+            channel = replaceChannel(index);
+        }
+        return new ManagedChannelWrapper(channel, true);
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (int i = 0; i < channels.length(); i++) {
+            ManagedChannel channel = channels.getAndSet(i, null);
+            if (channel != null) {
+                new ManagedChannelWrapper(channel).shutdown();
+            }
+        }
+    }
+
+    private synchronized ManagedChannel replaceChannel(int index) {
+        if (closed) {
+            throw new IllegalStateException("The channel pool has been closed");
+        }
+        ManagedChannel channel = channels.get(index);
+        if (channel == null || channel.isShutdown()) {
+            LOGGER.debug("Creating channel {} of the pool", index);
+            channel = channelFactory.get();
+            channels.set(index, channel);
+        }
+        return channel;
+    }
+}
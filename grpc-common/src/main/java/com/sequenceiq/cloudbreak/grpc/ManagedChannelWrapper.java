@@ -10,7 +10,8 @@ import org.slf4j.LoggerFactory;
 import io.grpc.ManagedChannel;
 
 /**
- * A managed wrapper channel to provide auto closeable functionality.
+ * A managed wrapper channel to provide auto closeable functionality. A shared wrapper hands out a long-lived channel, closing it is a no-op
+ * and the owner of the channel has to call {@link #shutdown()}.
  */
 public class ManagedChannelWrapper implements AutoCloseable {
 
@@ -18,13 +19,26 @@ public class ManagedChannelWrapper implements AutoCloseable {
 
     private final ManagedChannel channel;
 
+    private final boolean shared;
+
     /**
      * Constructor.
      *
      * @param channel the channel
      */
     public ManagedChannelWrapper(ManagedChannel channel) {
+        this(channel, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param channel the channel
+     * @param shared  whether the channel outlives the wrapper
+     */
+    public ManagedChannelWrapper(ManagedChannel channel, boolean shared) {
         this.channel = checkNotNull(channel);
+        this.shared = shared;
     }
 
     /**
@@ -34,8 +48,24 @@ public class ManagedChannelWrapper implements AutoCloseable {
         return channel;
     }
 
+    /**
+     * Whether the channel outlives the wrapper.
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
     @Override
     public void close() {
+        if (!shared) {
+            shutdown();
+        }
+    }
+
+    /**
+     * Shuts down the channel and waits for the in-flight calls to finish, regardless of the channel being shared.
+     */
+    public void shutdown() {
         channel.shutdown();
         try {
             if (!channel.awaitTermination(1, TimeUnit.MINUTES)) {
@@ -0,0 +1,64 @@
+package com.sequenceiq.cloudbreak.grpc.interceptor;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall.SimpleForwardingClientCall;
+import io.grpc.ForwardingClientCallListener.SimpleForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+/**
+ * A GRPC client interceptor that measures the time between the start and the close of every call and reports it with the method
+ * and the final status of the call.
+ */
+public class CallLatencyInterceptor implements ClientInterceptor {
+
+    private final CallLatencyListener listener;
+
+    /**
+     * Constructor.
+     *
+     * @param listener receives the latency of the calls
+     */
+    public CallLatencyInterceptor(CallLatencyListener listener) {
+        this.listener = checkNotNull(listener);
+    }
+
+    @Override
+    public <R, S> ClientCall<R, S> interceptCall(MethodDescriptor<R, S> method, CallOptions callOptions, Channel next) {
+        return new SimpleForwardingClientCall<R, S>(next.newCall(method, callOptions)) {
+            @Override
+            public void start(Listener<S> responseListener, Metadata headers) {
+                long start = System.nanoTime();
+                super.start(new SimpleForwardingClientCallListener<S>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        listener.onCallClosed(method, status, System.nanoTime() - start);
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+        };
+    }
+
+    /**
+     * Receives the latency of the calls.
+     */
+    @FunctionalInterface
+    public interface CallLatencyListener {
+
+        /**
+         * Called when a call has been closed.
+         *
+         * @param method        the method of the call
+         * @param status        the final status of the call
+         * @param durationNanos the time elapsed since the start of the call
+         */
+        void onCallClosed(MethodDescriptor<?, ?> method, Status status, long durationNanos);
+    }
+}
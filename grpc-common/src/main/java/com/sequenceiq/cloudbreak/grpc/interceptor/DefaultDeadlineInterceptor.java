@@ -0,0 +1,42 @@
+package com.sequenceiq.cloudbreak.grpc.interceptor;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.TimeUnit;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.MethodDescriptor;
+
+/**
+ * A GRPC client interceptor that sets a deadline on the calls which do not have one, so a hanging server cannot block the caller
+ * forever. An explicit deadline of the call and the deadline of the current {@link io.grpc.Context} are propagated by GRPC as is,
+ * the earlier of them is applied.
+ */
+public class DefaultDeadlineInterceptor implements ClientInterceptor {
+
+    private final long timeout;
+
+    private final TimeUnit unit;
+
+    /**
+     * Constructor.
+     *
+     * @param timeout the default timeout of the calls
+     * @param unit    the unit of the timeout
+     */
+    public DefaultDeadlineInterceptor(long timeout, TimeUnit unit) {
+        checkArgument(timeout > 0, "The default timeout must be positive");
+        this.timeout = timeout;
+        this.unit = checkNotNull(unit);
+    }
+
+    @Override
+    public <R, S> ClientCall<R, S> interceptCall(MethodDescriptor<R, S> method, CallOptions callOptions, Channel next) {
+        CallOptions options = callOptions.getDeadline() == null ? callOptions.withDeadlineAfter(timeout, unit) : callOptions;
+        return next.newCall(method, options);
+    }
+}
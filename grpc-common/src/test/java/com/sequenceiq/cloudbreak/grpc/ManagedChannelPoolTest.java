@@ -0,0 +1,74 @@
+package com.sequenceiq.cloudbreak.grpc;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import io.grpc.ManagedChannel;
+
+public class ManagedChannelPoolTest {
+
+    private final List<ManagedChannel> createdChannels = new ArrayList<>();
+
+    private final ManagedChannelPool underTest = new ManagedChannelPool(this::createChannel, 2);
+
+    @Test
+    public void testChannelsAreReusedInRoundRobin() {
+        ManagedChannel first = underTest.getWrapper().getChannel();
+        ManagedChannel second = underTest.getWrapper().getChannel();
+
+        assertNotSame(first, second);
+        assertSame(first, underTest.getWrapper().getChannel());
+        assertSame(second, underTest.getWrapper().getChannel());
+    }
+
+    @Test
+    public void testClosingTheWrapperKeepsTheChannel() {
+        try (ManagedChannelWrapper wrapper = underTest.getWrapper()) {
+            wrapper.getChannel();
+        }
+
+        verify(createdChannels.get(0), never()).shutdown();
+    }
+
+    @Test
+    public void testShutdownChannelIsReplaced() {
+        ManagedChannel first = underTest.getWrapper().getChannel();
+        underTest.getWrapper();
+        when(first.isShutdown()).thenReturn(true);
+
+        assertNotSame(first, underTest.getWrapper().getChannel());
+    }
+
+    @Test
+    public void testCloseShutsDownTheChannels() {
+        underTest.getWrapper();
+        underTest.getWrapper();
+
+        underTest.close();
+
+        verify(createdChannels.get(0)).shutdown();
+        verify(createdChannels.get(1)).shutdown();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosedPoolDoesNotCreateChannels() {
+        underTest.close();
+
+        underTest.getWrapper();
+    }
+
+    private ManagedChannel createChannel() {
+        ManagedChannel channel = mock(ManagedChannel.class);
+        createdChannels.add(channel);
+        return channel;
+    }
+}
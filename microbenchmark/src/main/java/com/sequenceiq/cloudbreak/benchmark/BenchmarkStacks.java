@@ -0,0 +1,131 @@
+package com.sequenceiq.cloudbreak.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+import com.sequenceiq.cloudbreak.api.endpoint.v4.stacks.base.InstanceMetadataType;
+import com.sequenceiq.cloudbreak.api.endpoint.v4.stacks.base.InstanceStatus;
+import com.sequenceiq.cloudbreak.api.util.ConverterUtil;
+import com.sequenceiq.cloudbreak.common.mappable.ProviderParameterCalculator;
+import com.sequenceiq.cloudbreak.converter.v4.stacks.instancegroup.InstanceGroupToInstanceGroupV4ResponseConverter;
+import com.sequenceiq.cloudbreak.converter.v4.stacks.instancegroup.InstanceMetaDataToInstanceMetaDataV4ResponseConverter;
+import com.sequenceiq.cloudbreak.converter.v4.stacks.instancegroup.securitygroup.SecurityGroupToSecurityGroupResponseConverter;
+import com.sequenceiq.cloudbreak.converter.v4.stacks.instancegroup.securitygroup.securityrule.SecurityRuleToSecurityRuleV4ResponseConverter;
+import com.sequenceiq.cloudbreak.converter.v4.stacks.instancegroup.template.TemplateToInstanceTemplateV4ResponseConverter;
+import com.sequenceiq.cloudbreak.converter.v4.stacks.instancegroup.template.TemplateToVolumeV4ResponseConverter;
+import com.sequenceiq.cloudbreak.domain.SecurityGroup;
+import com.sequenceiq.cloudbreak.domain.SecurityRule;
+import com.sequenceiq.cloudbreak.domain.Template;
+import com.sequenceiq.cloudbreak.domain.VolumeTemplate;
+import com.sequenceiq.cloudbreak.domain.stack.instance.InstanceGroup;
+import com.sequenceiq.cloudbreak.domain.stack.instance.InstanceMetaData;
+import com.sequenceiq.common.api.type.InstanceGroupType;
+
+/**
+ * Builds the instance groups of a mock stack and a Spring context with the converters that turn them into the instance groups of a
+ * StackV4Response.
+ */
+final class BenchmarkStacks {
+
+    private static final String GATEWAY_GROUP = "master";
+
+    private static final String WORKER_GROUP = "worker";
+
+    private static final int SSH_PORT = 22;
+
+    private static final int ROOT_VOLUME_SIZE = 50;
+
+    private static final int VOLUME_SIZE = 100;
+
+    private static final int IP_OCTET_VALUES = 256;
+
+    private BenchmarkStacks() {
+    }
+
+    static AnnotationConfigApplicationContext conversionContext() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBean("conversionService", ConversionService.class, DefaultConversionService::new);
+        context.register(ProviderParameterCalculator.class, ConverterUtil.class,
+                InstanceGroupToInstanceGroupV4ResponseConverter.class,
+                InstanceMetaDataToInstanceMetaDataV4ResponseConverter.class,
+                TemplateToInstanceTemplateV4ResponseConverter.class,
+                TemplateToVolumeV4ResponseConverter.class,
+                SecurityGroupToSecurityGroupResponseConverter.class,
+                SecurityRuleToSecurityRuleV4ResponseConverter.class);
+        context.refresh();
+        return context;
+    }
+
+    /**
+     * One gateway node in the master group, the rest of the nodes in the worker group.
+     */
+    static List<InstanceGroup> instanceGroups(int nodeCount) {
+        List<InstanceGroup> instanceGroups = new ArrayList<>();
+        instanceGroups.add(instanceGroup(1L, GATEWAY_GROUP, InstanceGroupType.GATEWAY, 1, 0));
+        instanceGroups.add(instanceGroup(2L, WORKER_GROUP, InstanceGroupType.CORE, nodeCount - 1, 1));
+        return instanceGroups;
+    }
+
+    private static InstanceGroup instanceGroup(Long id, String name, InstanceGroupType type, int nodeCount, int firstNodeIndex) {
+        InstanceGroup instanceGroup = new InstanceGroup();
+        instanceGroup.setId(id);
+        instanceGroup.setGroupName(name);
+        instanceGroup.setInstanceGroupType(type);
+        instanceGroup.setTemplate(template(id));
+        instanceGroup.setSecurityGroup(securityGroup(id));
+        Set<InstanceMetaData> instanceMetaData = new HashSet<>();
+        for (int i = firstNodeIndex; i < firstNodeIndex + nodeCount; i++) {
+            instanceMetaData.add(instanceMetaData(instanceGroup, i));
+        }
+        instanceGroup.setInstanceMetaData(instanceMetaData);
+        return instanceGroup;
+    }
+
+    private static InstanceMetaData instanceMetaData(InstanceGroup instanceGroup, int index) {
+        InstanceMetaData instanceMetaData = new InstanceMetaData();
+        instanceMetaData.setId((long) index);
+        instanceMetaData.setPrivateId((long) index);
+        instanceMetaData.setInstanceGroup(instanceGroup);
+        instanceMetaData.setInstanceId("i-" + index);
+        instanceMetaData.setPrivateIp("10.0." + index / IP_OCTET_VALUES + '.' + index % IP_OCTET_VALUES);
+        instanceMetaData.setSshPort(SSH_PORT);
+        instanceMetaData.setDiscoveryFQDN("host-" + index + ".perftest.cloudera.site");
+        instanceMetaData.setInstanceStatus(InstanceStatus.SERVICES_HEALTHY);
+        instanceMetaData.setInstanceMetadataType(index == 0 ? InstanceMetadataType.GATEWAY_PRIMARY : InstanceMetadataType.CORE);
+        instanceMetaData.setAmbariServer(index == 0);
+        return instanceMetaData;
+    }
+
+    private static Template template(Long id) {
+        Template template = new Template();
+        template.setId(id);
+        template.setInstanceType("large");
+        template.setCloudPlatform("MOCK");
+        template.setRootVolumeSize(ROOT_VOLUME_SIZE);
+        VolumeTemplate volumeTemplate = new VolumeTemplate();
+        volumeTemplate.setVolumeCount(1);
+        volumeTemplate.setVolumeSize(VOLUME_SIZE);
+        volumeTemplate.setVolumeType("magnetic");
+        volumeTemplate.setTemplate(template);
+        template.setVolumeTemplates(Set.of(volumeTemplate));
+        return template;
+    }
+
+    private static SecurityGroup securityGroup(Long id) {
+        SecurityGroup securityGroup = new SecurityGroup();
+        securityGroup.setId(id);
+        SecurityRule securityRule = new SecurityRule();
+        securityRule.setCidr("0.0.0.0/0");
+        securityRule.setPorts("22,443,9443");
+        securityRule.setProtocol("tcp");
+        securityRule.setSecurityGroup(securityGroup);
+        securityGroup.setSecurityRules(Set.of(securityRule));
+        return securityGroup;
+    }
+}
@@ -0,0 +1,79 @@
+package com.sequenceiq.cloudbreak.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import com.cloudera.api.swagger.model.ApiClusterTemplate;
+import com.google.common.io.Resources;
+import com.sequenceiq.cloudbreak.cmtemplate.CmTemplateProcessor;
+import com.sequenceiq.cloudbreak.cmtemplate.CmTemplateProcessorFactory;
+
+/**
+ * Creates CmTemplateProcessors from a cluster template text through the factory, with and without the parsed template cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CmTemplateProcessorBenchmark {
+
+    private static final String TEMPLATE_RESOURCE = "input/clouderamanager.bp";
+
+    @Param({"false", "true"})
+    private boolean cacheEnabled;
+
+    private AnnotationConfigApplicationContext context;
+
+    private CmTemplateProcessorFactory cmTemplateProcessorFactory;
+
+    private String templateText;
+
+    @Setup
+    public void setup() throws IOException {
+        templateText = Resources.toString(Resources.getResource(TEMPLATE_RESOURCE), StandardCharsets.UTF_8);
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources()
+                .addFirst(new MapPropertySource("benchmark", Map.of("cb.cmtemplate.cache.enabled", cacheEnabled)));
+        context.register(CmTemplateProcessorFactory.class);
+        context.refresh();
+        cmTemplateProcessorFactory = context.getBean(CmTemplateProcessorFactory.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<String, Set<String>> parseAndQuery() {
+        CmTemplateProcessor processor = cmTemplateProcessorFactory.get(templateText);
+        return processor.getComponentsByHostGroup();
+    }
+
+    @Benchmark
+    public ApiClusterTemplate parseAndModify() {
+        CmTemplateProcessor processor = cmTemplateProcessorFactory.get(templateText);
+        processor.setCdhVersion("7.0.2");
+        return processor.getTemplate();
+    }
+}
@@ -0,0 +1,46 @@
+package com.sequenceiq.cloudbreak.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sequenceiq.cloudbreak.auth.altus.Crn;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CrnBenchmark {
+
+    @Param({
+            "crn:altus:iam:us-west-1:cloudera:user:perftest@cloudera.com",
+            "crn:cdp:datahub:us-west-1:cloudera:cluster:2fb1f4b9-e6b4-4e8e-b2c0-c9e3b2d4c1f7"
+    })
+    private String crn;
+
+    @Benchmark
+    public Crn fromString() {
+        return Crn.fromString(crn);
+    }
+
+    @Benchmark
+    public Crn safeFromString() {
+        return Crn.safeFromString(crn);
+    }
+
+    @Benchmark
+    public boolean isCrn() {
+        return Crn.isCrn(crn);
+    }
+}
@@ -0,0 +1,115 @@
+package com.sequenceiq.cloudbreak.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cedarsoftware.util.io.JsonReader;
+import com.cedarsoftware.util.io.JsonWriter;
+import com.sequenceiq.cloudbreak.common.event.Selectable;
+import com.sequenceiq.cloudbreak.core.flow2.event.StackScaleTriggerEvent;
+import com.sequenceiq.cloudbreak.reactor.api.event.StackEvent;
+import com.sequenceiq.flow.conf.JsonIoConfig;
+
+/**
+ * Serializes flow payloads, variables and flow chains with json-io the same way as FlowLogDBService does when the flow logs are saved and
+ * deserializes them as Flow2Handler and FlowChainHandler do when the flows are restored.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlowPayloadSerializationBenchmark {
+
+    private static final Long STACK_ID = 1L;
+
+    private static final int CHAIN_LENGTH = 5;
+
+    @Param({"10", "500"})
+    private int hostCount;
+
+    private Map<String, Object> writeOptions;
+
+    private StackScaleTriggerEvent payload;
+
+    private Map<Object, Object> variables;
+
+    private Queue<Selectable> chain;
+
+    private String serializedPayload;
+
+    private String serializedVariables;
+
+    private String serializedChain;
+
+    @Setup
+    public void setup() {
+        JsonIoConfig jsonIoConfig = new JsonIoConfig();
+        jsonIoConfig.setupJsonReader();
+        writeOptions = jsonIoConfig.getCustomWriteOptions();
+
+        Set<String> hostNames = IntStream.range(0, hostCount)
+                .mapToObj(i -> "host-" + i + ".perftest.cloudera.site")
+                .collect(Collectors.toSet());
+        payload = new StackScaleTriggerEvent("STACK_UPSCALE_TRIGGER_EVENT", STACK_ID, "worker", hostCount, hostNames);
+        variables = new HashMap<>();
+        variables.put("INSTANCEGROUPNAME", "worker");
+        variables.put("ADJUSTMENT", hostCount);
+        variables.put("REPAIR", Boolean.FALSE);
+        chain = new ConcurrentLinkedQueue<>();
+        IntStream.range(0, CHAIN_LENGTH).forEach(i -> chain.add(new StackEvent("FLOWCHAIN_STEP_" + i, STACK_ID)));
+
+        serializedPayload = serializePayload();
+        serializedVariables = serializeVariables();
+        serializedChain = serializeChain();
+    }
+
+    @Benchmark
+    public String serializePayload() {
+        return JsonWriter.objectToJson(payload, writeOptions);
+    }
+
+    @Benchmark
+    public Object deserializePayload() {
+        return JsonReader.jsonToJava(serializedPayload);
+    }
+
+    @Benchmark
+    public String serializeVariables() {
+        return JsonWriter.objectToJson(variables, writeOptions);
+    }
+
+    @Benchmark
+    public Object deserializeVariables() {
+        return JsonReader.jsonToJava(serializedVariables);
+    }
+
+    @Benchmark
+    public String serializeChain() {
+        return JsonWriter.objectToJson(chain);
+    }
+
+    @Benchmark
+    public Object deserializeChain() {
+        return JsonReader.jsonToJava(serializedChain);
+    }
+}
@@ -0,0 +1,73 @@
+package com.sequenceiq.cloudbreak.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sequenceiq.cloudbreak.api.endpoint.v4.stacks.response.instancegroup.InstanceGroupV4Response;
+import com.sequenceiq.cloudbreak.api.util.ConverterUtil;
+import com.sequenceiq.cloudbreak.common.json.JsonUtil;
+
+/**
+ * Round trips the instance group responses of a stack through JsonUtil.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonUtilBenchmark {
+
+    private static final TypeReference<List<InstanceGroupV4Response>> RESPONSES_TYPE = new TypeReference<>() { };
+
+    @Param({"10", "500"})
+    private int nodeCount;
+
+    private List<InstanceGroupV4Response> responses;
+
+    private String json;
+
+    @Setup
+    public void setup() throws IOException {
+        try (AnnotationConfigApplicationContext context = BenchmarkStacks.conversionContext()) {
+            responses = context.getBean(ConverterUtil.class).convertAll(BenchmarkStacks.instanceGroups(nodeCount), InstanceGroupV4Response.class);
+        }
+        json = write();
+    }
+
+    @Benchmark
+    public String write() throws IOException {
+        return JsonUtil.writeValueAsString(responses);
+    }
+
+    @Benchmark
+    public List<InstanceGroupV4Response> read() throws IOException {
+        return JsonUtil.readValue(json, RESPONSES_TYPE);
+    }
+
+    @Benchmark
+    public JsonNode readTree() throws IOException {
+        return JsonUtil.readTree(json);
+    }
+
+    @Benchmark
+    public List<InstanceGroupV4Response> roundTrip() throws IOException {
+        return JsonUtil.readValue(JsonUtil.writeValueAsString(responses), RESPONSES_TYPE);
+    }
+}
@@ -0,0 +1,61 @@
+package com.sequenceiq.cloudbreak.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.sequenceiq.cloudbreak.api.endpoint.v4.stacks.response.instancegroup.InstanceGroupV4Response;
+import com.sequenceiq.cloudbreak.api.util.ConverterUtil;
+import com.sequenceiq.cloudbreak.domain.stack.instance.InstanceGroup;
+
+/**
+ * Converts the instance groups of a stack to their responses through the conversion service, the part of the StackV4Response conversion
+ * that grows with the node count of the stack.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StackConversionBenchmark {
+
+    @Param({"10", "500"})
+    private int nodeCount;
+
+    private AnnotationConfigApplicationContext context;
+
+    private ConverterUtil converterUtil;
+
+    private List<InstanceGroup> instanceGroups;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkStacks.conversionContext();
+        converterUtil = context.getBean(ConverterUtil.class);
+        instanceGroups = BenchmarkStacks.instanceGroups(nodeCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<InstanceGroupV4Response> convertInstanceGroups() {
+        return converterUtil.convertAll(instanceGroups, InstanceGroupV4Response.class);
+    }
+}
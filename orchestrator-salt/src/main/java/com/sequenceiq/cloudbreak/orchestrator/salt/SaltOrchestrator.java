@@ -21,10 +21,15 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.HttpStatus;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Component;
@@ -35,7 +40,9 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Joiner;
 import com.google.common.collect.Sets;
 import com.sequenceiq.cloudbreak.common.exception.CloudbreakServiceException;
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
 import com.sequenceiq.cloudbreak.common.type.RecipeExecutionPhase;
+import com.sequenceiq.cloudbreak.logger.LoggerContextKey;
 import com.sequenceiq.cloudbreak.orchestrator.OrchestratorBootstrap;
 import com.sequenceiq.cloudbreak.orchestrator.OrchestratorBootstrapRunner;
 import com.sequenceiq.cloudbreak.orchestrator.exception.CloudbreakOrchestratorException;
@@ -50,12 +57,15 @@ import com.sequenceiq.cloudbreak.orchestrator.model.RecipeModel;
 import com.sequenceiq.cloudbreak.orchestrator.model.SaltConfig;
 import com.sequenceiq.cloudbreak.orchestrator.model.SaltPillarProperties;
 import com.sequenceiq.cloudbreak.orchestrator.salt.client.SaltConnector;
+import com.sequenceiq.cloudbreak.orchestrator.salt.client.SaltConnectorPool;
+import com.sequenceiq.cloudbreak.orchestrator.salt.config.SaltOrchestratorConfig;
 import com.sequenceiq.cloudbreak.orchestrator.salt.client.target.Glob;
 import com.sequenceiq.cloudbreak.orchestrator.salt.client.target.HostList;
 import com.sequenceiq.cloudbreak.orchestrator.salt.client.target.Target;
 import com.sequenceiq.cloudbreak.orchestrator.salt.domain.MinionIpAddressesResponse;
 import com.sequenceiq.cloudbreak.orchestrator.salt.domain.MinionStatusSaltResponse;
 import com.sequenceiq.cloudbreak.orchestrator.salt.poller.BaseSaltJobRunner;
+import com.sequenceiq.cloudbreak.orchestrator.salt.poller.BulkPillarSave;
 import com.sequenceiq.cloudbreak.orchestrator.salt.poller.PillarSave;
 import com.sequenceiq.cloudbreak.orchestrator.salt.poller.SaltBootstrap;
 import com.sequenceiq.cloudbreak.orchestrator.salt.poller.SaltCommandTracker;
@@ -80,6 +90,8 @@ public class SaltOrchestrator implements HostOrchestrator {
 
     private static final int SLEEP_TIME_IN_SEC = SLEEP_TIME / 1000;
 
+    private static final int EVENT_TRACKING_SLEEP_TIME = 1000;
+
     private static final String DISK_INITIALIZE = "format-and-mount-initialize.sh";
 
     private static final String DISK_COMMON = "format-and-mount-common.sh";
@@ -92,6 +104,8 @@ public class SaltOrchestrator implements HostOrchestrator {
 
     private static final String SRV_SALT_DISK = "/srv/salt/disk";
 
+    private static final String UNKNOWN_CLUSTER = "unknown";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(SaltOrchestrator.class);
 
     @Value("${cb.max.salt.new.service.retry}")
@@ -112,8 +126,33 @@ public class SaltOrchestrator implements HostOrchestrator {
     @Value("${rest.debug}")
     private boolean restDebug;
 
+    @Value("${cb.salt.job.event.tracking.enabled:false}")
+    private boolean saltJobEventTrackingEnabled;
+
+    @Value("${cb.salt.pillar.save.parallelism:4}")
+    private int pillarSaveParallelism;
+
+    @Inject
+    private SaltConnectorPool saltConnectorPool;
+
+    @Inject
+    private MetricService metricService;
+
+    @Inject
+    @Qualifier(SaltOrchestratorConfig.SALT_PILLAR_SAVE_EXECUTOR)
+    private AsyncTaskExecutor saltPillarSaveExecutor;
+
     private ExitCriteria exitCriteria;
 
+    @PostConstruct
+    public void buildStateConfigZip() {
+        try {
+            getStateConfigZip();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to build the salt state archive at startup, it is built at the first bootstrap", e);
+        }
+    }
+
     @Override
     public void init(ExitCriteria exitCriteria) {
         this.exitCriteria = exitCriteria;
@@ -284,15 +323,7 @@ public class SaltOrchestrator implements HostOrchestrator {
         Set<String> serverHostname = Sets.newHashSet(primaryGateway.getHostname());
         Set<String> allNodeHostname = allNodes.stream().map(Node::getHostname).collect(Collectors.toSet());
         try (SaltConnector sc = createSaltConnector(primaryGateway)) {
-            OrchestratorBootstrap hostSave = new PillarSave(sc, gatewayTargetIpAddresses, allNodes);
-            Callable<Boolean> saltPillarRunner = runner(hostSave, exitCriteria, exitModel);
-            saltPillarRunner.call();
-
-            for (Entry<String, SaltPillarProperties> propertiesEntry : saltConfig.getServicePillarConfig().entrySet()) {
-                OrchestratorBootstrap pillarSave = new PillarSave(sc, gatewayTargetIpAddresses, propertiesEntry.getValue());
-                saltPillarRunner = runner(pillarSave, exitCriteria, exitModel);
-                saltPillarRunner.call();
-            }
+            saveHostAndServicePillars(sc, gatewayTargetIpAddresses, allNodes, saltConfig, exitModel);
 
             setAdMemberRoleIfNeeded(allNodes, saltConfig, exitModel, sc, allNodeHostname);
             setIpaMemberRoleIfNeeded(allNodes, saltConfig, exitModel, sc, allNodeHostname);
@@ -333,15 +364,7 @@ public class SaltOrchestrator implements HostOrchestrator {
         GatewayConfig primaryGateway = getPrimaryGatewayConfig(allGateway);
         Set<String> gatewayTargets = getGatewayPrivateIps(allGateway);
         try (SaltConnector sc = createSaltConnector(primaryGateway)) {
-            OrchestratorBootstrap hostSave = new PillarSave(sc, gatewayTargets, allNodes);
-            Callable<Boolean> saltPillarRunner = runner(hostSave, exitCriteria, exitModel);
-            saltPillarRunner.call();
-
-            for (Entry<String, SaltPillarProperties> propertiesEntry : saltConfig.getServicePillarConfig().entrySet()) {
-                OrchestratorBootstrap pillarSave = new PillarSave(sc, gatewayTargets, propertiesEntry.getValue());
-                saltPillarRunner = runner(pillarSave, exitCriteria, exitModel);
-                saltPillarRunner.call();
-            }
+            saveHostAndServicePillars(sc, gatewayTargets, allNodes, saltConfig, exitModel);
         } catch (ExecutionException e) {
             LOGGER.warn("Error occurred during bootstrap", e);
             if (e.getCause() instanceof CloudbreakOrchestratorFailedException) {
@@ -355,6 +378,19 @@ public class SaltOrchestrator implements HostOrchestrator {
         }
     }
 
+    private void saveHostAndServicePillars(SaltConnector sc, Set<String> gatewayTargets, Set<Node> allNodes, SaltConfig saltConfig,
+            ExitCriteriaModel exitModel) throws Exception {
+        List<PillarSave> pillarSaves = new ArrayList<>();
+        pillarSaves.add(new PillarSave(sc, gatewayTargets, allNodes));
+        for (SaltPillarProperties pillarProperties : saltConfig.getServicePillarConfig().values()) {
+            pillarSaves.add(new PillarSave(sc, gatewayTargets, pillarProperties));
+        }
+        String cluster = Optional.ofNullable(MDC.get(LoggerContextKey.RESOURCE_CRN.toString())).orElse(UNKNOWN_CLUSTER);
+        OrchestratorBootstrap bulkPillarSave = new BulkPillarSave(pillarSaves, pillarSaveParallelism, saltPillarSaveExecutor, metricService, cluster);
+        Callable<Boolean> saltPillarRunner = runner(bulkPillarSave, exitCriteria, exitModel);
+        saltPillarRunner.call();
+    }
+
     private void addClusterManagerRoles(Set<Node> allNodes, ExitCriteriaModel exitModel,
             SaltConnector sc, Set<String> serverHostnames, Set<String> allNodeHostname) throws Exception {
         runSaltCommand(sc, new GrainAddRunner(allNodeHostname, allNodes, "manager_agent"), exitModel);
@@ -639,7 +675,7 @@ public class SaltOrchestrator implements HostOrchestrator {
 
     @Override
     public byte[] getStateConfigZip() throws IOException {
-        return CompressUtil.generateCompressedOutputFromFolders("salt-common", "salt");
+        return CompressUtil.getCompressedOutputFromFolders("salt-common", "salt");
     }
 
     @Override
@@ -777,9 +813,23 @@ public class SaltOrchestrator implements HostOrchestrator {
 
     private void runNewService(SaltConnector sc, BaseSaltJobRunner baseSaltJobRunner, ExitCriteriaModel exitCriteriaModel, int maxRetry, boolean retryOnFail)
             throws Exception {
-        OrchestratorBootstrap saltJobIdTracker = new SaltJobIdTracker(sc, baseSaltJobRunner, retryOnFail);
-        Callable<Boolean> saltJobRunBootstrapRunner = runner(saltJobIdTracker, exitCriteria, exitCriteriaModel, maxRetry, true);
-        saltJobRunBootstrapRunner.call();
+        SaltJobIdTracker saltJobIdTracker;
+        Callable<Boolean> saltJobRunBootstrapRunner;
+        if (saltJobEventTrackingEnabled) {
+            // the tracker waits for the returns of the job in the call, so a retry still takes about SLEEP_TIME and the timeout stays the same
+            saltJobIdTracker = new SaltJobIdTracker(sc, baseSaltJobRunner, retryOnFail, SLEEP_TIME - EVENT_TRACKING_SLEEP_TIME, metricService);
+            saltJobRunBootstrapRunner = new OrchestratorBootstrapRunner(saltJobIdTracker, exitCriteria, exitCriteriaModel, MDC.getCopyOfContextMap(),
+                    maxRetry, EVENT_TRACKING_SLEEP_TIME, maxRetryOnError);
+        } else {
+            saltJobIdTracker = new SaltJobIdTracker(sc, baseSaltJobRunner, retryOnFail, 0L, metricService);
+            saltJobRunBootstrapRunner = runner(saltJobIdTracker, exitCriteria, exitCriteriaModel, maxRetry, true);
+        }
+        try {
+            saltJobRunBootstrapRunner.call();
+        } finally {
+            // the event stream of the tracker stays open when the runner gave up on the job
+            saltJobIdTracker.close();
+        }
     }
 
     private void runSaltCommand(SaltConnector sc, BaseSaltJobRunner baseSaltJobRunner, ExitCriteriaModel exitCriteriaModel) throws Exception {
@@ -818,7 +868,7 @@ public class SaltOrchestrator implements HostOrchestrator {
             LOGGER.info("Error occurred during executing highstate (for recipes).", e);
             throw new CloudbreakOrchestratorFailedException(e);
         } finally {
-            try (SaltConnector sc = new SaltConnector(gatewayConfig, restDebug)) {
+            try (SaltConnector sc = createSaltConnector(gatewayConfig)) {
                 // remove 'recipe' grain from all nodes
                 Set<String> targetHostnames = allNodes.stream().map(Node::getHostname).collect(Collectors.toSet());
                 runSaltCommand(sc, new GrainRemoveRunner(targetHostnames, allNodes, "recipes", phase.value()), exitCriteriaModel, maxRetry);
@@ -903,7 +953,7 @@ public class SaltOrchestrator implements HostOrchestrator {
     }
 
     private SaltConnector createSaltConnector(GatewayConfig gatewayConfig) {
-        return new SaltConnector(gatewayConfig, restDebug);
+        return saltConnectorPool.getConnector(gatewayConfig, restDebug);
     }
 
     private Set<Node> getResponsiveNodes(Set<Node> nodes, SaltConnector sc) {
@@ -12,8 +12,10 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
@@ -45,6 +47,7 @@ import com.sequenceiq.cloudbreak.orchestrator.model.GenericResponses;
 import com.sequenceiq.cloudbreak.orchestrator.salt.client.target.Target;
 import com.sequenceiq.cloudbreak.orchestrator.salt.domain.Pillar;
 import com.sequenceiq.cloudbreak.orchestrator.salt.domain.SaltAction;
+import com.sequenceiq.cloudbreak.orchestrator.salt.domain.SaltLoginResponse;
 import com.sequenceiq.cloudbreak.util.JaxRSUtil;
 
 public class SaltConnector implements Closeable {
@@ -63,6 +66,10 @@ public class SaltConnector implements Closeable {
 
     private static final String SIGN_HEADER = "signature";
 
+    private static final String AUTH_TOKEN_HEADER = "X-Auth-Token";
+
+    private static final String EVENT_STREAM_TYPE = "text/event-stream";
+
     private static final List<Integer> ACCEPTED_STATUSES = Arrays.asList(HttpStatus.SC_OK, HttpStatus.SC_CREATED, HttpStatus.SC_ACCEPTED);
 
     private static final int PROXY_TIMEOUT = 90000;
@@ -75,17 +82,32 @@ public class SaltConnector implements Closeable {
 
     private final String signatureKey;
 
+    private final Runnable releaseAction;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
     public SaltConnector(GatewayConfig gatewayConfig, boolean debug) {
+        this(gatewayConfig, createRestClient(gatewayConfig, debug), null);
+    }
+
+    /**
+     * Creates a connector on top of a shared rest client. The client is not closed with the connector, the release action is called instead.
+     */
+    SaltConnector(GatewayConfig gatewayConfig, Client restClient, Runnable releaseAction) {
+        this.restClient = restClient;
+        this.releaseAction = releaseAction;
+        String saltBootPasswd = Optional.ofNullable(gatewayConfig.getSaltBootPassword()).orElse(SALT_BOOT_PASSWORD);
+        saltTarget = restClient.target(gatewayConfig.getGatewayUrl())
+                .register(HttpAuthenticationFeature.basic(SALT_BOOT_USER, saltBootPasswd))
+                .register(new DisableProxyAuthFeature())
+                .register(new SetProxyTimeoutFeature(PROXY_TIMEOUT));
+        saltPassword = Optional.ofNullable(gatewayConfig.getSaltPassword()).orElse(SALT_PASSWORD);
+        signatureKey = gatewayConfig.getSignatureKey();
+    }
+
+    static Client createRestClient(GatewayConfig gatewayConfig, boolean debug) {
         try {
-            restClient = RestClientUtil.createClient(
-                    gatewayConfig.getServerCert(), gatewayConfig.getClientCert(), gatewayConfig.getClientKey(), debug);
-            String saltBootPasswd = Optional.ofNullable(gatewayConfig.getSaltBootPassword()).orElse(SALT_BOOT_PASSWORD);
-            saltTarget = restClient.target(gatewayConfig.getGatewayUrl())
-                    .register(HttpAuthenticationFeature.basic(SALT_BOOT_USER, saltBootPasswd))
-                    .register(new DisableProxyAuthFeature())
-                    .register(new SetProxyTimeoutFeature(PROXY_TIMEOUT));
-            saltPassword = Optional.ofNullable(gatewayConfig.getSaltPassword()).orElse(SALT_PASSWORD);
-            signatureKey = gatewayConfig.getSignatureKey();
+            return RestClientUtil.createClient(gatewayConfig.getServerCert(), gatewayConfig.getClientCert(), gatewayConfig.getClientKey(), debug);
         } catch (Exception e) {
             throw new RuntimeException("Failed to create rest client with 2-way-ssl config", e);
         }
@@ -185,6 +207,28 @@ public class SaltConnector implements Closeable {
         return responseEntity;
     }
 
+    /**
+     * Logs in to salt-api and opens its event stream, the caller has to close the returned stream.
+     */
+    @Measure(SaltConnector.class)
+    public SaltEventStream events() {
+        Form form = addAuth(new Form());
+        Response loginResponse = saltTarget.path(SaltEndpoint.SALT_LOGIN.getContextPath()).request()
+                .header(SIGN_HEADER, PkiUtil.generateSignature(signatureKey, toJson(form.asMap()).getBytes()))
+                .post(Entity.form(form));
+        String token = JaxRSUtil.response(loginResponse, SaltLoginResponse.class).getToken()
+                .orElseThrow(() -> new WebApplicationException("Salt-api login response does not contain a token"));
+        Response eventResponse = saltTarget.path(SaltEndpoint.SALT_EVENTS.getContextPath()).request(EVENT_STREAM_TYPE)
+                .header(AUTH_TOKEN_HEADER, token)
+                .get();
+        if (eventResponse.getStatus() != HttpStatus.SC_OK) {
+            eventResponse.close();
+            throw new WebApplicationException("Failed to open the salt-api event stream, status: " + eventResponse.getStatus());
+        }
+        LOGGER.debug("Salt-api event stream opened");
+        return new SaltEventStream(eventResponse);
+    }
+
     @Measure(SaltConnector.class)
     public GenericResponses upload(Iterable<String> targets, String path, String fileName, byte[] content) throws IOException {
         Response distributeResponse = upload(SaltEndpoint.BOOT_FILE_DISTRIBUTE.getContextPath(), targets, path, fileName, content);
@@ -258,7 +302,11 @@ public class SaltConnector implements Closeable {
 
     @Override
     public void close() {
-        if (restClient != null) {
+        if (releaseAction != null) {
+            if (released.compareAndSet(false, true)) {
+                releaseAction.run();
+            }
+        } else if (restClient != null) {
             restClient.close();
         }
     }
@@ -0,0 +1,233 @@
+package com.sequenceiq.cloudbreak.orchestrator.salt.client;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.ws.rs.client.Client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
+import com.sequenceiq.cloudbreak.orchestrator.model.GatewayConfig;
+
+/**
+ * Keeps the rest clients of the salt gateways alive between the salt operations, so the connections and the TLS sessions can be reused
+ * instead of doing a full handshake with fresh TLS material for every {@link SaltConnector}. The clients are keyed by the gateway url
+ * and the fingerprint of the certificates, a client of a gateway is dropped as soon as a different certificate shows up for the same gateway.
+ * Clients that are not used for a while are evicted, an evicted client is closed when its last connector is closed.
+ */
+@Component
+public class SaltConnectorPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SaltConnectorPool.class);
+
+    @Value("${cb.salt.connector.pool.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cb.salt.connector.pool.max.size:500}")
+    private int maxSize;
+
+    @Value("${cb.salt.connector.pool.idle.timeout.ms:300000}")
+    private long idleTimeoutMs;
+
+    @Inject
+    private MetricService metricService;
+
+    private final Map<PoolKey, PooledClient> clients = new ConcurrentHashMap<>();
+
+    public SaltConnector getConnector(GatewayConfig gatewayConfig, boolean debug) {
+        if (!enabled) {
+            return new SaltConnector(gatewayConfig, debug);
+        }
+        PoolKey key = new PoolKey(gatewayConfig.getGatewayUrl(), fingerprint(gatewayConfig), debug);
+        PooledClient pooledClient = lease(key, gatewayConfig);
+        if (pooledClient == null) {
+            LOGGER.debug("Salt connector pool is full ({}), creating an unpooled connector for {}", maxSize, key.gatewayUrl);
+            metricService.incrementMetricCounter(SaltMetricType.SALT_CONNECTOR_CREATED);
+            return new SaltConnector(gatewayConfig, debug);
+        }
+        return new SaltConnector(gatewayConfig, pooledClient.client, pooledClient::release);
+    }
+
+    @Scheduled(fixedDelayString = "${cb.salt.connector.pool.cleanup.interval:60000}")
+    public void evictIdleClients() {
+        long idleSince = System.currentTimeMillis() - idleTimeoutMs;
+        clients.forEach((key, pooledClient) -> {
+            if (pooledClient.isIdleSince(idleSince)) {
+                LOGGER.debug("Evicting idle salt client of {}", key.gatewayUrl);
+                evict(key, pooledClient);
+            }
+        });
+        metricService.submit(SaltMetricType.SALT_CONNECTOR_POOL_SIZE, clients.size());
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        clients.forEach(this::evict);
+    }
+
+    private PooledClient lease(PoolKey key, GatewayConfig gatewayConfig) {
+        PooledClient pooledClient = clients.get(key);
+        if (pooledClient != null && pooledClient.lease()) {
+            metricService.incrementMetricCounter(SaltMetricType.SALT_CONNECTOR_REUSED);
+            return pooledClient;
+        }
+        invalidateRotatedCertificates(key);
+        if (clients.size() >= maxSize && !evictLeastRecentlyUsedIdleClient()) {
+            return null;
+        }
+        PooledClient created = new PooledClient(createRestClient(gatewayConfig, key.debug));
+        created.lease();
+        PooledClient existing = clients.putIfAbsent(key, created);
+        if (existing != null && existing.lease()) {
+            created.close();
+            metricService.incrementMetricCounter(SaltMetricType.SALT_CONNECTOR_REUSED);
+            return existing;
+        } else if (existing != null) {
+            clients.put(key, created);
+        }
+        metricService.incrementMetricCounter(SaltMetricType.SALT_CONNECTOR_CREATED);
+        return created;
+    }
+
+    Client createRestClient(GatewayConfig gatewayConfig, boolean debug) {
+        return SaltConnector.createRestClient(gatewayConfig, debug);
+    }
+
+    private void invalidateRotatedCertificates(PoolKey key) {
+        clients.forEach((otherKey, pooledClient) -> {
+            if (otherKey.gatewayUrl.equals(key.gatewayUrl) && !otherKey.fingerprint.equals(key.fingerprint)) {
+                LOGGER.info("Certificates of salt gateway {} have been changed, dropping the client with the old certificates", key.gatewayUrl);
+                evict(otherKey, pooledClient);
+            }
+        });
+    }
+
+    private boolean evictLeastRecentlyUsedIdleClient() {
+        Optional<Map.Entry<PoolKey, PooledClient>> leastRecentlyUsed = clients.entrySet().stream()
+                .filter(entry -> entry.getValue().isIdle())
+                .min(Comparator.comparingLong(entry -> entry.getValue().lastUsed));
+        leastRecentlyUsed.ifPresent(entry -> evict(entry.getKey(), entry.getValue()));
+        return leastRecentlyUsed.isPresent();
+    }
+
+    private void evict(PoolKey key, PooledClient pooledClient) {
+        if (clients.remove(key, pooledClient)) {
+            metricService.incrementMetricCounter(SaltMetricType.SALT_CONNECTOR_EVICTED);
+        }
+        pooledClient.evict();
+    }
+
+    private String fingerprint(GatewayConfig gatewayConfig) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Objects.toString(gatewayConfig.getServerCert(), "").getBytes(StandardCharsets.UTF_8));
+            digest.update(Objects.toString(gatewayConfig.getClientCert(), "").getBytes(StandardCharsets.UTF_8));
+            digest.update(Objects.toString(gatewayConfig.getClientKey(), "").getBytes(StandardCharsets.UTF_8));
+            StringBuilder fingerprint = new StringBuilder();
+            for (byte b : digest.digest()) {
+                fingerprint.append(String.format("%02x", b));
+            }
+            return fingerprint.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private static class PoolKey {
+
+        private final String gatewayUrl;
+
+        private final String fingerprint;
+
+        private final boolean debug;
+
+        PoolKey(String gatewayUrl, String fingerprint, boolean debug) {
+            this.gatewayUrl = gatewayUrl;
+            this.fingerprint = fingerprint;
+            this.debug = debug;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PoolKey poolKey = (PoolKey) o;
+            return debug == poolKey.debug && Objects.equals(gatewayUrl, poolKey.gatewayUrl) && Objects.equals(fingerprint, poolKey.fingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(gatewayUrl, fingerprint, debug);
+        }
+    }
+
+    private static class PooledClient {
+
+        private final Client client;
+
+        private int leases;
+
+        private boolean evicted;
+
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        PooledClient(Client client) {
+            this.client = client;
+        }
+
+        synchronized boolean lease() {
+            if (evicted) {
+                return false;
+            }
+            leases++;
+            lastUsed = System.currentTimeMillis();
+            return true;
+        }
+
+        synchronized void release() {
+            leases--;
+            lastUsed = System.currentTimeMillis();
+            if (evicted && leases == 0) {
+                close();
+            }
+        }
+
+        synchronized boolean isIdle() {
+            return leases == 0;
+        }
+
+        synchronized boolean isIdleSince(long timestamp) {
+            return isIdle() && lastUsed < timestamp;
+        }
+
+        synchronized void evict() {
+            if (!evicted) {
+                evicted = true;
+                if (leases == 0) {
+                    close();
+                }
+            }
+        }
+
+        void close() {
+            client.close();
+        }
+    }
+}
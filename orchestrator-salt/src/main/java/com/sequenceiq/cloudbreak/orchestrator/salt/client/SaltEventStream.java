@@ -0,0 +1,72 @@
+package com.sequenceiq.cloudbreak.orchestrator.salt.client;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import javax.ws.rs.core.Response;
+
+import com.sequenceiq.cloudbreak.orchestrator.salt.domain.SaltEvent;
+
+/**
+ * Reads the text/event-stream of the salt-api events endpoint. Only the tag and data fields are kept, the multi-line data fields of an event
+ * are joined with a new line and an empty line dispatches the event.
+ */
+public class SaltEventStream implements Closeable {
+
+    private static final String TAG_FIELD = "tag";
+
+    private static final String DATA_FIELD = "data";
+
+    private final Response response;
+
+    private final BufferedReader reader;
+
+    SaltEventStream(Response response) {
+        this(response, response.readEntity(InputStream.class));
+    }
+
+    public SaltEventStream(Response response, InputStream inputStream) {
+        this.response = response;
+        reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Blocks until the next event arrives, returns null when the stream was closed by the other side.
+     */
+    public SaltEvent next() throws IOException {
+        String tag = null;
+        StringBuilder data = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                if (tag != null || data != null) {
+                    return new SaltEvent(tag, data == null ? null : data.toString());
+                }
+            } else if (!line.startsWith(":")) {
+                int colon = line.indexOf(':');
+                String field = colon < 0 ? line : line.substring(0, colon);
+                String value = colon < 0 ? "" : line.substring(colon + 1);
+                if (value.startsWith(" ")) {
+                    value = value.substring(1);
+                }
+                if (TAG_FIELD.equals(field)) {
+                    tag = value;
+                } else if (DATA_FIELD.equals(field)) {
+                    data = data == null ? new StringBuilder(value) : data.append('\n').append(value);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        if (response != null) {
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.sequenceiq.cloudbreak.orchestrator.salt.client;
+
+import com.sequenceiq.cloudbreak.common.metrics.type.Metric;
+
+public enum SaltMetricType implements Metric {
+    SALT_CONNECTOR_CREATED("salt.connector.pool.created"),
+    SALT_CONNECTOR_REUSED("salt.connector.pool.reused"),
+    SALT_CONNECTOR_EVICTED("salt.connector.pool.evicted"),
+    SALT_CONNECTOR_POOL_SIZE("salt.connector.pool.size"),
+    SALT_JOB_ROUND_TRIP("salt.job.roundtrip"),
+    SALT_EVENT_LAG("salt.event.lag"),
+    SALT_PILLAR_SAVE("salt.pillar.save");
+
+    private final String metricName;
+
+    SaltMetricType(String metricName) {
+        this.metricName = metricName;
+    }
+
+    @Override
+    public String getMetricName() {
+        return metricName;
+    }
+}
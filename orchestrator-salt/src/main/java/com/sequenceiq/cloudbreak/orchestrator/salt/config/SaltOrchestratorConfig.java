@@ -0,0 +1,36 @@
+package com.sequenceiq.cloudbreak.orchestrator.salt.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.sequenceiq.cloudbreak.concurrent.MDCCleanerTaskDecorator;
+
+@Configuration
+public class SaltOrchestratorConfig {
+
+    public static final String SALT_PILLAR_SAVE_EXECUTOR = "saltPillarSaveExecutor";
+
+    @Value("${cb.salt.pillar.save.threadpool.core.size:40}")
+    private int pillarSaveCorePoolSize;
+
+    @Value("${cb.salt.pillar.save.threadpool.capacity.size:1000}")
+    private int pillarSaveQueueCapacity;
+
+    /**
+     * Shared by the pillar saves of every cluster, a full queue makes the pillars of a run saved on the calling thread.
+     */
+    @Bean(name = SALT_PILLAR_SAVE_EXECUTOR)
+    public AsyncTaskExecutor saltPillarSaveExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pillarSaveCorePoolSize);
+        executor.setMaxPoolSize(pillarSaveCorePoolSize);
+        executor.setQueueCapacity(pillarSaveQueueCapacity);
+        executor.setThreadNamePrefix("saltPillarSaveExecutor-");
+        executor.setTaskDecorator(new MDCCleanerTaskDecorator());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,31 @@
+package com.sequenceiq.cloudbreak.orchestrator.salt.domain;
+
+/**
+ * One server-sent event of the salt-api event stream, the data is the raw JSON of the event as sent by salt-api.
+ */
+public class SaltEvent {
+
+    private final String tag;
+
+    private final String data;
+
+    public SaltEvent(String tag, String data) {
+        this.tag = tag;
+        this.data = data;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return "SaltEvent{"
+                + "tag='" + tag + '\''
+                + '}';
+    }
+}
@@ -0,0 +1,30 @@
+package com.sequenceiq.cloudbreak.orchestrator.salt.domain;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SaltLoginResponse {
+
+    @JsonProperty("return")
+    private List<Map<String, Object>> result;
+
+    public List<Map<String, Object>> getResult() {
+        return result;
+    }
+
+    public void setResult(List<Map<String, Object>> result) {
+        this.result = result;
+    }
+
+    public Optional<String> getToken() {
+        return Optional.ofNullable(result)
+                .flatMap(sessions -> sessions.stream().findFirst())
+                .map(session -> session.get("token"))
+                .map(Object::toString);
+    }
+}
@@ -0,0 +1,132 @@
+package com.sequenceiq.cloudbreak.orchestrator.salt.poller;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
+import com.sequenceiq.cloudbreak.orchestrator.OrchestratorBootstrap;
+import com.sequenceiq.cloudbreak.orchestrator.exception.CloudbreakOrchestratorFailedException;
+import com.sequenceiq.cloudbreak.orchestrator.salt.client.SaltMetricType;
+
+/**
+ * Saves the pillars of a run in one retry envelope, the pillars are distributed on a few parallel connections and a retry only repeats the
+ * pillars that failed, on the targets they failed on. The connections of a run are lanes of pillars saved one after the other on the shared
+ * pillar save executor, if the executor is saturated a lane is saved on the calling thread.
+ */
+public class BulkPillarSave implements OrchestratorBootstrap {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkPillarSave.class);
+
+    private static final String CLUSTER_TAG = "cluster";
+
+    private final List<PillarSave> remainingPillarSaves;
+
+    private final int parallelism;
+
+    private final int pillarCount;
+
+    private final AsyncTaskExecutor executor;
+
+    private final MetricService metricService;
+
+    private final String cluster;
+
+    private final long startTime = System.currentTimeMillis();
+
+    public BulkPillarSave(Collection<PillarSave> pillarSaves, int parallelism, AsyncTaskExecutor executor, MetricService metricService, String cluster) {
+        remainingPillarSaves = new ArrayList<>(pillarSaves);
+        this.parallelism = Math.max(1, parallelism);
+        pillarCount = pillarSaves.size();
+        this.executor = executor;
+        this.metricService = metricService;
+        this.cluster = cluster;
+    }
+
+    @Override
+    public Boolean call() throws Exception {
+        int laneCount = Math.min(parallelism, remainingPillarSaves.size());
+        LOGGER.debug("Distribute {} pillars on {} connections", remainingPillarSaves.size(), laneCount);
+        List<PillarSave> failedPillarSaves = laneCount <= 1 ? saveSerially(remainingPillarSaves) : saveInParallel(laneCount);
+        remainingPillarSaves.retainAll(failedPillarSaves);
+        if (!remainingPillarSaves.isEmpty()) {
+            throw new CloudbreakOrchestratorFailedException(String.format("There are %d pillars out of %d that could not be saved: %s",
+                    remainingPillarSaves.size(), pillarCount, remainingPillarSaves));
+        }
+        long elapsed = System.currentTimeMillis() - startTime;
+        LOGGER.info("{} pillars have been saved in {} ms", pillarCount, elapsed);
+        metricService.recordTimerMetric(SaltMetricType.SALT_PILLAR_SAVE, Duration.ofMillis(elapsed), CLUSTER_TAG, cluster);
+        return true;
+    }
+
+    private List<PillarSave> saveSerially(List<PillarSave> pillarSaves) {
+        List<PillarSave> failedPillarSaves = new ArrayList<>();
+        for (PillarSave pillarSave : pillarSaves) {
+            if (!save(pillarSave)) {
+                failedPillarSaves.add(pillarSave);
+            }
+        }
+        return failedPillarSaves;
+    }
+
+    private List<PillarSave> saveInParallel(int laneCount) throws InterruptedException {
+        List<List<PillarSave>> lanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(new ArrayList<>());
+        }
+        for (int i = 0; i < remainingPillarSaves.size(); i++) {
+            lanes.get(i % laneCount).add(remainingPillarSaves.get(i));
+        }
+        List<PillarSave> failedPillarSaves = new ArrayList<>();
+        List<List<PillarSave>> submittedLanes = new ArrayList<>(laneCount);
+        List<Future<List<PillarSave>>> results = new ArrayList<>(laneCount);
+        try {
+            for (List<PillarSave> lane : lanes) {
+                try {
+                    results.add(executor.submit(() -> saveSerially(lane)));
+                    submittedLanes.add(lane);
+                } catch (RejectedExecutionException e) {
+                    LOGGER.info("The pillar save executor is saturated, {} pillars are saved on the calling thread", lane.size());
+                    failedPillarSaves.addAll(saveSerially(lane));
+                }
+            }
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    failedPillarSaves.addAll(results.get(i).get());
+                } catch (ExecutionException e) {
+                    LOGGER.info("Pillar save failed: {}", submittedLanes.get(i), e.getCause());
+                    failedPillarSaves.addAll(submittedLanes.get(i));
+                }
+            }
+            return failedPillarSaves;
+        } finally {
+            results.forEach(result -> result.cancel(true));
+        }
+    }
+
+    private boolean save(PillarSave pillarSave) {
+        try {
+            return pillarSave.call();
+        } catch (Exception e) {
+            LOGGER.info("Pillar save failed: {}", pillarSave, e);
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BulkPillarSave{"
+                + "remainingPillarSaves=" + remainingPillarSaves
+                + ", parallelism=" + parallelism
+                + ", cluster=" + cluster
+                + '}';
+    }
+}
@@ -126,4 +126,12 @@ public class PillarSave implements OrchestratorBootstrap {
         LOGGER.debug("Pillar save has been completed on nodes: {}", originalTargets);
         return true;
     }
+
+    @Override
+    public String toString() {
+        return "PillarSave{"
+                + "path=" + pillar.getPath()
+                + ", targets=" + targets
+                + '}';
+    }
 }
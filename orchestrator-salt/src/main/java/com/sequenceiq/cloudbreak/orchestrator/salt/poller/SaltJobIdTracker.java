@@ -2,46 +2,80 @@ package com.sequenceiq.cloudbreak.orchestrator.salt.poller;
 
 import static com.sequenceiq.cloudbreak.orchestrator.salt.domain.JobId.jobId;
 
+import java.io.Closeable;
+import java.time.Duration;
 import java.util.Collection;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Multimap;
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
 import com.sequenceiq.cloudbreak.orchestrator.OrchestratorBootstrap;
 import com.sequenceiq.cloudbreak.orchestrator.exception.CloudbreakOrchestratorFailedException;
 import com.sequenceiq.cloudbreak.orchestrator.exception.CloudbreakOrchestratorInProgressException;
 import com.sequenceiq.cloudbreak.orchestrator.exception.CloudbreakOrchestratorTerminateException;
 import com.sequenceiq.cloudbreak.orchestrator.salt.client.SaltConnector;
+import com.sequenceiq.cloudbreak.orchestrator.salt.client.SaltMetricType;
 import com.sequenceiq.cloudbreak.orchestrator.salt.client.target.HostList;
 import com.sequenceiq.cloudbreak.orchestrator.salt.domain.JobState;
 import com.sequenceiq.cloudbreak.orchestrator.salt.states.SaltStates;
 
-public class SaltJobIdTracker implements OrchestratorBootstrap {
+public class SaltJobIdTracker implements OrchestratorBootstrap, Closeable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SaltJobIdTracker.class);
 
+    private static final int EVENT_WAITS_PER_POLL = 6;
+
     private final SaltConnector saltConnector;
 
     private final SaltJobRunner saltJobRunner;
 
     private final boolean retryOnFail;
 
+    private final long eventWaitMillis;
+
+    private final MetricService metricService;
+
+    private SaltJobReturnWatcher returnWatcher;
+
+    private int eventWaitsSincePoll;
+
+    private long submitTime;
+
     public SaltJobIdTracker(SaltConnector saltConnector, SaltJobRunner saltJobRunner) {
         this(saltConnector, saltJobRunner, true);
     }
 
     public SaltJobIdTracker(SaltConnector saltConnector, SaltJobRunner saltJobRunner, boolean retryOnFail) {
+        this(saltConnector, saltJobRunner, retryOnFail, 0L);
+    }
+
+    /**
+     * With a positive event wait the tracker follows the salt-api event stream and waits at most that long in a call for the targets to
+     * return, the running jobs of the master are only polled when the stream is not available and every few waits as a safety net.
+     */
+    public SaltJobIdTracker(SaltConnector saltConnector, SaltJobRunner saltJobRunner, boolean retryOnFail, long eventWaitMillis) {
+        this(saltConnector, saltJobRunner, retryOnFail, eventWaitMillis, null);
+    }
+
+    /**
+     * The round trip of the job and the lag of its salt events are recorded with the metric service when it is given.
+     */
+    public SaltJobIdTracker(SaltConnector saltConnector, SaltJobRunner saltJobRunner, boolean retryOnFail, long eventWaitMillis,
+            MetricService metricService) {
+        this.metricService = metricService;
         this.saltConnector = saltConnector;
         this.saltJobRunner = saltJobRunner;
         this.retryOnFail = retryOnFail;
+        this.eventWaitMillis = eventWaitMillis;
     }
 
     @Override
     public Boolean call() throws Exception {
         if (JobState.NOT_STARTED.equals(saltJobRunner.getJobState())) {
             LOGGER.debug("Job has not started in the cluster. Starting for first time.");
-            saltJobRunner.setJid(jobId(saltJobRunner.submit(saltConnector)));
+            submit();
             checkIsFinished(saltJobRunner.getJid().getJobId());
         } else if (JobState.IN_PROGRESS.equals(saltJobRunner.getJobState())) {
             String jobId = saltJobRunner.getJid().getJobId();
@@ -50,11 +84,12 @@ public class SaltJobIdTracker implements OrchestratorBootstrap {
         } else if (!retryOnFail && JobState.FAILED == saltJobRunner.getJobState()) {
             String jobId = saltJobRunner.getJid().getJobId();
             LOGGER.info("Job: {} failed. Terminate execution on these targets: {}", jobId, saltJobRunner.getTargetHostnames());
+            stopWatchingEvents();
             throw new CloudbreakOrchestratorTerminateException(buildErrorMessage(), saltJobRunner.getNodesWithError());
         } else if (JobState.FAILED == saltJobRunner.getJobState() || JobState.AMBIGUOUS == saltJobRunner.getJobState()) {
             String jobId = saltJobRunner.getJid().getJobId();
             LOGGER.debug("Job: {} failed in the previous time. Trigger again with these targets: {}", jobId, saltJobRunner.getTargetHostnames());
-            saltJobRunner.setJid(jobId(saltJobRunner.submit(saltConnector)));
+            submit();
             saltJobRunner.setJobState(JobState.IN_PROGRESS);
             return call();
         }
@@ -66,10 +101,65 @@ public class SaltJobIdTracker implements OrchestratorBootstrap {
             throw new CloudbreakOrchestratorFailedException(buildErrorMessage(), saltJobRunner.getNodesWithError());
         }
         LOGGER.debug("Job (jid: {}) was finished. Triggering next salt event.", saltJobRunner.getJid().getJobId());
+        stopWatchingEvents();
+        recordRoundTrip();
         return true;
     }
 
+    /**
+     * Closes the salt-api event stream of the tracker. The runner does not close the tracker when it gives up on the job, so the owner of the
+     * runner has to close it once the runner returned.
+     */
+    @Override
+    public void close() {
+        stopWatchingEvents();
+    }
+
+    private void submit() {
+        if (eventWaitMillis > 0 && (returnWatcher == null || !returnWatcher.isConnected())) {
+            startWatchingEvents();
+        }
+        saltJobRunner.setJid(jobId(saltJobRunner.submit(saltConnector)));
+        if (submitTime == 0) {
+            submitTime = System.currentTimeMillis();
+        }
+    }
+
+    private void startWatchingEvents() {
+        stopWatchingEvents();
+        try {
+            // opened before the submit so that the returns of fast minions are not missed
+            returnWatcher = new SaltJobReturnWatcher(saltConnector.events(), saltJobRunner.getClass().getSimpleName(), metricService);
+        } catch (RuntimeException e) {
+            LOGGER.info("Failed to open the salt-api event stream, the job will be tracked by polling", e);
+        }
+    }
+
+    private void stopWatchingEvents() {
+        if (returnWatcher != null) {
+            returnWatcher.close();
+            returnWatcher = null;
+        }
+    }
+
     private void checkIsFinished(String jobId) throws CloudbreakOrchestratorFailedException {
+        if (eventWaitMillis > 0) {
+            if (returnWatcher != null && returnWatcher.isConnected()) {
+                if (awaitReturns(jobId)) {
+                    LOGGER.debug("Every target returned for job: {}. Collecting missing nodes", jobId);
+                    checkJobFinishedWithSuccess();
+                    return;
+                } else if (++eventWaitsSincePoll < EVENT_WAITS_PER_POLL && returnWatcher.isConnected()) {
+                    LOGGER.debug("Job: {} is running currently, waiting for the returns of the targets.", jobId);
+                    saltJobRunner.setJobState(JobState.IN_PROGRESS);
+                    return;
+                }
+            } else {
+                // the runner sleeps only a little between the calls in event mode, keep the original polling interval without the stream
+                sleep(eventWaitMillis);
+            }
+            eventWaitsSincePoll = 0;
+        }
         boolean jobRunning = SaltStates.jobIsRunning(saltConnector, jobId);
         if (jobRunning) {
             LOGGER.debug("Job: {} is running currently, waiting for next polling attempt.", jobId);
@@ -80,6 +170,31 @@ public class SaltJobIdTracker implements OrchestratorBootstrap {
         }
     }
 
+    private boolean awaitReturns(String jobId) {
+        try {
+            return returnWatcher.awaitReturns(jobId, saltJobRunner.getTargetHostnames(), eventWaitMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void recordRoundTrip() {
+        if (metricService != null && submitTime > 0) {
+            String runner = saltJobRunner.getClass().getSimpleName();
+            metricService.recordTimerMetric(SaltMetricType.SALT_JOB_ROUND_TRIP, Duration.ofMillis(System.currentTimeMillis() - submitTime),
+                    "runner", runner.isEmpty() ? "anonymous" : runner);
+        }
+    }
+
     private String buildErrorMessage() {
         String jobId = saltJobRunner.getJid().getJobId();
         StringBuilder errorMessageBuilder = new StringBuilder();
@@ -0,0 +1,154 @@
+package com.sequenceiq.cloudbreak.orchestrator.salt.poller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
+import com.sequenceiq.cloudbreak.orchestrator.salt.client.SaltEventStream;
+import com.sequenceiq.cloudbreak.orchestrator.salt.client.SaltMetricType;
+import com.sequenceiq.cloudbreak.orchestrator.salt.domain.SaltEvent;
+
+/**
+ * Follows the salt-api event stream on a daemon thread and collects the minions that returned for the salt jobs, so that a tracker can wait
+ * for the returns of its job instead of polling the running jobs of the master.
+ */
+class SaltJobReturnWatcher implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SaltJobReturnWatcher.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final Pattern RETURN_TAG = Pattern.compile("salt/job/(?<jid>[^/]+)/ret/(?<minion>.+)");
+
+    private static final int MAX_TRACKED_JOBS = 100;
+
+    private static final long MAX_IDLE_MILLIS = Duration.ofMinutes(10).toMillis();
+
+    private final SaltEventStream eventStream;
+
+    private final MetricService metricService;
+
+    private final Map<String, Set<String>> returnedMinionsByJid = new LinkedHashMap<String, Set<String>>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Set<String>> eldest) {
+            return size() > MAX_TRACKED_JOBS;
+        }
+    };
+
+    private final Thread reader;
+
+    private volatile boolean connected = true;
+
+    private volatile long lastAwaited = System.currentTimeMillis();
+
+    SaltJobReturnWatcher(SaltEventStream eventStream, String name, MetricService metricService) {
+        this.eventStream = eventStream;
+        this.metricService = metricService;
+        reader = new Thread(this::readEvents, "salt-events-" + name);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Waits until every target returned for the job, returns false if the timeout elapsed or the event stream was disconnected before that.
+     */
+    boolean awaitReturns(String jid, Collection<String> targets, long timeoutMillis) throws InterruptedException {
+        lastAwaited = System.currentTimeMillis();
+        long deadline = lastAwaited + timeoutMillis;
+        synchronized (returnedMinionsByJid) {
+            long remaining = timeoutMillis;
+            while (connected && remaining > 0) {
+                if (returnedMinionsByJid.getOrDefault(jid, Set.of()).containsAll(targets)) {
+                    return true;
+                }
+                returnedMinionsByJid.wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+            return returnedMinionsByJid.getOrDefault(jid, Set.of()).containsAll(targets);
+        }
+    }
+
+    boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void close() {
+        connected = false;
+        eventStream.close();
+        reader.interrupt();
+    }
+
+    private void readEvents() {
+        try {
+            SaltEvent event = eventStream.next();
+            while (event != null && connected && !abandoned()) {
+                if (event.getTag() != null) {
+                    Matcher matcher = RETURN_TAG.matcher(event.getTag());
+                    if (matcher.matches()) {
+                        onReturn(matcher.group("jid"), matcher.group("minion"), event.getData());
+                    }
+                }
+                event = eventStream.next();
+            }
+            LOGGER.debug("Salt-api event stream ended");
+            eventStream.close();
+        } catch (IOException | RuntimeException e) {
+            if (connected) {
+                LOGGER.info("Salt-api event stream disconnected, falling back to polling", e);
+            }
+        } finally {
+            connected = false;
+            synchronized (returnedMinionsByJid) {
+                returnedMinionsByJid.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * The tracker that opened the stream may have been given up by its runner without closing it, the stream is dropped then at the next event.
+     */
+    private boolean abandoned() {
+        return System.currentTimeMillis() - lastAwaited > MAX_IDLE_MILLIS;
+    }
+
+    private void onReturn(String jid, String minion, String data) {
+        if (metricService != null) {
+            recordEventLag(data);
+        }
+        synchronized (returnedMinionsByJid) {
+            returnedMinionsByJid.computeIfAbsent(jid, key -> new HashSet<>()).add(minion);
+            returnedMinionsByJid.notifyAll();
+        }
+    }
+
+    private void recordEventLag(String data) {
+        try {
+            JsonNode stamp = MAPPER.readTree(data).path("data").path("_stamp");
+            if (stamp.isTextual()) {
+                Duration lag = Duration.between(LocalDateTime.parse(stamp.asText()).toInstant(ZoneOffset.UTC), Instant.now());
+                if (!lag.isNegative()) {
+                    metricService.recordTimerMetric(SaltMetricType.SALT_EVENT_LAG, lag);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Failed to read the time stamp of the salt event", e);
+        }
+    }
+}
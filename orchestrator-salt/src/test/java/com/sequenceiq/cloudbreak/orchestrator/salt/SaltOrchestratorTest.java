@@ -7,6 +7,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
@@ -38,6 +39,7 @@ import org.mockito.Mock;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.core.task.AsyncTaskExecutor;
 
 import com.google.common.collect.Lists;
 import com.sequenceiq.cloudbreak.common.service.HostDiscoveryService;
@@ -50,8 +52,10 @@ import com.sequenceiq.cloudbreak.orchestrator.model.GenericResponse;
 import com.sequenceiq.cloudbreak.orchestrator.model.Node;
 import com.sequenceiq.cloudbreak.orchestrator.model.SaltConfig;
 import com.sequenceiq.cloudbreak.orchestrator.salt.client.SaltConnector;
+import com.sequenceiq.cloudbreak.orchestrator.salt.client.SaltConnectorPool;
 import com.sequenceiq.cloudbreak.orchestrator.salt.domain.MinionStatus;
 import com.sequenceiq.cloudbreak.orchestrator.salt.domain.MinionStatusSaltResponse;
+import com.sequenceiq.cloudbreak.orchestrator.salt.poller.BulkPillarSave;
 import com.sequenceiq.cloudbreak.orchestrator.salt.poller.PillarSave;
 import com.sequenceiq.cloudbreak.orchestrator.salt.poller.SaltBootstrap;
 import com.sequenceiq.cloudbreak.orchestrator.salt.poller.SaltCommandTracker;
@@ -85,6 +89,12 @@ public class SaltOrchestratorTest {
     @Mock
     private HostDiscoveryService hostDiscoveryService;
 
+    @Mock
+    private SaltConnectorPool saltConnectorPool;
+
+    @Mock
+    private AsyncTaskExecutor saltPillarSaveExecutor;
+
     @InjectMocks
     private SaltOrchestrator saltOrchestrator;
 
@@ -99,6 +109,7 @@ public class SaltOrchestratorTest {
 
         saltConnector = mock(SaltConnector.class);
         whenNew(SaltConnector.class).withAnyArguments().thenReturn(saltConnector);
+        when(saltConnectorPool.getConnector(any(), anyBoolean())).thenReturn(saltConnector);
         when(hostDiscoveryService.determineDomain("test", "test", false)).thenReturn(".example.com");
         exitCriteria = mock(ExitCriteria.class);
         exitCriteriaModel = mock(ExitCriteriaModel.class);
@@ -150,6 +161,8 @@ public class SaltOrchestratorTest {
                 .thenReturn(mock(OrchestratorBootstrapRunner.class));
         PillarSave pillarSave = mock(PillarSave.class);
         whenNew(PillarSave.class).withAnyArguments().thenReturn(pillarSave);
+        BulkPillarSave bulkPillarSave = mock(BulkPillarSave.class);
+        whenNew(BulkPillarSave.class).withAnyArguments().thenReturn(bulkPillarSave);
 
         GrainAddRunner addRemoveGrainRunner = mock(GrainAddRunner.class);
         whenNew(GrainAddRunner.class).withAnyArguments().thenReturn(addRemoveGrainRunner);
@@ -185,8 +198,9 @@ public class SaltOrchestratorTest {
         saltOrchestrator.runService(Collections.singletonList(gatewayConfig), targets, saltConfig, exitCriteriaModel);
 
         // verify pillar save
+        verifyNew(BulkPillarSave.class, times(1)).withArguments(eq(List.of(pillarSave)), anyInt(), eq(saltPillarSaveExecutor), any(), eq("unknown"));
         verifyNew(OrchestratorBootstrapRunner.class, times(1))
-                .withArguments(eq(pillarSave), eq(exitCriteria), eq(exitCriteriaModel), any(), anyInt(), anyInt(), anyInt());
+                .withArguments(eq(bulkPillarSave), eq(exitCriteria), eq(exitCriteriaModel), any(), anyInt(), anyInt(), anyInt());
 
         Set<String> allNodes = targets.stream().map(Node::getHostname).collect(Collectors.toSet());
         // verify two OrchestratorBootstrapRunner call with rolechecker command tracker
@@ -202,7 +216,8 @@ public class SaltOrchestratorTest {
         // verify run new service
         verifyNew(HighStateRunner.class, atLeastOnce()).withArguments(eq(allNodes),
                 eq(targets));
-        verifyNew(SaltJobIdTracker.class, atLeastOnce()).withArguments(eq(saltConnector), eq(highStateRunner), eq(true));
+        verifyNew(SaltJobIdTracker.class, atLeastOnce()).withArguments(eq(saltConnector), eq(highStateRunner), eq(true), eq(0L), any());
+        verify(saltJobIdTracker, atLeastOnce()).close();
     }
 
     @Test
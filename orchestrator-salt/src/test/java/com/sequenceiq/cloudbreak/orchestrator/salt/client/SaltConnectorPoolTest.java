@@ -0,0 +1,124 @@
+package com.sequenceiq.cloudbreak.orchestrator.salt.client;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.ws.rs.client.Client;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.powermock.reflect.Whitebox;
+
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
+import com.sequenceiq.cloudbreak.orchestrator.model.GatewayConfig;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SaltConnectorPoolTest {
+
+    private static final int MAX_SIZE = 2;
+
+    private static final long IDLE_TIMEOUT_MS = 300000L;
+
+    private static final long LAST_USED_GAP_MS = 10L;
+
+    @Spy
+    @InjectMocks
+    private SaltConnectorPool underTest;
+
+    @Mock
+    private MetricService metricService;
+
+    private final Map<String, Client> clientsByKey = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        Whitebox.setInternalState(underTest, "enabled", true);
+        Whitebox.setInternalState(underTest, "maxSize", MAX_SIZE);
+        Whitebox.setInternalState(underTest, "idleTimeoutMs", IDLE_TIMEOUT_MS);
+        doAnswer(invocation -> {
+            GatewayConfig gatewayConfig = invocation.getArgument(0);
+            Client client = mock(Client.class, RETURNS_DEEP_STUBS);
+            clientsByKey.put(gatewayConfig.getConnectionAddress() + '/' + gatewayConfig.getClientKey(), client);
+            return client;
+        }).when(underTest).createRestClient(any(), anyBoolean());
+    }
+
+    @Test
+    public void testReturnedClientIsLeasedAgainWithoutClosingIt() {
+        GatewayConfig gatewayConfig = gatewayConfig("1.1.1.1", "clientkey");
+
+        underTest.getConnector(gatewayConfig, false).close();
+        underTest.getConnector(gatewayConfig, false).close();
+
+        verify(underTest, times(1)).createRestClient(any(), anyBoolean());
+        verify(clientsByKey.get("1.1.1.1/clientkey"), never()).close();
+        verify(metricService).incrementMetricCounter(SaltMetricType.SALT_CONNECTOR_CREATED);
+        verify(metricService).incrementMetricCounter(SaltMetricType.SALT_CONNECTOR_REUSED);
+    }
+
+    @Test
+    public void testIdleEvictionClosesOnlyTheIdleClients() {
+        Whitebox.setInternalState(underTest, "idleTimeoutMs", -IDLE_TIMEOUT_MS);
+        SaltConnector leased = underTest.getConnector(gatewayConfig("1.1.1.1", "clientkey"), false);
+        underTest.getConnector(gatewayConfig("1.1.1.2", "clientkey"), false).close();
+
+        underTest.evictIdleClients();
+
+        verify(clientsByKey.get("1.1.1.2/clientkey")).close();
+        verify(clientsByKey.get("1.1.1.1/clientkey"), never()).close();
+        verify(metricService).submit(SaltMetricType.SALT_CONNECTOR_POOL_SIZE, 1);
+        leased.close();
+        verify(clientsByKey.get("1.1.1.1/clientkey"), never()).close();
+    }
+
+    @Test
+    public void testRotatedCertificatesCreateANewClientAndCloseTheOldOneAfterItsLastLease() {
+        SaltConnector leasedWithOldCertificates = underTest.getConnector(gatewayConfig("1.1.1.1", "clientkey"), false);
+
+        underTest.getConnector(gatewayConfig("1.1.1.1", "rotatedclientkey"), false).close();
+
+        verify(underTest, times(2)).createRestClient(any(), anyBoolean());
+        verify(underTest).createRestClient(argThat(config -> "rotatedclientkey".equals(config.getClientKey())), anyBoolean());
+        Client oldClient = clientsByKey.get("1.1.1.1/clientkey");
+        verify(oldClient, never()).close();
+        leasedWithOldCertificates.close();
+        verify(oldClient).close();
+        verify(clientsByKey.get("1.1.1.1/rotatedclientkey"), never()).close();
+    }
+
+    @Test
+    public void testFullPoolEvictsTheLeastRecentlyUsedIdleClient() throws InterruptedException {
+        underTest.getConnector(gatewayConfig("1.1.1.1", "clientkey"), false).close();
+        Thread.sleep(LAST_USED_GAP_MS);
+        underTest.getConnector(gatewayConfig("1.1.1.2", "clientkey"), false).close();
+        Thread.sleep(LAST_USED_GAP_MS);
+
+        underTest.getConnector(gatewayConfig("1.1.1.3", "clientkey"), false).close();
+
+        verify(clientsByKey.get("1.1.1.1/clientkey")).close();
+        verify(clientsByKey.get("1.1.1.2/clientkey"), never()).close();
+        verify(metricService).incrementMetricCounter(SaltMetricType.SALT_CONNECTOR_EVICTED);
+        underTest.getConnector(gatewayConfig("1.1.1.2", "clientkey"), false).close();
+        verify(underTest, times(3)).createRestClient(any(), anyBoolean());
+    }
+
+    private GatewayConfig gatewayConfig(String address, String clientKey) {
+        return new GatewayConfig(address, "10.0.0.1", "172.16.252.43", "10-0-0-1", 9443, "instanceid", "servercert", "clientcert", clientKey,
+                "saltpasswd", "saltbootpassword", "signkey", false, true, "privatekey", "publickey", null, null);
+    }
+}
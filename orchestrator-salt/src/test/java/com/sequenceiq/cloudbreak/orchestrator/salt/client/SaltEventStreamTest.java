@@ -0,0 +1,78 @@
+package com.sequenceiq.cloudbreak.orchestrator.salt.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.ws.rs.core.Response;
+
+import org.junit.Test;
+
+import com.sequenceiq.cloudbreak.orchestrator.salt.domain.SaltEvent;
+
+public class SaltEventStreamTest {
+
+    @Test
+    public void testMultiLineDataIsJoinedAndEmptyLineDispatchesTheEvent() throws IOException {
+        SaltEventStream underTest = stream("tag: salt/job/1/ret/host1\n"
+                + "data: {\"tag\": \"salt/job/1/ret/host1\",\n"
+                + "data:  \"data\": {}}\n"
+                + "\n"
+                + "tag:salt/auth\n"
+                + "data:{}\n"
+                + "\n");
+
+        SaltEvent first = underTest.next();
+        assertEquals("salt/job/1/ret/host1", first.getTag());
+        assertEquals("{\"tag\": \"salt/job/1/ret/host1\",\n \"data\": {}}", first.getData());
+        SaltEvent second = underTest.next();
+        assertEquals("salt/auth", second.getTag());
+        assertEquals("{}", second.getData());
+        assertNull(underTest.next());
+    }
+
+    @Test
+    public void testCommentsUnknownFieldsAndEmptyEventsAreSkipped() throws IOException {
+        SaltEventStream underTest = stream(": keep-alive\n"
+                + "\n"
+                + "retry: 400\n"
+                + "\n"
+                + "id: 7\n"
+                + ": the event follows\n"
+                + "tag: salt/job/2/new\n"
+                + "data\n"
+                + "\n");
+
+        SaltEvent event = underTest.next();
+        assertEquals("salt/job/2/new", event.getTag());
+        assertEquals("", event.getData());
+        assertNull(underTest.next());
+    }
+
+    @Test
+    public void testEventWithoutTheClosingEmptyLineIsDroppedWhenTheStreamEnds() throws IOException {
+        SaltEventStream underTest = stream("tag: salt/job/3/ret/host1\ndata: {}\n");
+
+        assertNull(underTest.next());
+        assertNull(underTest.next());
+    }
+
+    @Test
+    public void testCloseClosesTheResponse() {
+        Response response = mock(Response.class);
+        SaltEventStream underTest = new SaltEventStream(response, new ByteArrayInputStream(new byte[0]));
+
+        underTest.close();
+
+        verify(response).close();
+    }
+
+    private SaltEventStream stream(String content) {
+        return new SaltEventStream(mock(Response.class), new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
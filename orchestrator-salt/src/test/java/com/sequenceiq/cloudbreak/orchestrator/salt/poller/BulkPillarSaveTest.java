@@ -0,0 +1,144 @@
+package com.sequenceiq.cloudbreak.orchestrator.salt.poller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
+import com.sequenceiq.cloudbreak.orchestrator.exception.CloudbreakOrchestratorFailedException;
+import com.sequenceiq.cloudbreak.orchestrator.salt.client.SaltMetricType;
+
+public class BulkPillarSaveTest {
+
+    private static final String CLUSTER = "crn:cdp:datahub:us-west-1:tenant:cluster:1";
+
+    private static final long WAIT_SECONDS = 5L;
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+    private final AsyncTaskExecutor executor = new ConcurrentTaskExecutor(executorService);
+
+    private final MetricService metricService = mock(MetricService.class);
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testRetryRepeatsOnlyTheFailedPillars() throws Exception {
+        PillarSave hostSave = mock(PillarSave.class);
+        PillarSave kerberosSave = mock(PillarSave.class);
+        PillarSave ldapSave = mock(PillarSave.class);
+        when(hostSave.call()).thenReturn(true);
+        when(kerberosSave.call()).thenThrow(new CloudbreakOrchestratorFailedException("There are missing nodes for pillar save")).thenReturn(true);
+        when(ldapSave.call()).thenReturn(true);
+
+        BulkPillarSave bulkPillarSave = new BulkPillarSave(List.of(hostSave, kerberosSave, ldapSave), 2, executor, metricService, CLUSTER);
+        try {
+            bulkPillarSave.call();
+            Assert.fail("should throw exception");
+        } catch (CloudbreakOrchestratorFailedException e) {
+            Assert.assertTrue(e.getMessage().contains("1 pillars out of 3"));
+        }
+        Assert.assertTrue(bulkPillarSave.call());
+
+        verify(hostSave, times(1)).call();
+        verify(kerberosSave, times(2)).call();
+        verify(ldapSave, times(1)).call();
+        verify(metricService).recordTimerMetric(eq(SaltMetricType.SALT_PILLAR_SAVE), any(Duration.class), eq("cluster"), eq(CLUSTER));
+    }
+
+    @Test
+    public void testPillarsAreSavedInParallelOnTheExecutor() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        PillarSave hostSave = awaitingPillarSave(bothStarted, threads);
+        PillarSave kerberosSave = awaitingPillarSave(bothStarted, threads);
+        PillarSave ldapSave = awaitingPillarSave(new CountDownLatch(0), threads);
+
+        Assert.assertTrue(new BulkPillarSave(List.of(hostSave, kerberosSave, ldapSave), 2, executor, metricService, CLUSTER).call());
+
+        Assert.assertEquals(2, threads.size());
+        Assert.assertFalse(threads.contains(Thread.currentThread().getName()));
+        verify(ldapSave).call();
+        verify(metricService).recordTimerMetric(eq(SaltMetricType.SALT_PILLAR_SAVE), any(Duration.class), eq("cluster"), eq(CLUSTER));
+    }
+
+    @Test
+    public void testSingleConnectionSavesThePillarsOnTheCallingThread() throws Exception {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        PillarSave hostSave = awaitingPillarSave(new CountDownLatch(0), threads);
+        PillarSave kerberosSave = awaitingPillarSave(new CountDownLatch(0), threads);
+
+        Assert.assertTrue(new BulkPillarSave(List.of(hostSave, kerberosSave), 1, executor, metricService, CLUSTER).call());
+
+        Assert.assertEquals(Set.of(Thread.currentThread().getName()), threads);
+    }
+
+    @Test
+    public void testPillarsAreSavedOnTheCallingThreadWhenTheExecutorIsSaturated() throws Exception {
+        AsyncTaskExecutor saturatedExecutor = new ConcurrentTaskExecutor(command -> {
+            throw new RejectedExecutionException("saturated");
+        });
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        PillarSave hostSave = awaitingPillarSave(new CountDownLatch(0), threads);
+        PillarSave kerberosSave = awaitingPillarSave(new CountDownLatch(0), threads);
+
+        Assert.assertTrue(new BulkPillarSave(List.of(hostSave, kerberosSave), 2, saturatedExecutor, metricService, CLUSTER).call());
+
+        Assert.assertEquals(Set.of(Thread.currentThread().getName()), threads);
+        verify(hostSave).call();
+        verify(kerberosSave).call();
+    }
+
+    @Test
+    public void testFailedPillarsOfEveryConnectionAreReportedAndNoTimeIsRecorded() throws Exception {
+        PillarSave hostSave = mock(PillarSave.class);
+        PillarSave kerberosSave = mock(PillarSave.class);
+        PillarSave ldapSave = mock(PillarSave.class);
+        when(hostSave.call()).thenReturn(true);
+        when(kerberosSave.call()).thenThrow(new CloudbreakOrchestratorFailedException("There are missing nodes for pillar save"));
+        when(ldapSave.call()).thenThrow(new IllegalStateException("connection reset"));
+
+        BulkPillarSave bulkPillarSave = new BulkPillarSave(List.of(hostSave, kerberosSave, ldapSave), 3, executor, metricService, CLUSTER);
+        try {
+            bulkPillarSave.call();
+            Assert.fail("should throw exception");
+        } catch (CloudbreakOrchestratorFailedException e) {
+            Assert.assertTrue(e.getMessage().contains("2 pillars out of 3"));
+        }
+
+        verifyZeroInteractions(metricService);
+    }
+
+    private PillarSave awaitingPillarSave(CountDownLatch started, Set<String> threads) throws Exception {
+        PillarSave pillarSave = mock(PillarSave.class);
+        when(pillarSave.call()).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            started.countDown();
+            return started.await(WAIT_SECONDS, TimeUnit.SECONDS);
+        });
+        return pillarSave;
+    }
+}
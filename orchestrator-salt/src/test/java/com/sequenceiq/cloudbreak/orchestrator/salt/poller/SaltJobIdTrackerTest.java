@@ -10,7 +10,9 @@ import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -18,6 +20,8 @@ import static org.mockito.Mockito.when;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -37,9 +41,11 @@ import com.sequenceiq.cloudbreak.orchestrator.exception.CloudbreakOrchestratorFa
 import com.sequenceiq.cloudbreak.orchestrator.exception.CloudbreakOrchestratorInProgressException;
 import com.sequenceiq.cloudbreak.orchestrator.exception.CloudbreakOrchestratorTerminateException;
 import com.sequenceiq.cloudbreak.orchestrator.salt.client.SaltConnector;
+import com.sequenceiq.cloudbreak.orchestrator.salt.client.SaltEventStream;
 import com.sequenceiq.cloudbreak.orchestrator.salt.client.target.Target;
 import com.sequenceiq.cloudbreak.orchestrator.salt.domain.JobId;
 import com.sequenceiq.cloudbreak.orchestrator.salt.domain.JobState;
+import com.sequenceiq.cloudbreak.orchestrator.salt.domain.SaltEvent;
 import com.sequenceiq.cloudbreak.orchestrator.salt.states.SaltStates;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -112,6 +118,125 @@ public class SaltJobIdTrackerTest {
         SaltStates.jobIsRunning(any(), eq(jobId));
     }
 
+    @Test
+    public void callWithEventTrackingFinishesWhenEveryTargetReturned() throws Exception {
+        String jobId = "20200101000000000000";
+        SaltConnector saltConnector = Mockito.mock(SaltConnector.class);
+        SaltEventStream eventStream = Mockito.mock(SaltEventStream.class);
+        when(saltConnector.events()).thenReturn(eventStream);
+        when(eventStream.next()).thenReturn(
+                new SaltEvent("salt/job/" + jobId + "/new", "{}"),
+                new SaltEvent("salt/job/" + jobId + "/ret/host1", "{\"data\": {\"_stamp\": \"2020-01-01T00:00:00.000000\"}}"),
+                new SaltEvent("salt/job/" + jobId + "/ret/host2", "{}"))
+                .thenAnswer(invocation -> {
+                    try {
+                        Thread.sleep(Long.MAX_VALUE);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return null;
+                });
+
+        SaltJobRunner saltJobRunner = Mockito.mock(BaseSaltJobRunner.class);
+        when(saltJobRunner.getJid()).thenReturn(JobId.jobId(jobId));
+        when(saltJobRunner.getJobState()).thenCallRealMethod();
+        doCallRealMethod().when(saltJobRunner).setJobState(any());
+        when(saltJobRunner.submit(any(SaltConnector.class))).thenReturn(jobId);
+        saltJobRunner.setJobState(JobState.NOT_STARTED);
+        when(saltJobRunner.getTargetHostnames()).thenReturn(Sets.newHashSet("host1", "host2"));
+
+        PowerMockito.mockStatic(SaltStates.class);
+        PowerMockito.when(SaltStates.jidInfo(any(), any(), any(), any())).thenReturn(ArrayListMultimap.create());
+
+        SaltJobIdTracker saltJobIdTracker = new SaltJobIdTracker(saltConnector, saltJobRunner, true, 10000L);
+        assertTrue(saltJobIdTracker.call());
+
+        PowerMockito.verifyStatic(SaltStates.class, never());
+        SaltStates.jobIsRunning(any(), any());
+        verify(eventStream).close();
+    }
+
+    @Test
+    public void callWithEventTrackingReconnectsWhenTheEventStreamWasDisconnected() throws Exception {
+        String jobId = "20200101000000000001";
+        SaltConnector saltConnector = Mockito.mock(SaltConnector.class);
+        SaltEventStream disconnectedStream = Mockito.mock(SaltEventStream.class);
+        SaltEventStream reconnectedStream = Mockito.mock(SaltEventStream.class);
+        when(saltConnector.events()).thenReturn(disconnectedStream, reconnectedStream);
+        when(disconnectedStream.next()).thenReturn(null);
+        when(reconnectedStream.next()).thenReturn(
+                new SaltEvent("salt/job/" + jobId + "/ret/host1", "{}"),
+                new SaltEvent("salt/job/" + jobId + "/ret/host2", "{}"),
+                null);
+
+        SaltJobRunner saltJobRunner = Mockito.mock(BaseSaltJobRunner.class);
+        when(saltJobRunner.getJid()).thenReturn(JobId.jobId(jobId));
+        when(saltJobRunner.getJobState()).thenCallRealMethod();
+        doCallRealMethod().when(saltJobRunner).setJobState(any());
+        when(saltJobRunner.submit(any(SaltConnector.class))).thenReturn(jobId);
+        saltJobRunner.setJobState(JobState.NOT_STARTED);
+        when(saltJobRunner.getTargetHostnames()).thenReturn(Sets.newHashSet("host1", "host2"));
+
+        PowerMockito.mockStatic(SaltStates.class);
+        PowerMockito.when(SaltStates.jobIsRunning(any(), any())).thenReturn(true);
+        PowerMockito.when(SaltStates.jidInfo(any(), any(), any(), any())).thenReturn(ArrayListMultimap.create());
+
+        SaltJobIdTracker saltJobIdTracker = new SaltJobIdTracker(saltConnector, saltJobRunner, true, 1000L);
+        try {
+            saltJobIdTracker.call();
+            fail("should throw exception");
+        } catch (CloudbreakOrchestratorInProgressException e) {
+            assertEquals(JobState.IN_PROGRESS, saltJobRunner.getJobState());
+        }
+
+        saltJobRunner.setJobState(JobState.FAILED);
+        assertTrue(saltJobIdTracker.call());
+
+        verify(saltConnector, times(2)).events();
+        verify(disconnectedStream, atLeastOnce()).close();
+        assertEquals(JobState.FINISHED, saltJobRunner.getJobState());
+    }
+
+    @Test
+    public void closeClosesTheEventStreamOfATrackerGivenUpWhileTheJobIsRunning() throws Exception {
+        String jobId = "20200101000000000002";
+        SaltConnector saltConnector = Mockito.mock(SaltConnector.class);
+        SaltEventStream eventStream = Mockito.mock(SaltEventStream.class);
+        when(saltConnector.events()).thenReturn(eventStream);
+        CountDownLatch readerStopped = new CountDownLatch(1);
+        when(eventStream.next()).thenReturn(new SaltEvent("salt/job/" + jobId + "/ret/host1", "{}"))
+                .thenAnswer(invocation -> {
+                    try {
+                        Thread.sleep(Long.MAX_VALUE);
+                    } catch (InterruptedException e) {
+                        readerStopped.countDown();
+                    }
+                    return null;
+                });
+
+        SaltJobRunner saltJobRunner = Mockito.mock(BaseSaltJobRunner.class);
+        when(saltJobRunner.getJid()).thenReturn(JobId.jobId(jobId));
+        when(saltJobRunner.getJobState()).thenCallRealMethod();
+        doCallRealMethod().when(saltJobRunner).setJobState(any());
+        when(saltJobRunner.submit(any(SaltConnector.class))).thenReturn(jobId);
+        saltJobRunner.setJobState(JobState.NOT_STARTED);
+        when(saltJobRunner.getTargetHostnames()).thenReturn(Sets.newHashSet("host1", "host2"));
+
+        SaltJobIdTracker saltJobIdTracker = new SaltJobIdTracker(saltConnector, saltJobRunner, true, 100L);
+        try {
+            saltJobIdTracker.call();
+            fail("should throw exception");
+        } catch (CloudbreakOrchestratorInProgressException e) {
+            assertEquals(JobState.IN_PROGRESS, saltJobRunner.getJobState());
+        }
+        verify(eventStream, never()).close();
+
+        saltJobIdTracker.close();
+
+        verify(eventStream).close();
+        assertTrue(readerStopped.await(5, TimeUnit.SECONDS));
+    }
+
     private void checkTargets(Set<String> targets, List<Target<String>> allValues) {
         for (Target<String> allValue : allValues) {
             for (String target : targets) {
@@ -0,0 +1,111 @@
+package com.sequenceiq.cloudbreak.orchestrator.salt.poller;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.Response;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sequenceiq.cloudbreak.common.metrics.MetricService;
+import com.sequenceiq.cloudbreak.orchestrator.salt.client.SaltEventStream;
+import com.sequenceiq.cloudbreak.orchestrator.salt.client.SaltMetricType;
+
+public class SaltJobReturnWatcherTest {
+
+    private static final long TIMEOUT_MILLIS = 5000L;
+
+    private final MetricService metricService = mock(MetricService.class);
+
+    private ExecutorService executorService;
+
+    @Before
+    public void setUp() {
+        executorService = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testReturnsAreMatchedByJid() throws InterruptedException {
+        SaltJobReturnWatcher underTest = watcher(returnEvent("1", "host1", "{}")
+                + "tag: salt/job/1/new\ndata: {}\n\n"
+                + returnEvent("2", "host2", "{}")
+                + "tag: salt/auth\ndata: {}\n\n"
+                + returnEvent("1", "host3", "{}"));
+
+        assertTrue(underTest.awaitReturns("1", List.of("host1", "host3"), TIMEOUT_MILLIS));
+        assertTrue(underTest.awaitReturns("2", List.of("host2"), TIMEOUT_MILLIS));
+        assertFalse(underTest.awaitReturns("1", List.of("host1", "host2"), TIMEOUT_MILLIS));
+        assertFalse(underTest.awaitReturns("3", List.of("host1"), TIMEOUT_MILLIS));
+    }
+
+    @Test
+    public void testAwaitReturnsWakesUpOnTheLastReturnAndRecordsTheEventLag() throws Exception {
+        PipedOutputStream events = new PipedOutputStream();
+        SaltJobReturnWatcher underTest = new SaltJobReturnWatcher(new SaltEventStream(mock(Response.class), new PipedInputStream(events)), "test",
+                metricService);
+
+        Future<Boolean> returned = executorService.submit(() -> underTest.awaitReturns("1", List.of("host1", "host2"), TIMEOUT_MILLIS));
+        write(events, returnEvent("1", "host1", "{\"data\": {\"_stamp\": \"2020-01-01T00:00:00.000000\"}}"));
+        assertFalse(returned.isDone());
+        write(events, returnEvent("1", "host2", "{}"));
+
+        assertTrue(returned.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertTrue(underTest.isConnected());
+        verify(metricService).recordTimerMetric(eq(SaltMetricType.SALT_EVENT_LAG), any(Duration.class));
+        underTest.close();
+        assertFalse(underTest.isConnected());
+    }
+
+    @Test
+    public void testDisconnectedStreamStopsTheWaitSoTheTrackerCanReconnect() throws Exception {
+        PipedOutputStream events = new PipedOutputStream();
+        SaltJobReturnWatcher underTest = new SaltJobReturnWatcher(new SaltEventStream(mock(Response.class), new PipedInputStream(events)), "test",
+                metricService);
+
+        Future<Boolean> returned = executorService.submit(() -> underTest.awaitReturns("1", List.of("host1"), TIMEOUT_MILLIS));
+        write(events, returnEvent("1", "host2", "{}"));
+        events.close();
+
+        assertFalse(returned.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertFalse(underTest.isConnected());
+        verify(metricService, never()).recordTimerMetric(any(), any());
+    }
+
+    private SaltJobReturnWatcher watcher(String content) {
+        return new SaltJobReturnWatcher(new SaltEventStream(mock(Response.class), new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))),
+                "test", metricService);
+    }
+
+    private String returnEvent(String jid, String minion, String data) {
+        return String.format("tag: salt/job/%s/ret/%s\ndata: %s\n\n", jid, minion, data);
+    }
+
+    private void write(PipedOutputStream events, String content) throws IOException {
+        events.write(content.getBytes(StandardCharsets.UTF_8));
+        events.flush();
+    }
+}
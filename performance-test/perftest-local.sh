@@ -0,0 +1,118 @@
+#!/bin/bash
+# Runs the ClusterLifecycleSimulation scenarios against a core started from this source tree and writes
+# a machine-readable summary per scenario. See "Local load-test suite" in README.md.
+
+set -eo pipefail
+
+: ${CB_PERFTEST_SCENARIOS:="create-terminate create-scale-terminate api-read"}
+: ${CB_START_SERVICES:=true}
+: ${CB_PORT:=9091}
+: ${CB_PERFTEST_BASE_URL:=http://localhost:$CB_PORT}
+: ${CB_STARTUP_TIMEOUT_SECONDS:=600}
+: ${MOCK_CAAS_PORT:=10080}
+: ${MOCK_CAAS_GRPC_PORT:=8982}
+: ${MOCK_SPI_ENDPOINT:=https://localhost:9443}
+: ${CB_JVM_ARGS:=""}
+: ${CB_NUMBER_OF_USERS:=3}
+: ${CB_RAMPUP_SECONDS:=5}
+: ${CB_POLL_SECONDS:=5}
+: ${CB_FLOW_TIMEOUT_SECONDS:=1800}
+: ${CB_API_READ_DURATION_SECONDS:=120}
+: ${CB_WORKER_COUNT:=1}
+: ${CB_SCALED_WORKER_COUNT:=3}
+: ${CB_MAX_FAILED_PERCENT:=0}
+
+PERFTEST_DIR=$(cd "$(dirname "$0")" && pwd)
+ROOT_DIR=$(dirname "$PERFTEST_DIR")
+RUN_ID=local-$(date +%s)
+RUN_DIR=$PERFTEST_DIR/results/$RUN_ID
+mkdir -p "$RUN_DIR"
+
+for tool in docker curl jq; do
+  command -v $tool > /dev/null || { echo "[!!] $tool is required"; exit 1; }
+done
+
+pids=()
+cleanup() {
+  for pid in "${pids[@]}"; do
+    pkill -P "$pid" 2> /dev/null || true
+    kill "$pid" 2> /dev/null || true
+  done
+}
+trap cleanup EXIT
+
+wait_for() {
+  local name=$1
+  local check=$2
+  local deadline=$(( $(date +%s) + CB_STARTUP_TIMEOUT_SECONDS ))
+  echo "Waiting for $name"
+  until eval "$check" > /dev/null 2>&1; do
+    if [[ $(date +%s) -gt $deadline ]]; then
+      echo "[!!] $name did not start in $CB_STARTUP_TIMEOUT_SECONDS seconds, see the logs in $RUN_DIR"
+      exit 1
+    fi
+    sleep 5
+  done
+}
+
+start_service() {
+  local name=$1
+  shift
+  echo "Starting $name, log: $RUN_DIR/$name.log"
+  (cd "$ROOT_DIR" && ./gradlew "$@" > "$RUN_DIR/$name.log" 2>&1) &
+  pids+=($!)
+}
+
+if [[ "$CB_START_SERVICES" == "true" ]]; then
+  start_service mock-caas :mock-caas:bootRun \
+    -PjvmArgs="-Dserver.port=$MOCK_CAAS_PORT -Dgrpc.server.port=$MOCK_CAAS_GRPC_PORT"
+  wait_for mock-caas "(echo > /dev/tcp/localhost/$MOCK_CAAS_GRPC_PORT)"
+
+  start_service core :core:bootRun \
+    -PjvmArgs="-Dserver.port=$CB_PORT -Daltus.ums.host=localhost -Daltus.ums.port=$MOCK_CAAS_GRPC_PORT \
+      -Dmock.spi.endpoint=$MOCK_SPI_ENDPOINT -Dspring.jpa.properties.hibernate.generate_statistics=true $CB_JVM_ARGS"
+fi
+wait_for core "curl -sf $CB_PERFTEST_BASE_URL/cb/health"
+
+for scenario in $CB_PERFTEST_SCENARIOS; do
+  scenario_dir=$RUN_DIR/$scenario
+  mkdir -p "$scenario_dir"
+  curl -sf "$CB_PERFTEST_BASE_URL/cb/metrics" > "$scenario_dir/metrics-before.txt"
+  started=$(date +%s)
+
+  echo "Running scenario $scenario"
+  docker run --rm --network host \
+  -v "$PERFTEST_DIR/conf":/opt/gatling/conf \
+  -v "$PERFTEST_DIR/user-files":/opt/gatling/user-files \
+  -v "$RUN_DIR":/opt/gatling/results \
+  -e JAVA_OPTS="-Dgatling.charting.useGroupDurationMetric=true" \
+  -e CB_PERFTEST_BASE_URL=$CB_PERFTEST_BASE_URL \
+  -e CB_PERFTEST_SCENARIO=$scenario \
+  -e CB_NUMBER_OF_USERS=$CB_NUMBER_OF_USERS \
+  -e CB_RAMPUP_SECONDS=$CB_RAMPUP_SECONDS \
+  -e CB_POLL_SECONDS=$CB_POLL_SECONDS \
+  -e CB_FLOW_TIMEOUT_SECONDS=$CB_FLOW_TIMEOUT_SECONDS \
+  -e CB_API_READ_DURATION_SECONDS=$CB_API_READ_DURATION_SECONDS \
+  -e CB_WORKER_COUNT=$CB_WORKER_COUNT \
+  -e CB_SCALED_WORKER_COUNT=$CB_SCALED_WORKER_COUNT \
+  -e CB_MAX_FAILED_PERCENT=$CB_MAX_FAILED_PERCENT \
+  -e CB_ACTOR_CRN="$CB_ACTOR_CRN" \
+  -e CB_ENVIRONMENT_CRN="$CB_ENVIRONMENT_CRN" \
+  -e CB_ENVIRONMENT_NAME="$CB_ENVIRONMENT_NAME" \
+  -e CB_BLUEPRINT_NAME="$CB_BLUEPRINT_NAME" \
+  -e CB_IMAGE_CATALOG_NAME="$CB_IMAGE_CATALOG_NAME" \
+  -e CB_IMAGE_ID="$CB_IMAGE_ID" \
+  -e CB_REGION="$CB_REGION" \
+  -e CB_AVAILABILITY_ZONE="$CB_AVAILABILITY_ZONE" \
+  denvazh/gatling:2.3.1 -m -s cloudbreak.ClusterLifecycleSimulation -on "$scenario" \
+    -rf "/opt/gatling/results/$scenario" || echo "[!!] Scenario $scenario failed, the summary marks the failed assertions"
+
+  duration=$(( $(date +%s) - started ))
+  curl -sf "$CB_PERFTEST_BASE_URL/cb/metrics" > "$scenario_dir/metrics-after.txt"
+  report_dir=$(ls -d "$scenario_dir/$scenario"-* | tail -1)
+  "$PERFTEST_DIR/summarize.sh" "$scenario" "$report_dir" "$scenario_dir/metrics-before.txt" "$scenario_dir/metrics-after.txt" \
+    "$duration" "$scenario_dir/summary.json"
+done
+
+jq -s '.' "$RUN_DIR"/*/summary.json > "$RUN_DIR/summary.json"
+echo "Results of all scenarios: $RUN_DIR/summary.json"
@@ -0,0 +1,79 @@
+#!/bin/bash
+# Builds a machine-readable summary of one ClusterLifecycleSimulation run.
+# Usage: summarize.sh <scenario> <gatling report dir> <metrics before> <metrics after> <duration seconds> <output json>
+
+set -eo pipefail
+
+scenario=$1
+report_dir=$2
+metrics_before=$3
+metrics_after=$4
+duration_seconds=$5
+output=$6
+
+# Sums the samples of a Prometheus metric whose tags contain the optional filter
+metric_sum() {
+  awk -v name="$2" -v filter="$3" '!/^#/ { split($1, parts, "{"); if (parts[1] == name && index($1, filter) > 0) sum += $NF }
+    END { printf "%.0f", sum }' "$1"
+}
+
+metric_delta() {
+  echo $(( $(metric_sum "$metrics_after" "$1" "$2") - $(metric_sum "$metrics_before" "$1" "$2") ))
+}
+
+finished_flows=$(metric_delta cloudbreak_flow_finished_total)
+failed_flows=$(metric_delta cloudbreak_flow_finished_total 'failed="true"')
+statements=$(metric_delta hibernate_statements_total 'status="prepared"')
+queries=$(metric_delta hibernate_query_executions_total)
+entity_loads=$(metric_delta hibernate_entities_loads_total)
+
+assertions_file="$report_dir/js/assertions.json"
+if [[ -f "$assertions_file" ]]; then
+  assertions=$(jq '[.assertions[] | {description, result}]' "$assertions_file")
+else
+  assertions='[]'
+fi
+
+jq -n \
+  --arg scenario "$scenario" \
+  --arg report "$report_dir" \
+  --argjson durationSeconds "$duration_seconds" \
+  --argjson finishedFlows "$finished_flows" \
+  --argjson failedFlows "$failed_flows" \
+  --argjson statements "$statements" \
+  --argjson queries "$queries" \
+  --argjson entityLoads "$entity_loads" \
+  --argjson assertions "$assertions" \
+  --slurpfile stats "$report_dir/js/stats.json" \
+  '
+  def num: if type == "string" then (tonumber? // null) else . end;
+  def timings: {
+      count: .stats.numberOfRequests.total | num,
+      ko: .stats.numberOfRequests.ko | num,
+      mean: .stats.meanResponseTime.total | num,
+      p50: .stats.percentiles1.total | num,
+      p95: .stats.percentiles3.total | num,
+      p99: .stats.percentiles4.total | num
+    };
+  def entries(kind): [$stats[0] | .. | objects | select(.type? == kind and has("stats")) | {name} + timings];
+  {
+    scenario: $scenario,
+    report: $report,
+    durationSeconds: $durationSeconds,
+    flows: {
+      finished: $finishedFlows,
+      failed: $failedFlows,
+      perMinute: (if $durationSeconds > 0 then ($finishedFlows * 60 / $durationSeconds) else 0 end)
+    },
+    database: {
+      statements: $statements,
+      queryExecutions: $queries,
+      entityLoads: $entityLoads,
+      statementsPerFinishedFlow: (if $finishedFlows > 0 then ($statements / $finishedFlows) else null end)
+    },
+    requests: entries("REQUEST"),
+    flowDurations: (entries("GROUP") | map(select(.name != "Global Information"))),
+    assertions: $assertions
+  }' > "$output"
+
+echo "Summary of $scenario written to $output"
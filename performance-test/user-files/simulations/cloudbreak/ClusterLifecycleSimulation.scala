@@ -0,0 +1,83 @@
+package cloudbreak
+
+import io.gatling.core.Predef._
+import io.gatling.http.Predef._
+import scala.concurrent.duration._
+
+/**
+  * Drives concurrent cluster lifecycles against a locally started core that provisions on the mock cloud provider.
+  * The flows are measured through the "create", "scale" and "terminate" groups, run it with gatling.charting.useGroupDurationMetric
+  * so that the group timings are the flow durations. See perftest-local.sh.
+  */
+class ClusterLifecycleSimulation extends Simulation {
+
+  val r = scala.util.Random
+
+  def env(name: String, default: String) = sys.env.get(name).filter(_.trim.nonEmpty).getOrElse(default)
+
+  val baseUrl = env("CB_PERFTEST_BASE_URL", "http://localhost:9091")
+  val scenarioName = env("CB_PERFTEST_SCENARIO", "create-terminate")
+  val numberOfUsers = env("CB_NUMBER_OF_USERS", "3").toInt
+  val rampupSeconds = env("CB_RAMPUP_SECONDS", "5").toInt
+  val pollSeconds = env("CB_POLL_SECONDS", "5").toInt
+  val flowTimeoutSeconds = env("CB_FLOW_TIMEOUT_SECONDS", "1800").toInt
+  val apiReadDurationSeconds = env("CB_API_READ_DURATION_SECONDS", "120").toInt
+  val workerCount = env("CB_WORKER_COUNT", "1")
+  val scaledWorkerCount = env("CB_SCALED_WORKER_COUNT", "3")
+  val maxFailedPercent = env("CB_MAX_FAILED_PERCENT", "0").toDouble
+
+  val sessionDefaults = Map(
+    "actorCrn" -> env("CB_ACTOR_CRN", "crn:altus:iam:us-west-1:cloudera:user:perftest@cloudera.com"),
+    "environmentCrn" -> env("CB_ENVIRONMENT_CRN", ""),
+    "environmentName" -> env("CB_ENVIRONMENT_NAME", "mock-env"),
+    "blueprintName" -> env("CB_BLUEPRINT_NAME", "CDP 1.0 - Data Engineering: Apache Spark, Apache Hive, Apache Oozie"),
+    "imageCatalogName" -> env("CB_IMAGE_CATALOG_NAME", "cdp-default"),
+    "imageId" -> env("CB_IMAGE_ID", ""),
+    "region" -> env("CB_REGION", "London"),
+    "availabilityZone" -> env("CB_AVAILABILITY_ZONE", "London"),
+    "workerCount" -> workerCount)
+
+  val httpConf = http
+    .baseURL(baseUrl)
+    .userAgentHeader("curl/7.37.1")
+
+  val init = exec(_.setAll(sessionDefaults))
+    .exec(Utils.addVariableToSession(_, "stackName", "perftest-" + r.alphanumeric.take(10).mkString.toLowerCase))
+    .exec(LifecycleRequests.listWorkspaces)
+    .exitHereIfFailed
+
+  val create = group("create") {
+    exec(LifecycleRequests.createStack)
+      .exitHereIfFailed
+      .exec(LifecycleRequests.waitForStatus("AVAILABLE", pollSeconds, flowTimeoutSeconds))
+  }
+
+  val scale = group("scale") {
+    exec(Utils.addVariableToSession(_, "desiredCount", scaledWorkerCount))
+      .exec(LifecycleRequests.scaleStack)
+      .exitHereIfFailed
+      .pause(pollSeconds seconds)
+      .exec(LifecycleRequests.waitForStatus("AVAILABLE", pollSeconds, flowTimeoutSeconds))
+  }
+
+  val terminate = group("terminate") {
+    exec(LifecycleRequests.deleteStack)
+      .exitHereIfFailed
+      .exec(LifecycleRequests.waitForStatus("DELETE_COMPLETED", pollSeconds, flowTimeoutSeconds))
+  }
+
+  val apiRead = during(apiReadDurationSeconds seconds) {
+    exec(LifecycleRequests.listWorkspaces)
+      .exec(LifecycleRequests.listStacks)
+  }
+
+  val scn = scenarioName match {
+    case "create-terminate" => scenario(scenarioName).exec(init, create, terminate)
+    case "create-scale-terminate" => scenario(scenarioName).exec(init, create, scale, terminate)
+    case "api-read" => scenario(scenarioName).exec(init, apiRead)
+    case other => throw new IllegalArgumentException("Unknown scenario: " + other)
+  }
+
+  setUp(scn.inject(rampUsers(numberOfUsers) over (rampupSeconds seconds)).protocols(httpConf))
+    .assertions(global.failedRequests.percent.lte(maxFailedPercent))
+}
@@ -0,0 +1,70 @@
+package cloudbreak
+
+import io.gatling.core.Predef._
+import io.gatling.http.Predef._
+import scala.concurrent.duration._
+
+object LifecycleRequests {
+
+  val actorHeaders = Map("x-cdp-actor-crn" -> "${actorCrn}", "Content-Type" -> "application/json", "Accept" -> "application/json")
+
+  val listWorkspaces = http("list workspaces")
+      .get("/cb/api/v4/workspaces")
+      .headers(actorHeaders)
+      .check(status.is(200), jsonPath("$.responses[0].id").saveAs("workspaceId"))
+
+  val listStacks = http("list stacks")
+      .get("/cb/api/v4/${workspaceId}/stacks")
+      .queryParam("environment", "${environmentName}")
+      .headers(actorHeaders)
+      .check(status.is(200))
+
+  val createStack = http("create stack")
+      .post("/cb/api/v4/${workspaceId}/stacks")
+      .headers(actorHeaders)
+      .body(ElFileBody("./simulations/cloudbreak/resources/create-stack-v4-mock.json"))
+      .check(status.is(200))
+
+  val getStack = http("get stack")
+      .get("/cb/api/v4/${workspaceId}/stacks/${stackName}")
+      .headers(actorHeaders)
+      .check(status.in(200, 404).saveAs("httpStatus"),
+          jsonPath("$.status").optional.saveAs("stackStatus"))
+
+  val scaleStack = http("scale stack")
+      .put("/cb/api/v4/${workspaceId}/stacks/${stackName}/scaling")
+      .headers(actorHeaders)
+      .body(StringBody("""{"group":"worker","desiredCount":${desiredCount}}"""))
+      .check(status.in(200, 202, 204))
+
+  val deleteStack = http("delete stack")
+      .delete("/cb/api/v4/${workspaceId}/stacks/${stackName}")
+      .headers(actorHeaders)
+      .check(status.in(200, 202, 204))
+
+  /**
+    * Polls the stack until it reaches the expected status, fails the virtual user when the stack fails or the timeout is reached.
+    * A missing stack counts as DELETE_COMPLETED.
+    */
+  def waitForStatus(expectedStatus: String, pollSeconds: Int, timeoutSeconds: Int) =
+    exec(_.set("stackStatus", "").set("httpStatus", 0).set("waitStarted", System.currentTimeMillis))
+      .asLongAs(s => !isFinished(s, expectedStatus) && !isTimedOut(s, timeoutSeconds)) {
+        pause(pollSeconds seconds)
+          .exec(getStack)
+      }
+      .exec(s => if (currentStatus(s) == expectedStatus) s else s.markAsFailed)
+      .exitHereIfFailed
+
+  private def currentStatus(session: Session) = {
+    if (session("httpStatus").as[Int] == 404) "DELETE_COMPLETED" else session("stackStatus").as[String]
+  }
+
+  private def isFinished(session: Session, expectedStatus: String) = {
+    val status = currentStatus(session)
+    status == expectedStatus || status.endsWith("_FAILED")
+  }
+
+  private def isTimedOut(session: Session, timeoutSeconds: Int) = {
+    System.currentTimeMillis - session("waitStarted").as[Long] > timeoutSeconds * 1000L
+  }
+}
@@ -1,6 +1,8 @@
 package com.sequenceiq.redbeams.service;
 
+import java.time.Duration;
 import java.util.Map;
+import java.util.function.ToDoubleFunction;
 
 import org.springframework.stereotype.Service;
 
@@ -25,4 +27,16 @@ public class DummyMetricService implements MetricService {
     @Override
     public void incrementMetricCounter(Metric metric, String... tags) {
     }
+
+    @Override
+    public void incrementMetricCounter(Metric metric, double amount, String... tags) {
+    }
+
+    @Override
+    public void recordTimerMetric(Metric metric, Duration duration, String... tags) {
+    }
+
+    @Override
+    public <T> void registerGaugeMetric(Metric metric, T stateObject, ToDoubleFunction<T> valueFunction, String... tags) {
+    }
 }
@@ -66,7 +66,9 @@ public class CmTemplateProcessor implements BlueprintTextProcessor {
 
     private static final String ROLE_TYPE = "roleType";
 
-    private final ApiClusterTemplate cmTemplate;
+    private ApiClusterTemplate cmTemplate;
+
+    private ParsedCmTemplate sharedTemplate;
 
     public CmTemplateProcessor(@Nonnull String cmTemplateText) {
         try {
@@ -76,6 +78,15 @@ public class CmTemplateProcessor implements BlueprintTextProcessor {
         }
     }
 
+    /**
+     * Creates a processor over a cached template. The read-only queries are answered from the indexes of the cached template, the first
+     * modification copies the template, so the cached one is never changed.
+     */
+    CmTemplateProcessor(ParsedCmTemplate parsedTemplate) {
+        cmTemplate = parsedTemplate.getTemplate();
+        sharedTemplate = parsedTemplate;
+    }
+
     @Override
     public ClusterManagerType getClusterManagerType() {
         return ClusterManagerType.CLOUDERA_MANAGER;
@@ -103,6 +114,9 @@ public class CmTemplateProcessor implements BlueprintTextProcessor {
 
     @Override
     public Set<String> getHostGroupsWithComponent(String component) {
+        if (sharedTemplate != null) {
+            return sharedTemplate.getHostGroupsWithComponent(component);
+        }
         return getComponentsByHostGroup().entrySet().stream()
                 .filter(e -> e.getValue().contains(component))
                 .map(Map.Entry::getKey)
@@ -141,6 +155,9 @@ public class CmTemplateProcessor implements BlueprintTextProcessor {
 
     @Override
     public Map<String, InstanceCount> getCardinalityByHostGroup() {
+        if (sharedTemplate != null) {
+            return sharedTemplate.getCardinalityByHostGroup();
+        }
         Map<String, InstanceCount> result = new TreeMap<>();
         for (ApiClusterTemplateHostTemplate group : Optional.ofNullable(cmTemplate.getHostTemplates()).orElse(List.of())) {
             InstanceCount recommendedCount = recommendInstanceCount(group.getRefName(), group.getCardinality())
@@ -160,6 +177,9 @@ public class CmTemplateProcessor implements BlueprintTextProcessor {
     }
 
     public Map<String, Set<ServiceComponent>> getServiceComponentsByHostGroup() {
+        if (sharedTemplate != null) {
+            return sharedTemplate.getServiceComponentsByHostGroup();
+        }
         Map<String, ServiceComponent> rolesByRoleRef = mapRoleRefsToServiceComponents();
         return collectServiceComponentsByHostGroup(rolesByRoleRef);
     }
@@ -199,6 +219,9 @@ public class CmTemplateProcessor implements BlueprintTextProcessor {
 
     @Override
     public Map<String, Set<String>> getComponentsByHostGroup() {
+        if (sharedTemplate != null) {
+            return sharedTemplate.getComponentsByHostGroup();
+        }
         return getServiceComponentsByHostGroup().entrySet().stream()
                 .collect(toMap(
                         Map.Entry::getKey,
@@ -249,6 +272,7 @@ public class CmTemplateProcessor implements BlueprintTextProcessor {
     }
 
     public void addInstantiator(ClouderaManagerRepo clouderaManagerRepoDetails, TemplatePreparationObject templatePreparationObject, String sdxContextName) {
+        mutableTemplate();
         ApiClusterTemplateInstantiator instantiator = ofNullable(cmTemplate.getInstantiator()).orElseGet(ApiClusterTemplateInstantiator::new);
         if (instantiator.getClusterName() == null) {
             instantiator.setClusterName(templatePreparationObject.getGeneralClusterConfigs().getClusterName());
@@ -281,11 +305,12 @@ public class CmTemplateProcessor implements BlueprintTextProcessor {
 
     public void addVariables(List<ApiClusterTemplateVariable> vars) {
         for (ApiClusterTemplateVariable v : vars) {
-            cmTemplate.getInstantiator().addVariablesItem(v);
+            mutableTemplate().getInstantiator().addVariablesItem(v);
         }
     }
 
     public void extendTemplateWithAdditionalServices(Map<String, ApiClusterTemplateService> hostGroupServices) {
+        mutableTemplate();
         for (Entry<String, ApiClusterTemplateService> hostGroupService : hostGroupServices.entrySet()) {
             ApiClusterTemplateService service = hostGroupService.getValue();
             List<String> serviceRefNames = service.getRoleConfigGroups().stream()
@@ -359,7 +384,7 @@ public class CmTemplateProcessor implements BlueprintTextProcessor {
     }
 
     public boolean isRoleTypePresentInService(String serviceType, List<String> roleTypes) {
-        return getServiceByType(serviceType).filter(acts -> isAnyRoleTypePresent(acts, roleTypes)).isPresent();
+        return findServiceByType(serviceType).filter(acts -> isAnyRoleTypePresent(acts, roleTypes)).isPresent();
     }
 
     private boolean isAnyRoleTypePresent(ApiClusterTemplateService apiClusterTemplateService, List<String> roleTypes) {
@@ -367,7 +392,19 @@ public class CmTemplateProcessor implements BlueprintTextProcessor {
                 .anyMatch(rcg -> roleTypes.stream().anyMatch(roleType -> roleType.equalsIgnoreCase(rcg.getRoleType())));
     }
 
+    public boolean isServiceTypePresent(String serviceType) {
+        return findServiceByType(serviceType).isPresent();
+    }
+
+    /**
+     * Returns the service to be modified, so a cached template is copied first. The read-only queries look up the service without the copy.
+     */
     public Optional<ApiClusterTemplateService> getServiceByType(String serviceType) {
+        mutableTemplate();
+        return findServiceByType(serviceType);
+    }
+
+    private Optional<ApiClusterTemplateService> findServiceByType(String serviceType) {
         for (ApiClusterTemplateService service : cmTemplate.getServices()) {
             if (serviceType.equalsIgnoreCase(service.getServiceType())) {
                 return Optional.of(service);
@@ -377,52 +414,61 @@ public class CmTemplateProcessor implements BlueprintTextProcessor {
     }
 
     public ApiClusterTemplate getTemplate() {
-        return cmTemplate;
+        return mutableTemplate();
     }
 
     public void addHosts(Map<String, List<Map<String, String>>> hostGroupMappings) {
+        mutableTemplate();
         hostGroupMappings.forEach((hostGroup, hostAttributes) -> hostAttributes.forEach(
                 attr -> cmTemplate.getInstantiator().addHostsItem(new ApiClusterTemplateHostInfo().hostName(attr.get("fqdn")).hostTemplateRefName(hostGroup))
         ));
     }
 
     public void resetProducts() {
-        cmTemplate.setProducts(new ArrayList<>());
+        mutableTemplate().setProducts(new ArrayList<>());
     }
 
     public void resetRepositories() {
-        cmTemplate.setRepositories(new ArrayList<>());
+        mutableTemplate().setRepositories(new ArrayList<>());
     }
 
     public void addProduct(String product, String version) {
         ApiProductVersion productVersion = new ApiProductVersion();
         productVersion.setProduct(product);
         productVersion.setVersion(version);
-        cmTemplate.addProductsItem(productVersion);
+        mutableTemplate().addProductsItem(productVersion);
     }
 
     public void addRepositoryItem(String repositoriesItem) {
-        cmTemplate.addRepositoriesItem(repositoriesItem);
+        mutableTemplate().addRepositoriesItem(repositoriesItem);
     }
 
     public void setCmVersion(String cmVersion) {
-        cmTemplate.setCmVersion(cmVersion);
+        mutableTemplate().setCmVersion(cmVersion);
     }
 
     public void setCdhVersion(String cdhVersion) {
-        cmTemplate.setCdhVersion(cdhVersion);
+        mutableTemplate().setCdhVersion(cdhVersion);
     }
 
     public void setDisplayName(String displayName) {
-        cmTemplate.setDisplayName(displayName);
+        mutableTemplate().setDisplayName(displayName);
     }
 
     public void setHostTemplates(List<ApiClusterTemplateHostTemplate> hostTemplates) {
-        cmTemplate.setHostTemplates(hostTemplates);
+        mutableTemplate().setHostTemplates(hostTemplates);
     }
 
     public void setServices(List<ApiClusterTemplateService> services) {
-        cmTemplate.setServices(services);
+        mutableTemplate().setServices(services);
+    }
+
+    private ApiClusterTemplate mutableTemplate() {
+        if (sharedTemplate != null) {
+            cmTemplate = sharedTemplate.copyTemplate();
+            sharedTemplate = null;
+        }
+        return cmTemplate;
     }
 
     @VisibleForTesting
@@ -453,6 +499,7 @@ public class CmTemplateProcessor implements BlueprintTextProcessor {
     }
 
     public void removeDanglingVariableReferences() {
+        mutableTemplate();
         if (cmTemplate.getServices() != null) {
             Set<String> existingVariables = cmTemplate.getInstantiator() != null && cmTemplate.getInstantiator().getVariables() != null
                     ? cmTemplate.getInstantiator().getVariables().stream()
@@ -501,7 +548,7 @@ public class CmTemplateProcessor implements BlueprintTextProcessor {
     }
 
     public Optional<ApiClusterTemplateConfig> getRoleConfig(String serviceType, String roleType, String configName) {
-        return getServiceByType(serviceType).flatMap(
+        return findServiceByType(serviceType).flatMap(
                 service -> Optional.ofNullable(service.getRoleConfigGroups()).orElseGet(List::of).stream()
                         .filter(rcg -> Objects.equals(roleType, rcg.getRoleType()))
                         .flatMap(rcg -> Optional.ofNullable(rcg.getConfigs()).orElseGet(List::of).stream())
@@ -1,10 +1,44 @@
 package com.sequenceiq.cloudbreak.cmtemplate;
 
+import java.nio.charset.StandardCharsets;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
 @Component
 public class CmTemplateProcessorFactory {
+
+    @Value("${cb.cmtemplate.cache.enabled:false}")
+    private boolean cacheEnabled;
+
+    @Value("${cb.cmtemplate.cache.max.size:100}")
+    private long cacheMaxSize;
+
+    private Cache<String, ParsedCmTemplate> parsedTemplates;
+
+    @PostConstruct
+    public void init() {
+        if (cacheEnabled) {
+            parsedTemplates = CacheBuilder.newBuilder().maximumSize(cacheMaxSize).build();
+        }
+    }
+
     public CmTemplateProcessor get(String cmTemplateText) {
-        return new CmTemplateProcessor(cmTemplateText);
+        if (parsedTemplates == null || cmTemplateText == null) {
+            return new CmTemplateProcessor(cmTemplateText);
+        }
+        String contentHash = Hashing.sha256().hashString(cmTemplateText, StandardCharsets.UTF_8).toString();
+        ParsedCmTemplate parsedTemplate = parsedTemplates.getIfPresent(contentHash);
+        if (parsedTemplate == null) {
+            parsedTemplate = new ParsedCmTemplate(cmTemplateText);
+            parsedTemplates.put(contentHash, parsedTemplate);
+        }
+        return new CmTemplateProcessor(parsedTemplate);
     }
 }
@@ -0,0 +1,86 @@
+package com.sequenceiq.cloudbreak.cmtemplate;
+
+import static java.util.stream.Collectors.toMap;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.Nonnull;
+
+import com.cloudera.api.swagger.model.ApiClusterTemplate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sequenceiq.cloudbreak.cloud.model.InstanceCount;
+import com.sequenceiq.cloudbreak.common.json.JsonUtil;
+import com.sequenceiq.cloudbreak.template.BlueprintProcessingException;
+import com.sequenceiq.cloudbreak.template.model.ServiceComponent;
+
+/**
+ * A parsed cluster template shared by the {@link CmTemplateProcessor}s of the same template text. The template must not be modified, the
+ * processors take a copy of it from the tree snapshot before the first modification. The host group queries are computed once.
+ */
+class ParsedCmTemplate {
+
+    private final ApiClusterTemplate template;
+
+    private final JsonNode snapshot;
+
+    private final Map<String, Set<ServiceComponent>> serviceComponentsByHostGroup;
+
+    private final Map<String, Set<String>> componentsByHostGroup;
+
+    private final Map<String, Set<String>> hostGroupsByComponent;
+
+    private final Map<String, InstanceCount> cardinalityByHostGroup;
+
+    ParsedCmTemplate(@Nonnull String cmTemplateText) {
+        CmTemplateProcessor processor = new CmTemplateProcessor(cmTemplateText);
+        template = processor.getTemplate();
+        snapshot = JsonUtil.convertToTree(template);
+        serviceComponentsByHostGroup = unmodifiable(processor.getServiceComponentsByHostGroup());
+        componentsByHostGroup = unmodifiable(processor.getComponentsByHostGroup());
+        cardinalityByHostGroup = Collections.unmodifiableMap(new TreeMap<>(processor.getCardinalityByHostGroup()));
+        Map<String, Set<String>> hostGroupsByComponentBuilder = new HashMap<>();
+        componentsByHostGroup.forEach((hostGroup, components) -> components
+                .forEach(component -> hostGroupsByComponentBuilder.computeIfAbsent(component, key -> new HashSet<>()).add(hostGroup)));
+        hostGroupsByComponent = unmodifiable(hostGroupsByComponentBuilder);
+    }
+
+    ApiClusterTemplate getTemplate() {
+        return template;
+    }
+
+    ApiClusterTemplate copyTemplate() {
+        try {
+            return JsonUtil.treeToValue(snapshot, ApiClusterTemplate.class);
+        } catch (JsonProcessingException e) {
+            throw new BlueprintProcessingException("Failed to copy blueprint.", e);
+        }
+    }
+
+    Map<String, Set<ServiceComponent>> getServiceComponentsByHostGroup() {
+        return serviceComponentsByHostGroup;
+    }
+
+    Map<String, Set<String>> getComponentsByHostGroup() {
+        return componentsByHostGroup;
+    }
+
+    Set<String> getHostGroupsWithComponent(String component) {
+        return hostGroupsByComponent.getOrDefault(component, Set.of());
+    }
+
+    Map<String, InstanceCount> getCardinalityByHostGroup() {
+        return cardinalityByHostGroup;
+    }
+
+    private static <T> Map<String, Set<T>> unmodifiable(Map<String, Set<T>> map) {
+        return Collections.unmodifiableMap(map.entrySet().stream()
+                .collect(toMap(Entry::getKey, entry -> Collections.unmodifiableSet(entry.getValue()))));
+    }
+}
@@ -63,7 +63,7 @@ public class CoreConfigProvider extends AbstractRoleConfigProvider {
     @Override
     public Map<String, ApiClusterTemplateService> getAdditionalServices(CmTemplateProcessor cmTemplateProcessor, TemplatePreparationObject source) {
         if (isConfigurationNeeded(cmTemplateProcessor, source)
-                && cmTemplateProcessor.getServiceByType(CORE_SETTINGS).isEmpty()) {
+                && !cmTemplateProcessor.isServiceTypePresent(CORE_SETTINGS)) {
             ApiClusterTemplateService coreSettings = createBaseCoreSettingsService();
             Set<HostgroupView> hostgroupViews = source.getHostgroupViews();
             return hostgroupViews.stream()
@@ -123,7 +123,7 @@ public class KnoxGatewayConfigProvider extends AbstractRoleConfigProvider {
 
     @Override
     public Map<String, ApiClusterTemplateService> getAdditionalServices(CmTemplateProcessor cmTemplateProcessor, TemplatePreparationObject source) {
-        if (source.getGatewayView() != null && cmTemplateProcessor.getServiceByType(KnoxRoles.KNOX).isEmpty()) {
+        if (source.getGatewayView() != null && !cmTemplateProcessor.isServiceTypePresent(KnoxRoles.KNOX)) {
             ApiClusterTemplateService knox = createBaseKnoxService();
             Set<HostgroupView> hostgroupViews = source.getHostgroupViews();
             return hostgroupViews.stream()
@@ -24,7 +24,7 @@ public class YarnConfigProvider implements CmTemplateComponentConfigProvider {
     @Override
     public List<ApiClusterTemplateConfig> getServiceConfigs(CmTemplateProcessor templateProcessor, TemplatePreparationObject templatePreparationObject) {
         List<ApiClusterTemplateConfig> apiClusterTemplateConfigs = Lists.newArrayList();
-        if (templateProcessor.getServiceByType(HiveRoles.HIVELLAP).isPresent()) {
+        if (templateProcessor.isServiceTypePresent(HiveRoles.HIVELLAP)) {
             apiClusterTemplateConfigs.add(config(YARN_SITE_SERVICE_SAFETY_VALVE, getYarnSiteServiceValveValue()));
         }
         return apiClusterTemplateConfigs;
@@ -44,7 +44,7 @@ public class YarnResourceManagerRoleConfigProvider extends AbstractRoleConfigPro
 
     @Override
     public boolean isConfigurationNeeded(CmTemplateProcessor cmTemplateProcessor, TemplatePreparationObject source) {
-        return cmTemplateProcessor.getServiceByType(HiveRoles.HIVELLAP).isPresent()
+        return cmTemplateProcessor.isServiceTypePresent(HiveRoles.HIVELLAP)
                 && cmTemplateProcessor.isRoleTypePresentInService(getServiceType(), getRoleTypes());
     }
 
@@ -0,0 +1,63 @@
+package com.sequenceiq.cloudbreak.cmtemplate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.sequenceiq.cloudbreak.util.FileReaderUtils;
+
+public class CmTemplateProcessorFactoryTest {
+
+    private final CmTemplateProcessorFactory underTest = new CmTemplateProcessorFactory();
+
+    private String blueprintText;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(underTest, "cacheEnabled", true);
+        ReflectionTestUtils.setField(underTest, "cacheMaxSize", 10L);
+        underTest.init();
+        blueprintText = FileReaderUtils.readFileFromClasspathQuietly("input/clouderamanager.bp");
+    }
+
+    @Test
+    public void testCachedProcessorAnswersLikeParsedOne() {
+        CmTemplateProcessor parsed = new CmTemplateProcessor(blueprintText);
+        CmTemplateProcessor cached = underTest.get(blueprintText);
+
+        assertEquals(parsed.getComponentsByHostGroup(), cached.getComponentsByHostGroup());
+        assertEquals(parsed.getServiceComponentsByHostGroup(), cached.getServiceComponentsByHostGroup());
+        assertEquals(parsed.getCardinalityByHostGroup(), cached.getCardinalityByHostGroup());
+        assertEquals(parsed.getHostGroupsWithComponent("NAMENODE"), cached.getHostGroupsWithComponent("NAMENODE"));
+        assertTrue(cached.getHostGroupsWithComponent("UNKNOWN").isEmpty());
+    }
+
+    @Test
+    public void testProcessorsOfTheSameTextShareTheParsedTemplate() {
+        CmTemplateProcessor first = underTest.get(blueprintText);
+        CmTemplateProcessor second = underTest.get(blueprintText);
+
+        assertSame(first.getComponentsByHostGroup(), second.getComponentsByHostGroup());
+    }
+
+    @Test
+    public void testModificationDoesNotChangeTheCachedTemplate() {
+        CmTemplateProcessor modified = underTest.get(blueprintText);
+        String originalVersion = modified.getStackVersion();
+
+        modified.setCdhVersion("changed");
+        modified.getTemplate().getHostTemplates().clear();
+
+        CmTemplateProcessor other = underTest.get(blueprintText);
+        assertEquals("changed", modified.getStackVersion());
+        assertTrue(modified.getComponentsByHostGroup().isEmpty());
+        assertEquals(originalVersion, other.getStackVersion());
+        assertEquals(new CmTemplateProcessor(blueprintText).getComponentsByHostGroup(), other.getComponentsByHostGroup());
+        assertNotSame(modified.getTemplate(), other.getTemplate());
+    }
+}
@@ -5,6 +5,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -447,6 +450,22 @@ public class CmTemplateProcessorTest {
         assertEquals(2, underTest.getHostTemplateNames().stream().filter("master"::equals).count());
     }
 
+    @Test
+    public void testReadOnlyServiceQueriesDoNotCopyTheCachedTemplate() {
+        ParsedCmTemplate parsedTemplate = spy(new ParsedCmTemplate(getBlueprintText("input/clouderamanager-existing-conf.bp")));
+        underTest = new CmTemplateProcessor(parsedTemplate);
+
+        assertEquals(Optional.of("/dfs/dn"), underTest.getRoleConfig("HDFS", "DATANODE", "dfs_data_dir_list")
+                .map(ApiClusterTemplateConfig::getValue));
+        assertTrue(underTest.getRoleConfig("HDFS", "NAMENODE", "dfs_data_dir_list").isEmpty());
+        assertTrue(underTest.isServiceTypePresent("HDFS"));
+        assertFalse(underTest.isServiceTypePresent("KNOX"));
+        verify(parsedTemplate, never()).copyTemplate();
+
+        underTest.getServiceByType("HDFS");
+        verify(parsedTemplate).copyTemplate();
+    }
+
     private static void assertSortedEquals(Set<?> expected, Set<?> actual) {
         assertEquals(new TreeSet<>(expected), new TreeSet<>(actual));
     }
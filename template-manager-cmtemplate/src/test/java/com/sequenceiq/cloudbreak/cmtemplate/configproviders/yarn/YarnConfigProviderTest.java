@@ -7,7 +7,6 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
-import java.util.Optional;
 
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
@@ -16,7 +15,6 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import com.cloudera.api.swagger.model.ApiClusterTemplateConfig;
-import com.cloudera.api.swagger.model.ApiClusterTemplateService;
 import com.sequenceiq.cloudbreak.cmtemplate.CmTemplateProcessor;
 import com.sequenceiq.cloudbreak.cmtemplate.configproviders.hive.HiveRoles;
 
@@ -30,7 +28,7 @@ public class YarnConfigProviderTest {
 
     @Test
     public void testGetConfigsWhenLlapIsPresent() {
-        when(cmTemplateProcessor.getServiceByType(eq(HiveRoles.HIVELLAP))).thenReturn(Optional.of(new ApiClusterTemplateService()));
+        when(cmTemplateProcessor.isServiceTypePresent(eq(HiveRoles.HIVELLAP))).thenReturn(true);
         List<ApiClusterTemplateConfig> serviceConfigs = underTest.getServiceConfigs(cmTemplateProcessor, null);
         assertEquals(1, serviceConfigs.size());
         assertTrue(serviceConfigs.stream().anyMatch(sc -> StringUtils.equals(sc.getName(), "yarn_service_config_safety_valve")));
@@ -38,7 +36,7 @@ public class YarnConfigProviderTest {
 
     @Test
     public void testGetConfigsWhenLlapIsNotPresent() {
-        when(cmTemplateProcessor.getServiceByType(eq(HiveRoles.HIVELLAP))).thenReturn(Optional.empty());
+        when(cmTemplateProcessor.isServiceTypePresent(eq(HiveRoles.HIVELLAP))).thenReturn(false);
         List<ApiClusterTemplateConfig> serviceConfigs = underTest.getServiceConfigs(cmTemplateProcessor, null);
         assertEquals(0, serviceConfigs.size());
         assertFalse(serviceConfigs.stream().anyMatch(sc -> StringUtils.equals(sc.getName(), "yarn_service_config_safety_valve")));
@@ -9,7 +9,6 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
-import java.util.Optional;
 
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
@@ -18,7 +17,6 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import com.cloudera.api.swagger.model.ApiClusterTemplateConfig;
-import com.cloudera.api.swagger.model.ApiClusterTemplateService;
 import com.sequenceiq.cloudbreak.cmtemplate.CmTemplateProcessor;
 import com.sequenceiq.cloudbreak.cmtemplate.configproviders.hive.HiveRoles;
 
@@ -48,14 +46,14 @@ public class YarnResourceManagerRoleConfigProviderTest {
 
     @Test
     public void testIsConfigurableWhenLlapIsPresent() {
-        when(cmTemplateProcessor.getServiceByType(eq(HiveRoles.HIVELLAP))).thenReturn(Optional.of(new ApiClusterTemplateService()));
+        when(cmTemplateProcessor.isServiceTypePresent(eq(HiveRoles.HIVELLAP))).thenReturn(true);
         when(cmTemplateProcessor.isRoleTypePresentInService(anyString(), anyList())).thenReturn(true);
         assertTrue(underTest.isConfigurationNeeded(cmTemplateProcessor, null));
     }
 
     @Test
     public void testIsConfigurableWhenLlapIsNotPresent() {
-        when(cmTemplateProcessor.getServiceByType(eq(HiveRoles.HIVELLAP))).thenReturn(Optional.empty());
+        when(cmTemplateProcessor.isServiceTypePresent(eq(HiveRoles.HIVELLAP))).thenReturn(false);
         assertFalse(underTest.isConfigurationNeeded(cmTemplateProcessor, null));
     }
 